@@ -69,6 +69,45 @@ public final class Environment {
 	 */
 	public static final String WORKER_THREADPOOL_SIZE = Environment.WORKER_PREFIX + "thread_pool.size";
 
+	/**
+	 * When set to a positive number, the Lucene Documents of a transaction are not built by the
+	 * committing thread: it only loads the needed entity state, and Documents are built by a pool of
+	 * this number of threads. Works are still applied in the order transactions were committed.
+	 * The Documents are built from the entity instances, not from a copy of their state, and only the
+	 * state needed by built-in bridges is loaded: entities using class bridges, custom field bridges,
+	 * dynamic boosts or analyzer discriminators are still built by the committing thread.
+	 * When all the indexes affected by a transaction are async, the commit doesn't wait for Documents to
+	 * be built, and failures of bridges are reported to the {@link #ERROR_HANDLER} instead of failing the transaction.
+	 * Default 0: Documents are built by the committing thread.
+	 */
+	public static final String DOCUMENT_BUILDING_THREADS = "hibernate.search.worker.document_building.thread_pool.size";
+
+	/**
+	 * Maximum number of entities of each type updated by the committing thread because of the
+	 * {@code @ContainedIn} propagation of a transaction. Entities reached beyond this limit are
+	 * reindexed asynchronously after the transaction commits, when the integration supports it
+	 * (Hibernate ORM does). The limit doesn't apply to the propagation from entities explicitly reindexed
+	 * by {@link org.hibernate.search.backend.spi.WorkType#INDEX} works.
+	 * Default 0: no limit, all entities are updated by the committing thread.
+	 */
+	public static final String CONTAINED_IN_MAX_FAN_OUT = "hibernate.search.worker.contained_in.max_fan_out";
+
+	/**
+	 * Number of entities loaded by each query of the {@code @ContainedIn} propagation: the entities reached
+	 * at each step are loaded in batches together with the collections they are navigated through,
+	 * and so are the entities reached beyond {@link #CONTAINED_IN_MAX_FAN_OUT} when reindexing them
+	 * asynchronously. Default 100.
+	 */
+	public static final String CONTAINED_IN_BATCH_SIZE = "hibernate.search.worker.contained_in.batch_size";
+
+	/**
+	 * When set to a positive number, the indexes targeted by a query, such as the shards of an entity,
+	 * are searched in parallel by a pool of this number of threads, shared by all queries: the top
+	 * documents, facet counts and total hits found in each index are then merged.
+	 * Default 0: indexes are searched sequentially by the thread running the query.
+	 */
+	public static final String QUERY_SHARDS_THREADS = "hibernate.search.query.parallel_shards.thread_pool.size";
+
 	/**
 	 * Size of the buffer queue (besides the thread pool size)
 	 * <ul>
@@ -88,6 +127,14 @@ public final class Environment {
 	 */
 	public static final String READER_STRATEGY = READER_PREFIX + "." + "strategy";
 
+	/**
+	 * Comma separated list of the {@link org.hibernate.search.indexes.spi.IndexReaderWarmer}s preparing
+	 * the IndexReaders of an index before they are used by queries: <code>field_cache</code> for the built-in
+	 * FieldCache warmer, or fully qualified class names. This is an index-scoped property; by default
+	 * IndexReaders are not warmed.
+	 */
+	public static final String READER_WARMER = READER_PREFIX + "." + "warmer";
+
 	/**
 	 * filter caching strategy class (must have a no-arg constructor and implement FilterCachingStrategy)
 	 */
@@ -173,6 +220,14 @@ public final class Environment {
 	 */
 	public static final String ENABLE_DIRTY_CHECK = "hibernate.search.enable_dirty_check";
 
+	/**
+	 * Amount of memory, in megabytes, shared by the IndexWriters of all indexes to buffer changes.
+	 * When the documents buffered by all writers exceed it, the writers using most memory are flushed.
+	 * When set, each IndexWriter may use the whole budget, so the per-index <code>ram_buffer_size</code>
+	 * is ignored. Defaults to 0, which disables the shared budget.
+	 */
+	public static final String INDEXING_RAM_BUDGET = "hibernate.search.indexing_ram_budget";
+
 	/**
 	 * The lucene backend has a separate writing thread for each index, the work pushed to each thread
 	 * is put in a queue which grows up to a maximum number of elements, which is configured by this
@@ -181,6 +236,44 @@ public final class Environment {
 	 */
 	public static final String MAX_QUEUE_LENGTH = "max_queue_length";
 
+	/**
+	 * Number of threads dequeuing changesets in the lucene backend of an index. When higher than 1
+	 * changesets are routed to the threads by the hash of the entity ids, so that changes to the same
+	 * document are never reordered while unrelated transactions are applied in parallel.
+	 * This is an index-scoped property and defaults to 1.
+	 */
+	public static final String QUEUE_PROCESSORS = "queue_processors";
+
+	/**
+	 * When set to a positive number of milliseconds, an async backend holds the changesets for at most
+	 * this amount of time before enqueuing them, so that works about the same entity from different
+	 * transactions can be coalesced to the final state of the entity.
+	 * This is an index-scoped property and defaults to 0, which disables coalescing.
+	 */
+	public static final String COALESCING_WINDOW = "coalescing.window";
+
+	/**
+	 * Maximum number of works held for coalescing: when reached, the works are enqueued without waiting
+	 * for {@link #COALESCING_WINDOW} to expire. This is an index-scoped property and defaults to 1000.
+	 */
+	public static final String COALESCING_MAX_WORKS = "coalescing.max_works";
+
+	/**
+	 * When set to a positive number of milliseconds, an index using {@link #EXCLUSIVE_INDEX_USE} will
+	 * not commit after each transaction: changes are applied to the open IndexWriter and made durable by
+	 * a single commit at most this amount of time after the first uncommitted transaction was applied.
+	 * Backends configured as sync still block until the commit covering their changes is done.
+	 * This is an index-scoped property and defaults to 0, which disables group commits.
+	 */
+	public static final String GROUP_COMMIT_MAX_DELAY = "group_commit.max_delay";
+
+	/**
+	 * Maximum number of transactions waiting for a group commit: when reached, the commit is
+	 * performed without waiting for {@link #GROUP_COMMIT_MAX_DELAY} to expire.
+	 * Only used when group commits are enabled; this is an index-scoped property and defaults to no limit.
+	 */
+	public static final String GROUP_COMMIT_MAX_PENDING = "group_commit.max_pending";
+
 	/**
 	 * If nothing else is specified we use {@code Version.LUCENE_CURRENT} as the default Lucene version. This version
 	 * parameter was introduced by Lucene to attempt providing backwards compatibility when upgrading Lucene versions
@@ -27,6 +27,7 @@ import java.io.Serializable;
 
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
 import org.hibernate.search.util.logging.impl.Log;
@@ -66,27 +67,47 @@ public enum IndexWriterSetting implements Serializable {
 	},
 	/**
 	 * @see org.apache.lucene.index.LogByteSizeMergePolicy#setMergeFactor(int)
+	 * @see org.apache.lucene.index.TieredMergePolicy#setSegmentsPerTier(double)
+	 * @see org.apache.lucene.index.TieredMergePolicy#setMaxMergeAtOnce(int)
 	 */
 	MERGE_FACTOR( "merge_factor" ) {
 		public void applySetting(LogByteSizeMergePolicy logByteSizeMergePolicy, int value) {
 			logByteSizeMergePolicy.setMergeFactor( value );
 		}
+
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			tieredMergePolicy.setSegmentsPerTier( value );
+			tieredMergePolicy.setMaxMergeAtOnce( value );
+		}
 	},
 	/**
 	 * @see org.apache.lucene.index.LogByteSizeMergePolicy#setMinMergeMB(int)
+	 * @see org.apache.lucene.index.TieredMergePolicy#setFloorSegmentMB(double)
 	 */
 	MERGE_MIN_SIZE( "merge_min_size" ) {
 		public void applySetting(LogByteSizeMergePolicy logByteSizeMergePolicy, int value) {
 			logByteSizeMergePolicy.setMinMergeMB( value );
 		}
+
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			tieredMergePolicy.setFloorSegmentMB( value );
+		}
 	},
 	/**
 	 * @see org.apache.lucene.index.LogByteSizeMergePolicy#setMaxMergeMB(int)
+	 * @see org.apache.lucene.index.TieredMergePolicy#setMaxMergedSegmentMB(double)
 	 */
 	MERGE_MAX_SIZE( "merge_max_size" ) {
 		public void applySetting(LogByteSizeMergePolicy logByteSizeMergePolicy, int value) {
 			logByteSizeMergePolicy.setMaxMergeMB( value );
 		}
+
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			tieredMergePolicy.setMaxMergedSegmentMB( value );
+		}
 	},
 	/**
 	 * @see org.apache.lucene.index.LogByteSizeMergePolicy#setMaxMergeMB(int)
@@ -105,6 +126,61 @@ public enum IndexWriterSetting implements Serializable {
 			logByteSizeMergePolicy.setCalibrateSizeByDeletes( calibrateByDeletes );
 		}
 	},
+	/**
+	 * Selects the MergePolicy: {@code log_byte_size}, the default, or {@code tiered}.
+	 *
+	 * @see org.apache.lucene.index.LogByteSizeMergePolicy
+	 * @see org.apache.lucene.index.TieredMergePolicy
+	 */
+	MERGE_POLICY( "merge_policy" ) {
+		@Override
+		public Integer parseVal(String value) {
+			if ( "log_byte_size".equalsIgnoreCase( value ) ) {
+				return LOG_BYTE_SIZE_MERGE_POLICY;
+			}
+			else if ( "tiered".equalsIgnoreCase( value ) ) {
+				return TIERED_MERGE_POLICY;
+			}
+			throw new SearchException( "Invalid value for " + getKey() + ": " + value
+					+ ". Valid values are log_byte_size and tiered" );
+		}
+	},
+	/**
+	 * Only applies to the tiered MergePolicy, overrides the value derived from {@link #MERGE_FACTOR}.
+	 *
+	 * @see org.apache.lucene.index.TieredMergePolicy#setSegmentsPerTier(double)
+	 */
+	MERGE_SEGMENTS_PER_TIER( "merge_segments_per_tier" ) {
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			tieredMergePolicy.setSegmentsPerTier( value );
+		}
+	},
+	/**
+	 * Only applies to the tiered MergePolicy, overrides the value derived from {@link #MERGE_FACTOR}.
+	 *
+	 * @see org.apache.lucene.index.TieredMergePolicy#setMaxMergeAtOnce(int)
+	 */
+	MERGE_MAX_AT_ONCE( "merge_max_at_once" ) {
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			tieredMergePolicy.setMaxMergeAtOnce( value );
+		}
+	},
+	/**
+	 * Maximum amount of MB per second written by the merges of the index, to leave some
+	 * disk bandwidth to the queries; not limited by default.
+	 *
+	 * @see org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle
+	 */
+	MERGE_MAX_MB_PER_SEC( "merge_max_mb_per_sec" ),
+	/**
+	 * Merges pause while at least this amount of changesets are waiting to be applied to the
+	 * index, so that the backend catches up first; merges are never paused by default.
+	 *
+	 * @see org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle
+	 */
+	MERGE_PAUSE_QUEUE_SIZE( "merge_pause_queue_size" ),
 	/**
 	 * @see org.apache.lucene.index.IndexWriterConfig#setRAMBufferSizeMB(double)
 	 */
@@ -135,7 +211,23 @@ public enum IndexWriterSetting implements Serializable {
 			boolean useCompoundFile = intToBoolean( value );
 			logByteSizeMergePolicy.setUseCompoundFile( useCompoundFile );
 		}
+
+		@Override
+		public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+			boolean useCompoundFile = intToBoolean( value );
+			tieredMergePolicy.setUseCompoundFile( useCompoundFile );
+		}
 	};
+
+	/**
+	 * Value of {@link #MERGE_POLICY} selecting the {@link LogByteSizeMergePolicy}
+	 */
+	public static final int LOG_BYTE_SIZE_MERGE_POLICY = 0;
+
+	/**
+	 * Value of {@link #MERGE_POLICY} selecting the {@link TieredMergePolicy}
+	 */
+	public static final int TIERED_MERGE_POLICY = 1;
 	
 	private static final Log log = LoggerFactory.make();
 
@@ -160,6 +252,12 @@ public enum IndexWriterSetting implements Serializable {
 	public void applySetting(LogByteSizeMergePolicy logByteSizeMergePolicy, int value) {
 		// nothing to do unless overriden
 	}
+	/**
+	 * @throws IllegalArgumentException when user selects an invalid value; should be wrapped.
+	 */
+	public void applySetting(TieredMergePolicy tieredMergePolicy, int value) {
+		// nothing to do unless overriden
+	}
 
 	/**
 	 * @return The key used in configuration files to select an option.
@@ -26,11 +26,24 @@ package org.hibernate.search.backend.impl;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import org.hibernate.search.Environment;
+import org.hibernate.search.SearchException;
 import org.hibernate.search.backend.LuceneWork;
 import org.hibernate.search.backend.spi.Work;
+import org.hibernate.search.batchindexing.impl.Executors;
 import org.hibernate.search.engine.spi.EntityIndexBinder;
+import org.hibernate.search.exception.ErrorHandler;
+import org.hibernate.search.exception.impl.LogErrorHandler;
+import org.hibernate.search.indexes.impl.IndexManagerHolder;
+import org.hibernate.search.indexes.spi.IndexManager;
 import org.hibernate.search.store.IndexShardingStrategy;
 import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
 import org.hibernate.search.util.logging.impl.Log;
@@ -51,12 +64,46 @@ public class BatchedQueueingProcessor implements QueueingProcessor {
 
 	private final Map<Class<?>, EntityIndexBinder> entityIndexBinders;
 
-	public BatchedQueueingProcessor(Map<Class<?>, EntityIndexBinder> entityIndexBinders, Properties properties) {
+	private final ErrorHandler errorHandler;
+
+	/**
+	 * Build the Documents when {@link Environment#DOCUMENT_BUILDING_THREADS} is set,
+	 * otherwise Documents are built by the committing thread.
+	 */
+	private final ExecutorService documentBuilders;
+
+	/**
+	 * Single threaded: hands the built works over to the backends in the same order
+	 * transactions where committed.
+	 */
+	private final ExecutorService sequencer;
+
+	/**
+	 * Tells which indexes are sync: the committing thread still waits for the works applied to them.
+	 */
+	private final IndexManagerHolder indexManagerHolder;
+
+	public BatchedQueueingProcessor(Map<Class<?>, EntityIndexBinder> entityIndexBinders, IndexManagerHolder indexManagerHolder, Properties properties) {
+		this( entityIndexBinders, indexManagerHolder, properties, new LogErrorHandler() );
+	}
+
+	public BatchedQueueingProcessor(Map<Class<?>, EntityIndexBinder> entityIndexBinders, IndexManagerHolder indexManagerHolder, Properties properties, ErrorHandler errorHandler) {
 		this.entityIndexBinders = entityIndexBinders;
+		this.indexManagerHolder = indexManagerHolder;
+		this.errorHandler = errorHandler;
 		batchSize = ConfigurationParseHelper.getIntValue( properties, Environment.QUEUEINGPROCESSOR_BATCHSIZE, 0 );
+		int documentBuildingThreads = ConfigurationParseHelper.getIntValue( properties, Environment.DOCUMENT_BUILDING_THREADS, 0 );
+		if ( documentBuildingThreads > 0 ) {
+			documentBuilders = Executors.newFixedThreadPool( documentBuildingThreads, "Document builder" );
+			sequencer = Executors.newFixedThreadPool( 1, "Document builder sequencer" );
+		}
+		else {
+			documentBuilders = null;
+			sequencer = null;
+		}
 	}
 
-	public void add(Work work, WorkQueue workQueue) {
+	public void add(Work<?> work, WorkQueue workQueue) {
 		//don't check for builder it's done in prepareWork
 		//FIXME WorkType.COLLECTION does not play well with batchSize
 		workQueue.add( work );
@@ -68,11 +115,143 @@ public class BatchedQueueingProcessor implements QueueingProcessor {
 	}
 
 	public void prepareWorks(WorkQueue workQueue) {
-		workQueue.prepareWorkPlan();
+		if ( documentBuilders == null ) {
+			workQueue.prepareWorkPlan();
+		}
+		else {
+			prepareEntityState( workQueue );
+		}
 	}
 
 	public void performWorks(WorkQueue workQueue) {
-		List<LuceneWork> sealedQueue = workQueue.getSealedQueue();
+		if ( documentBuilders == null ) {
+			performWorks( workQueue.getSealedQueue() );
+		}
+		else {
+			performWorksDeferred( workQueue );
+		}
+		workQueue.reindexDeferredContainedIn();
+	}
+
+	/**
+	 * Builds the Documents in the builders pool, then applies the works from the sequencer
+	 * so that the order of transactions is preserved.
+	 */
+	private void performWorksDeferred(final WorkQueue workQueue) {
+		// works added after prepareWorks need their state to be loaded on this thread too
+		boolean deferrable = prepareEntityState( workQueue );
+		final boolean waitForIndexing = isAnyIndexSync( workQueue.getIndexedTypes() );
+		final Future<List<LuceneWork>> builtWorks;
+		if ( deferrable ) {
+			builtWorks = documentBuilders.submit(
+					new Callable<List<LuceneWork>>() {
+						public List<LuceneWork> call() {
+							return workQueue.buildWorkPlan();
+						}
+					}
+			);
+		}
+		else {
+			// already built by prepareEntityState
+			final List<LuceneWork> works = workQueue.getSealedQueue();
+			FutureTask<List<LuceneWork>> worksBuiltHere = new FutureTask<List<LuceneWork>>(
+					new Callable<List<LuceneWork>>() {
+						public List<LuceneWork> call() {
+							return works;
+						}
+					}
+			);
+			worksBuiltHere.run();
+			builtWorks = worksBuiltHere;
+		}
+		Future<?> appliedWorks = sequencer.submit(
+				new Runnable() {
+					public void run() {
+						List<LuceneWork> works;
+						try {
+							works = builtWorks.get();
+						}
+						catch ( InterruptedException e ) {
+							Thread.currentThread().interrupt();
+							log.interruptedWhileWaitingForIndexActivity();
+							return;
+						}
+						catch ( ExecutionException e ) {
+							// when waiting the committing thread raises the failure
+							if ( !waitForIndexing ) {
+								errorHandler.handleException( log.documentBuildingFailed(), e.getCause() );
+							}
+							return;
+						}
+						performWorks( works );
+					}
+				}
+		);
+		if ( waitForIndexing ) {
+			try {
+				builtWorks.get();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				log.interruptedWhileWaitingForIndexActivity();
+				return;
+			}
+			catch ( ExecutionException e ) {
+				Throwable cause = e.getCause();
+				if ( cause instanceof RuntimeException ) {
+					throw (RuntimeException) cause;
+				}
+				throw new SearchException( "Error building the Documents to index", cause );
+			}
+			try {
+				appliedWorks.get();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				log.interruptedWhileWaitingForIndexActivity();
+			}
+			catch ( ExecutionException e ) {
+				throw new SearchException( "Error applying updates to the indexes", e.getCause() );
+			}
+		}
+	}
+
+	/**
+	 * Loads the entity state needed to build the Documents in the builders pool. Custom bridges
+	 * might need more state than what is loaded: if any entity uses them, the Documents are built
+	 * right away by the thread owning the Session, as when no pool is configured.
+	 *
+	 * @return true if the Documents are to be built in the builders pool
+	 */
+	private boolean prepareEntityState(WorkQueue workQueue) {
+		workQueue.prepareEntityState();
+		if ( workQueue.isDocumentBuildingDeferrable() ) {
+			return true;
+		}
+		workQueue.prepareWorkPlan();
+		return false;
+	}
+
+	/**
+	 * @param indexedTypes the types of the entities being indexed
+	 * @return true if the backend of any index of these types is configured as sync
+	 */
+	private boolean isAnyIndexSync(Set<Class<?>> indexedTypes) {
+		for ( Class<?> indexedType : indexedTypes ) {
+			EntityIndexBinder entityIndexBinding = entityIndexBinders.get( indexedType );
+			if ( entityIndexBinding == null ) {
+				continue;
+			}
+			for ( IndexManager indexManager : entityIndexBinding.getIndexManagers() ) {
+				if ( indexManagerHolder.isConfiguredAsSync( indexManager.getIndexName() ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void performWorks(List<LuceneWork> sealedQueue) {
 		if ( log.isTraceEnabled() ) {
 			StringBuilder sb = new StringBuilder( "Lucene WorkQueue to send to backends:[ \n\t" );
 			for ( LuceneWork lw : sealedQueue ) {
@@ -100,4 +279,23 @@ public class BatchedQueueingProcessor implements QueueingProcessor {
 		workQueue.clear();
 	}
 
+	public void close() {
+		if ( documentBuilders != null ) {
+			// the sequencer waits for the builders: close it last
+			closeExecutor( documentBuilders );
+			closeExecutor( sequencer );
+		}
+	}
+
+	private static void closeExecutor(ExecutorService executor) {
+		executor.shutdown();
+		try {
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+	}
+
 }
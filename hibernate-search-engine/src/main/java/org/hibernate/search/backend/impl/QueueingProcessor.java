@@ -39,7 +39,7 @@ public interface QueueingProcessor {
 	 * Add a work
 	 * TODO move that somewhere else, it does not really fit here
 	 */
-	void add(Work work, WorkQueue workQueue);
+	void add(Work<?> work, WorkQueue workQueue);
 
 	/**
 	 * prepare resources for a later performWorks call
@@ -56,4 +56,9 @@ public interface QueueingProcessor {
 	 */
 	void cancelWorks(WorkQueue workQueue);
 
+	/**
+	 * Waits for the works being processed and releases resources
+	 */
+	void close();
+
 }
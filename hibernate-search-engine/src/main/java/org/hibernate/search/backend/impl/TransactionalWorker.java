@@ -102,6 +102,7 @@ public class TransactionalWorker implements Worker {
 	}
 
 	public void close() {
+		queueingProcessor.close();
 	}
 
 	public void flushWorks(TransactionContext transactionContext) {
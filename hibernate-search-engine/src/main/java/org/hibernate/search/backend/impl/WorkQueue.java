@@ -23,9 +23,13 @@
  */
 package org.hibernate.search.backend.impl;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.spi.EntityReindexer;
 import org.hibernate.search.backend.spi.Work;
 import org.hibernate.search.engine.impl.WorkPlan;
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
@@ -49,6 +53,8 @@ public class WorkQueue {
 	private boolean usedSealedData;
 	//flag indicating if data has been sealed and not modified since
 	private boolean sealedAndUnchanged;
+	//flag indicating if the entity state was loaded and no work was added since
+	private boolean stateInitializedAndUnchanged;
 
 	private final SearchFactoryImplementor searchFactoryImplementor;
 
@@ -66,12 +72,13 @@ public class WorkQueue {
 		this.plan = plan;
 	}
 
-	public void add(Work work) {
+	public void add(Work<?> work) {
 		if ( usedSealedData ) {
 			//something is wrong fail with exception
 			throw new AssertionFailure( "Attempting to add a work in a used sealed queue" );
 		}
 		this.sealedAndUnchanged = false;
+		this.stateInitializedAndUnchanged = false;
 		plan.addWork( work );
 	}
 
@@ -137,5 +144,63 @@ public class WorkQueue {
 			setSealedQueue( luceneWorkPlan );
 		}
 	}
+
+	/**
+	 * Processes the work collected so far as {@link #prepareWorkPlan()} does, but only loads the
+	 * entity state needed to build the Lucene Documents: they are built by {@link #buildWorkPlan()},
+	 * which doesn't need to be invoked by the thread owning the Session.
+	 */
+	public void prepareEntityState() {
+		if ( ! stateInitializedAndUnchanged ) {
+			plan.processContainedInAndPrepareExecution();
+			plan.initializeEntityState();
+			stateInitializedAndUnchanged = true;
+		}
+	}
+
+	/**
+	 * @return true if the plan prepared by {@link #prepareEntityState()} can be built by
+	 * {@link #buildWorkPlan()} on a thread not owning the Session
+	 */
+	public boolean isDocumentBuildingDeferrable() {
+		return plan.isDocumentBuildingDeferrable();
+	}
+
+	/**
+	 * @return the indexed types the prepared plan is going to produce work for
+	 */
+	public Set<Class<?>> getIndexedTypes() {
+		return plan.getIndexedTypes();
+	}
+
+	/**
+	 * Hands the entities which the containedIn processing of the prepared plan didn't update
+	 * because of {@link org.hibernate.search.Environment#CONTAINED_IN_MAX_FAN_OUT} over to the
+	 * {@link EntityReindexer}. To be invoked once the unit of work is committed.
+	 */
+	public void reindexDeferredContainedIn() {
+		Map<Class<?>, Set<Object>> deferredContainedIn = plan.getDeferredContainedIn();
+		if ( deferredContainedIn.isEmpty() ) {
+			return;
+		}
+		EntityReindexer reindexer = searchFactoryImplementor.getEntityReindexer();
+		for ( Map.Entry<Class<?>, Set<Object>> entry : deferredContainedIn.entrySet() ) {
+			if ( log.isDebugEnabled() ) {
+				log.debugf( "Reindexing asynchronously %d entities of type %s", entry.getValue().size(), entry.getKey() );
+			}
+			reindexer.reindexLater( entry.getKey(), new ArrayList<Object>( entry.getValue() ) );
+		}
+		deferredContainedIn.clear();
+	}
+
+	/**
+	 * Builds the list of lucene operations for a plan prepared by {@link #prepareEntityState()}.
+	 * No more work must be added to this queue.
+	 *
+	 * @return the list of lucene operations to be performed
+	 */
+	public List<LuceneWork> buildWorkPlan() {
+		return plan.getPlannedLuceneWork();
+	}
 	
 }
@@ -20,8 +20,8 @@
  */
 package org.hibernate.search.backend.impl;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -45,7 +45,7 @@ public class WorkQueuePerIndexSplitter {
 	public List<LuceneWork> getIndexManagerQueue(IndexManager indexManager) {
 		List<LuceneWork> list = queues.get( indexManager );
 		if ( list == null ) {
-			list = new LinkedList<LuceneWork>();
+			list = new ArrayList<LuceneWork>();
 			queues.put( indexManager, list );
 		}
 		return list;
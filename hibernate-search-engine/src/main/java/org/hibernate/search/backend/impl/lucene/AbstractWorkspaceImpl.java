@@ -23,11 +23,13 @@
  */
 package org.hibernate.search.backend.impl.lucene;
 
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.IndexWriter;
+import org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle;
 import org.hibernate.search.engine.spi.DocumentBuilderIndexedEntity;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.exception.impl.ErrorContextBuilder;
@@ -59,6 +61,16 @@ public abstract class AbstractWorkspaceImpl implements Workspace {
 	 */
 	private final AtomicLong operations = new AtomicLong( 0L );
 
+	/**
+	 * Enforces the indexing RAM budget shared with the other indexes, or null when there is none.
+	 */
+	private volatile IndexingMemoryController memoryController;
+
+	/**
+	 * Runs the automatic optimizations, or null when they are applied synchronously.
+	 */
+	private BackgroundOptimizer backgroundOptimizer;
+
 	public AbstractWorkspaceImpl(DirectoryBasedIndexManager indexManager, ErrorHandler errorHandler) {
 		this.indexManager = indexManager;
 		this.optimizerStrategy = indexManager.getOptimizerStrategy();
@@ -79,7 +91,22 @@ public abstract class AbstractWorkspaceImpl implements Workspace {
 	@Override
 	public void optimizerPhase() {
 		optimizerStrategy.addOperationWithinTransactionCount( operations.getAndSet( 0L ) );
-		optimizerStrategy.optimize( this );
+		if ( backgroundOptimizer == null ) {
+			optimizerStrategy.optimize( this );
+		}
+		else {
+			backgroundOptimizer.changesApplied();
+		}
+	}
+
+	/**
+	 * Runs the automatic optimizations in a background thread when configured so:
+	 * only suitable for workspaces keeping the IndexWriter open across transactions.
+	 */
+	protected final void enableBackgroundOptimizer(ErrorHandler errorHandler, Properties cfg) {
+		backgroundOptimizer = BackgroundOptimizer.create(
+				indexManager.getIndexName(), this, writerHolder, optimizerStrategy, errorHandler, cfg
+		);
 	}
 
 	@Override
@@ -90,6 +117,25 @@ public abstract class AbstractWorkspaceImpl implements Workspace {
 	@Override
 	public void incrementModificationCounter(int modCount) {
 		operations.addAndGet( modCount );
+		IndexingMemoryController controller = memoryController;
+		if ( controller != null ) {
+			controller.checkBudget();
+		}
+	}
+
+	/**
+	 * Makes the IndexWriter of this workspace share the indexing RAM budget enforced by the controller.
+	 */
+	void setMemoryController(IndexingMemoryController memoryController) {
+		this.memoryController = memoryController;
+		memoryController.register( writerHolder );
+	}
+
+	/**
+	 * @return the throttle applied to the merges of the index, or null if they run at full speed
+	 */
+	MergeThrottle getMergeThrottle() {
+		return writerHolder.getMergeThrottle();
 	}
 
 	@Override
@@ -100,8 +146,34 @@ public abstract class AbstractWorkspaceImpl implements Workspace {
 	@Override
 	public abstract void afterTransactionApplied(boolean someFailureHappened);
 
+	/**
+	 * Invoked after {@link #afterTransactionApplied(boolean)} reported a failure: closes the IndexWriter,
+	 * which might be in an inconsistent state, and releases the index lock.
+	 * The backend invokes it holding its exclusive modification lock, so that no other queue processor
+	 * is applying changes through the IndexWriter being closed.
+	 */
+	public void recoverFromFailure() {
+		writerHolder.forceLockRelease();
+	}
+
+	/**
+	 * Blocks until the changes applied so far are committed to the index, and the
+	 * {@link org.hibernate.search.indexes.spi.IndexCommitListener}s processed the commits.
+	 * Workspaces which commit at the end of each transaction only wait for the listeners.
+	 */
+	public void waitForCommit() {
+		writerHolder.waitForCommitListeners();
+	}
+
 	public void shutDownNow() {
 		log.shuttingDownBackend( indexManager.getIndexName() );
+		if ( backgroundOptimizer != null ) {
+			backgroundOptimizer.stop();
+		}
+		IndexingMemoryController controller = memoryController;
+		if ( controller != null ) {
+			controller.unregister( writerHolder );
+		}
 		writerHolder.closeIndexWriter();
 	}
 
@@ -0,0 +1,198 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.Calendar;
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.exception.ErrorHandler;
+import org.hibernate.search.store.Workspace;
+import org.hibernate.search.store.optimization.OptimizerStrategy;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Runs the automatic optimizations of an index in a background thread, so that the
+ * threads applying changes to the index are not blocked while it's optimized.
+ * Optionally the optimizations only start within a daily time window: when changes
+ * are applied out of it the OptimizerStrategy is consulted when the window opens.
+ * <p/>
+ * Optimizations explicitly requested, for example via {@link org.hibernate.search.SearchFactory#optimize()},
+ * are not affected.
+ * <p/>
+ * The IndexWriter is committed after each background optimization, so that the merged
+ * segments are visible to IndexReaders opened from the Directory and the files of the
+ * merged segments can be deleted.
+ */
+final class BackgroundOptimizer {
+
+	static final String BACKGROUND = "optimizer.background";
+	static final String WINDOW = "optimizer.window";
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final Pattern WINDOW_PATTERN = Pattern.compile( "(\\d{1,2}):(\\d{2})\\s*-\\s*(\\d{1,2}):(\\d{2})" );
+	private static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final String indexName;
+	private final Workspace workspace;
+	private final IndexWriterHolder writerHolder;
+	private final OptimizerStrategy optimizerStrategy;
+	private final ErrorHandler errorHandler;
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicBoolean scheduled = new AtomicBoolean( false );
+
+	/**
+	 * Start and end of the window, in minutes from midnight; -1 when optimizations can start anytime.
+	 */
+	private final int windowStart;
+	private final int windowEnd;
+
+	private BackgroundOptimizer(String indexName, Workspace workspace, IndexWriterHolder writerHolder,
+			OptimizerStrategy optimizerStrategy, ErrorHandler errorHandler, int windowStart, int windowEnd) {
+		this.indexName = indexName;
+		this.workspace = workspace;
+		this.writerHolder = writerHolder;
+		this.optimizerStrategy = optimizerStrategy;
+		this.errorHandler = errorHandler;
+		this.windowStart = windowStart;
+		this.windowEnd = windowEnd;
+		this.executor = Executors.newScheduledThreadPool( "Background optimizer for index " + indexName );
+		// don't wait for the window to open when shutting down
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+	}
+
+	/**
+	 * @return true if the automatic optimizations of the index are configured to run in background,
+	 * which is implied by setting a time window
+	 */
+	static boolean isEnabled(Properties cfg) {
+		return ConfigurationParseHelper.getBooleanValue( cfg, BACKGROUND, false )
+				|| cfg.getProperty( WINDOW ) != null;
+	}
+
+	/**
+	 * @return a new BackgroundOptimizer, or null if automatic optimizations of the index are applied synchronously
+	 */
+	static BackgroundOptimizer create(String indexName, Workspace workspace, IndexWriterHolder writerHolder,
+			OptimizerStrategy optimizerStrategy, ErrorHandler errorHandler, Properties cfg) {
+		if ( ! isEnabled( cfg ) ) {
+			return null;
+		}
+		String window = cfg.getProperty( WINDOW );
+		if ( window == null ) {
+			return new BackgroundOptimizer( indexName, workspace, writerHolder, optimizerStrategy, errorHandler, -1, -1 );
+		}
+		Matcher matcher = WINDOW_PATTERN.matcher( window.trim() );
+		if ( ! matcher.matches() ) {
+			throw log.invalidOptimizationWindow( WINDOW, indexName, window );
+		}
+		int start = toMinutes( matcher.group( 1 ), matcher.group( 2 ) );
+		int end = toMinutes( matcher.group( 3 ), matcher.group( 4 ) );
+		if ( start < 0 || end < 0 ) {
+			throw log.invalidOptimizationWindow( WINDOW, indexName, window );
+		}
+		return new BackgroundOptimizer( indexName, workspace, writerHolder, optimizerStrategy, errorHandler, start, end );
+	}
+
+	private static int toMinutes(String hours, String minutes) {
+		int h = Integer.parseInt( hours );
+		int m = Integer.parseInt( minutes );
+		if ( h > 23 || m > 59 ) {
+			return -1;
+		}
+		return h * 60 + m;
+	}
+
+	/**
+	 * Invoked after changes are applied to the index: lets the OptimizerStrategy decide
+	 * in background if the index needs to be optimized. Never blocks.
+	 */
+	void changesApplied() {
+		if ( scheduled.compareAndSet( false, true ) ) {
+			executor.schedule( new OptimizationTask(), millisUntilWindowOpens(), TimeUnit.MILLISECONDS );
+		}
+	}
+
+	private long millisUntilWindowOpens() {
+		if ( windowStart == -1 ) {
+			return 0;
+		}
+		Calendar now = Calendar.getInstance();
+		int minute = now.get( Calendar.HOUR_OF_DAY ) * 60 + now.get( Calendar.MINUTE );
+		if ( isWithinWindow( minute ) ) {
+			return 0;
+		}
+		int minutesToWait = ( windowStart - minute + MINUTES_PER_DAY ) % MINUTES_PER_DAY;
+		long millisInCurrentMinute = now.get( Calendar.SECOND ) * 1000L + now.get( Calendar.MILLISECOND );
+		return TimeUnit.MINUTES.toMillis( minutesToWait ) - millisInCurrentMinute;
+	}
+
+	private boolean isWithinWindow(int minute) {
+		if ( windowStart <= windowEnd ) {
+			return minute >= windowStart && minute < windowEnd;
+		}
+		else {
+			// the window spans midnight
+			return minute >= windowStart || minute < windowEnd;
+		}
+	}
+
+	/**
+	 * Waits for a running optimization to complete; pending ones are discarded.
+	 */
+	void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+	}
+
+	private class OptimizationTask implements Runnable {
+
+		@Override
+		public void run() {
+			// changes applied from now on need a new evaluation
+			scheduled.set( false );
+			try {
+				optimizerStrategy.optimize( workspace );
+				// no-op for Lucene if nothing was merged
+				writerHolder.commitIndexWriter();
+			}
+			catch ( RuntimeException e ) {
+				errorHandler.handleException( log.backgroundOptimizationFailed( indexName ), e );
+			}
+		}
+
+	}
+
+}
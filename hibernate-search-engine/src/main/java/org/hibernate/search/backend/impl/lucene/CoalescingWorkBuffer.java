@@ -0,0 +1,197 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.search.backend.DeleteLuceneWork;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.UpdateLuceneWork;
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Holds the changesets of an async backend for a short time window, so that
+ * works about the same entity enqueued by different transactions can be reduced
+ * to the ones needed to reach the final state of the entity.
+ * A delete or an update of an entity replaces all documents with the same class and id,
+ * so any work about that entity preceding it in the window is dropped. Works not related
+ * to a single entity, as purgeAll and optimize, are kept in place and no work is moved
+ * across them.
+ */
+final class CoalescingWorkBuffer {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final LuceneBackendQueueProcessor processor;
+	private final String indexName;
+	private final long window;
+	private final int maxWorks;
+	private final ScheduledThreadPoolExecutor flushScheduler;
+
+	private final AtomicLong enqueuedWorks = new AtomicLong();
+	private final AtomicLong eliminatedWorks = new AtomicLong();
+
+	//guardedBy this:
+	private List<LuceneWork> pending = new ArrayList<LuceneWork>();
+	private boolean flushScheduled = false;
+
+	CoalescingWorkBuffer(LuceneBackendQueueProcessor processor, String indexName, long window, int maxWorks) {
+		this.processor = processor;
+		this.indexName = indexName;
+		this.window = window;
+		this.maxWorks = maxWorks;
+		this.flushScheduler = Executors.newScheduledThreadPool( "Coalescing of index updates for index " + indexName );
+		// the remaining works are flushed by shutdown() itself
+		this.flushScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+	}
+
+	void add(List<LuceneWork> workList) {
+		enqueuedWorks.addAndGet( workList.size() );
+		synchronized ( this ) {
+			pending.addAll( workList );
+			if ( pending.size() >= maxWorks ) {
+				flush();
+			}
+			else if ( ! flushScheduled ) {
+				flushScheduled = true;
+				flushScheduler.schedule( new FlushTask(), window, TimeUnit.MILLISECONDS );
+			}
+		}
+	}
+
+	/**
+	 * Hands the coalesced pending works over to the queue processors.
+	 * Done while holding the buffer lock, so that flushes can't be reordered.
+	 */
+	synchronized void flush() {
+		if ( pending.isEmpty() ) {
+			return;
+		}
+		List<LuceneWork> coalesced = coalesce( pending );
+		eliminatedWorks.addAndGet( pending.size() - coalesced.size() );
+		pending = new ArrayList<LuceneWork>();
+		processor.doWork( coalesced, null );
+	}
+
+	/**
+	 * Waits for a running flush to complete, then flushes the remaining works;
+	 * to be invoked before the queue processors are closed.
+	 */
+	void shutdown() {
+		flushScheduler.shutdown();
+		try {
+			flushScheduler.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+		flush();
+		log.debugf( "Coalescing on index %s eliminated %d of %d enqueued works",
+				indexName, eliminatedWorks.get(), enqueuedWorks.get() );
+	}
+
+	long getEnqueuedWorksCount() {
+		return enqueuedWorks.get();
+	}
+
+	long getEliminatedWorksCount() {
+		return eliminatedWorks.get();
+	}
+
+	static List<LuceneWork> coalesce(List<LuceneWork> works) {
+		List<LuceneWork> coalesced = new ArrayList<LuceneWork>( works.size() );
+		int segmentStart = 0;
+		for ( int i = 0; i < works.size(); i++ ) {
+			if ( works.get( i ).getIdInString() == null ) {
+				coalesceSegment( works, segmentStart, i, coalesced );
+				coalesced.add( works.get( i ) );
+				segmentStart = i + 1;
+			}
+		}
+		coalesceSegment( works, segmentStart, works.size(), coalesced );
+		return coalesced;
+	}
+
+	private static void coalesceSegment(List<LuceneWork> works, int from, int to, List<LuceneWork> coalesced) {
+		Map<EntityKey, Integer> lastReplacement = new HashMap<EntityKey, Integer>();
+		for ( int i = from; i < to; i++ ) {
+			LuceneWork work = works.get( i );
+			if ( work instanceof DeleteLuceneWork || work instanceof UpdateLuceneWork ) {
+				lastReplacement.put( new EntityKey( work ), i );
+			}
+		}
+		for ( int i = from; i < to; i++ ) {
+			LuceneWork work = works.get( i );
+			Integer replacement = lastReplacement.get( new EntityKey( work ) );
+			if ( replacement == null || i >= replacement ) {
+				coalesced.add( work );
+			}
+		}
+	}
+
+	private static final class EntityKey {
+
+		private final Class<?> entityClass;
+		private final String id;
+
+		EntityKey(LuceneWork work) {
+			this.entityClass = work.getEntityClass();
+			this.id = work.getIdInString();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ( ! ( o instanceof EntityKey ) ) {
+				return false;
+			}
+			EntityKey other = (EntityKey) o;
+			return entityClass == other.entityClass && id.equals( other.id );
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * entityClass.hashCode() + id.hashCode();
+		}
+
+	}
+
+	private class FlushTask implements Runnable {
+
+		@Override
+		public void run() {
+			synchronized ( CoalescingWorkBuffer.this ) {
+				flushScheduled = false;
+				flush();
+			}
+		}
+
+	}
+
+}
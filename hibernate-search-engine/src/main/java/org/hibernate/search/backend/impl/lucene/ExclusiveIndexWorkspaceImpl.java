@@ -20,26 +20,195 @@
  */
 package org.hibernate.search.backend.impl.lucene;
 
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.batchindexing.impl.Executors;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
 
 /**
+ * Workspace used when the index is not shared with other applications, so the IndexWriter
+ * can be kept open and is only committed at the end of each transaction.
+ * When {@link Environment#GROUP_COMMIT_MAX_DELAY} is enabled the commit is deferred, so that
+ * all transactions applied within the configured window share a single commit.
+ *
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
 public class ExclusiveIndexWorkspaceImpl extends AbstractWorkspaceImpl {
 
+	private static final Log log = LoggerFactory.make();
+
+	private final long maxCommitDelay;
+	private final int maxPendingTransactions;
+	private final ScheduledExecutorService commitScheduler;
+
+	private final Object commitMonitor = new Object();
+
+	//guardedBy commitMonitor:
+	private long appliedTransactions = 0;
+	private long committedTransactions = 0;
+	private boolean commitScheduled = false;
+
 	public ExclusiveIndexWorkspaceImpl(DirectoryBasedIndexManager indexManager, ErrorHandler errorHandler) {
+		this( indexManager, errorHandler, new Properties() );
+	}
+
+	public ExclusiveIndexWorkspaceImpl(DirectoryBasedIndexManager indexManager, ErrorHandler errorHandler, Properties cfg) {
 		super( indexManager, errorHandler );
+		enableBackgroundOptimizer( errorHandler, cfg );
+		this.maxCommitDelay = ConfigurationParseHelper.getIntValue( cfg, Environment.GROUP_COMMIT_MAX_DELAY, 0 );
+		this.maxPendingTransactions = ConfigurationParseHelper.getIntValue(
+				cfg, Environment.GROUP_COMMIT_MAX_PENDING, Integer.MAX_VALUE
+		);
+		if ( maxCommitDelay > 0 ) {
+			log.debugf( "Group commits enabled on index %s: max delay %d ms, max pending transactions %d",
+					indexManager.getIndexName(), maxCommitDelay, maxPendingTransactions );
+			commitScheduler = Executors.newScheduledThreadPool( "Group commit for index " + indexManager.getIndexName() );
+		}
+		else {
+			commitScheduler = null;
+		}
 	}
 
 	@Override
 	public void afterTransactionApplied(boolean someFailureHappened) {
 		if ( someFailureHappened ) {
-			writerHolder.forceLockRelease();
+			// the IndexWriter is released by recoverFromFailure()
+			return;
 		}
-		else {
+		if ( commitScheduler == null ) {
 			writerHolder.commitIndexWriter();
 		}
+		else {
+			boolean commitNow = false;
+			synchronized ( commitMonitor ) {
+				appliedTransactions++;
+				if ( appliedTransactions - committedTransactions >= maxPendingTransactions ) {
+					commitNow = true;
+				}
+				else {
+					scheduleCommit();
+				}
+			}
+			if ( commitNow ) {
+				commitPendingTransactions();
+			}
+		}
+	}
+
+	@Override
+	public void recoverFromFailure() {
+		// closing the IndexWriter commits the changes other transactions applied
+		super.recoverFromFailure();
+		markAllCommitted();
+	}
+
+	/**
+	 * Schedules a group commit, unless one is already scheduled.
+	 * Invoked while holding the commitMonitor.
+	 */
+	private void scheduleCommit() {
+		if ( ! commitScheduled ) {
+			try {
+				commitScheduler.schedule( new GroupCommitTask(), maxCommitDelay, TimeUnit.MILLISECONDS );
+				commitScheduled = true;
+			}
+			catch ( RejectedExecutionException e ) {
+				// shutting down: closing the IndexWriter commits the pending transactions
+			}
+		}
+	}
+
+	/**
+	 * Commits the IndexWriter if some transactions where applied since the last commit,
+	 * then wakes up threads waiting for them to be durable.
+	 * If the commit fails the transactions stay pending, and are committed by the next group commit.
+	 */
+	private void commitPendingTransactions() {
+		final long target;
+		synchronized ( commitMonitor ) {
+			target = appliedTransactions;
+			if ( target == committedTransactions ) {
+				return;
+			}
+		}
+		if ( ! writerHolder.commitIndexWriter() ) {
+			// the failure was already handled
+			synchronized ( commitMonitor ) {
+				scheduleCommit();
+			}
+			return;
+		}
+		synchronized ( commitMonitor ) {
+			if ( target > committedTransactions ) {
+				committedTransactions = target;
+			}
+			commitMonitor.notifyAll();
+		}
+	}
+
+	private void markAllCommitted() {
+		synchronized ( commitMonitor ) {
+			committedTransactions = appliedTransactions;
+			commitMonitor.notifyAll();
+		}
+	}
+
+	@Override
+	public void waitForCommit() {
+		if ( commitScheduler != null ) {
+			synchronized ( commitMonitor ) {
+				final long target = appliedTransactions;
+				try {
+					while ( committedTransactions < target ) {
+						commitMonitor.wait();
+					}
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					log.interruptedWhileWaitingForIndexActivity();
+					return;
+				}
+			}
+		}
+		super.waitForCommit();
+	}
+
+	@Override
+	public void shutDownNow() {
+		if ( commitScheduler != null ) {
+			// an already scheduled commit is still run: don't interrupt it while it's writing
+			commitScheduler.shutdown();
+			try {
+				commitScheduler.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				log.interruptedWhileWaitingForIndexActivity();
+			}
+		}
+		// closing the IndexWriter commits any pending change
+		super.shutDownNow();
+		markAllCommitted();
+	}
+
+	private class GroupCommitTask implements Runnable {
+
+		@Override
+		public void run() {
+			synchronized ( commitMonitor ) {
+				commitScheduled = false;
+			}
+			commitPendingTransactions();
+		}
+
 	}
 
 }
@@ -21,6 +21,8 @@
 package org.hibernate.search.backend.impl.lucene;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.SimpleAnalyzer;
@@ -28,23 +30,38 @@ import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
-import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.search.Similarity;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
 
 import org.hibernate.search.Environment;
 import org.hibernate.search.backend.impl.lucene.overrides.ConcurrentMergeScheduler;
+import org.hibernate.search.backend.configuration.impl.IndexWriterSetting;
+import org.hibernate.search.backend.impl.lucene.overrides.FlushableIndexWriter;
+import org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle;
+import org.hibernate.search.backend.impl.lucene.overrides.ThrottledDirectory;
 import org.hibernate.search.backend.spi.LuceneIndexingParameters;
 import org.hibernate.search.backend.spi.LuceneIndexingParameters.ParameterSet;
 import org.hibernate.search.exception.ErrorContext;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.exception.impl.ErrorContextBuilder;
 import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.spi.IndexCommitListener;
 import org.hibernate.search.store.DirectoryProvider;
 import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
 /**
+ * Holds the IndexWriter of an index, opening it when needed.
+ * <p/>
+ * The open IndexWriter is published via a volatile field, so getting it doesn't need any lock.
+ * Opening and closing it is guarded by the writerLifecycleLock, while commits are guarded by
+ * the commitLock: a slow commit doesn't block the threads needing the IndexWriter, and NRT
+ * IndexReaders are opened without waiting for commits.
+ * Closing the IndexWriter also acquires the commitLock, after the writerLifecycleLock, so that
+ * a commit never runs on a writer being closed.
+ *
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
 class IndexWriterHolder {
@@ -63,22 +80,40 @@ class IndexWriterHolder {
 	private final ParameterSet indexParameters;
 	private final DirectoryProvider directoryProvider;
 	private final String indexName;
+	private final DirectoryBasedIndexManager indexManager;
+
+	/**
+	 * Shared by the merges of all IndexWriters, null when merges are not throttled.
+	 */
+	private final MergeThrottle mergeThrottle;
 	
+	private final ReentrantLock writerLifecycleLock = new ReentrantLock();
+	private final ReentrantLock commitLock = new ReentrantLock();
+
 	// variable state:
 	
 	/**
-	 * Current open IndexWriter, or null when closed. Guarded by synchronization.
+	 * Current open IndexWriter, or null when closed. Changed only holding the writerLifecycleLock,
+	 * volatile so that it can be read without locking.
 	 */
-	private IndexWriter writer;
+	private volatile IndexWriter writer;
+
+	/**
+	 * Memory still allocated by the current IndexWriter after it was last flushed by {@link #flushRamBuffer()}:
+	 * Lucene keeps some of the buffers around for reuse, so a flush can't release them.
+	 */
+	private volatile long ramSizeAfterFlush = 0;
 
 
 	IndexWriterHolder(ErrorHandler errorHandler, DirectoryBasedIndexManager indexManager) {
 		this.errorHandler = errorHandler;
 		this.indexName = indexManager.getIndexName();
+		this.indexManager = indexManager;
 		this.luceneParameters = indexManager.getIndexingParameters();
 		this.indexParameters = luceneParameters.getIndexParameters();
 		this.directoryProvider = indexManager.getDirectoryProvider();
 		this.luceneParameters.applyToWriter( writerConfig );
+		this.mergeThrottle = createMergeThrottle( indexParameters );
 		Similarity similarity = indexManager.getSimilarity();
 		if ( similarity != null ) {
 			writerConfig.setSimilarity( similarity );
@@ -93,18 +128,30 @@ class IndexWriterHolder {
 	 *  Is an optional parameter.
 	 * @return a new IndexWriter or one already open.
 	 */
-	public synchronized IndexWriter getIndexWriter(ErrorContextBuilder errorContextBuilder) {
-		if ( writer != null )
-			return writer;
+	public IndexWriter getIndexWriter(ErrorContextBuilder errorContextBuilder) {
+		IndexWriter currentWriter = writer;
+		if ( currentWriter != null ) {
+			return currentWriter;
+		}
+		writerLifecycleLock.lock();
 		try {
-			writer = createNewIndexWriter();
-			log.trace( "IndexWriter opened" );
+			if ( writer != null ) {
+				return writer;
+			}
+			try {
+				ramSizeAfterFlush = 0;
+				writer = createNewIndexWriter();
+				log.trace( "IndexWriter opened" );
+			}
+			catch ( IOException ioe ) {
+				writer = null;
+				handleIOException( ioe, errorContextBuilder );
+			}
+			return writer;
 		}
-		catch ( IOException ioe ) {
-			writer = null;
-			handleIOException( ioe, errorContextBuilder );
+		finally {
+			writerLifecycleLock.unlock();
 		}
-		return writer;
 	}
 
 	public IndexWriter getIndexWriter() {
@@ -116,94 +163,240 @@ class IndexWriterHolder {
 	 * we need to override the MergeScheduler to handle background errors, and a new instance needs to be created for each
 	 * new IndexWriter.
 	 * Also each new IndexWriter needs a new MergePolicy.
+	 * When merges are throttled, the IndexWriter writes through a ThrottledDirectory.
 	 */
 	private IndexWriter createNewIndexWriter() throws IOException {
-		LogByteSizeMergePolicy newMergePolicy = indexParameters.getNewMergePolicy(); //TODO make it possible to configure a different policy?
-		writerConfig.setMergePolicy( newMergePolicy );
-		MergeScheduler mergeScheduler = new ConcurrentMergeScheduler( this.errorHandler, this.indexName );
+		writerConfig.setMergePolicy( indexParameters.getNewConfiguredMergePolicy() );
+		MergeScheduler mergeScheduler = new ConcurrentMergeScheduler( this.errorHandler, this.indexName, mergeThrottle );
 		writerConfig.setMergeScheduler( mergeScheduler );
-		IndexWriter writer = new IndexWriter( directoryProvider.getDirectory(), writerConfig );
+		Directory directory = directoryProvider.getDirectory();
+		if ( mergeThrottle != null ) {
+			directory = new ThrottledDirectory( directory, mergeThrottle );
+		}
+		IndexWriter writer = new FlushableIndexWriter( directory, writerConfig );
 		return writer;
 	}
 
+	private static MergeThrottle createMergeThrottle(ParameterSet indexParameters) {
+		Integer maxMBPerSec = indexParameters.getCurrentValueFor( IndexWriterSetting.MERGE_MAX_MB_PER_SEC );
+		Integer pauseQueueSize = indexParameters.getCurrentValueFor( IndexWriterSetting.MERGE_PAUSE_QUEUE_SIZE );
+		if ( maxMBPerSec == null && pauseQueueSize == null ) {
+			return null;
+		}
+		return new MergeThrottle(
+				maxMBPerSec == null ? 0 : maxMBPerSec,
+				pauseQueueSize == null ? 0 : pauseQueueSize
+		);
+	}
+
+	/**
+	 * @return the throttle applied to the merges, or null if they run at full speed
+	 */
+	MergeThrottle getMergeThrottle() {
+		return mergeThrottle;
+	}
+
+	/**
+	 * Applies to the IndexWriters opened from now on a different RAM buffer size than the configured one.
+	 */
+	void setRAMBufferSizeMB(double ramBufferSizeMB) {
+		writerLifecycleLock.lock();
+		try {
+			writerConfig.setRAMBufferSizeMB( ramBufferSizeMB );
+		}
+		finally {
+			writerLifecycleLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the memory used by the changes buffered by the current IndexWriter since it was last
+	 * flushed by {@link #flushRamBuffer()}, 0 if none is open
+	 */
+	long getBufferedRamSizeInBytes() {
+		IndexWriter currentWriter = writer;
+		if ( currentWriter == null ) {
+			return 0;
+		}
+		try {
+			return Math.max( 0, currentWriter.ramSizeInBytes() - ramSizeAfterFlush );
+		}
+		catch ( AlreadyClosedException e ) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Flushes the documents buffered by the current IndexWriter to a new segment, without committing it.
+	 * Doesn't lock the holder: a concurrent commit doesn't need to wait for the flush.
+	 */
+	void flushRamBuffer() {
+		IndexWriter currentWriter = writer;
+		if ( currentWriter == null ) {
+			return;
+		}
+		try {
+			( (FlushableIndexWriter) currentWriter ).flushRamBuffer();
+			ramSizeAfterFlush = currentWriter.ramSizeInBytes();
+		}
+		catch ( AlreadyClosedException e ) {
+			// nothing left to flush
+		}
+		catch ( IOException ioe ) {
+			handleIOException( ioe, null );
+		}
+	}
+
 	/**
 	 * Commits changes to a previously opened IndexWriter.
 	 * @param errorContextBuilder use it to handle exceptions, as it might contain a reference to the work performed before the commit
+	 * @return false if the commit failed, in which case the error was already handled
 	 */
-	//TODO HSEARCH-852 : a commit should not block a getIndexWriter: split the locking
-	public synchronized void commitIndexWriter(ErrorContextBuilder errorContextBuilder) {
-		if ( writer != null ) {
-			try {
-				writer.commit();
-				log.trace( "Index changes commited." );
-			}
-			catch ( IOException ioe ) {
-				handleIOException( ioe, errorContextBuilder );
-			}
-		}
+	public boolean commitIndexWriter(ErrorContextBuilder errorContextBuilder) {
+		return commitIndexWriter( null, errorContextBuilder );
 	}
 
 	/**
 	 * @see #commitIndexWriter(ErrorContextBuilder)
 	 */
-	public void commitIndexWriter() {
-		commitIndexWriter( null );
+	public boolean commitIndexWriter() {
+		return commitIndexWriter( null, null );
 	}
 
 	/**
-	 * Closes a previously opened IndexWriter.
+	 * Commits changes to a previously opened IndexWriter, storing some user data in the commit.
+	 * The user data is kept by the following commits until replaced.
+	 * @param commitUserData the data to store in the commit, or null
+	 * @param errorContextBuilder use it to handle exceptions, as it might contain a reference to the work performed before the commit
+	 * @return false if the commit failed, in which case the error was already handled
+	 * @see IndexReader#getCommitUserData(Directory)
 	 */
-	public synchronized void closeIndexWriter() {
-		IndexWriter toClose = writer;
-		writer = null;
-		if ( toClose != null ) {
-			try {
-				toClose.close();
-				log.trace( "IndexWriter closed" );
+	public boolean commitIndexWriter(Map<String, String> commitUserData, ErrorContextBuilder errorContextBuilder) {
+		boolean committed = false;
+		commitLock.lock();
+		try {
+			IndexWriter currentWriter = writer;
+			if ( currentWriter != null ) {
+				try {
+					currentWriter.commit( commitUserData );
+					committed = true;
+					log.trace( "Index changes commited." );
+				}
+				catch ( IOException ioe ) {
+					handleIOException( ioe, errorContextBuilder );
+					return false;
+				}
 			}
-			catch ( IOException ioe ) {
-				forceLockRelease();
-				handleIOException( ioe, null );
+		}
+		finally {
+			commitLock.unlock();
+		}
+		if ( committed ) {
+			indexCommitted();
+		}
+		return true;
+	}
+
+	/**
+	 * Closes a previously opened IndexWriter.
+	 */
+	public void closeIndexWriter() {
+		boolean committed = false;
+		writerLifecycleLock.lock();
+		commitLock.lock();
+		try {
+			IndexWriter toClose = writer;
+			writer = null;
+			if ( toClose != null ) {
+				try {
+					toClose.close();
+					committed = true;
+					log.trace( "IndexWriter closed" );
+				}
+				catch ( IOException ioe ) {
+					forceLockRelease();
+					handleIOException( ioe, null );
+				}
 			}
 		}
+		finally {
+			commitLock.unlock();
+			writerLifecycleLock.unlock();
+		}
+		if ( committed ) {
+			indexCommitted();
+		}
+	}
+
+	/**
+	 * Notifies the registered {@link IndexCommitListener}s, for example to let the IndexReaders
+	 * which are not refreshed by each query see the committed changes.
+	 */
+	private void indexCommitted() {
+		for ( IndexCommitListener listener : indexManager.getIndexCommitListeners() ) {
+			listener.indexCommitted();
+		}
+	}
+
+	/**
+	 * Blocks until the registered {@link IndexCommitListener}s processed the commits notified so far.
+	 */
+	public void waitForCommitListeners() {
+		for ( IndexCommitListener listener : indexManager.getIndexCommitListeners() ) {
+			listener.waitForCommitsProcessed();
+		}
 	}
 
 	/**
 	 * Forces release of Directory lock. Should be used only to cleanup as error recovery.
 	 */
-	public synchronized void forceLockRelease() {
-		log.forcingReleaseIndexWriterLock();
+	public void forceLockRelease() {
+		writerLifecycleLock.lock();
+		commitLock.lock();
 		try {
+			log.forcingReleaseIndexWriterLock();
 			try {
-				if ( writer != null ) {
-					writer.close();
-					log.trace( "IndexWriter closed" );
+				IndexWriter toClose = writer;
+				writer = null; //make sure to send a faulty writer into garbage
+				try {
+					if ( toClose != null ) {
+						toClose.close();
+						log.trace( "IndexWriter closed" );
+					}
+				}
+				finally {
+					IndexWriter.unlock( directoryProvider.getDirectory() );
 				}
 			}
-			finally {
-				writer = null; //make sure to send a faulty writer into garbage
-				IndexWriter.unlock( directoryProvider.getDirectory() );
+			catch (IOException ioe) {
+				handleIOException( ioe, null );
 			}
 		}
-		catch (IOException ioe) {
-			handleIOException( ioe, null );
+		finally {
+			commitLock.unlock();
+			writerLifecycleLock.unlock();
 		}
 	}
 
 	/**
 	 * Opens an IndexReader having visibility on uncommitted writes from
 	 * the IndexWriter, if any writer is open, or null if no IndexWriter is open.
+	 * Doesn't wait for commits in progress.
 	 */
-	//TODO HSEARCH-852 : fine grained synchronization
-	public synchronized IndexReader openNRTIndexReader(boolean applyDeletes) {
+	public IndexReader openNRTIndexReader(boolean applyDeletes) {
+		IndexWriter currentWriter = writer;
 		try {
-			if ( writer != null ) {
-				return IndexReader.open( writer, applyDeletes );
+			if ( currentWriter != null ) {
+				return IndexReader.open( currentWriter, applyDeletes );
 			}
 			else {
 				return null;
 			}
 		}
+		catch ( AlreadyClosedException ace ) {
+			// closed concurrently
+			return null;
+		}
 		// following exceptions should be propagated as the IndexReader is needed by
 		// the main thread
 		catch ( CorruptIndexException cie ) {
@@ -0,0 +1,124 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Enforces a memory budget shared by the IndexWriters of all indexes: when the memory
+ * used by the changes they buffer exceeds the budget, the writers using most memory
+ * are flushed, so that idle indexes don't hold memory the busy ones could use.
+ * The buffers Lucene keeps allocated for reuse after a flush are not accounted.
+ * <p/>
+ * The budget is checked by the threads applying changes to the indexes; only one
+ * thread at a time flushes writers, the others don't wait for it.
+ *
+ * @see org.hibernate.search.Environment#INDEXING_RAM_BUDGET
+ */
+public final class IndexingMemoryController {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final long budgetInBytes;
+	private final List<IndexWriterHolder> writerHolders = new CopyOnWriteArrayList<IndexWriterHolder>();
+	private final AtomicBoolean enforcing = new AtomicBoolean( false );
+	private final AtomicLong flushCount = new AtomicLong( 0L );
+
+	IndexingMemoryController(long budgetInBytes) {
+		this.budgetInBytes = budgetInBytes;
+	}
+
+	void register(IndexWriterHolder writerHolder) {
+		writerHolder.setRAMBufferSizeMB( (double) budgetInBytes / ( 1024 * 1024 ) );
+		writerHolders.add( writerHolder );
+	}
+
+	void unregister(IndexWriterHolder writerHolder) {
+		writerHolders.remove( writerHolder );
+	}
+
+	/**
+	 * Flushes the writers using most memory until the memory used by all writers is within the budget.
+	 * Returns immediately if another thread is already doing it.
+	 */
+	void checkBudget() {
+		if ( ! enforcing.compareAndSet( false, true ) ) {
+			return;
+		}
+		try {
+			// bounded, as other threads keep adding documents while we flush
+			for ( int i = 0; i < writerHolders.size(); i++ ) {
+				long used = 0;
+				long largestSize = 0;
+				IndexWriterHolder largest = null;
+				for ( IndexWriterHolder writerHolder : writerHolders ) {
+					long size = writerHolder.getBufferedRamSizeInBytes();
+					used += size;
+					if ( size > largestSize ) {
+						largestSize = size;
+						largest = writerHolder;
+					}
+				}
+				if ( used <= budgetInBytes || largest == null ) {
+					return;
+				}
+				log.tracef( "Indexing RAM budget exceeded: %d bytes used, flushing an IndexWriter using %d bytes", used, largestSize );
+				largest.flushRamBuffer();
+				flushCount.incrementAndGet();
+			}
+		}
+		finally {
+			enforcing.set( false );
+		}
+	}
+
+	/**
+	 * @return the memory, in bytes, the IndexWriters of all indexes are allowed to use
+	 */
+	public long getBudgetInBytes() {
+		return budgetInBytes;
+	}
+
+	/**
+	 * @return the memory, in bytes, currently used by the changes buffered by the IndexWriters of all indexes
+	 */
+	public long getRamUsedInBytes() {
+		long used = 0;
+		for ( IndexWriterHolder writerHolder : writerHolders ) {
+			used += writerHolder.getBufferedRamSizeInBytes();
+		}
+		return used;
+	}
+
+	/**
+	 * @return the number of times an IndexWriter was flushed to enforce the budget
+	 */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+}
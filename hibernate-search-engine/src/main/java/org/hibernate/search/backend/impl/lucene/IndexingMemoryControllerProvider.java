@@ -0,0 +1,65 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.Properties;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.spi.ServiceProvider;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Provides the {@link IndexingMemoryController} shared by all the Lucene backends of a SearchFactory.
+ * The service is {@code null} when no indexing RAM budget is configured.
+ *
+ * @see Environment#INDEXING_RAM_BUDGET
+ */
+public class IndexingMemoryControllerProvider implements ServiceProvider<IndexingMemoryController> {
+
+	private static final Log log = LoggerFactory.make();
+
+	private IndexingMemoryController controller;
+
+	@Override
+	public synchronized void start(Properties properties) {
+		if ( controller != null ) {
+			return;
+		}
+		int budgetInMB = ConfigurationParseHelper.getIntValue( properties, Environment.INDEXING_RAM_BUDGET, 0 );
+		if ( budgetInMB > 0 ) {
+			log.debugf( "IndexWriters of all indexes share an indexing RAM budget of %d MB", budgetInMB );
+			controller = new IndexingMemoryController( budgetInMB * 1024L * 1024L );
+		}
+	}
+
+	@Override
+	public synchronized IndexingMemoryController getService() {
+		return controller;
+	}
+
+	@Override
+	public synchronized void stop() {
+		controller = null;
+	}
+
+}
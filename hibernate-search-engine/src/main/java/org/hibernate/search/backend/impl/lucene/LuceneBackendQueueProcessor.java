@@ -23,13 +23,17 @@
  */
 package org.hibernate.search.backend.impl.lucene;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 
+import org.hibernate.search.Environment;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.backend.BackendFactory;
 import org.hibernate.search.backend.IndexingMonitor;
@@ -37,6 +41,7 @@ import org.hibernate.search.backend.LuceneWork;
 import org.hibernate.search.backend.spi.BackendQueueProcessor;
 import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
 import org.hibernate.search.spi.WorkerBuildContext;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
 import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
@@ -57,6 +62,9 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 	private LuceneBackendResources resources;
 	private boolean sync;
 	private AbstractWorkspaceImpl workspaceOverride;
+	private CoalescingWorkBuffer coalescingBuffer;
+	private WorkerBuildContext context;
+	private final Object submissionLock = new Object();
 
 	public void initialize(Properties props, WorkerBuildContext context, DirectoryBasedIndexManager indexManager) {
 		sync = BackendFactory.isConfiguredAsSync( props );
@@ -67,10 +75,34 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 			);
 		}
 		resources = new LuceneBackendResources( context, indexManager, props, workspaceOverride );
+		this.context = context;
+		IndexingMemoryController memoryController = context.requestService( IndexingMemoryControllerProvider.class );
+		if ( memoryController != null ) {
+			workspaceOverride.setMemoryController( memoryController );
+		}
+		int coalescingWindow = ConfigurationParseHelper.getIntValue( props, Environment.COALESCING_WINDOW, 0 );
+		if ( coalescingWindow > 0 && ! sync ) {
+			int coalescingMaxWorks = ConfigurationParseHelper.getIntValue( props, Environment.COALESCING_MAX_WORKS, 1000 );
+			log.debugf( "Coalescing enabled on index %s: window %d ms, max works %d",
+					indexManager.getIndexName(), coalescingWindow, coalescingMaxWorks );
+			coalescingBuffer = new CoalescingWorkBuffer( this, indexManager.getIndexName(), coalescingWindow, coalescingMaxWorks );
+		}
 	}
 
 	public void close() {
-		resources.shutdown();
+		try {
+			if ( coalescingBuffer != null ) {
+				coalescingBuffer.shutdown();
+			}
+		}
+		finally {
+			try {
+				resources.shutdown();
+			}
+			finally {
+				context.releaseService( IndexingMemoryControllerProvider.class );
+			}
+		}
 	}
 
 	@Override
@@ -78,7 +110,12 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 		if ( workList == null ) {
 			throw new IllegalArgumentException( "workList should not be null" );
 		}
-		doWork( workList, monitor, false );
+		if ( coalescingBuffer != null && monitor == null ) {
+			coalescingBuffer.add( workList );
+		}
+		else {
+			doWork( workList, monitor );
+		}
 	}
 
 	@Override
@@ -86,21 +123,34 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 		if ( singleOperation == null ) {
 			throw new IllegalArgumentException( "singleOperation should not be null" );
 		}
-		List<LuceneWork> singletonList = Collections.singletonList( singleOperation );
-		doWork( singletonList, monitor, true );
+		StreamWorkBuffer streamWorkBuffer = resources.getStreamWorkBuffer();
+		long sequence = streamWorkBuffer.add( singleOperation, monitor );
+		if ( sync ) {
+			streamWorkBuffer.waitForCompletion( sequence );
+			resources.getWorkspace().waitForCommit();
+		}
 	}
 
-	private void doWork(List<LuceneWork> workList, IndexingMonitor monitor, boolean streaming) {
-		LuceneBackendQueueTask luceneBackendQueueProcessor = new LuceneBackendQueueTask(
-				workList,
-				resources,
-				monitor,
-				streaming
-		);
+	void doWork(List<LuceneWork> workList, IndexingMonitor monitor) {
+		int queueProcessors = resources.getQueueProcessors();
+		List<Future<?>> futures;
+		if ( queueProcessors == 1 ) {
+			futures = Collections.<Future<?>>singletonList(
+					submit( 0, new LuceneBackendQueueTask( workList, resources, monitor, false ) )
+			);
+		}
+		else if ( containsBarrier( workList ) ) {
+			futures = submitBarrier( workList, monitor, queueProcessors );
+		}
+		else {
+			futures = submitPerEntity( workList, monitor, queueProcessors );
+		}
 		if ( sync ) {
-			Future<?> future = resources.getQueueingExecutor().submit( luceneBackendQueueProcessor );
 			try {
-				future.get();
+				for ( Future<?> future : futures ) {
+					future.get();
+				}
+				resources.getWorkspace().waitForCommit();
 			}
 			catch ( InterruptedException e ) {
 				Thread.currentThread().interrupt();
@@ -110,8 +160,100 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 				throw new SearchException( "Error applying updates to the Lucene index", e.getCause() );
 			}
 		}
+	}
+
+	/**
+	 * Splits the changeset so that all works about the same entity id are routed
+	 * to the same queue processor: this preserves their ordering across changesets.
+	 */
+	private List<Future<?>> submitPerEntity(List<LuceneWork> workList, IndexingMonitor monitor, int queueProcessors) {
+		@SuppressWarnings( { "rawtypes", "unchecked" })
+		List<LuceneWork>[] lanes = new List[queueProcessors];
+		for ( LuceneWork work : workList ) {
+			int lane = ( work.getIdInString().hashCode() & Integer.MAX_VALUE ) % queueProcessors;
+			if ( lanes[lane] == null ) {
+				lanes[lane] = new ArrayList<LuceneWork>();
+			}
+			lanes[lane].add( work );
+		}
+		List<Future<?>> futures = new ArrayList<Future<?>>( queueProcessors );
+		synchronized ( submissionLock ) {
+			for ( int i = 0; i < queueProcessors; i++ ) {
+				if ( lanes[i] != null ) {
+					futures.add( submit( i, new LuceneBackendQueueTask( lanes[i], resources, monitor, false ) ) );
+				}
+			}
+		}
+		return futures;
+	}
+
+	/**
+	 * A changeset containing works not related to a single entity, as purgeAll, needs to
+	 * be applied after all previously enqueued works and before any following one: all
+	 * queue processors are stopped while the first one applies the whole changeset.
+	 */
+	private List<Future<?>> submitBarrier(List<LuceneWork> workList, IndexingMonitor monitor, int queueProcessors) {
+		final CountDownLatch arrived = new CountDownLatch( queueProcessors - 1 );
+		final CountDownLatch done = new CountDownLatch( 1 );
+		final LuceneBackendQueueTask task = new LuceneBackendQueueTask( workList, resources, monitor, false );
+		List<Future<?>> futures = new ArrayList<Future<?>>( queueProcessors );
+		synchronized ( submissionLock ) {
+			futures.add( submit( 0, new Runnable() {
+				public void run() {
+					try {
+						awaitUninterruptibly( arrived );
+						task.run();
+					}
+					finally {
+						done.countDown();
+					}
+				}
+			} ) );
+			for ( int i = 1; i < queueProcessors; i++ ) {
+				submit( i, new Runnable() {
+					public void run() {
+						arrived.countDown();
+						awaitUninterruptibly( done );
+					}
+				} );
+			}
+		}
+		return futures;
+	}
+
+	private Future<?> submit(int queueProcessor, Runnable task) {
+		ExecutorService executor = resources.getQueueingExecutor( queueProcessor );
+		if ( sync ) {
+			return executor.submit( task );
+		}
 		else {
-			resources.getQueueingExecutor().execute( luceneBackendQueueProcessor );
+			executor.execute( task );
+			return null;
+		}
+	}
+
+	private static boolean containsBarrier(List<LuceneWork> workList) {
+		for ( LuceneWork work : workList ) {
+			if ( work.getIdInString() == null ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		boolean interrupted = false;
+		while ( true ) {
+			try {
+				latch.await();
+				break;
+			}
+			catch ( InterruptedException e ) {
+				interrupted = true;
+			}
+		}
+		if ( interrupted ) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -120,6 +262,21 @@ public class LuceneBackendQueueProcessor implements BackendQueueProcessor {
 		return resources.getExclusiveModificationLock();
 	}
 
+	/**
+	 * @return the number of works enqueued while coalescing is enabled
+	 */
+	public long getCoalescingEnqueuedWorksCount() {
+		return coalescingBuffer == null ? 0 : coalescingBuffer.getEnqueuedWorksCount();
+	}
+
+	/**
+	 * @return the number of works not applied to the index as superseded by later works
+	 * about the same entity, or 0 if coalescing is not enabled
+	 */
+	public long getCoalescingEliminatedWorksCount() {
+		return coalescingBuffer == null ? 0 : coalescingBuffer.getEliminatedWorksCount();
+	}
+
 	public LuceneBackendResources getIndexResources() {
 		return resources;
 	}
@@ -23,7 +23,8 @@
  */
 package org.hibernate.search.backend.impl.lucene;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -64,9 +65,10 @@ class LuceneBackendQueueTask implements Runnable {
 	}
 
 	public void run() {
+		boolean someFailureHappened = false;
 		modificationLock.lock();
 		try {
-			applyUpdates();
+			someFailureHappened = applyUpdates();
 		} catch ( InterruptedException e ) {
 			Thread.currentThread().interrupt();
 			log.interruptedWhileWaitingForIndexActivity();
@@ -77,6 +79,24 @@ class LuceneBackendQueueTask implements Runnable {
 		finally {
 			modificationLock.unlock();
 		}
+		if ( someFailureHappened ) {
+			recoverFromFailure();
+		}
+	}
+
+	/**
+	 * Other queue processors might be applying their changesets through the same IndexWriter:
+	 * it's released only once they are done, holding the exclusive modification lock.
+	 */
+	private void recoverFromFailure() {
+		Lock exclusiveLock = resources.getExclusiveModificationLock();
+		exclusiveLock.lock();
+		try {
+			resources.getWorkspace().recoverFromFailure();
+		}
+		finally {
+			exclusiveLock.unlock();
+		}
 	}
 
 	private void handleException(Exception e) {
@@ -89,10 +109,10 @@ class LuceneBackendQueueTask implements Runnable {
 
 	/**
 	 * Applies all modifications to the index in parallel using the workers executor
-	 * @throws ExecutionException
+	 * @return true if some works failed
 	 * @throws InterruptedException
 	 */
-	private void applyUpdates() throws InterruptedException, ExecutionException {
+	private boolean applyUpdates() throws InterruptedException {
 		AbstractWorkspaceImpl workspace = resources.getWorkspace();
 		
 		ErrorContextBuilder errorContextBuilder = new ErrorContextBuilder();
@@ -101,32 +121,24 @@ class LuceneBackendQueueTask implements Runnable {
 		IndexWriter indexWriter = workspace.getIndexWriter( errorContextBuilder );
 		if ( indexWriter == null ) {
 			log.cannotOpenIndexWriterCausePreviousError();
-			return;
+			return false;
 		}
 		boolean someFailureHappened = false;
 		try {
-			ExecutorService executor = resources.getWorkersExecutor();
-			int queueSize = queue.size();
-			Future[] submittedTasks = new Future[ queueSize ];
-			for ( int i = 0; i < queueSize; i++ ) {
-				SingleTaskRunnable task = new SingleTaskRunnable( queue.get( i ), resources, indexWriter, monitor );
-				submittedTasks[i] = executor.submit( task );
-			}
-			// now wait for all tasks being completed before releasing our lock
-			// (this thread waits even in async backend mode)
-			LinkedList<LuceneWork> failedUpdates = new LinkedList<LuceneWork>();
-			for ( int i = 0; i < queueSize; i++ ) {
-				Future task = submittedTasks[i];
-				try {
-					task.get();
-					errorContextBuilder.workCompleted( queue.get( i ) );
-				}
-				catch (ExecutionException e) {
-					someFailureHappened = true;
-					failedUpdates.add( queue.get( i ) );
-					errorContextBuilder.errorThatOccurred( e.getCause() );
+			// copy to an array: the queue might be a LinkedList
+			LuceneWork[] works = queue.toArray( new LuceneWork[queue.size()] );
+			List<LuceneWork> failedUpdates = new ArrayList<LuceneWork>();
+			int segmentStart = 0;
+			for ( int i = 0; i < works.length; i++ ) {
+				if ( isBarrier( works[i] ) ) {
+					// apply what precedes the barrier, then the barrier alone
+					applySegment( works, segmentStart, i, indexWriter, errorContextBuilder, failedUpdates );
+					applySegment( works, i, i + 1, indexWriter, errorContextBuilder, failedUpdates );
+					segmentStart = i + 1;
 				}
 			}
+			applySegment( works, segmentStart, works.length, indexWriter, errorContextBuilder, failedUpdates );
+			someFailureHappened = ! failedUpdates.isEmpty();
 			if ( someFailureHappened ) {
 				errorContextBuilder.addAllWorkThatFailed( failedUpdates );
 				resources.getErrorHandler().handle( errorContextBuilder.createErrorContext() );
@@ -140,6 +152,79 @@ class LuceneBackendQueueTask implements Runnable {
 		finally {
 			resources.getWorkspace().afterTransactionApplied( someFailureHappened );
 		}
+		return someFailureHappened;
+	}
+
+	/**
+	 * Works not related to a single entity, as purgeAll and optimize, need to be applied
+	 * after all previous works and before any following one.
+	 */
+	private static boolean isBarrier(LuceneWork work) {
+		return work.getIdInString() == null;
+	}
+
+	/**
+	 * Applies works[from] to works[to - 1] splitting them in a partition per worker thread.
+	 * All works related to the same entity id are assigned to the same partition, so they
+	 * are applied in order.
+	 */
+	private void applySegment(LuceneWork[] works, int from, int to, IndexWriter indexWriter,
+			ErrorContextBuilder errorContextBuilder, List<LuceneWork> failedUpdates)
+			throws InterruptedException {
+		final int size = to - from;
+		if ( size == 0 ) {
+			return;
+		}
+		final int partitionsNumber = Math.min( resources.getWorkerThreads(), size );
+		final WorkPartitionRunnable[] partitions = new WorkPartitionRunnable[partitionsNumber];
+		if ( partitionsNumber == 1 ) {
+			// no need to hand over the work to another thread
+			partitions[0] = new WorkPartitionRunnable( Arrays.asList( works ).subList( from, to ), resources, indexWriter, monitor );
+			partitions[0].run();
+		}
+		else {
+			List<List<LuceneWork>> partitionedWorks = new ArrayList<List<LuceneWork>>( partitionsNumber );
+			for ( int p = 0; p < partitionsNumber; p++ ) {
+				partitionedWorks.add( new ArrayList<LuceneWork>( size / partitionsNumber + 1 ) );
+			}
+			for ( int i = from; i < to; i++ ) {
+				int hash = works[i].getIdInString().hashCode();
+				partitionedWorks.get( ( hash & Integer.MAX_VALUE ) % partitionsNumber ).add( works[i] );
+			}
+			ExecutorService executor = resources.getWorkersExecutor();
+			Future<?>[] submittedTasks = new Future[partitionsNumber];
+			for ( int p = 0; p < partitionsNumber; p++ ) {
+				partitions[p] = new WorkPartitionRunnable( partitionedWorks.get( p ), resources, indexWriter, monitor );
+				submittedTasks[p] = executor.submit( partitions[p] );
+			}
+			// now wait for all partitions being completed before releasing our lock
+			// (this thread waits even in async backend mode)
+			for ( int p = 0; p < partitionsNumber; p++ ) {
+				try {
+					submittedTasks[p].get();
+				}
+				catch (ExecutionException e) {
+					partitions[p].allWorksFailed( e.getCause() );
+				}
+			}
+		}
+		for ( WorkPartitionRunnable partition : partitions ) {
+			List<LuceneWork> failedWorks = partition.getFailedWorks();
+			if ( failedWorks == null ) {
+				for ( LuceneWork work : partition.getWorks() ) {
+					errorContextBuilder.workCompleted( work );
+				}
+			}
+			else {
+				for ( LuceneWork work : partition.getWorks() ) {
+					if ( ! failedWorks.contains( work ) ) {
+						errorContextBuilder.workCompleted( work );
+					}
+				}
+				failedUpdates.addAll( failedWorks );
+				errorContextBuilder.errorThatOccurred( partition.getLastError() );
+			}
+		}
 	}
 
 }
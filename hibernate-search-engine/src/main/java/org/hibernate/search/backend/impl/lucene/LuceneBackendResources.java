@@ -26,6 +26,7 @@ package org.hibernate.search.backend.impl.lucene;
 import org.hibernate.search.batchindexing.impl.Executors;
 import org.hibernate.search.spi.WorkerBuildContext;
 import org.hibernate.search.backend.BackendFactory;
+import org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle;
 import org.hibernate.search.backend.impl.lucene.works.LuceneWorkVisitor;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.indexes.impl.CommonPropertiesParse;
@@ -33,8 +34,12 @@ import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 import org.hibernate.search.util.logging.impl.Log;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -54,9 +59,11 @@ public class LuceneBackendResources {
 	private final LuceneWorkVisitor visitor;
 	private final AbstractWorkspaceImpl workspace;
 	private final ErrorHandler errorHandler;
-	private final ExecutorService queueingExecutor;
+	private final ThreadPoolExecutor[] queueingExecutors;
 	private final ExecutorService workersExecutor;
+	private final StreamWorkBuffer streamWorkBuffer;
 	private final int maxQueueLength;
+	private final int workerThreads;
 	private final String indexName;
 	private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
@@ -69,18 +76,57 @@ public class LuceneBackendResources {
 		this.workspace = workspace;
 		this.visitor = new LuceneWorkVisitor( workspace );
 		this.maxQueueLength = CommonPropertiesParse.extractMaxQueueSize( indexName, props );
-		this.queueingExecutor = Executors.newFixedThreadPool( 1, "Index updates queue processor for index " + indexName, maxQueueLength );
+		int queueProcessors = CommonPropertiesParse.extractQueueProcessors( indexName, props );
+		this.queueingExecutors = new ThreadPoolExecutor[queueProcessors];
+		List<BlockingQueue<Runnable>> queues = new ArrayList<BlockingQueue<Runnable>>( queueProcessors );
+		for ( int i = 0; i < queueProcessors; i++ ) {
+			this.queueingExecutors[i] = Executors.newFixedThreadPool( 1, "Index updates queue processor for index " + indexName, maxQueueLength );
+			queues.add( queueingExecutors[i].getQueue() );
+		}
+		MergeThrottle mergeThrottle = workspace.getMergeThrottle();
+		if ( mergeThrottle != null ) {
+			mergeThrottle.monitorQueues( queues );
+		}
 		this.workersExecutor = BackendFactory.buildWorkersExecutor( props, indexName );
+		this.workerThreads = BackendFactory.getWorkerThreadPoolSize( props );
+		this.streamWorkBuffer = new StreamWorkBuffer( this, maxQueueLength );
 	}
 
 	public ExecutorService getQueueingExecutor() {
-		return queueingExecutor;
+		return queueingExecutors[0];
+	}
+
+	/**
+	 * @param queueProcessor index of the queue processor, from 0 to {@link #getQueueProcessors()} - 1
+	 * @return the single threaded executor of the given queue processor
+	 */
+	public ExecutorService getQueueingExecutor(int queueProcessor) {
+		return queueingExecutors[queueProcessor];
+	}
+
+	/**
+	 * @return the number of threads processing the queue of changesets
+	 */
+	public int getQueueProcessors() {
+		return queueingExecutors.length;
 	}
 
 	public ExecutorService getWorkersExecutor() {
 		return workersExecutor;
 	}
 
+	StreamWorkBuffer getStreamWorkBuffer() {
+		return streamWorkBuffer;
+	}
+
+	/**
+	 * @return the number of threads of the workers executor, which is also the
+	 * maximum number of partitions a changeset is split into.
+	 */
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
 	public int getMaxQueueLength() {
 		return maxQueueLength;
 	}
@@ -100,7 +146,9 @@ public class LuceneBackendResources {
 	public void shutdown() {
 		//need to close them in this specific order:
 		try {
-			flushCloseExecutor( queueingExecutor );
+			for ( ExecutorService queueingExecutor : queueingExecutors ) {
+				flushCloseExecutor( queueingExecutor );
+			}
 			flushCloseExecutor( workersExecutor );
 		}
 		finally {
@@ -0,0 +1,212 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.store.Directory;
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.exception.ErrorHandler;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Commits the IndexWriter of a {@link NRTWorkspaceImpl} from a background thread, every
+ * <code>nrt.commit.interval</code> milliseconds and whenever <code>nrt.commit.max_operations</code>
+ * operations are waiting to be committed, so that a crash can only lose a bounded amount of changes.
+ * The threads applying changes never wait for these commits.
+ * <p/>
+ * The generation of the index is stored in the user data of each commit, so that after a restart
+ * the generations keep increasing from the last committed one.
+ * Keeps track of the last committed generation of the index and of the latency of commits.
+ */
+final class NRTCommitScheduler {
+
+	static final String INTERVAL = "nrt.commit.interval";
+	static final String MAX_OPERATIONS = "nrt.commit.max_operations";
+
+	/**
+	 * Key of the index generation in the commit user data
+	 */
+	static final String GENERATION_KEY = "hibernate.search.nrt.generation";
+
+	private static final Log log = LoggerFactory.make();
+
+	private final String indexName;
+	private final NRTWorkspaceImpl workspace;
+	private final IndexWriterHolder writerHolder;
+	private final ErrorHandler errorHandler;
+	private final long maxOperations;
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicBoolean commitRequested = new AtomicBoolean( false );
+	private final Runnable commitTask = new CommitTask();
+
+	private final AtomicLong pendingOperations = new AtomicLong( 0L );
+	private volatile long lastCommittedGeneration = 0L;
+	private volatile long lastCommitDurationMillis = 0L;
+
+	private NRTCommitScheduler(String indexName, NRTWorkspaceImpl workspace, IndexWriterHolder writerHolder,
+			ErrorHandler errorHandler, long intervalMillis, long maxOperations) {
+		this.indexName = indexName;
+		this.workspace = workspace;
+		this.writerHolder = writerHolder;
+		this.errorHandler = errorHandler;
+		this.maxOperations = maxOperations;
+		this.executor = Executors.newScheduledThreadPool( "NRT commit for index " + indexName );
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+		if ( intervalMillis > 0 ) {
+			executor.scheduleWithFixedDelay( commitTask, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+		}
+	}
+
+	/**
+	 * @return a new NRTCommitScheduler, or null if the IndexWriter is only committed when closed
+	 */
+	static NRTCommitScheduler create(String indexName, NRTWorkspaceImpl workspace, IndexWriterHolder writerHolder,
+			ErrorHandler errorHandler, Properties cfg) {
+		int intervalMillis = ConfigurationParseHelper.getIntValue( cfg, INTERVAL, 0 );
+		int maxOperations = ConfigurationParseHelper.getIntValue( cfg, MAX_OPERATIONS, 0 );
+		if ( intervalMillis <= 0 && maxOperations <= 0 ) {
+			return null;
+		}
+		log.debugf( "Periodic commits enabled on near-real-time index %s: interval %d ms, max operations %d",
+				indexName, intervalMillis, maxOperations );
+		return new NRTCommitScheduler(
+				indexName, workspace, writerHolder, errorHandler,
+				intervalMillis, maxOperations > 0 ? maxOperations : Long.MAX_VALUE
+		);
+	}
+
+	void operationsApplied(int modCount) {
+		pendingOperations.addAndGet( modCount );
+	}
+
+	/**
+	 * Invoked after a changeset is applied: requests a commit if too many operations
+	 * are waiting for one. Never blocks.
+	 */
+	void changesApplied() {
+		if ( pendingOperations.get() >= maxOperations && commitRequested.compareAndSet( false, true ) ) {
+			executor.execute( commitTask );
+		}
+	}
+
+	/**
+	 * Commits all changes applied so far, storing the current generation. Invoked before closing
+	 * the IndexWriter, as the commit done by closing it would not update the stored generation.
+	 */
+	void commitAll() {
+		if ( pendingOperations.get() != 0 ) {
+			commit();
+		}
+	}
+
+	/**
+	 * The generation was restored from the index when opening it.
+	 */
+	void setLastCommittedGeneration(long generation) {
+		lastCommittedGeneration = generation;
+	}
+
+	long getLastCommittedGeneration() {
+		return lastCommittedGeneration;
+	}
+
+	long getPendingOperations() {
+		return pendingOperations.get();
+	}
+
+	long getLastCommitDurationMillis() {
+		return lastCommitDurationMillis;
+	}
+
+	/**
+	 * Waits for a running commit to complete; pending ones are discarded.
+	 */
+	void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+	}
+
+	private void commit() {
+		long operations = pendingOperations.get();
+		// the commit might include more recent changes, but those are not guaranteed
+		long generation = workspace.getCurrentGeneration();
+		Map<String, String> commitUserData = Collections.singletonMap( GENERATION_KEY, Long.toString( generation ) );
+		long start = System.nanoTime();
+		try {
+			if ( ! writerHolder.commitIndexWriter( commitUserData, null ) ) {
+				return;
+			}
+		}
+		catch ( RuntimeException e ) {
+			errorHandler.handleException( log.nrtCommitFailed( indexName ), e );
+			return;
+		}
+		lastCommitDurationMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+		lastCommittedGeneration = generation;
+		pendingOperations.addAndGet( -operations );
+	}
+
+	/**
+	 * @return the generation stored by the last commit of the index, or 0 if the index doesn't exist or none was stored
+	 */
+	static long readCommittedGeneration(Directory directory, String indexName) {
+		try {
+			if ( ! IndexReader.indexExists( directory ) ) {
+				return 0L;
+			}
+			String generation = IndexReader.getCommitUserData( directory ).get( GENERATION_KEY );
+			return generation == null ? 0L : Long.parseLong( generation );
+		}
+		catch ( IOException e ) {
+			throw log.unableToReadCommittedGeneration( e, indexName );
+		}
+	}
+
+	private class CommitTask implements Runnable {
+
+		@Override
+		public void run() {
+			commitRequested.set( false );
+			if ( pendingOperations.get() != 0 ) {
+				commit();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.exception.ErrorHandler;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Refreshes the reference IndexReader of a {@link NRTWorkspaceImpl} from a dedicated thread,
+ * at most once every <code>nrt.max_staleness</code> milliseconds, instead of after
+ * each applied changeset: under heavy write load most of those IndexReaders would never
+ * be used by a query. A refresh can also be requested explicitly, for example by a query
+ * which needs to read its own writes.
+ */
+final class NRTReaderRefresher {
+
+	static final String MAX_STALENESS = "nrt.max_staleness";
+
+	private static final Log log = LoggerFactory.make();
+
+	private final String indexName;
+	private final NRTWorkspaceImpl workspace;
+	private final ErrorHandler errorHandler;
+	private final long maxStalenessMillis;
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicBoolean scheduled = new AtomicBoolean( false );
+
+	/**
+	 * When the last refresh started, from {@link System#nanoTime()}.
+	 */
+	private volatile long lastRefreshNanos = System.nanoTime();
+
+	private NRTReaderRefresher(String indexName, NRTWorkspaceImpl workspace, ErrorHandler errorHandler, long maxStalenessMillis) {
+		this.indexName = indexName;
+		this.workspace = workspace;
+		this.errorHandler = errorHandler;
+		this.maxStalenessMillis = maxStalenessMillis;
+		this.executor = Executors.newScheduledThreadPool( "NRT IndexReader refresh for index " + indexName );
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+	}
+
+	/**
+	 * @return a new NRTReaderRefresher, or null if the IndexReader has to be refreshed after each changeset
+	 */
+	static NRTReaderRefresher create(String indexName, NRTWorkspaceImpl workspace, ErrorHandler errorHandler, Properties cfg) {
+		int maxStalenessMillis = ConfigurationParseHelper.getIntValue( cfg, MAX_STALENESS, 0 );
+		if ( maxStalenessMillis <= 0 ) {
+			return null;
+		}
+		return new NRTReaderRefresher( indexName, workspace, errorHandler, maxStalenessMillis );
+	}
+
+	/**
+	 * Invoked after a changeset is applied: schedules a refresh so that the changes are
+	 * visible within the maximum staleness. Never blocks.
+	 */
+	void changesApplied() {
+		if ( scheduled.compareAndSet( false, true ) ) {
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - lastRefreshNanos );
+			long delay = Math.max( 0, maxStalenessMillis - elapsedMillis );
+			executor.schedule( new RefreshTask(), delay, TimeUnit.MILLISECONDS );
+		}
+	}
+
+	/**
+	 * Refreshes the IndexReader as soon as possible, without waiting for the maximum staleness to expire.
+	 */
+	void refreshNow() {
+		if ( ! executor.isShutdown() ) {
+			executor.execute( new RefreshTask() );
+		}
+	}
+
+	/**
+	 * Waits for a running refresh to complete; pending ones are discarded.
+	 */
+	void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+	}
+
+	private class RefreshTask implements Runnable {
+
+		@Override
+		public void run() {
+			// changes applied from now on need a new refresh
+			scheduled.set( false );
+			lastRefreshNanos = System.nanoTime();
+			try {
+				workspace.refreshReferenceReader();
+			}
+			catch ( RuntimeException e ) {
+				errorHandler.handleException( log.nrtReaderRefreshFailed( indexName ), e );
+			}
+		}
+
+	}
+
+}
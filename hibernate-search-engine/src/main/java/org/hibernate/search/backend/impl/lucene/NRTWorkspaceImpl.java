@@ -22,15 +22,21 @@ package org.hibernate.search.backend.impl.lucene;
 
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexReader;
+import org.hibernate.search.Environment;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.impl.ReaderWarmers;
 import org.hibernate.search.indexes.spi.DirectoryBasedReaderProvider;
+import org.hibernate.search.util.configuration.impl.MaskedProperty;
 import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
@@ -44,8 +50,22 @@ import org.hibernate.search.util.logging.impl.LoggerFactory;
  * the reference is never returned to clients, but each time a client needs an IndexReader
  * a clone is created from the last refreshed IndexReader.
  * 
- * Since the backend is forced to create a reference IndexReader after each (skipped) commit,
- * some IndexReaders might be opened without being ever used.
+ * By default the reference IndexReader is refreshed after each (skipped) commit, so
+ * some IndexReaders might be opened without being ever used. When <code>nrt.max_staleness</code>
+ * is set, a dedicated thread refreshes it at most once in that amount of milliseconds instead.
+ * 
+ * Each applied changeset increments the generation of the index: queries needing to read
+ * their own writes can wait for the reference Reader to include a given generation.
+ * 
+ * Changes are only made durable when the IndexWriter is closed, unless <code>nrt.commit.interval</code>
+ * or <code>nrt.commit.max_operations</code> are set: then a background thread commits them
+ * periodically, bounding the changes lost in case of crash to those applied after the
+ * last committed generation. That generation is stored in the commit, so that after a restart
+ * the generations keep increasing from it.
+ * 
+ * Before replacing the reference Reader, the new one is warmed by the
+ * {@link org.hibernate.search.indexes.spi.IndexReaderWarmer}s configured in <code>reader.warmer</code>;
+ * clones share the FieldCaches loaded by the warmers.
  * 
  * This class implements both Workspace and ReaderProvider.
  * 
@@ -61,34 +81,178 @@ public class NRTWorkspaceImpl extends AbstractWorkspaceImpl implements Directory
 	private final WriteLock writeLock = readWriteLock.writeLock();
 	private final String indexName;
 
+	private final Condition referenceReaderRefreshed = writeLock.newCondition();
+
+	/**
+	 * Null when the reference Reader is refreshed after each changeset
+	 */
+	private final NRTReaderRefresher readerRefresher;
+
+	/**
+	 * Null when changes are only committed when closing the IndexWriter
+	 */
+	private final NRTCommitScheduler commitScheduler;
+
+	/**
+	 * Null when no warmer is configured
+	 */
+	private final ReaderWarmers warmers;
+
+	private final AtomicLong appliedGeneration = new AtomicLong( 0L );
+
 	//guardedBy readLock/writeLok
 	private IndexReader currentReferenceReader = null;
 
+	//guardedBy writeLock
+	private long referenceReaderGeneration = 0L;
+
 	public NRTWorkspaceImpl(DirectoryBasedIndexManager indexManager, ErrorHandler errorHandler, Properties cfg) {
 		super( indexManager, errorHandler );
+		enableBackgroundOptimizer( errorHandler, cfg );
 		indexName = indexManager.getIndexName();
+		warmers = ReaderWarmers.create( indexManager, new MaskedProperty( cfg, Environment.READER_PREFIX ) );
+		readerRefresher = NRTReaderRefresher.create( indexName, this, errorHandler, cfg );
+		commitScheduler = NRTCommitScheduler.create( indexName, this, writerHolder, errorHandler, cfg );
 	}
 
 	@Override
 	public void afterTransactionApplied(boolean someFailureHappened) {
-		if ( someFailureHappened ) {
-			writerHolder.forceLockRelease();
-		}
-		else {
-			IndexReader newIndexReader = writerHolder.openNRTIndexReader( true );
-			writeLock.lock();
-			IndexReader oldReader = currentReferenceReader;
-			currentReferenceReader = newIndexReader;
-			writeLock.unlock();
-			try {
-				oldReader.close();
+		// on failures the IndexWriter is released by recoverFromFailure()
+		if ( ! someFailureHappened ) {
+			appliedGeneration.incrementAndGet();
+			if ( readerRefresher == null ) {
+				refreshReferenceReader();
 			}
-			catch ( IOException e ) {
-				log.unableToCLoseLuceneIndexReader( e );
+			else {
+				readerRefresher.changesApplied();
+			}
+			if ( commitScheduler != null ) {
+				commitScheduler.changesApplied();
 			}
 		}
 	}
 
+	@Override
+	public void incrementModificationCounter(int modCount) {
+		super.incrementModificationCounter( modCount );
+		if ( commitScheduler != null ) {
+			commitScheduler.operationsApplied( modCount );
+		}
+	}
+
+	/**
+	 * Replaces the reference Reader with a new one opened from the IndexWriter,
+	 * including all changesets applied so far.
+	 */
+	void refreshReferenceReader() {
+		// all changes of this generation were applied before opening the reader
+		long generation = appliedGeneration.get();
+		IndexReader newIndexReader = writerHolder.openNRTIndexReader( true );
+		if ( warmers != null && newIndexReader != null ) {
+			warmers.warm( newIndexReader );
+		}
+		IndexReader oldReader;
+		writeLock.lock();
+		try {
+			if ( generation < referenceReaderGeneration ) {
+				// a concurrent refresh already installed a more recent Reader
+				oldReader = newIndexReader;
+			}
+			else {
+				oldReader = currentReferenceReader;
+				currentReferenceReader = newIndexReader;
+				referenceReaderGeneration = generation;
+				referenceReaderRefreshed.signalAll();
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+		closeIndexReader( oldReader );
+	}
+
+	/**
+	 * @return the generation of the index: the number of changesets applied so far, including the ones
+	 * committed before the index was last opened
+	 */
+	public long getCurrentGeneration() {
+		return appliedGeneration.get();
+	}
+
+	/**
+	 * Waits for the IndexReaders returned by {@link #openIndexReader()} to include the
+	 * changesets up to the given generation, refreshing them immediately if needed.
+	 *
+	 * @param generation as returned by {@link #getCurrentGeneration()} after applying the changes to be read
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return false if the timeout expired before the IndexReaders include the generation
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean waitForGeneration(long generation, long timeout, TimeUnit unit) throws InterruptedException {
+		if ( readerRefresher != null && ! isReferenceReaderAtGeneration( generation ) ) {
+			readerRefresher.refreshNow();
+		}
+		long nanos = unit.toNanos( timeout );
+		writeLock.lock();
+		try {
+			while ( referenceReaderGeneration < generation ) {
+				if ( nanos <= 0 ) {
+					return false;
+				}
+				nanos = referenceReaderRefreshed.awaitNanos( nanos );
+			}
+			return true;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	private boolean isReferenceReaderAtGeneration(long generation) {
+		readLock.lock();
+		try {
+			return referenceReaderGeneration >= generation;
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the generation of the index last made durable by a periodic commit, or -1 if periodic commits are disabled
+	 */
+	public long getLastCommittedGeneration() {
+		return commitScheduler == null ? -1 : commitScheduler.getLastCommittedGeneration();
+	}
+
+	/**
+	 * @return the number of operations applied to the index and not committed yet, or -1 if periodic commits are disabled
+	 */
+	public long getUncommittedOperations() {
+		return commitScheduler == null ? -1 : commitScheduler.getPendingOperations();
+	}
+
+	/**
+	 * @return the time taken by the last periodic commit in milliseconds, or -1 if periodic commits are disabled
+	 */
+	public long getLastCommitDurationMillis() {
+		return commitScheduler == null ? -1 : commitScheduler.getLastCommitDurationMillis();
+	}
+
+	@Override
+	public void shutDownNow() {
+		if ( readerRefresher != null ) {
+			readerRefresher.stop();
+		}
+		if ( commitScheduler != null ) {
+			commitScheduler.stop();
+			commitScheduler.commitAll();
+		}
+		// closing the IndexWriter commits any other pending change
+		super.shutDownNow();
+	}
+
 	@Override
 	public IndexReader openIndexReader() {
 		// we need to readLock to read the state of the currentReferenceReader
@@ -155,6 +319,21 @@ public class NRTWorkspaceImpl extends AbstractWorkspaceImpl implements Directory
 
 	@Override
 	public void initialize(DirectoryBasedIndexManager indexManager, Properties props) {
+		// keep increasing the generations committed before a restart
+		long generation = NRTCommitScheduler.readCommittedGeneration(
+				indexManager.getDirectoryProvider().getDirectory(), indexName
+		);
+		appliedGeneration.set( generation );
+		writeLock.lock();
+		try {
+			referenceReaderGeneration = generation;
+		}
+		finally {
+			writeLock.unlock();
+		}
+		if ( commitScheduler != null ) {
+			commitScheduler.setLastCommittedGeneration( generation );
+		}
 	}
 
 	@Override
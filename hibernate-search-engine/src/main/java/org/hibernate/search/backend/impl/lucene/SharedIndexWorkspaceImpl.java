@@ -57,6 +57,11 @@ public class SharedIndexWorkspaceImpl extends AbstractWorkspaceImpl {
 		}
 	}
 
+	@Override
+	public void recoverFromFailure() {
+		// the last user of the IndexWriter already released it
+	}
+
 	@Override
 	public IndexWriter getIndexWriter() {
 		synchronized ( lock ) {
@@ -0,0 +1,206 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.search.backend.AddLuceneWork;
+import org.hibernate.search.backend.IndexingMonitor;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Bounded ring buffer accumulating the stream operations targeting an index.
+ * Producers only append to the buffer; a single drain task runs on the queue processor thread
+ * and hands all accumulated works to the IndexWriter workers in one go, so the cost of
+ * locking, fetching the IndexWriter and committing is paid once per batch instead of
+ * once per document.
+ * Works other than {@link AddLuceneWork} are applied on their own, in order, as they
+ * could conflict with the surrounding operations if applied in parallel.
+ */
+final class StreamWorkBuffer {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final LuceneBackendResources resources;
+	private final LuceneWork[] works;
+	private final IndexingMonitor[] monitors;
+	private final Runnable drainTask = new DrainTask();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final Condition processed = lock.newCondition();
+
+	//guardedBy lock:
+	private int head = 0;
+	private int count = 0;
+	private long enqueued = 0;
+	private long completed = 0;
+	private boolean drainScheduled = false;
+
+	StreamWorkBuffer(LuceneBackendResources resources, int capacity) {
+		this.resources = resources;
+		this.works = new LuceneWork[capacity];
+		this.monitors = new IndexingMonitor[capacity];
+	}
+
+	/**
+	 * Appends a work to the buffer, blocking while the buffer is full.
+	 * @return the sequence number of the work, to be used with {@link #waitForCompletion(long)}
+	 * @throws org.hibernate.search.SearchException if interrupted while waiting: the work is not applied
+	 */
+	long add(LuceneWork work, IndexingMonitor monitor) {
+		final long sequence;
+		final boolean scheduleDrain;
+		lock.lock();
+		try {
+			while ( count == works.length ) {
+				notFull.await();
+			}
+			int tail = ( head + count ) % works.length;
+			works[tail] = work;
+			monitors[tail] = monitor;
+			count++;
+			sequence = ++enqueued;
+			scheduleDrain = ! drainScheduled;
+			drainScheduled = true;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw log.interruptedWhileApplyingStreamWork( e, resources.getIndexName() );
+		}
+		finally {
+			lock.unlock();
+		}
+		if ( scheduleDrain ) {
+			resources.getQueueingExecutor().execute( drainTask );
+		}
+		return sequence;
+	}
+
+	/**
+	 * Blocks until the work having the given sequence number, and all works added before it, were applied.
+	 * @throws org.hibernate.search.SearchException if interrupted while waiting
+	 */
+	void waitForCompletion(long sequence) {
+		lock.lock();
+		try {
+			while ( completed < sequence ) {
+				processed.await();
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw log.interruptedWhileApplyingStreamWork( e, resources.getIndexName() );
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void drain() {
+		final LuceneWork[] batch;
+		final IndexingMonitor[] batchMonitors;
+		final long lastSequence;
+		lock.lock();
+		try {
+			batch = new LuceneWork[count];
+			batchMonitors = new IndexingMonitor[count];
+			for ( int i = 0; i < batch.length; i++ ) {
+				batch[i] = works[head];
+				batchMonitors[i] = monitors[head];
+				works[head] = null;
+				monitors[head] = null;
+				head = ( head + 1 ) % works.length;
+			}
+			count = 0;
+			lastSequence = enqueued;
+			notFull.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		try {
+			applyInOrder( batch, batchMonitors );
+		}
+		finally {
+			final boolean reschedule;
+			lock.lock();
+			try {
+				completed = lastSequence;
+				processed.signalAll();
+				reschedule = count > 0;
+				drainScheduled = reschedule;
+			}
+			finally {
+				lock.unlock();
+			}
+			if ( reschedule ) {
+				resources.getQueueingExecutor().execute( drainTask );
+			}
+		}
+	}
+
+	/**
+	 * Splits the batch in runs of additions sharing the same IndexingMonitor, which can be
+	 * applied in parallel; any other work is applied alone, so that ordering is kept.
+	 */
+	private void applyInOrder(LuceneWork[] batch, IndexingMonitor[] batchMonitors) {
+		List<LuceneWork> run = new ArrayList<LuceneWork>( batch.length );
+		IndexingMonitor runMonitor = null;
+		for ( int i = 0; i < batch.length; i++ ) {
+			LuceneWork work = batch[i];
+			IndexingMonitor monitor = batchMonitors[i];
+			boolean parallelizable = work instanceof AddLuceneWork;
+			if ( ! run.isEmpty() && ( ! parallelizable || monitor != runMonitor ) ) {
+				apply( run, runMonitor );
+				run = new ArrayList<LuceneWork>( batch.length - i );
+			}
+			run.add( work );
+			runMonitor = monitor;
+			if ( ! parallelizable ) {
+				apply( run, runMonitor );
+				run = new ArrayList<LuceneWork>( batch.length - i );
+			}
+		}
+		if ( ! run.isEmpty() ) {
+			apply( run, runMonitor );
+		}
+	}
+
+	private void apply(List<LuceneWork> run, IndexingMonitor monitor) {
+		new LuceneBackendQueueTask( run, resources, monitor, true ).run();
+	}
+
+	private class DrainTask implements Runnable {
+
+		@Override
+		public void run() {
+			drain();
+		}
+
+	}
+
+}
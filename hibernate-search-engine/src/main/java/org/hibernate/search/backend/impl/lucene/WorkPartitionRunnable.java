@@ -20,24 +20,32 @@
  */
 package org.hibernate.search.backend.impl.lucene;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.lucene.index.IndexWriter;
 import org.hibernate.search.backend.IndexingMonitor;
 import org.hibernate.search.backend.LuceneWork;
 
 /**
- * Applies an update operation to the IndexWriter
+ * Applies a partition of a changeset to the IndexWriter, in order.
+ * A failing operation doesn't prevent the following ones from being applied:
+ * failures are collected to be reported once the whole changeset was processed.
  * 
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
-public class SingleTaskRunnable implements Runnable {
-	
-	private final LuceneWork work;
+final class WorkPartitionRunnable implements Runnable {
+
+	private final List<LuceneWork> works;
 	private final LuceneBackendResources resources;
 	private final IndexWriter indexWriter;
 	private final IndexingMonitor monitor;
 
-	public SingleTaskRunnable(LuceneWork work, LuceneBackendResources resources, IndexWriter indexWriter, IndexingMonitor monitor) {
-		this.work = work;
+	private List<LuceneWork> failedWorks = null;
+	private Throwable lastError = null;
+
+	WorkPartitionRunnable(List<LuceneWork> works, LuceneBackendResources resources, IndexWriter indexWriter, IndexingMonitor monitor) {
+		this.works = works;
 		this.resources = resources;
 		this.indexWriter = indexWriter;
 		this.monitor = monitor;
@@ -45,7 +53,45 @@ public class SingleTaskRunnable implements Runnable {
 
 	@Override
 	public void run() {
-		work.getWorkDelegate( resources.getVisitor() ).performWork( work, indexWriter, monitor );
+		for ( LuceneWork work : works ) {
+			try {
+				work.getWorkDelegate( resources.getVisitor() ).performWork( work, indexWriter, monitor );
+			}
+			catch ( RuntimeException e ) {
+				workFailed( work, e );
+			}
+		}
+	}
+
+	private void workFailed(LuceneWork work, Throwable e) {
+		if ( failedWorks == null ) {
+			failedWorks = new ArrayList<LuceneWork>();
+		}
+		failedWorks.add( work );
+		lastError = e;
+	}
+
+	/**
+	 * To be used when the partition could not be processed at all
+	 */
+	void allWorksFailed(Throwable e) {
+		failedWorks = new ArrayList<LuceneWork>( works );
+		lastError = e;
+	}
+
+	List<LuceneWork> getWorks() {
+		return works;
+	}
+
+	/**
+	 * @return the works which failed, or null if all were applied successfully
+	 */
+	List<LuceneWork> getFailedWorks() {
+		return failedWorks;
+	}
+
+	Throwable getLastError() {
+		return lastError;
 	}
 
 }
@@ -41,10 +41,13 @@ class WorkspaceFactory {
 		final boolean exclusiveIndexUsage = CommonPropertiesParse.isExclusiveIndexUsageEnabled( indexName, cfg );
 		if ( exclusiveIndexUsage ) {
 			log.debugf( "Starting workspace for index " + indexName + " using an exclusive index strategy" );
-			return new ExclusiveIndexWorkspaceImpl( indexManager, errorHandler );
+			return new ExclusiveIndexWorkspaceImpl( indexManager, errorHandler, cfg );
 		}
 		else {
 			log.debugf( "Starting workspace for index " + indexName + " using a shared index strategy" );
+			if ( BackgroundOptimizer.isEnabled( cfg ) ) {
+				log.backgroundOptimizationRequiresExclusiveIndexUse( indexName );
+			}
 			return new SharedIndexWorkspaceImpl( indexManager, errorHandler );
 		}
 	}
@@ -46,10 +46,35 @@ public class ConcurrentMergeScheduler extends org.apache.lucene.index.Concurrent
 
 	private final ErrorHandler errorHandler;
 	private final String indexName;
+	private final MergeThrottle throttle;
 	
 	public ConcurrentMergeScheduler(ErrorHandler errorHandler, String indexName) {
+		this( errorHandler, indexName, null );
+	}
+
+	/**
+	 * @param throttle limits the merges, or null to run them at full speed
+	 */
+	public ConcurrentMergeScheduler(ErrorHandler errorHandler, String indexName, MergeThrottle throttle) {
 		this.errorHandler = errorHandler;
 		this.indexName = indexName;
+		this.throttle = throttle;
+	}
+
+	@Override
+	protected void doMerge(MergePolicy.OneMerge merge) throws IOException {
+		if ( throttle == null ) {
+			super.doMerge( merge );
+		}
+		else {
+			try {
+				throttle.mergeStarted();
+				super.doMerge( merge );
+			}
+			finally {
+				throttle.mergeFinished();
+			}
+		}
 	}
 	
 	@Override
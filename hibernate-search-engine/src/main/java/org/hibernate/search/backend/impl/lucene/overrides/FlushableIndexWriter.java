@@ -0,0 +1,51 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene.overrides;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.LockObtainFailedException;
+
+/**
+ * We need to flush the buffered documents of an IndexWriter without committing,
+ * to release the memory it uses when the indexing RAM budget is exceeded.
+ */
+public class FlushableIndexWriter extends IndexWriter {
+
+	public FlushableIndexWriter(Directory directory, IndexWriterConfig config)
+			throws CorruptIndexException, LockObtainFailedException, IOException {
+		super( directory, config );
+	}
+
+	/**
+	 * Writes the buffered documents and deletions to a new segment, without committing it.
+	 *
+	 * @throws IOException if the segment can't be written
+	 */
+	public void flushRamBuffer() throws IOException {
+		flush( true, true );
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene.overrides;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.util.ThreadInterruptedException;
+
+/**
+ * Keeps the merges of an index from competing too much with queries and with the indexing work:
+ * limits the amount of bytes the merges write per second, and pauses them while many changesets
+ * are waiting to be applied to the index.
+ * <p/>
+ * Shared by all merge threads of an index, which report the bytes they write via a
+ * {@link ThrottledDirectory}.
+ *
+ * @see org.hibernate.search.backend.configuration.impl.IndexWriterSetting#MERGE_MAX_MB_PER_SEC
+ * @see org.hibernate.search.backend.configuration.impl.IndexWriterSetting#MERGE_PAUSE_QUEUE_SIZE
+ */
+public final class MergeThrottle {
+
+	/**
+	 * A merge is never paused longer than this: when too many merges are pending the IndexWriter
+	 * stalls the threads applying changes, which would then never drain the queue.
+	 */
+	private static final long MAX_PAUSE_NANOS = TimeUnit.SECONDS.toNanos( 10 );
+
+	private static final long PAUSE_CHECK_MILLIS = 50;
+
+	private final double nanosPerByte;
+	private final int pauseQueueSize;
+	private volatile Collection<? extends BlockingQueue<?>> monitoredQueues = Collections.emptyList();
+
+	/**
+	 * Time paused by the merge running in the current thread, null when the thread is not merging.
+	 */
+	private final ThreadLocal<long[]> pausedNanos = new ThreadLocal<long[]>();
+
+	//guardedBy this:
+	private long nextWriteNanos = 0;
+
+	/**
+	 * @param maxMBPerSec maximum amount of MB written per second by all merges, 0 for no limit
+	 * @param pauseQueueSize pause merges while this amount of changesets is queued, 0 to never pause them
+	 */
+	public MergeThrottle(int maxMBPerSec, int pauseQueueSize) {
+		this.nanosPerByte = maxMBPerSec > 0 ? 1000000000d / ( maxMBPerSec * 1024d * 1024d ) : 0d;
+		this.pauseQueueSize = Math.max( pauseQueueSize, 0 );
+	}
+
+	/**
+	 * @param queues the queues of changesets waiting to be applied to the index
+	 */
+	public void monitorQueues(Collection<? extends BlockingQueue<?>> queues) {
+		this.monitoredQueues = queues;
+	}
+
+	void mergeStarted() {
+		pausedNanos.set( new long[1] );
+		pauseWhileQueueIsLong();
+	}
+
+	void mergeFinished() {
+		pausedNanos.remove();
+	}
+
+	/**
+	 * @return true if the current thread is running a merge
+	 */
+	boolean isMerging() {
+		return pausedNanos.get() != null;
+	}
+
+	/**
+	 * Blocks the merging thread which wrote some bytes as long as needed to respect the limits.
+	 */
+	void written(long bytes) {
+		pauseWhileQueueIsLong();
+		if ( nanosPerByte == 0d ) {
+			return;
+		}
+		final long waitNanos;
+		synchronized ( this ) {
+			long now = System.nanoTime();
+			if ( nextWriteNanos - now < 0 ) {
+				nextWriteNanos = now;
+			}
+			nextWriteNanos += (long) ( bytes * nanosPerByte );
+			waitNanos = nextWriteNanos - now;
+		}
+		sleep( TimeUnit.NANOSECONDS.toMillis( waitNanos ) );
+	}
+
+	private void pauseWhileQueueIsLong() {
+		if ( pauseQueueSize == 0 ) {
+			return;
+		}
+		long[] paused = pausedNanos.get();
+		while ( paused[0] < MAX_PAUSE_NANOS && getQueueSize() >= pauseQueueSize ) {
+			long start = System.nanoTime();
+			sleep( PAUSE_CHECK_MILLIS );
+			paused[0] += System.nanoTime() - start;
+		}
+	}
+
+	private int getQueueSize() {
+		int size = 0;
+		for ( BlockingQueue<?> queue : monitoredQueues ) {
+			size += queue.size();
+		}
+		return size;
+	}
+
+	private static void sleep(long millis) {
+		if ( millis <= 0 ) {
+			return;
+		}
+		try {
+			Thread.sleep( millis );
+		}
+		catch ( InterruptedException e ) {
+			throw new ThreadInterruptedException( e );
+		}
+	}
+
+}
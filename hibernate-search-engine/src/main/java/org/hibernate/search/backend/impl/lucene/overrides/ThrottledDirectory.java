@@ -0,0 +1,145 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene.overrides;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.Lock;
+import org.apache.lucene.store.LockFactory;
+
+/**
+ * Directory used by the IndexWriter when merges are throttled: files written by merge threads
+ * report to the {@link MergeThrottle} the bytes they write, all other operations are delegated.
+ */
+public final class ThrottledDirectory extends Directory {
+
+	private final Directory delegate;
+	private final MergeThrottle throttle;
+
+	public ThrottledDirectory(Directory delegate, MergeThrottle throttle) {
+		this.delegate = delegate;
+		this.throttle = throttle;
+	}
+
+	@Override
+	public IndexOutput createOutput(String name) throws IOException {
+		IndexOutput output = delegate.createOutput( name );
+		if ( throttle.isMerging() ) {
+			return new ThrottledIndexOutput( output, throttle );
+		}
+		else {
+			return output;
+		}
+	}
+
+	@Override
+	public String[] listAll() throws IOException {
+		return delegate.listAll();
+	}
+
+	@Override
+	public boolean fileExists(String name) throws IOException {
+		return delegate.fileExists( name );
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public long fileModified(String name) throws IOException {
+		return delegate.fileModified( name );
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void touchFile(String name) throws IOException {
+		delegate.touchFile( name );
+	}
+
+	@Override
+	public void deleteFile(String name) throws IOException {
+		delegate.deleteFile( name );
+	}
+
+	@Override
+	public long fileLength(String name) throws IOException {
+		return delegate.fileLength( name );
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void sync(String name) throws IOException {
+		delegate.sync( name );
+	}
+
+	@Override
+	public void sync(Collection<String> names) throws IOException {
+		delegate.sync( names );
+	}
+
+	@Override
+	public IndexInput openInput(String name) throws IOException {
+		return delegate.openInput( name );
+	}
+
+	@Override
+	public IndexInput openInput(String name, int bufferSize) throws IOException {
+		return delegate.openInput( name, bufferSize );
+	}
+
+	@Override
+	public Lock makeLock(String name) {
+		return delegate.makeLock( name );
+	}
+
+	@Override
+	public void clearLock(String name) throws IOException {
+		delegate.clearLock( name );
+	}
+
+	@Override
+	public void setLockFactory(LockFactory lockFactory) throws IOException {
+		delegate.setLockFactory( lockFactory );
+	}
+
+	@Override
+	public LockFactory getLockFactory() {
+		return delegate.getLockFactory();
+	}
+
+	@Override
+	public String getLockID() {
+		return delegate.getLockID();
+	}
+
+	@Override
+	public void close() throws IOException {
+		// the delegate is owned by the DirectoryProvider
+	}
+
+	@Override
+	public String toString() {
+		return "ThrottledDirectory(" + delegate + ")";
+	}
+
+}
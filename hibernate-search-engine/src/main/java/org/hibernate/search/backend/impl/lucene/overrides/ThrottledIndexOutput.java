@@ -0,0 +1,94 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene.overrides;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.IndexOutput;
+
+/**
+ * IndexOutput of a file written by a merge: reports the written bytes to the {@link MergeThrottle}
+ * every few KB, which might block the merge.
+ */
+final class ThrottledIndexOutput extends IndexOutput {
+
+	private static final int REPORT_INTERVAL = 32 * 1024;
+
+	private final IndexOutput delegate;
+	private final MergeThrottle throttle;
+	private int unreportedBytes = 0;
+
+	ThrottledIndexOutput(IndexOutput delegate, MergeThrottle throttle) {
+		this.delegate = delegate;
+		this.throttle = throttle;
+	}
+
+	@Override
+	public void writeByte(byte b) throws IOException {
+		delegate.writeByte( b );
+		written( 1 );
+	}
+
+	@Override
+	public void writeBytes(byte[] b, int offset, int length) throws IOException {
+		delegate.writeBytes( b, offset, length );
+		written( length );
+	}
+
+	private void written(int bytes) {
+		unreportedBytes += bytes;
+		if ( unreportedBytes >= REPORT_INTERVAL ) {
+			throttle.written( unreportedBytes );
+			unreportedBytes = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		delegate.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+
+	@Override
+	public long getFilePointer() {
+		return delegate.getFilePointer();
+	}
+
+	@Override
+	public void seek(long pos) throws IOException {
+		delegate.seek( pos );
+	}
+
+	@Override
+	public long length() throws IOException {
+		return delegate.length();
+	}
+
+	@Override
+	public void setLength(long length) throws IOException {
+		delegate.setLength( length );
+	}
+
+}
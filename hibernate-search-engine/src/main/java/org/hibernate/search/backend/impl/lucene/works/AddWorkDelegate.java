@@ -59,10 +59,7 @@ class AddWorkDelegate implements LuceneWorkDelegate {
 
 	public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
 		final Class<?> entityType = work.getEntityClass();
-		DocumentBuilderIndexedEntity<?> documentBuilder = workspace.getDocumentBuilder( entityType );
-		Map<String, String> fieldToAnalyzerMap = work.getFieldToAnalyzerMap();
-		ScopedAnalyzer analyzer = documentBuilder.getAnalyzer();
-		analyzer = updateAnalyzerMappings( analyzer, fieldToAnalyzerMap );
+		ScopedAnalyzer analyzer = getAnalyzer( work );
 		if ( log.isTraceEnabled() ) {
 			log.trace( "add to Lucene index: " + entityType + "#" + work.getId() + ":" + work.getDocument() );
 		}
@@ -81,6 +78,15 @@ class AddWorkDelegate implements LuceneWorkDelegate {
 		}
 	}
 
+	/**
+	 * @param work the work providing the Document
+	 * @return the analyzer to use for the Document of the work
+	 */
+	protected ScopedAnalyzer getAnalyzer(LuceneWork work) {
+		DocumentBuilderIndexedEntity<?> documentBuilder = workspace.getDocumentBuilder( work.getEntityClass() );
+		return updateAnalyzerMappings( documentBuilder.getAnalyzer(), work.getFieldToAnalyzerMap() );
+	}
+
 	/**
 	 * Allows to override the otherwise static field to analyzer mapping in <code>scopedAnalyzer</code>.
 	 *
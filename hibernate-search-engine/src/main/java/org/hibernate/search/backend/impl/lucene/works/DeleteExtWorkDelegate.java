@@ -61,16 +61,11 @@ public class DeleteExtWorkDelegate extends DeleteWorkDelegate {
 
 	@Override
 	public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
-		checkType( work );
 		Serializable id = work.getId();
+		Term idTerm = getIdTerm( work );
 		log.tracef( "Removing %s#%s by id using an IndexWriter.", managedType, id );
 		try {
-			if( idIsNumeric ) {
-				writer.deleteDocuments( NumericFieldUtils.createExactMatchQuery( builder.getIdKeywordName(), id ) );
-			} else {
-				Term idTerm = builder.getTerm( id );
-				writer.deleteDocuments( idTerm );
-			}
+			writer.deleteDocuments( idTerm );
 			workspace.incrementModificationCounter( 1 );
 		}
 		catch ( Exception e ) {
@@ -79,6 +74,23 @@ public class DeleteExtWorkDelegate extends DeleteWorkDelegate {
 		}
 	}
 
+	/**
+	 * As the index contains a single type, the id Term identifies a single document
+	 * both for numeric and string encoded ids.
+	 * @param work the work about the managed type
+	 * @return the Term identifying the document of the entity targeted by the work
+	 */
+	Term getIdTerm(LuceneWork work) {
+		checkType( work );
+		Serializable id = work.getId();
+		if ( idIsNumeric ) {
+			return NumericFieldUtils.createExactMatchTerm( builder.getIdKeywordName(), id );
+		}
+		else {
+			return builder.getTerm( id );
+		}
+	}
+
 	private void checkType(final LuceneWork work) {
 		if ( work.getEntityClass() != managedType ) {
 			throw new AssertionFailure( "Unexpected type" );
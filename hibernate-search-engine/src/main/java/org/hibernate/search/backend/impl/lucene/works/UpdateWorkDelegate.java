@@ -19,30 +19,66 @@
 
 package org.hibernate.search.backend.impl.lucene.works;
 
+import java.io.IOException;
+
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.hibernate.search.SearchException;
 import org.hibernate.search.backend.IndexingMonitor;
 import org.hibernate.search.backend.LuceneWork;
 import org.hibernate.search.store.Workspace;
 
 /**
+ * Performs an update as a delete followed by an add. When the index contains
+ * a single type the id Term identifies the document to replace, so the two operations
+ * are applied atomically via <code>IndexWriter.updateDocument</code>, which also avoids
+ * resolving a delete query.
+ *
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
 public class UpdateWorkDelegate extends AddWorkDelegate implements LuceneWorkDelegate {
 
 	private final DeleteWorkDelegate deleteDelegate;
+	private final DeleteExtWorkDelegate termDeleteDelegate;
 
 	UpdateWorkDelegate(Workspace workspace, DeleteWorkDelegate deleteDelegate) {
 		super(workspace);
 		this.deleteDelegate = deleteDelegate;
+		if ( deleteDelegate instanceof DeleteExtWorkDelegate ) {
+			this.termDeleteDelegate = (DeleteExtWorkDelegate) deleteDelegate;
+		}
+		else {
+			this.termDeleteDelegate = null;
+		}
 	}
 
 	public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
-		//TODO optimize this operation:
-		// - make use of update API when possible
-		// - avoid possibility of an IW flush between remove and add
-		this.deleteDelegate.performWork(work, writer, monitor);
-		super.performWork(work, writer, monitor);
+		if ( termDeleteDelegate != null ) {
+			updateByTerm( work, writer, monitor );
+		}
+		else {
+			this.deleteDelegate.performWork(work, writer, monitor);
+			super.performWork(work, writer, monitor);
+		}
 		workspace.incrementModificationCounter( 1 );
 	}
 
+	private void updateByTerm(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
+		Term idTerm = termDeleteDelegate.getIdTerm( work );
+		try {
+			writer.updateDocument( idTerm, work.getDocument(), getAnalyzer( work ) );
+			// same count as a delete followed by an add
+			workspace.incrementModificationCounter( 2 );
+		}
+		catch ( IOException e ) {
+			throw new SearchException(
+					"Unable to update Lucene index: "
+							+ work.getEntityClass() + "#" + work.getId(), e
+			);
+		}
+		if ( monitor != null ) {
+			monitor.documentsAdded( 1l );
+		}
+	}
+
 }
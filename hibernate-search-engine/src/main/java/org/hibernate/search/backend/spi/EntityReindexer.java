@@ -0,0 +1,47 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.spi;
+
+import java.util.Collection;
+
+/**
+ * Reindexes entities asynchronously, outside of the unit of work which found them to need
+ * an update. Used to bound the work done inline by the {@code @ContainedIn} propagation:
+ * entities reached beyond {@link org.hibernate.search.Environment#CONTAINED_IN_MAX_FAN_OUT}
+ * are handed over to the EntityReindexer instead of being updated by the committing thread.
+ * <p/>
+ * Implementations depend on the integration, as they need to load the entities again; a
+ * SearchFactory having none updates all entities inline.
+ *
+ * @see EntityReindexerProvider
+ */
+public interface EntityReindexer {
+
+	/**
+	 * Invoked after the unit of work reaching the entities was successfully committed.
+	 * Must not block: the entities are expected to be loaded again and reindexed by a different thread.
+	 *
+	 * @param entityType the type of the entities
+	 * @param entities the entities, or proxies to them, needing to be reindexed
+	 */
+	void reindexLater(Class<?> entityType, Collection<?> entities);
+
+}
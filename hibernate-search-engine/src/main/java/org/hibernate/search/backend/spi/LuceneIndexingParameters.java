@@ -30,6 +30,8 @@ import java.util.Properties;
 
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
 
 import org.hibernate.search.backend.configuration.impl.IndexWriterSetting;
 import org.hibernate.search.util.configuration.impl.MaskedProperty;
@@ -119,8 +121,25 @@ public class LuceneIndexingParameters implements Serializable {
 			}
 		}
 		
+		/**
+		 * Creates a new MergePolicy as configured by this property set: a LogByteSizeMergePolicy
+		 * unless the TieredMergePolicy was selected by {@link IndexWriterSetting#MERGE_POLICY}.
+		 * @return a new MergePolicy instance.
+		 */
+		public MergePolicy getNewConfiguredMergePolicy() {
+			Integer mergePolicy = parameters.get( IndexWriterSetting.MERGE_POLICY );
+			if ( mergePolicy != null && mergePolicy == IndexWriterSetting.TIERED_MERGE_POLICY ) {
+				return getNewTieredMergePolicy();
+			}
+			else {
+				return getNewMergePolicy();
+			}
+		}
+
 		/**
 		 * Creates a new LogByteSizeMergePolicy as configured by this property set.
+		 * The {@link IndexWriterSetting#MERGE_POLICY} selection is ignored: use {@link #getNewConfiguredMergePolicy()}
+		 * to get the MergePolicy to be used by the IndexWriter.
 		 * @return a new LogByteSizeMergePolicy instance.
 		 */
 		public LogByteSizeMergePolicy getNewMergePolicy() {
@@ -130,16 +149,31 @@ public class LuceneIndexingParameters implements Serializable {
 					entry.getKey().applySetting( logByteSizeMergePolicy, entry.getValue() );
 				}
 				catch ( IllegalArgumentException e ) {
-					//TODO if DirectoryProvider had getDirectoryName() exceptions could tell better
-					throw new SearchException(
-							"Illegal IndexWriter setting "
-									+ entry.getKey().getKey() + " " + e.getMessage(), e
-					);
+					throw illegalSetting( entry.getKey(), e );
 				}
 			}
 			return logByteSizeMergePolicy;
 		}
 
+		private TieredMergePolicy getNewTieredMergePolicy() {
+			// settings are applied in declaration order, so the specific tiered options override merge_factor
+			TieredMergePolicy tieredMergePolicy = new TieredMergePolicy();
+			for ( Map.Entry<IndexWriterSetting, Integer> entry : parameters.entrySet() ) {
+				try {
+					entry.getKey().applySetting( tieredMergePolicy, entry.getValue() );
+				}
+				catch ( IllegalArgumentException e ) {
+					throw illegalSetting( entry.getKey(), e );
+				}
+			}
+			return tieredMergePolicy;
+		}
+
+		private static SearchException illegalSetting(IndexWriterSetting setting, IllegalArgumentException e) {
+			//TODO if DirectoryProvider had getDirectoryName() exceptions could tell better
+			return new SearchException( "Illegal IndexWriter setting " + setting.getKey() + " " + e.getMessage(), e );
+		}
+
 		public Integer getCurrentValueFor(IndexWriterSetting ws) {
 			return parameters.get( ws );
 		}
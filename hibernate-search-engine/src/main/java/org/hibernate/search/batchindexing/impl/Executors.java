@@ -25,6 +25,7 @@ package org.hibernate.search.batchindexing.impl;
 
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -78,6 +79,17 @@ public class Executors {
 	            new BlockPolicy() );
 	}
 	
+	/**
+	 * Creates a new single threaded ScheduledThreadPoolExecutor, to run periodic or delayed
+	 * maintenance tasks. Threads are named consistently with the other pools.
+	 *
+	 * @param groupname a label to identify the threadpool; useful for profiling.
+	 * @return the new ScheduledThreadPoolExecutor
+	 */
+	public static ScheduledThreadPoolExecutor newScheduledThreadPool(String groupname) {
+		return new ScheduledThreadPoolExecutor( 1, new SearchThreadFactory( groupname ) );
+	}
+
 	/**
      * The thread factory, used to customize thread names
      */
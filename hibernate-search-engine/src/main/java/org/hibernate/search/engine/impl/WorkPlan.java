@@ -25,8 +25,12 @@ package org.hibernate.search.engine.impl;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
@@ -39,6 +43,7 @@ import org.hibernate.search.backend.spi.WorkType;
 import org.hibernate.search.engine.spi.AbstractDocumentBuilder;
 import org.hibernate.search.engine.spi.DepthValidator;
 import org.hibernate.search.engine.spi.DocumentBuilderContainedEntity;
+import org.hibernate.search.engine.spi.DocumentBuilderIndexedEntity;
 import org.hibernate.search.engine.spi.EntityIndexBinder;
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
 import org.hibernate.search.spi.InstanceInitializer;
@@ -65,9 +70,41 @@ public class WorkPlan {
 
 	private final InstanceInitializer instanceInitializer;
 
+	/**
+	 * Maximum number of entities of each type reached by the containedIn processing which are
+	 * updated as part of this plan, 0 for no limit.
+	 */
+	private final int containedInMaxFanOut;
+
+	/**
+	 * Number of entities or collections the containedIn processing initializes at once.
+	 */
+	private final int containedInBatchSize;
+
+	/**
+	 * The entities reached by the containedIn processing beyond {@link #containedInMaxFanOut}, by type.
+	 * They are not part of this plan, but need to be reindexed once it's applied.
+	 */
+	private final HashMap<Class<?>, Set<Object>> deferredContainedIn = new HashMap<Class<?>, Set<Object>>();
+
+	/**
+	 * Whether {@link #containedInMaxFanOut} applies to the entities being reached by the containedIn processing:
+	 * it doesn't when they are reached from entities explicitly reindexed, as done by the
+	 * {@link org.hibernate.search.backend.spi.EntityReindexer} for the deferred entities.
+	 */
+	private boolean fanOutLimited = false;
+
+	/**
+	 * Entities reached by the current step of the containedIn processing, added to the plan on the next one
+	 * so that they can be initialized together.
+	 */
+	private List<PendingContainedIn<Object>> reachedContainedIn = new ArrayList<PendingContainedIn<Object>>();
+
 	public WorkPlan(SearchFactoryImplementor searchFactoryImplementor) {
 		this.searchFactoryImplementor = searchFactoryImplementor;
 		this.instanceInitializer = searchFactoryImplementor.getInstanceInitializer();
+		this.containedInMaxFanOut = searchFactoryImplementor.getContainedInMaxFanOut();
+		this.containedInBatchSize = searchFactoryImplementor.getContainedInBatchSize();
 	}
 
 	/**
@@ -94,6 +131,7 @@ public class WorkPlan {
 	 */
 	public void clear() {
 		byClass.clear();
+		deferredContainedIn.clear();
 		approximateWorkQueueSize = 0;
 	}
 
@@ -126,29 +164,135 @@ public class WorkPlan {
 	/**
 	 * Makes sure that all additional work needed because of containedIn
 	 * is added to the work plan.
+	 * The containedIn graph is walked breadth-first: all the entities of a type reached at
+	 * the same step are registered before any of them is navigated in turn, so that the entities
+	 * closest to the changes are the ones updated inline when the fan-out is limited.
 	 */
 	public void processContainedInAndPrepareExecution() {
 		PerClassWork[] worksFromEvents = new PerClassWork[byClass.size()];
 		worksFromEvents = byClass.values().toArray( worksFromEvents );
 		// We need to iterate on a "frozen snapshot" of the byClass values
-		// because of HSEARCH-647. This method is not recursive, invoked
-		// only after the current unit of work is complete, and all additional
-		// work we add through recursion is already complete, so we don't need
-		// to process again new classes we add during the process.
+		// because of HSEARCH-647: the containedIn processing adds new classes.
 		for ( PerClassWork perClassWork : worksFromEvents ) {
 			perClassWork.processContainedInAndPrepareExecution();
 		}
+		while ( !reachedContainedIn.isEmpty() ) {
+			List<PendingContainedIn<Object>> reached = reachedContainedIn;
+			reachedContainedIn = new ArrayList<PendingContainedIn<Object>>();
+			initializeReached( reached );
+			for ( PendingContainedIn<Object> pending : reached ) {
+				PerClassWork classWork = getClassWork( instanceInitializer.getClass( pending.value ) );
+				classWork.addContainedIn( pending );
+			}
+			PerClassWork[] reachedWorks = new PerClassWork[byClass.size()];
+			reachedWorks = byClass.values().toArray( reachedWorks );
+			for ( PerClassWork perClassWork : reachedWorks ) {
+				perClassWork.processPendingContainedIn();
+			}
+		}
+	}
+
+	/**
+	 * Initializes the entities reached by the same step of the containedIn processing in batches,
+	 * leaving out those the fan-out limit might defer.
+	 */
+	private void initializeReached(List<PendingContainedIn<Object>> reached) {
+		int fanOutLeft = containedInMaxFanOut;
+		for ( PerClassWork perClassWork : byClass.values() ) {
+			fanOutLeft = Math.min( fanOutLeft, containedInMaxFanOut - perClassWork.containedInFanOut );
+		}
+		List<Object> values = new ArrayList<Object>( reached.size() );
+		for ( PendingContainedIn<Object> pending : reached ) {
+			if ( !pending.explicitIndexing ) {
+				if ( fanOutLeft <= 0 ) {
+					continue;
+				}
+				fanOutLeft--;
+			}
+			values.add( pending.value );
+		}
+		initializeInBatches( values );
+	}
+
+	/**
+	 * Invoked before navigating the containedIn relations of an entity.
+	 *
+	 * @param explicitIndexing whether the entity is reindexed only because of explicit {@link WorkType#INDEX} works
+	 * or because it was itself reached by the containedIn processing of such an entity
+	 */
+	private void startContainedIn(boolean explicitIndexing) {
+		fanOutLimited = containedInMaxFanOut > 0 && !explicitIndexing;
+	}
+
+	/**
+	 * Initializes the values in batches of {@link #containedInBatchSize}.
+	 *
+	 * @param values proxies, collections and maps
+	 */
+	private void initializeInBatches(List<Object> values) {
+		if ( containedInBatchSize <= 1 ) {
+			return;
+		}
+		for ( int from = 0; from < values.size(); from += containedInBatchSize ) {
+			int to = Math.min( from + containedInBatchSize, values.size() );
+			instanceInitializer.initializeBatch( values.subList( from, to ) );
+		}
 	}
 
 	/**
-	 * Used for recursive processing of containedIn
+	 * Used for recursive processing of containedIn: the entity is added to the plan,
+	 * and navigated in turn by {@link #processContainedInAndPrepareExecution()}.
 	 *
 	 * @param value the entity to be processed
 	 */
 	public <T> void recurseContainedIn(T value, DepthValidator depth) {
-		Class<T> entityClass = instanceInitializer.getClass( value );
-		PerClassWork classWork = getClassWork( entityClass );
-		classWork.recurseContainedIn( value, depth );
+		reachedContainedIn.add( new PendingContainedIn<Object>( value, depth, !fanOutLimited ) );
+	}
+
+	/**
+	 * @return the entities reached by the containedIn processing which were not added to
+	 * this plan because of {@link Environment#CONTAINED_IN_MAX_FAN_OUT}, by type
+	 */
+	public Map<Class<?>, Set<Object>> getDeferredContainedIn() {
+		return deferredContainedIn;
+	}
+
+	/**
+	 * Loads all the entity state needed to build the Documents, so that {@link #getPlannedLuceneWork()}
+	 * can then be invoked by a different thread than the one owning the Session.
+	 * To be invoked after {@link #processContainedInAndPrepareExecution()}.
+	 */
+	public void initializeEntityState() {
+		for ( PerClassWork perClassWork : byClass.values() ) {
+			perClassWork.initializeEntityState();
+		}
+	}
+
+	/**
+	 * @return true if, once {@link #initializeEntityState()} loaded the entity state, {@link #getPlannedLuceneWork()}
+	 * can be invoked by a different thread than the one owning the Session
+	 * @see DocumentBuilderIndexedEntity#isDocumentBuildingDeferrable()
+	 */
+	public boolean isDocumentBuildingDeferrable() {
+		for ( PerClassWork perClassWork : byClass.values() ) {
+			if ( !perClassWork.isDocumentBuildingDeferrable() ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the indexed types this plan is going to produce work for
+	 */
+	public Set<Class<?>> getIndexedTypes() {
+		Set<Class<?>> indexedTypes = new HashSet<Class<?>>( byClass.size() );
+		for ( PerClassWork perClassWork : byClass.values() ) {
+			if ( !perClassWork.containedInOnly ) {
+				indexedTypes.add( perClassWork.entityClass );
+			}
+		}
+		return indexedTypes;
 	}
 
 	/**
@@ -197,6 +341,16 @@ public class WorkPlan {
 		 */
 		private final boolean containedInOnly;
 
+		/**
+		 * Entities added to the plan by the containedIn processing, not navigated yet
+		 */
+		private List<PendingContainedIn<T>> pendingContainedIn = new ArrayList<PendingContainedIn<T>>();
+
+		/**
+		 * Number of entities added to the plan by the containedIn processing
+		 */
+		private int containedInFanOut = 0;
+
 		/**
 		 * @param clazz The type of entities being managed by this instance
 		 */
@@ -274,6 +428,26 @@ public class WorkPlan {
 			}
 		}
 
+		/**
+		 * Loads the state needed to build the Documents of all instances which are going to be added to the index.
+		 */
+		public void initializeEntityState() {
+			if ( containedInOnly ) {
+				return;
+			}
+			DocumentBuilderIndexedEntity<T> indexedBuilder = (DocumentBuilderIndexedEntity<T>) documentBuilder;
+			for ( PerEntityWork<T> perEntityWork : entityById.values() ) {
+				perEntityWork.initializeEntityState( indexedBuilder, instanceInitializer );
+			}
+		}
+
+		/**
+		 * @return true if the Documents of this type can be built by a thread not owning the Session
+		 */
+		public boolean isDocumentBuildingDeferrable() {
+			return containedInOnly || ( (DocumentBuilderIndexedEntity<T>) documentBuilder ).isDocumentBuildingDeferrable();
+		}
+
 		/**
 		 * Starts processing the ContainedIn annotation for all instances stored in
 		 * byEntityId. Must be performed when no more work is being collected by the event
@@ -286,6 +460,16 @@ public class WorkPlan {
 		public void processContainedInAndPrepareExecution() {
 			Entry<String, PerEntityWork<T>>[] entityInstancesFrozenView = new Entry[entityById.size()];
 			entityInstancesFrozenView = entityById.entrySet().toArray( entityInstancesFrozenView );
+			if ( entityInstancesFrozenView.length > 1 ) {
+				List<Object> collections = new ArrayList<Object>();
+				for ( Entry<String, PerEntityWork<T>> entry : entityInstancesFrozenView ) {
+					PerEntityWork<T> perEntityWork = entry.getValue();
+					if ( perEntityWork.add || perEntityWork.delete ) {
+						documentBuilder.addContainedInCollections( perEntityWork.entity, null, collections );
+					}
+				}
+				initializeInBatches( collections );
+			}
 			for ( Entry<String, PerEntityWork<T>> entry : entityInstancesFrozenView ) {
 				PerEntityWork<T> perEntityWork = entry.getValue();
 				perEntityWork.processContainedIn( documentBuilder, WorkPlan.this );
@@ -296,9 +480,10 @@ public class WorkPlan {
 		 * Method to continue the recursion for ContainedIn processing, as started by {@link #processContainedInAndPrepareExecution()}
 		 * Additional work that needs to be processed will be added to this same WorkPlan.
 		 *
-		 * @param value the instance to be processed
+		 * @param pending the instance to be processed, and how it was reached
 		 */
-		void recurseContainedIn(T value, DepthValidator depth) {
+		void addContainedIn(PendingContainedIn<T> pending) {
+			T value = pending.value;
 			if ( documentBuilder.requiresProvidedId() ) {
 				log.containedInPointsToProvidedId( instanceInitializer.getClass( value ) );
 			}
@@ -307,20 +492,81 @@ public class WorkPlan {
 				if ( extractedId != null ) {
 					PerEntityWork<T> entityWork = entityById.get( extractedId );
 					if ( entityWork == null ) {
+						if ( !pending.explicitIndexing && containedInFanOut >= containedInMaxFanOut ) {
+							deferContainedIn( value );
+							return;
+						}
+						containedInFanOut++;
 						entityWork = new PerEntityWork( value );
 						entityById.put( extractedId, entityWork );
-						// recursion starts
-						documentBuilder.appendContainedInWorkForInstance( value, WorkPlan.this, depth );
+						pendingContainedIn.add( pending );
 					}
 					// else nothing to do as it's being processed already
 				}
 				else {
 					// this branch for @ContainedIn recursive work of non-indexed entities
 					// as they don't have an indexingId
-					documentBuilder.appendContainedInWorkForInstance( value, WorkPlan.this, depth );
+					pendingContainedIn.add( pending );
 				}
 			}
 		}
+
+		/**
+		 * Navigates the containedIn relations of the entities added to the plan by the last step
+		 * of the containedIn processing.
+		 */
+		void processPendingContainedIn() {
+			if ( pendingContainedIn.isEmpty() ) {
+				return;
+			}
+			List<PendingContainedIn<T>> reached = pendingContainedIn;
+			pendingContainedIn = new ArrayList<PendingContainedIn<T>>();
+			if ( reached.size() > 1 ) {
+				initializeContainedInCollections( reached );
+			}
+			for ( PendingContainedIn<T> pending : reached ) {
+				startContainedIn( pending.explicitIndexing );
+				documentBuilder.appendContainedInWorkForInstance( pending.value, WorkPlan.this, pending.depth );
+			}
+		}
+
+		/**
+		 * Initializes the collections the entities are navigated through in batches,
+		 * rather than one entity at a time.
+		 */
+		private void initializeContainedInCollections(List<PendingContainedIn<T>> reached) {
+			List<Object> values = new ArrayList<Object>();
+			for ( PendingContainedIn<T> pending : reached ) {
+				documentBuilder.addContainedInCollections( pending.value, pending.depth, values );
+			}
+			initializeInBatches( values );
+		}
+
+		private void deferContainedIn(T value) {
+			Set<Object> deferred = deferredContainedIn.get( entityClass );
+			if ( deferred == null ) {
+				// entities don't necessarily implement equals
+				deferred = Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>() );
+				deferredContainedIn.put( entityClass, deferred );
+			}
+			deferred.add( value );
+		}
+	}
+
+	/**
+	 * An entity reached by the containedIn processing, and the depth at which it was reached.
+	 */
+	private static class PendingContainedIn<T> {
+
+		private final T value;
+		private final DepthValidator depth;
+		private final boolean explicitIndexing;
+
+		private PendingContainedIn(T value, DepthValidator depth, boolean explicitIndexing) {
+			this.value = value;
+			this.depth = depth;
+			this.explicitIndexing = explicitIndexing;
+		}
 	}
 
 	/**
@@ -350,6 +596,11 @@ public class WorkPlan {
 		 */
 		private boolean containedInProcessed = false;
 
+		/**
+		 * True when all works on this entity were {@link WorkType#INDEX}.
+		 */
+		private boolean explicitIndexing;
+
 		/**
 		 * Constructor to force an update of the entity even without
 		 * having a specific Work instance for it.
@@ -373,6 +624,7 @@ public class WorkPlan {
 		private PerEntityWork(Work<T> work) {
 			entity = work.getEntity();
 			WorkType type = work.getType();
+			explicitIndexing = type == WorkType.INDEX;
 			// sets the initial state:
 			switch ( type ) {
 				case ADD:
@@ -411,6 +663,7 @@ public class WorkPlan {
 		public void addWork(Work<T> work) {
 			entity = work.getEntity();
 			WorkType type = work.getType();
+			explicitIndexing &= type == WorkType.INDEX;
 			switch ( type ) {
 				case INDEX:
 				case UPDATE:
@@ -466,6 +719,18 @@ public class WorkPlan {
 			}
 		}
 
+		/**
+		 * Loads the state needed to build the Document of this entity, if it is going to be added to the index.
+		 *
+		 * @param entityBuilder the DocumentBuilder for this type
+		 * @param instanceInitializer used to initialize proxies and lazy collections
+		 */
+		public void initializeEntityState(DocumentBuilderIndexedEntity<T> entityBuilder, InstanceInitializer instanceInitializer) {
+			if ( add ) {
+				entityBuilder.initializeIndexedState( entity, instanceInitializer );
+			}
+		}
+
 		/**
 		 * Works via recursion passing the WorkPlan over, so that additional work can be planned
 		 * according to the needs of ContainedIn processing.
@@ -479,6 +744,7 @@ public class WorkPlan {
 			if ( !containedInProcessed ) {
 				containedInProcessed = true;
 				if ( add || delete ) {
+					workplan.startContainedIn( explicitIndexing );
 					entityBuilder.appendContainedInWorkForInstance( entity, workplan, null );
 				}
 			}
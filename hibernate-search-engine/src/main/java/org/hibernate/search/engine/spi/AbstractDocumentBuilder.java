@@ -149,6 +149,7 @@ public abstract class AbstractDocumentBuilder<T> {
 		Set<XClass> processedClasses = new HashSet<XClass>();
 		processedClasses.add( xClass );
 		initializeClass( xClass, metadata, true, "", processedClasses, context, optimizationBlackList, false );
+		metadata.compileDocumentBuildingPlan();
 
 		this.analyzer.setGlobalAnalyzer( metadata.analyzer );
 
@@ -304,6 +305,27 @@ public abstract class AbstractDocumentBuilder<T> {
 		}
 	}
 
+	/**
+	 * Collects the collections {@link #appendContainedInWorkForInstance} is going to navigate from <code>instance</code>,
+	 * so that they can be initialized together with the ones of other instances. Collections navigated with a
+	 * limited depth are left to be loaded when navigated.
+	 *
+	 * @param instance the instance to be navigated
+	 * @param currentDepth the current {@link DepthValidator} object used to check the graph traversal
+	 * @param collections collects the collections and maps
+	 */
+	public void addContainedInCollections(Object instance, DepthValidator currentDepth, List<Object> collections) {
+		for ( XMember member : metadata.containedInGetters ) {
+			if ( !member.isCollection() || !updateDepth( instance, member, currentDepth ).isMaxDepthInfinite() ) {
+				continue;
+			}
+			Object value = ReflectionHelper.getMemberValue( instance, member );
+			if ( value != null ) {
+				collections.add( value );
+			}
+		}
+	}
+
 	private DepthValidator updateDepth(Object instance, XMember member, DepthValidator currentDepth) {
 		Integer maxDepth = null;
 		if ( instance != null ) {
@@ -1009,7 +1031,7 @@ public abstract class AbstractDocumentBuilder<T> {
 			);
 			return false; // can't know what a classBridge is going to look at -> reindex //TODO nice new feature to have?
 		}
-		if ( !( metadata.classBoostStrategy instanceof DefaultBoostStrategy ) ) {
+		if ( metadata.classBoostStrategy.getClass() != DefaultBoostStrategy.class ) {
 			log.tracef(
 					"State inspection optimization disabled as DynamicBoost is enabled on entity %s",
 					this.beanXClassName
@@ -1076,6 +1098,10 @@ public abstract class AbstractDocumentBuilder<T> {
 		public final List<Field.TermVector> classTermVectors = new ArrayList<Field.TermVector>();
 		public final List<Float> classBoosts = new ArrayList<Float>();
 
+		public ClassBridgeStep[] classBridgeSteps;
+		public FieldStep[] fieldSteps;
+		public EmbeddedStep[] embeddedSteps;
+
 		public enum Container {
 			OBJECT,
 			COLLECTION,
@@ -1092,22 +1118,123 @@ public abstract class AbstractDocumentBuilder<T> {
 			);
 		}
 
-		protected LuceneOptions getFieldLuceneOptions(int i, Object value) {
-			LuceneOptions options;
-			options = new LuceneOptionsImpl(
-					fieldStore.get( i ),
-					fieldIndex.get( i ),
-					fieldTermVectors.get( i ),
-					fieldBoosts.get( i ) * dynamicFieldBoosts.get( i ).defineBoost( value ),
-					fieldNullTokens.get( i ),
-					precisionSteps.get( i )
-			);
-			return options;
-		}
-
 		protected float getClassBoost(Object value) {
 			return boost * classBoostStrategy.defineBoost( value );
 		}
+
+		/**
+		 * Compiles the metadata collected so far, including the embedded metadata, into flat arrays
+		 * of steps executed when building a Document: each step carries the getter reading its value,
+		 * its bridge and, unless a dynamic boost is used, its pre-resolved <code>LuceneOptions</code>.
+		 */
+		protected void compileDocumentBuildingPlan() {
+			classBridgeSteps = new ClassBridgeStep[classBridges.size()];
+			for ( int i = 0; i < classBridgeSteps.length; i++ ) {
+				classBridgeSteps[i] = new ClassBridgeStep( classNames.get( i ), classBridges.get( i ), getClassLuceneOptions( i ) );
+			}
+			fieldSteps = new FieldStep[fieldNames.size()];
+			List<String> nullTokens = new ArrayList<String>( fieldNullTokens );
+			for ( int i = 0; i < fieldSteps.length; i++ ) {
+				XMember getter = fieldGetters.get( i );
+				boolean readsValue = i == 0 || getter != fieldGetters.get( i - 1 );
+				fieldSteps[i] = new FieldStep(
+						fieldNames.get( i ), getter, readsValue, fieldBridges.get( i ),
+						fieldStore.get( i ), fieldIndex.get( i ), fieldTermVectors.get( i ), fieldBoosts.get( i ),
+						dynamicFieldBoosts.get( i ), nullTokens.get( i ), precisionSteps.get( i )
+				);
+			}
+			embeddedSteps = new EmbeddedStep[embeddedGetters.size()];
+			for ( int i = 0; i < embeddedSteps.length; i++ ) {
+				PropertiesMetadata embeddedMetadata = embeddedPropertiesMetadata.get( i );
+				embeddedMetadata.compileDocumentBuildingPlan();
+				embeddedSteps[i] = new EmbeddedStep(
+						i, embeddedGetters.get( i ), embeddedContainers.get( i ), embeddedMetadata
+				);
+			}
+		}
+
+		/**
+		 * Adds the field of a class bridge to the Document
+		 */
+		public static final class ClassBridgeStep {
+			public final String name;
+			public final FieldBridge bridge;
+			public final LuceneOptions luceneOptions;
+
+			ClassBridgeStep(String name, FieldBridge bridge, LuceneOptions luceneOptions) {
+				this.name = name;
+				this.bridge = bridge;
+				this.luceneOptions = luceneOptions;
+			}
+		}
+
+		/**
+		 * Adds an indexed field to the Document. Consecutive steps of the same property
+		 * share the value read by the first one, which is the only one having <code>readsValue</code> set.
+		 */
+		public static final class FieldStep {
+			public final String name;
+			public final XMember getter;
+			public final boolean readsValue;
+			public final FieldBridge bridge;
+			private final Store store;
+			private final Field.Index index;
+			private final Field.TermVector termVector;
+			private final float boost;
+			private final BoostStrategy dynamicBoost;
+			private final String nullToken;
+			private final int precisionStep;
+			// null when the boost depends on the value
+			private final LuceneOptions staticLuceneOptions;
+
+			FieldStep(String name, XMember getter, boolean readsValue, FieldBridge bridge,
+					Store store, Field.Index index, Field.TermVector termVector, float boost,
+					BoostStrategy dynamicBoost, String nullToken, int precisionStep) {
+				this.name = name;
+				this.getter = getter;
+				this.readsValue = readsValue;
+				this.bridge = bridge;
+				this.store = store;
+				this.index = index;
+				this.termVector = termVector;
+				this.boost = boost;
+				this.dynamicBoost = dynamicBoost;
+				this.nullToken = nullToken;
+				this.precisionStep = precisionStep;
+				// a subclass of DefaultBoostStrategy might depend on the value
+				this.staticLuceneOptions = dynamicBoost.getClass() == DefaultBoostStrategy.class ?
+						createLuceneOptions( null ) :
+						null;
+			}
+
+			public LuceneOptions getLuceneOptions(Object value) {
+				return staticLuceneOptions != null ? staticLuceneOptions : createLuceneOptions( value );
+			}
+
+			private LuceneOptions createLuceneOptions(Object value) {
+				return new LuceneOptionsImpl(
+						store, index, termVector, boost * dynamicBoost.defineBoost( value ), nullToken, precisionStep
+				);
+			}
+		}
+
+		/**
+		 * Adds the fields of an embedded object, or of each element of an embedded container, to the Document
+		 */
+		public static final class EmbeddedStep {
+			// position of the embedded property in the metadata lists
+			public final int position;
+			public final XMember getter;
+			public final Container container;
+			public final PropertiesMetadata metadata;
+
+			EmbeddedStep(int position, XMember getter, Container container, PropertiesMetadata metadata) {
+				this.position = position;
+				this.getter = getter;
+				this.container = container;
+				this.metadata = metadata;
+			}
+		}
 	}
 }
 
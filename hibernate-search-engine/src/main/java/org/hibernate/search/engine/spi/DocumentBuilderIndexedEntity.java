@@ -47,6 +47,9 @@ import org.hibernate.search.annotations.Analyze;
 import org.hibernate.search.annotations.Norms;
 import org.hibernate.search.engine.impl.AnnotationProcessingHelper;
 import org.hibernate.search.engine.impl.LuceneOptionsImpl;
+import org.hibernate.search.engine.spi.AbstractDocumentBuilder.PropertiesMetadata.ClassBridgeStep;
+import org.hibernate.search.engine.spi.AbstractDocumentBuilder.PropertiesMetadata.EmbeddedStep;
+import org.hibernate.search.engine.spi.AbstractDocumentBuilder.PropertiesMetadata.FieldStep;
 import org.hibernate.search.spi.InstanceInitializer;
 import org.hibernate.search.util.impl.ReflectionHelper;
 import org.hibernate.search.util.logging.impl.Log;
@@ -79,6 +82,8 @@ import org.hibernate.search.bridge.TwoWayStringBridge;
 import org.hibernate.search.bridge.builtin.NumericFieldBridge;
 import org.hibernate.search.bridge.util.impl.ContextualException2WayBridge;
 import org.hibernate.search.bridge.util.impl.ContextualExceptionBridge;
+import org.hibernate.search.engine.BoostStrategy;
+import org.hibernate.search.engine.impl.DefaultBoostStrategy;
 import org.hibernate.search.impl.ConfigContext;
 import org.hibernate.search.query.collector.impl.FieldCacheCollectorFactory;
 import org.hibernate.search.query.fieldcache.impl.ClassLoadingStrategySelector;
@@ -163,6 +168,11 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 	 */
 	private final FieldCacheCollectorFactory idFieldCacheCollectorFactory;
 
+	/**
+	 * Flag indicating whether the mapping only runs built-in bridges, see {@link #isDocumentBuildingDeferrable()}.
+	 */
+	private final boolean documentBuildingDeferrable;
+
 	/**
 	 * Creates a document builder for entities annotated with <code>@Indexed</code>.
 	 *
@@ -210,6 +220,7 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 		}
 		this.entityState = EntityState.INDEXED;
 		this.identifierName = idProvided ? null : idGetter.getName();
+		this.documentBuildingDeferrable = ( idProvided || !hasCustomBridge( idGetter ) ) && !runsCustomCode( metadata );
 	}
 
 	private FieldCacheCollectorFactory figureIdFieldCacheUsage() {
@@ -470,38 +481,24 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 		Object unproxiedInstance = unproxy( instance, objectInitializer );
 
 		// process the class bridges
-		for ( int i = 0; i < propertiesMetadata.classBridges.size(); i++ ) {
-			FieldBridge fb = propertiesMetadata.classBridges.get( i );
-			final String fieldName = propertiesMetadata.classNames.get( i );
+		for ( ClassBridgeStep step : propertiesMetadata.classBridgeSteps ) {
 			contextualBridge
-					.setFieldBridge( fb )
-					.setFieldName( fieldName )
-					.set(
-							fieldName, unproxiedInstance,
-							doc, propertiesMetadata.getClassLuceneOptions( i )
-					);
+					.setFieldBridge( step.bridge )
+					.setFieldName( step.name )
+					.set( step.name, unproxiedInstance, doc, step.luceneOptions );
 		}
 
 		// process the indexed fields
-		XMember previousMember = null;
 		Object currentFieldValue = null;
-		for ( int i = 0; i < propertiesMetadata.fieldNames.size(); i++ ) {
-			XMember member = propertiesMetadata.fieldGetters.get( i );
-			if ( previousMember != member ) {
-				currentFieldValue = ReflectionHelper.getMemberValue( unproxiedInstance, member );
-				previousMember = member;
+		for ( FieldStep step : propertiesMetadata.fieldSteps ) {
+			if ( step.readsValue ) {
+				currentFieldValue = ReflectionHelper.getMemberValue( unproxiedInstance, step.getter );
 			}
-
-			final FieldBridge fieldBridge = propertiesMetadata.fieldBridges.get( i );
-			final String fieldName = propertiesMetadata.fieldNames.get( i );
 			contextualBridge
-					.setFieldBridge( fieldBridge )
-					.pushMethod( member )
-					.setFieldName( fieldName )
-					.set(
-							fieldName, currentFieldValue, doc,
-							propertiesMetadata.getFieldLuceneOptions( i, currentFieldValue )
-					);
+					.setFieldBridge( step.bridge )
+					.pushMethod( step.getter )
+					.setFieldName( step.name )
+					.set( step.name, currentFieldValue, doc, step.getLuceneOptions( currentFieldValue ) );
 			contextualBridge.popMethod();
 		}
 
@@ -511,26 +508,24 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 		);
 
 		// recursively process embedded objects
-		for ( int i = 0; i < propertiesMetadata.embeddedGetters.size(); i++ ) {
-			XMember member = propertiesMetadata.embeddedGetters.get( i );
-			contextualBridge.pushMethod( member );
-			Object value = ReflectionHelper.getMemberValue( unproxiedInstance, member );
+		for ( EmbeddedStep step : propertiesMetadata.embeddedSteps ) {
+			contextualBridge.pushMethod( step.getter );
+			Object value = ReflectionHelper.getMemberValue( unproxiedInstance, step.getter );
 			//TODO handle boost at embedded level: already stored in propertiesMedatada.boost
 
 			if ( value == null ) {
-				processEmbeddedNullValue( doc, propertiesMetadata, contextualBridge, i, member );
+				processEmbeddedNullValue( doc, propertiesMetadata, contextualBridge, step.position, step.getter );
 				continue;
 			}
 
-			PropertiesMetadata embeddedMetadata = propertiesMetadata.embeddedPropertiesMetadata.get( i );
-			switch ( propertiesMetadata.embeddedContainers.get( i ) ) {
+			switch ( step.container ) {
 				case ARRAY:
 					Object[] array = objectInitializer.initializeArray( (Object[]) value );
 					for ( Object arrayValue : array ) {
 						buildDocumentFields(
 								arrayValue,
 								doc,
-								embeddedMetadata,
+								step.metadata,
 								fieldToAnalyzerMap,
 								processedFieldNames,
 								contextualBridge,
@@ -544,7 +539,7 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 						buildDocumentFields(
 								collectionValue,
 								doc,
-								embeddedMetadata,
+								step.metadata,
 								fieldToAnalyzerMap,
 								processedFieldNames,
 								contextualBridge,
@@ -558,7 +553,7 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 						buildDocumentFields(
 								collectionValue,
 								doc,
-								embeddedMetadata,
+								step.metadata,
 								fieldToAnalyzerMap,
 								processedFieldNames,
 								contextualBridge,
@@ -570,20 +565,150 @@ public class DocumentBuilderIndexedEntity<T> extends AbstractDocumentBuilder<T>
 					buildDocumentFields(
 							value,
 							doc,
-							embeddedMetadata,
+							step.metadata,
 							fieldToAnalyzerMap,
 							processedFieldNames,
 							contextualBridge,
 							objectInitializer
 					);
 					break;
+				default:
+					throw new AssertionFailure( "Unknown embedded container: " + step.container );
+			}
+			contextualBridge.popMethod();
+		}
+	}
+
+	/**
+	 * Loads the state of <code>instance</code> needed by {@link #getDocument}: proxies and lazy collections
+	 * reachable from the indexed properties are initialized without running any bridge, so that the
+	 * <code>Document</code> can later be built by a thread not owning the Session.
+	 * No copy of the state is taken: the <code>Document</code> is still built from <code>instance</code>.
+	 * Only the state needed by built-in bridges is loaded, see {@link #isDocumentBuildingDeferrable()}.
+	 *
+	 * @param instance The entity whose state is loaded
+	 * @param objectInitializer used to ensure that all objects are initalized
+	 */
+	public void initializeIndexedState(T instance, InstanceInitializer objectInitializer) {
+		initializeState( instance, getMetadata(), objectInitializer );
+	}
+
+	/**
+	 * The state loaded by {@link #initializeIndexedState} is only known to be enough for built-in bridges:
+	 * class bridges, custom field bridges, dynamic boosts and analyzer discriminators might navigate
+	 * any state of the entity, so the Documents of entities using them must be built by the thread owning the Session.
+	 *
+	 * @return true if the Documents of this type can be built by a thread not owning the Session
+	 */
+	public boolean isDocumentBuildingDeferrable() {
+		return documentBuildingDeferrable;
+	}
+
+	private static boolean runsCustomCode(PropertiesMetadata propertiesMetadata) {
+		if ( propertiesMetadata.classBridges.size() > 0 || propertiesMetadata.discriminator != null ) {
+			return true;
+		}
+		if ( propertiesMetadata.classBoostStrategy != null
+				&& propertiesMetadata.classBoostStrategy.getClass() != DefaultBoostStrategy.class ) {
+			return true;
+		}
+		for ( BoostStrategy boostStrategy : propertiesMetadata.dynamicFieldBoosts ) {
+			if ( boostStrategy.getClass() != DefaultBoostStrategy.class ) {
+				return true;
+			}
+		}
+		for ( XMember member : propertiesMetadata.fieldGetters ) {
+			if ( hasCustomBridge( member ) ) {
+				return true;
+			}
+		}
+		for ( PropertiesMetadata embeddedMetadata : propertiesMetadata.embeddedPropertiesMetadata ) {
+			if ( runsCustomCode( embeddedMetadata ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasCustomBridge(XMember member) {
+		if ( member.isAnnotationPresent( org.hibernate.search.annotations.FieldBridge.class ) ) {
+			return true;
+		}
+		org.hibernate.search.annotations.Field fieldAnn = member.getAnnotation( org.hibernate.search.annotations.Field.class );
+		if ( fieldAnn != null && void.class != fieldAnn.bridge().impl() ) {
+			return true;
+		}
+		org.hibernate.search.annotations.Fields fieldsAnn = member.getAnnotation( org.hibernate.search.annotations.Fields.class );
+		if ( fieldsAnn != null ) {
+			for ( org.hibernate.search.annotations.Field field : fieldsAnn.value() ) {
+				if ( void.class != field.bridge().impl() ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void initializeState(Object instance, PropertiesMetadata propertiesMetadata, InstanceInitializer objectInitializer) {
+		Object unproxiedInstance = unproxy( instance, objectInitializer );
+		if ( unproxiedInstance == null ) {
+			return;
+		}
+
+		XMember previousMember = null;
+		for ( XMember member : propertiesMetadata.fieldGetters ) {
+			if ( previousMember != member ) {
+				initializeValue( ReflectionHelper.getMemberValue( unproxiedInstance, member ), objectInitializer );
+				previousMember = member;
+			}
+		}
+
+		for ( int i = 0; i < propertiesMetadata.embeddedGetters.size(); i++ ) {
+			Object value = ReflectionHelper.getMemberValue( unproxiedInstance, propertiesMetadata.embeddedGetters.get( i ) );
+			if ( value == null ) {
+				continue;
+			}
+			PropertiesMetadata embeddedMetadata = propertiesMetadata.embeddedPropertiesMetadata.get( i );
+			switch ( propertiesMetadata.embeddedContainers.get( i ) ) {
+				case ARRAY:
+					for ( Object arrayValue : objectInitializer.initializeArray( (Object[]) value ) ) {
+						initializeState( arrayValue, embeddedMetadata, objectInitializer );
+					}
+					break;
+				case COLLECTION:
+					for ( Object collectionValue : objectInitializer.initializeCollection( (Collection<?>) value ) ) {
+						initializeState( collectionValue, embeddedMetadata, objectInitializer );
+					}
+					break;
+				case MAP:
+					for ( Object collectionValue : objectInitializer.initializeMap( (Map<?, ?>) value ).values() ) {
+						initializeState( collectionValue, embeddedMetadata, objectInitializer );
+					}
+					break;
+				case OBJECT:
+					initializeState( value, embeddedMetadata, objectInitializer );
+					break;
 				default:
 					throw new AssertionFailure(
 							"Unknown embedded container: "
 									+ propertiesMetadata.embeddedContainers.get( i )
 					);
 			}
-			contextualBridge.popMethod();
+		}
+	}
+
+	private void initializeValue(Object value, InstanceInitializer objectInitializer) {
+		if ( value instanceof Collection ) {
+			objectInitializer.initializeCollection( (Collection<?>) value );
+		}
+		else if ( value instanceof Map ) {
+			objectInitializer.initializeMap( (Map<?, ?>) value );
+		}
+		else if ( value instanceof Object[] ) {
+			objectInitializer.initializeArray( (Object[]) value );
+		}
+		else {
+			unproxy( value, objectInitializer );
 		}
 	}
 
@@ -22,8 +22,10 @@ package org.hibernate.search.engine.spi;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.hibernate.search.backend.impl.batch.BatchBackend;
+import org.hibernate.search.backend.spi.EntityReindexer;
 import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
 import org.hibernate.search.engine.impl.FilterDef;
 import org.hibernate.search.filter.FilterCachingStrategy;
@@ -80,4 +82,30 @@ public interface SearchFactoryImplementor extends SearchFactoryIntegrator {
 	InstanceInitializer getInstanceInitializer();
 
 	TimingSource getTimingSource();
+
+	/**
+	 * @return the maximum number of entities of each type updated inline by the {@code @ContainedIn}
+	 * propagation of a unit of work, or 0 if there is no limit
+	 * @see org.hibernate.search.Environment#CONTAINED_IN_MAX_FAN_OUT
+	 */
+	int getContainedInMaxFanOut();
+
+	/**
+	 * @return the number of entities the {@code @ContainedIn} propagation initializes at once
+	 * @see org.hibernate.search.Environment#CONTAINED_IN_BATCH_SIZE
+	 */
+	int getContainedInBatchSize();
+
+	/**
+	 * @return the EntityReindexer updating the entities reached beyond {@link #getContainedInMaxFanOut()},
+	 * or null if the integration provides none
+	 */
+	EntityReindexer getEntityReindexer();
+
+	/**
+	 * @return the executor searching in parallel the indexes targeted by a query, or null if they are searched sequentially
+	 *
+	 * @see org.hibernate.search.Environment#QUERY_SHARDS_THREADS
+	 */
+	ExecutorService getShardSearchExecutor();
 }
@@ -0,0 +1,70 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.filter.impl;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.OpenBitSet;
+
+/**
+ * Matches the documents containing any of the given terms.
+ * Unlike a boolean query of term queries it is not bound to the maximum number of clauses.
+ *
+ * @see org.hibernate.search.filter.IdFilter
+ */
+@SuppressWarnings("serial")
+public class TermSetFilter extends Filter {
+
+	private final Set<Term> terms;
+
+	public TermSetFilter(Set<Term> terms) {
+		this.terms = terms;
+	}
+
+	@Override
+	public DocIdSet getDocIdSet(IndexReader reader) throws IOException {
+		OpenBitSet result = new OpenBitSet( reader.maxDoc() );
+		TermDocs termDocs = reader.termDocs();
+		try {
+			for ( Term term : terms ) {
+				termDocs.seek( term );
+				while ( termDocs.next() ) {
+					result.set( termDocs.doc() );
+				}
+			}
+		}
+		finally {
+			termDocs.close();
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "TermSetFilter" + terms;
+	}
+}
@@ -26,11 +26,14 @@ package org.hibernate.search.impl;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.analysis.Analyzer;
 
 import org.hibernate.search.backend.spi.BackendQueueProcessor;
+import org.hibernate.search.backend.spi.EntityReindexer;
+import org.hibernate.search.backend.spi.EntityReindexerProvider;
 import org.hibernate.search.backend.spi.Worker;
 import org.hibernate.search.engine.impl.FilterDef;
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
@@ -39,6 +42,7 @@ import org.hibernate.search.indexes.impl.DefaultIndexReaderAccessor;
 import org.hibernate.search.indexes.impl.IndexManagerHolder;
 import org.hibernate.search.indexes.spi.IndexManager;
 import org.hibernate.search.jmx.impl.JMXRegistrar;
+import org.hibernate.search.query.engine.impl.ShardSearchExecutorProvider;
 import org.hibernate.search.stat.impl.StatisticsImpl;
 import org.hibernate.search.stat.spi.StatisticsImplementor;
 import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
@@ -109,6 +113,10 @@ public class ImmutableSearchFactory implements SearchFactoryImplementorWithShare
 	private final InstanceInitializer instanceInitializer;
 	private final TimeoutExceptionFactory timeoutExceptionFactory;
 	private final TimingSource timingSource;
+	private final EntityReindexer entityReindexer;
+	private final int containedInMaxFanOut;
+	private final int containedInBatchSize;
+	private final ExecutorService shardSearchExecutor;
 
 	public ImmutableSearchFactory(SearchFactoryState state) {
 		this.analyzers = state.getAnalyzers();
@@ -128,7 +136,7 @@ public class ImmutableSearchFactory implements SearchFactoryImplementorWithShare
 		this.instanceInitializer = state.getInstanceInitializer();
 		this.timeoutExceptionFactory = state.getDefaultTimeoutExceptionFactory();
 		this.timingSource = state.getTimingSource();
-		this.statistics = new StatisticsImpl( this );
+		this.statistics = new StatisticsImpl( this, serviceManager );
 		boolean statsEnabled = ConfigurationParseHelper.getBooleanValue(
 				configurationProperties, Environment.GENERATE_STATS, false
 		);
@@ -148,6 +156,26 @@ public class ImmutableSearchFactory implements SearchFactoryImplementorWithShare
 			);
 		}
 
+		// provided services are not reference counted, so there is nothing to hold on to
+		this.entityReindexer = serviceManager.requestService( EntityReindexerProvider.class );
+		serviceManager.releaseService( EntityReindexerProvider.class );
+		int maxFanOut = ConfigurationParseHelper.getIntValue(
+				configurationProperties, Environment.CONTAINED_IN_MAX_FAN_OUT, 0
+		);
+		if ( maxFanOut > 0 && entityReindexer == null ) {
+			log.containedInFanOutRequiresReindexer( Environment.CONTAINED_IN_MAX_FAN_OUT );
+			maxFanOut = 0;
+		}
+		this.containedInMaxFanOut = maxFanOut;
+		this.containedInBatchSize = ConfigurationParseHelper.getIntValue(
+				configurationProperties, Environment.CONTAINED_IN_BATCH_SIZE, 100
+		);
+
+		// managed services are only stopped with the ServiceManager: the executor is shared
+		// by the instances replacing this one when new entities are added
+		this.shardSearchExecutor = serviceManager.requestService( ShardSearchExecutorProvider.class );
+		serviceManager.releaseService( ShardSearchExecutorProvider.class );
+
 		this.indexReaderAccessor = new DefaultIndexReaderAccessor( this );
 	}
 
@@ -368,4 +396,24 @@ public class ImmutableSearchFactory implements SearchFactoryImplementorWithShare
 		return this.timingSource;
 	}
 
+	@Override
+	public int getContainedInMaxFanOut() {
+		return containedInMaxFanOut;
+	}
+
+	@Override
+	public int getContainedInBatchSize() {
+		return containedInBatchSize;
+	}
+
+	@Override
+	public EntityReindexer getEntityReindexer() {
+		return entityReindexer;
+	}
+
+	@Override
+	public ExecutorService getShardSearchExecutor() {
+		return shardSearchExecutor;
+	}
+
 }
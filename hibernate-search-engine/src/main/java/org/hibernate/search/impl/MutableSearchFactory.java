@@ -26,11 +26,13 @@ package org.hibernate.search.impl;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.lucene.analysis.Analyzer;
 
+import org.hibernate.search.backend.spi.EntityReindexer;
 import org.hibernate.search.backend.spi.Worker;
 import org.hibernate.search.backend.impl.batch.BatchBackend;
 import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
@@ -240,4 +242,24 @@ public class MutableSearchFactory implements SearchFactoryImplementorWithShareab
 		return delegate.getTimingSource();
 	}
 
+	@Override
+	public int getContainedInMaxFanOut() {
+		return delegate.getContainedInMaxFanOut();
+	}
+
+	@Override
+	public int getContainedInBatchSize() {
+		return delegate.getContainedInBatchSize();
+	}
+
+	@Override
+	public EntityReindexer getEntityReindexer() {
+		return delegate.getEntityReindexer();
+	}
+
+	@Override
+	public ExecutorService getShardSearchExecutor() {
+		return delegate.getShardSearchExecutor();
+	}
+
 }
@@ -66,4 +66,9 @@ public class SimpleInitializer implements InstanceInitializer {
 		return value;
 	}
 
+	@Override
+	public void initializeBatch(Collection<?> values) {
+		// nothing to initialize
+	}
+
 }
@@ -76,9 +76,25 @@ public class CommonPropertiesParse {
 		}
 	}
 
+	/**
+	 * @param indexName
+	 * @param indexProps MaskedProperties for this IndexManager
+	 * @return the number of threads processing the queue of changesets of this index
+	 */
+	public static int extractQueueProcessors(String indexName, Properties indexProps) {
+		int queueProcessors = ConfigurationParseHelper.getIntValue( indexProps, Environment.QUEUE_PROCESSORS, 1 );
+		if ( queueProcessors < 1 ) {
+			throw new SearchException( "Property " + Environment.QUEUE_PROCESSORS + " on index "
+					+ indexName + " must be strictly positive" );
+		}
+		return queueProcessors;
+	}
+
 	public static OptimizerStrategy getOptimizerStrategy(IndexManager callback, Properties indexProps) {
 		boolean incremental = indexProps.containsKey( "optimizer.operation_limit.max" )
-				|| indexProps.containsKey( "optimizer.transaction_limit.max" );
+				|| indexProps.containsKey( "optimizer.transaction_limit.max" )
+				|| indexProps.containsKey( "optimizer.segment_limit.max" )
+				|| indexProps.containsKey( "optimizer.deleted_docs_percentage.max" );
 		OptimizerStrategy optimizerStrategy;
 		if ( incremental ) {
 			optimizerStrategy = new IncrementalOptimizerStrategy();
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -39,6 +40,7 @@ import org.hibernate.search.engine.spi.EntityIndexBinder;
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
 import org.hibernate.search.indexes.serialization.spi.LuceneWorkSerializer;
 import org.hibernate.search.indexes.spi.DirectoryBasedReaderProvider;
+import org.hibernate.search.indexes.spi.IndexCommitListener;
 import org.hibernate.search.indexes.spi.IndexManager;
 import org.hibernate.search.indexes.spi.ReaderProvider;
 import org.hibernate.search.spi.WorkerBuildContext;
@@ -65,6 +67,7 @@ public class DirectoryBasedIndexManager implements IndexManager {
 	private SearchFactoryImplementor boundSearchFactory = null;
 	private DirectoryBasedReaderProvider readers = null;
 	private IndexWriterConfig writerConfig;
+	private final List<IndexCommitListener> commitListeners = new CopyOnWriteArrayList<IndexCommitListener>();
 
 	@Override
 	public String getIndexName() {
@@ -166,6 +169,11 @@ public class DirectoryBasedIndexManager implements IndexManager {
 		return boundSearchFactory.getIndexBindingForEntity( entityType );
 	}
 	
+	//Not exposed on the IndexManager interface
+	public SearchFactoryImplementor getSearchFactory() {
+		return boundSearchFactory;
+	}
+
 	//Not exposed on the IndexManager interface
 	public Lock getDirectoryModificationLock() {
 		return backend.getExclusiveWriteLock();
@@ -186,6 +194,21 @@ public class DirectoryBasedIndexManager implements IndexManager {
 		return indexingParameters;
 	}
 
+	//Not exposed on the interface
+	public void addIndexCommitListener(IndexCommitListener listener) {
+		commitListeners.add( listener );
+	}
+
+	//Not exposed on the interface
+	public void removeIndexCommitListener(IndexCommitListener listener) {
+		commitListeners.remove( listener );
+	}
+
+	//Not exposed on the interface
+	public List<IndexCommitListener> getIndexCommitListeners() {
+		return commitListeners;
+	}
+
 	@Override
 	public LuceneWorkSerializer getSerializer() {
 		return serializer;
@@ -0,0 +1,168 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.indexes.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.util.ReaderUtil;
+import org.hibernate.annotations.common.util.StringHelper;
+import org.hibernate.search.SearchException;
+import org.hibernate.search.annotations.FieldCacheType;
+import org.hibernate.search.engine.spi.EntityIndexBinder;
+import org.hibernate.search.indexes.spi.IndexReaderWarmer;
+import org.hibernate.search.query.collector.impl.FieldCacheCollectorFactory;
+import org.hibernate.search.query.fieldcache.impl.FieldCacheLoadingType;
+import org.hibernate.search.query.fieldcache.impl.UninvertedField;
+
+/**
+ * Loads in the Lucene FieldCache the fields queries are going to need, segment by segment:
+ * <ul>
+ * <li>the id and class fields of the entities stored in the index, when enabled by {@code @CacheFromIndex}</li>
+ * <li>the fields listed in <code>reader.warmer.sort_fields</code></li>
+ * <li>the fields listed in <code>reader.warmer.facet_fields</code></li>
+ * <li>the fields listed in <code>reader.warmer.multi_valued_facet_fields</code>, uninverted for multi-valued faceting</li>
+ * </ul>
+ * Fields are listed as <code>name[:type]</code>, separated by commas; the type is one of
+ * <code>STRING</code> (default), <code>INT</code>, <code>LONG</code>, <code>FLOAT</code>, <code>DOUBLE</code>.
+ * <p/>
+ * As the FieldCache is per segment, only the segments which changed are actually loaded.
+ * Enabled by setting <code>reader.warmer</code> to <code>field_cache</code>.
+ */
+public class FieldCacheReaderWarmer implements IndexReaderWarmer {
+
+	static final String SORT_FIELDS = "warmer.sort_fields";
+	static final String FACET_FIELDS = "warmer.facet_fields";
+	static final String MULTI_VALUED_FACET_FIELDS = "warmer.multi_valued_facet_fields";
+
+	private DirectoryBasedIndexManager indexManager;
+
+	/**
+	 * String fields are sorted and counted by discrete facets using the ordinals of the values
+	 */
+	private final Set<String> ordinalFields = new HashSet<String>();
+	private final Map<String, FieldCacheLoadingType> loadedFields = new LinkedHashMap<String, FieldCacheLoadingType>();
+	private final Set<String> uninvertedFields = new HashSet<String>();
+
+	@Override
+	public void initialize(DirectoryBasedIndexManager indexManager, Properties properties) {
+		this.indexManager = indexManager;
+		addFields( parseFields( properties, SORT_FIELDS ) );
+		addFields( parseFields( properties, FACET_FIELDS ) );
+		for ( Map.Entry<String, FieldCacheLoadingType> field : parseFields( properties, MULTI_VALUED_FACET_FIELDS ).entrySet() ) {
+			if ( field.getValue() != FieldCacheLoadingType.STRING ) {
+				throw new SearchException( "Multi-valued facet field '" + field.getKey() + "' of index "
+						+ indexManager.getIndexName() + " must be of type STRING" );
+			}
+			uninvertedFields.add( field.getKey() );
+		}
+	}
+
+	private void addFields(Map<String, FieldCacheLoadingType> fields) {
+		for ( Map.Entry<String, FieldCacheLoadingType> field : fields.entrySet() ) {
+			if ( field.getValue() == FieldCacheLoadingType.STRING ) {
+				ordinalFields.add( field.getKey() );
+			}
+			else {
+				loadedFields.put( field.getKey(), field.getValue() );
+			}
+		}
+	}
+
+	@Override
+	public void warm(IndexReader reader) throws IOException {
+		Set<FieldCacheCollectorFactory> entityFields = getEntityFields();
+		List<IndexReader> segments = new ArrayList<IndexReader>();
+		ReaderUtil.gatherSubReaders( segments, reader );
+		for ( IndexReader segment : segments ) {
+			for ( String field : ordinalFields ) {
+				FieldCache.DEFAULT.getStringIndex( segment, field );
+			}
+			for ( Map.Entry<String, FieldCacheLoadingType> field : loadedFields.entrySet() ) {
+				field.getValue().createLoadingStrategy( field.getKey() ).loadNewCacheValues( segment );
+			}
+			for ( String field : uninvertedFields ) {
+				UninvertedField.getUninvertedField( segment, field );
+			}
+			for ( FieldCacheCollectorFactory entityField : entityFields ) {
+				entityField.loadCacheValues( segment );
+			}
+		}
+	}
+
+	/**
+	 * Entity types can be added to the index at runtime, so the fields are looked up at each warm-up.
+	 */
+	private Set<FieldCacheCollectorFactory> getEntityFields() {
+		Set<FieldCacheCollectorFactory> entityFields = new HashSet<FieldCacheCollectorFactory>();
+		for ( Class<?> type : indexManager.getContainedTypes() ) {
+			EntityIndexBinder indexBinder = indexManager.getIndexBindingForEntity( type );
+			if ( indexBinder == null ) {
+				continue;
+			}
+			if ( indexBinder.getIdFieldCacheCollectionFactory() != null ) {
+				entityFields.add( indexBinder.getIdFieldCacheCollectionFactory() );
+			}
+			if ( indexBinder.getDocumentBuilder().getFieldCacheOption().contains( FieldCacheType.CLASS ) ) {
+				entityFields.add( FieldCacheCollectorFactory.CLASS_TYPE_FIELD_CACHE_COLLECTOR_FACTORY );
+			}
+		}
+		return entityFields;
+	}
+
+	private Map<String, FieldCacheLoadingType> parseFields(Properties properties, String key) {
+		Map<String, FieldCacheLoadingType> fields = new LinkedHashMap<String, FieldCacheLoadingType>();
+		String fieldList = properties.getProperty( key );
+		if ( StringHelper.isEmpty( fieldList ) ) {
+			return fields;
+		}
+		for ( String field : StringHelper.split( ",", fieldList ) ) {
+			field = field.trim();
+			if ( field.length() == 0 ) {
+				continue;
+			}
+			int separator = field.indexOf( ':' );
+			if ( separator == -1 ) {
+				fields.put( field, FieldCacheLoadingType.STRING );
+			}
+			else {
+				String type = field.substring( separator + 1 ).trim().toUpperCase();
+				try {
+					fields.put( field.substring( 0, separator ).trim(), FieldCacheLoadingType.valueOf( type ) );
+				}
+				catch ( IllegalArgumentException e ) {
+					throw new SearchException( "Illegal FieldCache type '" + type + "' in property reader." + key
+							+ " of index " + indexManager.getIndexName() );
+				}
+			}
+		}
+		return fields;
+	}
+
+}
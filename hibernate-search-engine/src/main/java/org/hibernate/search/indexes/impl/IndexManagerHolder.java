@@ -34,6 +34,7 @@ import org.hibernate.annotations.common.util.StringHelper;
 import org.hibernate.search.Environment;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.backend.BackendFactory;
 import org.hibernate.search.cfg.spi.SearchConfiguration;
 import org.hibernate.search.engine.impl.MutableEntityIndexBinding;
 import org.hibernate.search.indexes.spi.IndexManager;
@@ -79,6 +80,11 @@ public class IndexManagerHolder {
 
 	private final Map<String, IndexManager> indexManagersRegistry= new ConcurrentHashMap<String, IndexManager>();
 
+	/**
+	 * Whether each index is configured to apply changes synchronously, by index name
+	 */
+	private final Map<String, Boolean> syncIndexes = new ConcurrentHashMap<String, Boolean>();
+
 	/**
 	 * Multiple IndexManager might be built for the same entity to implement Sharding.
 	 * @return a map of created IndexManagers, having as key the names of each index.
@@ -112,6 +118,7 @@ public class IndexManagerHolder {
 			if ( indexManager == null ) {
 				indexManager = createDirectoryManager( providerName, indexProps[index], context );
 				indexManagersRegistry.put( providerName, indexManager );
+				syncIndexes.put( providerName, BackendFactory.isConfiguredAsSync( indexProps[index] ) );
 			}
 			indexManager.addContainedEntity( mappedClass );
 			providers[index] = indexManager;
@@ -294,6 +301,7 @@ public class IndexManagerHolder {
 			indexManager.destroy();
 		}
 		indexManagersRegistry.clear();
+		syncIndexes.clear();
 	}
 
 	/**
@@ -306,4 +314,13 @@ public class IndexManagerHolder {
 		}
 		return indexManagersRegistry.get( targetIndexName );
 	}
+
+	/**
+	 * @param indexName the name of an IndexManager
+	 * @return true if the backend of the index is configured to apply changes synchronously
+	 */
+	public boolean isConfiguredAsSync(String indexName) {
+		Boolean sync = syncIndexes.get( indexName );
+		return sync == null || sync.booleanValue();
+	}
 }
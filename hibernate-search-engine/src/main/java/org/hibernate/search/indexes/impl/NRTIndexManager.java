@@ -21,6 +21,7 @@
 package org.hibernate.search.indexes.impl;
 
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.hibernate.search.Environment;
 import org.hibernate.search.backend.impl.lucene.LuceneBackendQueueProcessor;
@@ -45,6 +46,12 @@ import org.hibernate.search.util.logging.impl.LoggerFactory;
  * <li>is not useful for non-local (clustered) backends</li>
  * </ul>
  * 
+ * Setting <code>nrt.max_staleness</code> to a number of milliseconds, IndexReaders
+ * are refreshed at most that often rather than after each transaction: queries can
+ * wait for their own changes to be visible via {@link #waitForGeneration(long, long, TimeUnit)}.
+ * Setting <code>nrt.commit.interval</code> (in milliseconds) or <code>nrt.commit.max_operations</code>,
+ * changes are committed periodically in background, bounding the changes a crash can lose.
+ * 
  * @since 4.0
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
@@ -68,7 +75,53 @@ public class NRTIndexManager extends DirectoryBasedIndexManager {
 
 	@Override
 	protected DirectoryBasedReaderProvider createIndexReader(String indexName, Properties cfg, WorkerBuildContext buildContext) {
+		nrtWorkspace.initialize( this, cfg );
 		return nrtWorkspace;
 	}
 
+	/**
+	 * @return the generation of the index, increased by each applied changeset
+	 */
+	public long getCurrentGeneration() {
+		return nrtWorkspace.getCurrentGeneration();
+	}
+
+	/**
+	 * Waits for the IndexReaders opened for queries to include the changes up to the given generation.
+	 *
+	 * @param generation as returned by {@link #getCurrentGeneration()} after the changes to be read were applied
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return false if the timeout expired before the changes were visible
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean waitForGeneration(long generation, long timeout, TimeUnit unit) throws InterruptedException {
+		return nrtWorkspace.waitForGeneration( generation, timeout, unit );
+	}
+
+	/**
+	 * When <code>nrt.commit.interval</code> or <code>nrt.commit.max_operations</code> are set, the
+	 * changes are committed periodically: in case of crash, only the changes applied after
+	 * this generation might be lost.
+	 *
+	 * @return the generation of the index last committed, or -1 if periodic commits are disabled
+	 */
+	public long getLastCommittedGeneration() {
+		return nrtWorkspace.getLastCommittedGeneration();
+	}
+
+	/**
+	 * @return the number of operations applied to the index and not yet committed, or -1 if periodic commits are disabled
+	 */
+	public long getUncommittedOperations() {
+		return nrtWorkspace.getUncommittedOperations();
+	}
+
+	/**
+	 * @return the time taken by the last periodic commit in milliseconds, or -1 if periodic commits are disabled
+	 */
+	public long getLastCommitDurationMillis() {
+		return nrtWorkspace.getLastCommitDurationMillis();
+	}
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.indexes.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.annotations.common.util.StringHelper;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.spi.IndexReaderWarmer;
+import org.hibernate.search.util.impl.ClassLoaderHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Runs the {@link IndexReaderWarmer}s configured for an index, reporting the time
+ * spent to the statistics. A failing warmer doesn't prevent the IndexReader from being used.
+ *
+ * @see org.hibernate.search.Environment#READER_WARMER
+ */
+public final class ReaderWarmers {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final DirectoryBasedIndexManager indexManager;
+	private final List<IndexReaderWarmer> warmers;
+
+	private ReaderWarmers(DirectoryBasedIndexManager indexManager, List<IndexReaderWarmer> warmers) {
+		this.indexManager = indexManager;
+		this.warmers = warmers;
+	}
+
+	/**
+	 * @param indexManager the index owning the IndexReaders to warm
+	 * @param props the <code>reader</code> scoped properties of the index
+	 * @return the configured warmers, or null if no warmer is configured
+	 */
+	public static ReaderWarmers create(DirectoryBasedIndexManager indexManager, Properties props) {
+		String names = props == null ? null : props.getProperty( "warmer" );
+		if ( StringHelper.isEmpty( names ) ) {
+			return null;
+		}
+		List<IndexReaderWarmer> warmers = new ArrayList<IndexReaderWarmer>();
+		for ( String name : StringHelper.split( ",", names ) ) {
+			name = name.trim();
+			if ( name.length() == 0 ) {
+				continue;
+			}
+			IndexReaderWarmer warmer;
+			if ( "field_cache".equalsIgnoreCase( name ) ) {
+				warmer = new FieldCacheReaderWarmer();
+			}
+			else {
+				warmer = ClassLoaderHelper.instanceFromName(
+						IndexReaderWarmer.class, name,
+						ReaderWarmers.class, "IndexReader warmer"
+				);
+			}
+			warmer.initialize( indexManager, props );
+			warmers.add( warmer );
+		}
+		return warmers.isEmpty() ? null : new ReaderWarmers( indexManager, warmers );
+	}
+
+	/**
+	 * Warms a new IndexReader; to be invoked before it's made available to queries.
+	 *
+	 * @param reader the new IndexReader
+	 */
+	public void warm(IndexReader reader) {
+		long startTime = System.nanoTime();
+		for ( IndexReaderWarmer warmer : warmers ) {
+			try {
+				warmer.warm( reader );
+			}
+			catch ( IOException e ) {
+				log.readerWarmingFailed( indexManager.getIndexName(), e );
+			}
+			catch ( RuntimeException e ) {
+				log.readerWarmingFailed( indexManager.getIndexName(), e );
+			}
+		}
+		SearchFactoryImplementor searchFactory = indexManager.getSearchFactory();
+		if ( searchFactory != null && searchFactory.getStatistics().isStatisticsEnabled() ) {
+			searchFactory.getStatisticsImplementor().readerWarmed( System.nanoTime() - startTime );
+		}
+	}
+
+}
@@ -24,7 +24,12 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -32,8 +37,11 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
 import org.hibernate.annotations.common.AssertionFailure;
 import org.hibernate.search.SearchException;
+import org.hibernate.search.batchindexing.impl.Executors;
 import org.hibernate.search.indexes.spi.DirectoryBasedReaderProvider;
+import org.hibernate.search.indexes.spi.IndexCommitListener;
 import org.hibernate.search.store.DirectoryProvider;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
 import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
@@ -41,6 +49,17 @@ import org.hibernate.search.util.logging.impl.LoggerFactory;
  * This <code>ReaderProvider</code> shares IndexReaders as long as they are "current";
  * It uses IndexReader.reopen() which should improve performance on larger indexes
  * as it shares buffers with previous IndexReader generation for the segments which didn't change.
+ * <p/>
+ * By default each {@link #openIndexReader()} checks if the index changed and reopens the IndexReader
+ * if needed. When <code>reader.max_staleness</code> is set, queries get the current IndexReader with
+ * no locking nor index check: it's reopened in background after each commit of the Lucene backend,
+ * which is notified as an {@link IndexCommitListener}, and at least once every
+ * <code>reader.max_staleness</code> milliseconds to pick up changes from other sources.
+ * <p/>
+ * Reopened IndexReaders are warmed by the {@link org.hibernate.search.indexes.spi.IndexReaderWarmer}s
+ * configured in <code>reader.warmer</code> before replacing the current one. Warming happens in background
+ * and without holding any lock, while queries keep getting the current IndexReader: when warmers are
+ * configured {@link #openIndexReader()} doesn't reopen the IndexReader itself but schedules the check.
  *
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
  */
@@ -58,9 +77,38 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 	 */
 	protected final Map<Directory, PerDirectoryLatestReader> currentReaders = new ConcurrentHashMap<Directory, PerDirectoryLatestReader>();
 
+	static final String MAX_STALENESS = "max_staleness";
+
+	private DirectoryBasedIndexManager indexManager;
 	private DirectoryProvider directoryProvider;
 	private String indexName;
-	
+
+	/**
+	 * Refreshes the IndexReaders in background; null when they are refreshed by {@link #openIndexReader()}
+	 */
+	private ScheduledThreadPoolExecutor refresher;
+
+	/**
+	 * Whether queries need to schedule a check for index changes, as no periodic one is configured
+	 */
+	private boolean refreshOnQuery;
+
+	private final AtomicLong requestedRefreshes = new AtomicLong();
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+	private long completedRefreshes = 0; //guarded by this
+
+	/**
+	 * Null when no warmer is configured
+	 */
+	private ReaderWarmers warmers;
+
+	private boolean stopped = false; //guarded by this
+
+	/**
+	 * Registered on the IndexManager when the IndexReaders are refreshed in background
+	 */
+	private CommitListener commitListener;
+
 	@Override
 	public IndexReader openIndexReader() {
 		log.debugf( "Opening IndexReader for directoryProvider %s", indexName );
@@ -70,7 +118,77 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 		if ( directoryLatestReader == null ) {
 			directoryLatestReader = createReader( directory );
 		}
-		return directoryLatestReader.refreshAndGet();
+		if ( refresher == null ) {
+			return directoryLatestReader.refreshAndGet();
+		}
+		else {
+			if ( refreshOnQuery ) {
+				scheduleRefresh();
+			}
+			return directoryLatestReader.acquireCurrent();
+		}
+	}
+
+	/**
+	 * Lets the refresher thread check for index changes; requests made while a check
+	 * is pending are coalesced in it.
+	 */
+	private void scheduleRefresh() {
+		requestedRefreshes.incrementAndGet();
+		if ( refreshScheduled.compareAndSet( false, true ) ) {
+			try {
+				refresher.execute( refreshTask );
+			}
+			catch ( RejectedExecutionException e ) {
+				// stopped meanwhile
+				refreshScheduled.set( false );
+			}
+		}
+	}
+
+	private final Runnable refreshTask = new Runnable() {
+		public void run() {
+			// reset before reading the target, so that a later request schedules a new refresh
+			refreshScheduled.set( false );
+			long target = requestedRefreshes.get();
+			refreshAll();
+			synchronized ( SharingBufferReaderProvider.this ) {
+				completedRefreshes = Math.max( completedRefreshes, target );
+				SharingBufferReaderProvider.this.notifyAll();
+			}
+		}
+	};
+
+	/**
+	 * Blocks until the refreshes requested so far are done
+	 */
+	private void waitForRefreshes() {
+		long target = requestedRefreshes.get();
+		synchronized ( this ) {
+			try {
+				while ( completedRefreshes < target && ! stopped ) {
+					wait();
+				}
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				log.interruptedWhileWaitingForIndexActivity();
+			}
+		}
+	}
+
+	private synchronized void refreshAll() {
+		if ( stopped ) {
+			return;
+		}
+		for ( PerDirectoryLatestReader directoryLatestReader : currentReaders.values() ) {
+			try {
+				directoryLatestReader.refresh();
+			}
+			catch ( RuntimeException e ) {
+				log.readerRefreshFailed( indexName, e );
+			}
+		}
 	}
 
 	@Override
@@ -85,10 +203,30 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 
 	@Override
 	public void initialize(DirectoryBasedIndexManager indexManager, Properties props) {
+		this.indexManager = indexManager;
 		this.directoryProvider = indexManager.getDirectoryProvider();
 		this.indexName = indexManager.getIndexName();
+		this.warmers = ReaderWarmers.create( indexManager, props );
 		// Initialize at least one, don't forget directoryProvider might return different Directory later
 		createReader( directoryProvider.getDirectory() );
+		int maxStalenessMillis = props == null ? 0 : ConfigurationParseHelper.getIntValue( props, MAX_STALENESS, 0 );
+		if ( maxStalenessMillis > 0 || warmers != null ) {
+			refresher = Executors.newScheduledThreadPool( "IndexReader refresh for index " + indexName );
+			if ( maxStalenessMillis > 0 ) {
+				refresher.scheduleWithFixedDelay(
+						new Runnable() {
+							public void run() {
+								refreshAll();
+							}
+						}, maxStalenessMillis, maxStalenessMillis, TimeUnit.MILLISECONDS
+				);
+			}
+			else {
+				refreshOnQuery = true;
+			}
+			commitListener = new CommitListener();
+			indexManager.addIndexCommitListener( commitListener );
+		}
 	}
 
 	/**
@@ -116,6 +254,24 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 
 	@Override
 	public void stop() {
+		if ( commitListener != null ) {
+			indexManager.removeIndexCommitListener( commitListener );
+		}
+		if ( refresher != null ) {
+			// not interrupting a running refresh, as it might close the Directory channels
+			refresher.shutdown();
+			try {
+				refresher.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized ( this ) {
+			// running refreshes are done, later ones are ignored
+			stopped = true;
+			notifyAll();
+		}
 		for ( IndexReader reader : allReaders.keySet() ) {
 			ReaderUsagePair usage = allReaders.get( reader );
 			usage.close();
@@ -126,6 +282,29 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 		}
 	}
 
+	/**
+	 * Reopens the IndexReaders on the refresher thread after each commit of the Lucene backend,
+	 * so that the committing thread doesn't wait for it.
+	 */
+	private final class CommitListener implements IndexCommitListener {
+
+		@Override
+		public void indexCommitted() {
+			scheduleRefresh();
+		}
+
+		@Override
+		public void waitForCommitsProcessed() {
+			waitForRefreshes();
+		}
+	}
+
+	private void warm(IndexReader reader) {
+		if ( warmers != null ) {
+			warmers.warm( reader );
+		}
+	}
+
 	//overridable method for testability:
 	protected IndexReader readerFactory(final Directory directory) throws IOException {
 		return IndexReader.open( directory, true );
@@ -150,6 +329,23 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 			reader = r;
 		}
 
+		/**
+		 * Increments the usage counter, unless the reader was closed meanwhile.
+		 *
+		 * @return false if the reader was closed
+		 */
+		boolean tryIncrementUsage() {
+			while ( true ) {
+				int refCount = usageCounter.get();
+				if ( refCount <= 0 ) {
+					return false;
+				}
+				if ( usageCounter.compareAndSet( refCount, refCount + 1 ) ) {
+					return true;
+				}
+			}
+		}
+
 		/**
 		 * Closes the <code>IndexReader</code> if no other resource is using it
 		 * in which case the reference to this container will also be removed.
@@ -191,9 +387,9 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 
 		/**
 		 * Reference to the most current IndexReader for a DirectoryProvider;
-		 * guarded by lockOnReplaceCurrent;
+		 * replaced only when holding lockOnReplaceCurrent;
 		 */
-		public ReaderUsagePair current; //guarded by lockOnReplaceCurrent
+		public volatile ReaderUsagePair current;
 		private final Lock lockOnReplaceCurrent = new ReentrantLock();
 
 		/**
@@ -213,7 +409,8 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 
 		/**
 		 * Gets an updated IndexReader for the current Directory;
-		 * the index status will be checked.
+		 * the index status will be checked. Only used when no background refresher
+		 * is running, which is also the case when no warmer is configured.
 		 *
 		 * @return the current IndexReader if it's in sync with underlying index, a new one otherwise.
 		 */
@@ -251,6 +448,53 @@ public class SharingBufferReaderProvider implements DirectoryBasedReaderProvider
 			}
 			return updatedReader;
 		}
+
+		/**
+		 * Gets the current IndexReader without checking the index status.
+		 *
+		 * @return the current IndexReader
+		 */
+		public IndexReader acquireCurrent() {
+			while ( true ) {
+				ReaderUsagePair pair = current;
+				if ( pair.tryIncrementUsage() ) {
+					return pair.reader;
+				}
+				// it was replaced and closed meanwhile: the new one is published already
+			}
+		}
+
+		/**
+		 * Replaces the current IndexReader if it's not in sync with the underlying index.
+		 * Only invoked by the refresher thread: the new IndexReader is opened and warmed without
+		 * holding the lock, while queries keep using the current one.
+		 */
+		public void refresh() {
+			ReaderUsagePair previousCurrent = current;
+			IndexReader beforeUpdateReader = previousCurrent.reader;
+			IndexReader updatedReader;
+			try {
+				updatedReader = IndexReader.openIfChanged( beforeUpdateReader );
+			}
+			catch ( IOException e ) {
+				throw new SearchException( "Unable to reopen IndexReader", e );
+			}
+			if ( updatedReader == null ) {
+				return;
+			}
+			warm( updatedReader );
+			ReaderUsagePair newPair = new ReaderUsagePair( updatedReader );
+			newPair.usageCounter.set( 1 ); //only the token marking it as current
+			allReaders.put( updatedReader, newPair );
+			lockOnReplaceCurrent.lock();
+			try {
+				current = newPair;
+			}
+			finally {
+				lockOnReplaceCurrent.unlock();
+			}
+			previousCurrent.close();// release a token as it's not the current any more.
+		}
 	}
 
 }
@@ -0,0 +1,42 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.indexes.spi;
+
+/**
+ * Notified by the Lucene backend after it commits changes to an index, for example to let a
+ * {@link ReaderProvider} refresh its IndexReaders. Listeners are registered with
+ * {@link org.hibernate.search.indexes.impl.DirectoryBasedIndexManager#addIndexCommitListener(IndexCommitListener)}.
+ */
+public interface IndexCommitListener {
+
+	/**
+	 * Invoked by the thread which committed the changes, after the commit: implementations
+	 * should hand any expensive processing off to another thread.
+	 */
+	void indexCommitted();
+
+	/**
+	 * Blocks until the processing of the commits notified so far is done, so that backends
+	 * configured as sync can make their changes visible before returning.
+	 */
+	void waitForCommitsProcessed();
+
+}
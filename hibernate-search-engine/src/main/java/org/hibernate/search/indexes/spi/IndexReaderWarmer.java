@@ -0,0 +1,56 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.indexes.spi;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+
+/**
+ * Prepares a newly opened IndexReader before it's made available to queries, for example
+ * loading the FieldCaches the queries are going to need, so that the first queries
+ * after a change to the index don't pay for it.
+ * <p/>
+ * Warmers are configured by the index-scoped property <code>reader.warmer</code>, a comma
+ * separated list of fully qualified class names; implementations need a no-arg constructor.
+ * The IndexReaders are warmed before replacing the current one, without blocking the queries,
+ * which keep using the previous IndexReader for longer.
+ */
+public interface IndexReaderWarmer {
+
+	/**
+	 * @param indexManager the index owning the IndexReaders to warm
+	 * @param properties the <code>reader</code> scoped properties of the index
+	 */
+	void initialize(DirectoryBasedIndexManager indexManager, Properties properties);
+
+	/**
+	 * Invoked before the IndexReader is made available to queries.
+	 * Implementations must not close the IndexReader.
+	 *
+	 * @param reader the IndexReader to warm
+	 * @throws IOException if reading the index fails
+	 */
+	void warm(IndexReader reader) throws IOException;
+
+}
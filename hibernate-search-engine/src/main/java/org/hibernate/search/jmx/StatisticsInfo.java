@@ -103,6 +103,56 @@ public class StatisticsInfo implements StatisticsInfoMBean {
 	public Map<String, Integer> indexedEntitiesCount() {
 		return delegate.indexedEntitiesCount();
 	}
-}
 
+	public long getIndexingRamBudget() {
+		return delegate.getIndexingRamBudget();
+	}
+
+	public long getIndexingRamUsed() {
+		return delegate.getIndexingRamUsed();
+	}
+
+	public long getIndexingRamBudgetFlushCount() {
+		return delegate.getIndexingRamBudgetFlushCount();
+	}
+
+	public long getReaderWarmupCount() {
+		return delegate.getReaderWarmupCount();
+	}
+
+	public long getReaderWarmupTotalTime() {
+		return delegate.getReaderWarmupTotalTime();
+	}
+
+	public long getReaderWarmupMaxTime() {
+		return delegate.getReaderWarmupMaxTime();
+	}
+
+	public long getSearchQueryPrunedShardsCount() {
+		return delegate.getSearchQueryPrunedShardsCount();
+	}
+
+	public long getUninvertedFieldsRamUsed() {
+		return delegate.getUninvertedFieldsRamUsed();
+	}
+
+	public long getNRTUncommittedOperations() {
+		return delegate.getNRTUncommittedOperations();
+	}
+
+	public long getNRTCommitLag() {
+		return delegate.getNRTCommitLag();
+	}
 
+	public long getNRTLastCommitMaxTime() {
+		return delegate.getNRTLastCommitMaxTime();
+	}
+
+	public long getCoalescingEnqueuedWorksCount() {
+		return delegate.getCoalescingEnqueuedWorksCount();
+	}
+
+	public long getCoalescingEliminatedWorksCount() {
+		return delegate.getCoalescingEliminatedWorksCount();
+	}
+}
@@ -26,19 +26,24 @@ package org.hibernate.search.query.collector.impl;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldCache;
 import org.apache.lucene.search.Scorer;
 
+import org.hibernate.annotations.common.AssertionFailure;
 import org.hibernate.search.query.dsl.impl.DiscreteFacetRequest;
 import org.hibernate.search.query.dsl.impl.FacetRange;
 import org.hibernate.search.query.dsl.impl.FacetingRequestImpl;
@@ -48,6 +53,7 @@ import org.hibernate.search.query.facet.Facet;
 import org.hibernate.search.query.facet.FacetSortOrder;
 import org.hibernate.search.query.fieldcache.impl.FieldCacheLoadingType;
 import org.hibernate.search.query.fieldcache.impl.FieldLoadingStrategy;
+import org.hibernate.search.query.fieldcache.impl.UninvertedField;
 
 import static org.hibernate.search.util.impl.CollectionHelper.newArrayList;
 import static org.hibernate.search.util.impl.CollectionHelper.newHashMap;
@@ -69,12 +75,7 @@ public class FacetCollector extends Collector {
 	private final FacetingRequestImpl facetRequest;
 
 	/**
-	 * Used to load field values from the Lucene field cache
-	 */
-	private final FieldLoadingStrategy fieldLoader;
-
-	/**
-	 * A counter mapped to the field name for which it is counting
+	 * Counts the values of the faceted field, reading them from the Lucene field cache of each segment
 	 */
 	private final FacetCounter facetCounts;
 
@@ -88,9 +89,6 @@ public class FacetCollector extends Collector {
 		this.nextInChainCollector = nextInChainCollector;
 		this.facetRequest = facetRequest;
 		this.facetCounts = createFacetCounter( facetRequest );
-		fieldLoader = FieldCacheLoadingType.getLoadingStrategy(
-				this.facetRequest.getFieldName(), this.facetRequest.getFieldCacheType()
-		);
 	}
 
 	@Override
@@ -98,16 +96,13 @@ public class FacetCollector extends Collector {
 		if ( !initialised ) {
 			initialiseCollector( reader );
 		}
-		initialiseFieldCaches( reader );
+		facetCounts.loadNewCacheValues( reader );
 		nextInChainCollector.setNextReader( reader, docBase );
 	}
 
 	@Override
 	public void collect(int doc) throws IOException {
-		Object value = fieldLoader.collect( doc );
-		if ( value != null ) {
-			facetCounts.countValue( value );
-		}
+		facetCounts.countDocument( doc );
 		nextInChainCollector.collect( doc );
 	}
 
@@ -125,6 +120,17 @@ public class FacetCollector extends Collector {
 		return facetRequest.getFacetingName();
 	}
 
+	/**
+	 * Adds the counts of a collector which handled the same request searching another shard.
+	 *
+	 * @param other the collector of the other shard
+	 */
+	public void mergeCounts(FacetCollector other) {
+		for ( Entry<String, Integer> count : other.facetCounts.getCounts().entrySet() ) {
+			facetCounts.addCount( count.getKey(), count.getValue() );
+		}
+	}
+
 	public List<Facet> getFacetList() {
 		return createSortedFacetList( facetCounts, facetRequest );
 	}
@@ -178,17 +184,20 @@ public class FacetCollector extends Collector {
 		initialised = true;
 	}
 
-	private void initialiseFieldCaches(IndexReader reader) throws IOException {
-		fieldLoader.loadNewCacheValues( reader );
-	}
-
 	private <N extends Number> FacetCounter createFacetCounter(FacetingRequestImpl request) {
-		if ( request instanceof DiscreteFacetRequest ) {
-			return new SimpleFacetCounter();
+		if ( request instanceof DiscreteFacetRequest && ( (DiscreteFacetRequest) request ).isMultiValued() ) {
+			return new MultiValuedFacetCounter( request.getFieldName() );
+		}
+		else if ( request instanceof DiscreteFacetRequest ) {
+			return new DiscreteFacetCounter( request.getFieldName() );
 		}
 		else if ( request instanceof RangeFacetRequest ) {
 			@SuppressWarnings("unchecked")
 			RangeFacetRequest<N> rangeFacetRequest = (RangeFacetRequest<N>) request;
+			FieldCacheLoadingType type = FieldCacheLoadingType.getLoadingType( request.getFieldCacheType() );
+			if ( type != null && type != FieldCacheLoadingType.STRING ) {
+				return new NumericRangeFacetCounter( rangeFacetRequest, type );
+			}
 			return new RangeFacetCounter<N>( rangeFacetRequest );
 		}
 		else {
@@ -263,27 +272,305 @@ public class FacetCollector extends Collector {
 			}
 		}
 
-		abstract void countValue(Object value);
+		void addCount(String value, int count) {
+			Integer previousCount = counts.get( value );
+			counts.put( value, previousCount == null ? count : previousCount + count );
+		}
+
+		abstract void loadNewCacheValues(IndexReader reader) throws IOException;
+
+		abstract void countDocument(int doc);
 	}
 
-	static class SimpleFacetCounter extends FacetCounter {
-		void countValue(Object value) {
-			incrementCount( (String) value );
+	/**
+	 * Counts the documents of each segment in an array indexed by the ordinal of their term in the
+	 * segment, so that collecting a document neither looks up nor boxes anything. The counts are added
+	 * by term to the ones of the previous segments only when moving to the next segment, or when they
+	 * are read.
+	 */
+	static class DiscreteFacetCounter extends FacetCounter {
+		private final String fieldName;
+		private int[] order;
+		private String[] lookup;
+		private int[] segmentCounts;
+
+		DiscreteFacetCounter(String fieldName) {
+			this.fieldName = fieldName;
+		}
+
+		@Override
+		Map<String, Integer> getCounts() {
+			addSegmentCounts();
+			return super.getCounts();
+		}
+
+		@Override
+		void loadNewCacheValues(IndexReader reader) throws IOException {
+			addSegmentCounts();
+			FieldCache.StringIndex stringIndex = FieldCache.DEFAULT.getStringIndex( reader, fieldName );
+			order = stringIndex.order;
+			lookup = stringIndex.lookup;
+			if ( segmentCounts == null || segmentCounts.length < lookup.length ) {
+				segmentCounts = new int[lookup.length];
+			}
+		}
+
+		@Override
+		void countDocument(int doc) {
+			segmentCounts[order[doc]]++;
+		}
+
+		private void addSegmentCounts() {
+			if ( lookup == null ) {
+				return;
+			}
+			// ordinal 0 is used for the documents having no value
+			for ( int ordinal = 1; ordinal < lookup.length; ordinal++ ) {
+				if ( segmentCounts[ordinal] != 0 ) {
+					addCount( lookup[ordinal], segmentCounts[ordinal] );
+				}
+			}
+			Arrays.fill( segmentCounts, 0, lookup.length, 0 );
+			order = null;
+			lookup = null;
+		}
+	}
+
+	/**
+	 * Counts the values of fields having several values per document, using the {@link UninvertedField} of each
+	 * segment: like the {@link DiscreteFacetCounter}, the documents are counted by term ordinal, and the counts
+	 * are added by term when moving to the next segment.
+	 */
+	static class MultiValuedFacetCounter extends FacetCounter {
+		private final String fieldName;
+		private UninvertedField uninvertedField;
+		private int[] segmentCounts;
+
+		MultiValuedFacetCounter(String fieldName) {
+			this.fieldName = fieldName;
+		}
+
+		@Override
+		Map<String, Integer> getCounts() {
+			addSegmentCounts();
+			return super.getCounts();
+		}
+
+		@Override
+		void loadNewCacheValues(IndexReader reader) throws IOException {
+			addSegmentCounts();
+			uninvertedField = UninvertedField.getUninvertedField( reader, fieldName );
+			if ( segmentCounts == null || segmentCounts.length < uninvertedField.getTermCount() ) {
+				segmentCounts = new int[uninvertedField.getTermCount()];
+			}
+		}
+
+		@Override
+		void countDocument(int doc) {
+			uninvertedField.countTerms( doc, segmentCounts );
+		}
+
+		private void addSegmentCounts() {
+			if ( uninvertedField == null ) {
+				return;
+			}
+			int termCount = uninvertedField.getTermCount();
+			for ( int ordinal = 0; ordinal < termCount; ordinal++ ) {
+				if ( segmentCounts[ordinal] != 0 ) {
+					addCount( uninvertedField.getTerm( ordinal ), segmentCounts[ordinal] );
+				}
+			}
+			Arrays.fill( segmentCounts, 0, termCount, 0 );
+			uninvertedField = null;
+		}
+	}
+
+	/**
+	 * Counts numeric ranges reading the primitive values of the FieldCache. The distinct boundaries of all ranges
+	 * are sorted once, delimiting slots: the values between two consecutive boundaries, and the values equal to a
+	 * boundary. Collecting a document finds its slot by binary search; as each range, overlapping or not, covers
+	 * consecutive slots, its count is the sum of their counts.
+	 */
+	static class NumericRangeFacetCounter extends FacetCounter {
+		private static final Comparator<Number> LONG_ORDER = new Comparator<Number>() {
+			public int compare(Number number1, Number number2) {
+				long value1 = number1.longValue();
+				long value2 = number2.longValue();
+				return value1 < value2 ? -1 : ( value1 == value2 ? 0 : 1 );
+			}
+		};
+
+		private static final Comparator<Number> DOUBLE_ORDER = new Comparator<Number>() {
+			public int compare(Number number1, Number number2) {
+				return Double.compare( number1.doubleValue(), number2.doubleValue() );
+			}
+		};
+
+		private final String fieldName;
+		private final FieldCacheLoadingType type;
+		private final String[] rangeStrings;
+		private final int[] firstSlots;
+		private final int[] lastSlots;
+		private final int[] slotCounts;
+
+		// sorted distinct boundaries, only one of them is used depending on the type
+		private final long[] longBoundaries;
+		private final double[] doubleBoundaries;
+
+		private int[] ints;
+		private long[] longs;
+		private float[] floats;
+		private double[] doubles;
+
+		<N> NumericRangeFacetCounter(RangeFacetRequest<N> request, FieldCacheLoadingType type) {
+			this.fieldName = request.getFieldName();
+			this.type = type;
+			List<FacetRange<N>> ranges = request.getFacetRangeList();
+			boolean integral = type == FieldCacheLoadingType.INT || type == FieldCacheLoadingType.LONG;
+			SortedSet<Number> boundaries = new TreeSet<Number>( integral ? LONG_ORDER : DOUBLE_ORDER );
+			for ( FacetRange<N> range : ranges ) {
+				if ( range.getMin() != null ) {
+					boundaries.add( (Number) range.getMin() );
+				}
+				if ( range.getMax() != null ) {
+					boundaries.add( (Number) range.getMax() );
+				}
+			}
+			this.longBoundaries = integral ? new long[boundaries.size()] : null;
+			this.doubleBoundaries = integral ? null : new double[boundaries.size()];
+			int i = 0;
+			for ( Number boundary : boundaries ) {
+				if ( integral ) {
+					longBoundaries[i++] = boundary.longValue();
+				}
+				else {
+					doubleBoundaries[i++] = boundary.doubleValue();
+				}
+			}
+			// slot 2i + 1 holds the values equal to the boundary i, slot 2i the values below it
+			this.slotCounts = new int[2 * boundaries.size() + 1];
+			this.rangeStrings = new String[ranges.size()];
+			this.firstSlots = new int[ranges.size()];
+			this.lastSlots = new int[ranges.size()];
+			for ( int r = 0; r < ranges.size(); r++ ) {
+				FacetRange<N> range = ranges.get( r );
+				rangeStrings[r] = range.getRangeString();
+				initCount( rangeStrings[r] );
+				if ( range.getMin() == null ) {
+					firstSlots[r] = 0;
+				}
+				else {
+					firstSlots[r] = slotOf( (Number) range.getMin() ) + ( range.isMinIncluded() ? 0 : 1 );
+				}
+				if ( range.getMax() == null ) {
+					lastSlots[r] = slotCounts.length - 1;
+				}
+				else {
+					lastSlots[r] = slotOf( (Number) range.getMax() ) - ( range.isMaxIncluded() ? 0 : 1 );
+				}
+			}
+		}
+
+		@Override
+		Map<String, Integer> getCounts() {
+			addSlotCounts();
+			return super.getCounts();
+		}
+
+		@Override
+		void loadNewCacheValues(IndexReader reader) throws IOException {
+			switch ( type ) {
+				case INT:
+					ints = FieldCache.DEFAULT.getInts( reader, fieldName );
+					break;
+				case LONG:
+					longs = FieldCache.DEFAULT.getLongs( reader, fieldName );
+					break;
+				case FLOAT:
+					floats = FieldCache.DEFAULT.getFloats( reader, fieldName );
+					break;
+				case DOUBLE:
+					doubles = FieldCache.DEFAULT.getDoubles( reader, fieldName );
+					break;
+				default:
+					throw new AssertionFailure( "Unexpected numeric type: " + type );
+			}
+		}
+
+		@Override
+		void countDocument(int doc) {
+			switch ( type ) {
+				case INT:
+					slotCounts[slotOf( ints[doc] )]++;
+					break;
+				case LONG:
+					slotCounts[slotOf( longs[doc] )]++;
+					break;
+				case FLOAT:
+					slotCounts[slotOf( floats[doc] )]++;
+					break;
+				default:
+					slotCounts[slotOf( doubles[doc] )]++;
+			}
+		}
+
+		private int slotOf(Number boundary) {
+			return longBoundaries != null ? slotOf( boundary.longValue() ) : slotOf( boundary.doubleValue() );
+		}
+
+		private int slotOf(long value) {
+			return toSlot( Arrays.binarySearch( longBoundaries, value ) );
+		}
+
+		private int slotOf(double value) {
+			return toSlot( Arrays.binarySearch( doubleBoundaries, value ) );
+		}
+
+		private static int toSlot(int searchResult) {
+			// when not found, binarySearch returns -(insertion point) - 1
+			return searchResult >= 0 ? 2 * searchResult + 1 : -2 * ( searchResult + 1 );
+		}
+
+		private void addSlotCounts() {
+			for ( int r = 0; r < rangeStrings.length; r++ ) {
+				int count = 0;
+				for ( int slot = firstSlots[r]; slot <= lastSlots[r]; slot++ ) {
+					count += slotCounts[slot];
+				}
+				if ( count != 0 ) {
+					addCount( rangeStrings[r], count );
+				}
+			}
+			Arrays.fill( slotCounts, 0 );
 		}
 	}
 
 	static class RangeFacetCounter<T> extends FacetCounter {
 		private final List<FacetRange<T>> ranges;
+		private final FieldLoadingStrategy fieldLoader;
 
 		RangeFacetCounter(RangeFacetRequest<T> request) {
 			this.ranges = request.getFacetRangeList();
+			this.fieldLoader = FieldCacheLoadingType.getLoadingStrategy(
+					request.getFieldName(), request.getFieldCacheType()
+			);
 			for ( FacetRange<T> range : ranges ) {
 				initCount( range.getRangeString() );
 			}
 		}
 
+		@Override
+		void loadNewCacheValues(IndexReader reader) throws IOException {
+			fieldLoader.loadNewCacheValues( reader );
+		}
+
+		@Override
 		@SuppressWarnings("unchecked")
-		void countValue(Object value) {
+		void countDocument(int doc) {
+			Object value = fieldLoader.collect( doc );
+			if ( value == null ) {
+				return;
+			}
 			for ( FacetRange<T> range : ranges ) {
 				if ( range.isInRange( (T) value ) ) {
 					incrementCount( range.getRangeString() );
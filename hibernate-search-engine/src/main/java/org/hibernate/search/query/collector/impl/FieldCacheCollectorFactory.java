@@ -19,6 +19,9 @@
 
 package org.hibernate.search.query.collector.impl;
 
+import java.io.IOException;
+
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.Collector;
 
 import org.hibernate.search.ProjectionConstants;
@@ -86,6 +89,54 @@ public class FieldCacheCollectorFactory {
 		}
 	}
 
+	/**
+	 * Creates a Collector storing the values in the given array, indexed by document id.
+	 * The Collectors searching in parallel the shards of a query can share the array, as
+	 * they collect different document ids: each of them then returns the values collected by all.
+	 *
+	 * @param collector the collector to delegate to
+	 * @param valueContainer an array as big as the total number of documents of the searched shards
+	 * @return a new Collector
+	 */
+	public FieldCacheCollector createFieldCollector(Collector collector, Object[] valueContainer) {
+		FieldCacheCollector fieldCollector = new BigArrayFieldCacheCollectorImpl(
+				collector, type.createLoadingStrategy( fieldName ), valueContainer
+		);
+		if ( twoWayStringBridge != null ) {
+			return new TwoWayTransformingFieldCacheCollector( fieldCollector, twoWayStringBridge );
+		}
+		else {
+			return fieldCollector;
+		}
+	}
+
+	/**
+	 * Creates a strategy reading the values of the field from the FieldCache of each segment,
+	 * for Collectors which don't need to keep the values of all collected documents.
+	 * The values are in String form if {@link #getTwoWayStringBridge()} is not null.
+	 */
+	public FieldLoadingStrategy createLoadingStrategy() {
+		return type.createLoadingStrategy( fieldName );
+	}
+
+	/**
+	 * @return the bridge converting the values read from the FieldCache, or null if they need no conversion
+	 */
+	public TwoWayStringBridge getTwoWayStringBridge() {
+		return twoWayStringBridge;
+	}
+
+	/**
+	 * Loads the field in the Lucene FieldCache, so that the Collectors created later
+	 * for the same IndexReader find it already loaded.
+	 *
+	 * @param reader a segment reader
+	 * @throws IOException in case an error occurs reading the cache values from the index
+	 */
+	public void loadCacheValues(IndexReader reader) throws IOException {
+		type.createLoadingStrategy( fieldName ).loadNewCacheValues( reader );
+	}
+
 	/**
 	 * There are two possible implementations of {@code FieldCacheCollector},
 	 * one is more efficient for large and one for small results.
@@ -0,0 +1,153 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.query.collector.impl;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreCachingWrappingScorer;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import org.hibernate.search.SearchException;
+
+/**
+ * Forwards to the delegate Collector only the documents ranked after a given {@code ScoreDoc},
+ * by relevance or by the given {@code Sort}, so that the next results of a query can be collected
+ * in a queue holding only them. As in the Lucene TopDocsCollectors, ties are broken by document id.
+ *
+ * @see org.hibernate.search.query.engine.spi.ResultsCursor
+ */
+public class SearchAfterCollector extends Collector {
+
+	private final Collector delegate;
+	private final ScoreDoc after;
+	private final Object[] afterValues;
+	private final FieldComparator<Object>[] comparators;
+	private final int[] reverseMul;
+	private final boolean needsScores;
+
+	private Scorer scorer;
+	private int docBase;
+	private int skippedHits;
+
+	/**
+	 * @param delegate the Collector of the documents ranked after {@code after}
+	 * @param after the last document of the previous results: a {@code FieldDoc} when {@code sort} is not null
+	 * @param sort the sort of the results, or null to sort them by relevance
+	 * @throws IOException in case the comparators of the sort can't be created
+	 */
+	@SuppressWarnings( { "rawtypes", "unchecked" })
+	public SearchAfterCollector(Collector delegate, ScoreDoc after, Sort sort) throws IOException {
+		this.delegate = delegate;
+		this.after = after;
+		if ( sort == null ) {
+			this.afterValues = null;
+			this.comparators = null;
+			this.reverseMul = null;
+			this.needsScores = true;
+		}
+		else {
+			SortField[] sortFields = sort.getSort();
+			if ( !( after instanceof FieldDoc ) || ( (FieldDoc) after ).fields.length != sortFields.length ) {
+				throw new SearchException( "The cursor was not created by a query sorted by " + sort );
+			}
+			this.afterValues = ( (FieldDoc) after ).fields;
+			this.comparators = new FieldComparator[sortFields.length];
+			this.reverseMul = new int[sortFields.length];
+			boolean scoring = false;
+			for ( int i = 0; i < sortFields.length; i++ ) {
+				comparators[i] = sortFields[i].getComparator( 1, i );
+				reverseMul[i] = sortFields[i].getReverse() ? -1 : 1;
+				scoring = scoring || sortFields[i].getType() == SortField.SCORE;
+			}
+			this.needsScores = scoring;
+		}
+	}
+
+	@Override
+	public void setScorer(Scorer scorer) throws IOException {
+		if ( needsScores ) {
+			// the delegate computes the score again otherwise
+			scorer = new ScoreCachingWrappingScorer( scorer );
+			if ( comparators != null ) {
+				for ( FieldComparator<?> comparator : comparators ) {
+					comparator.setScorer( scorer );
+				}
+			}
+		}
+		this.scorer = scorer;
+		delegate.setScorer( scorer );
+	}
+
+	@Override
+	public void collect(int doc) throws IOException {
+		if ( isAfterCursor( doc ) ) {
+			delegate.collect( doc );
+		}
+		else {
+			skippedHits++;
+		}
+	}
+
+	@Override
+	public void setNextReader(IndexReader reader, int docBase) throws IOException {
+		this.docBase = docBase;
+		if ( comparators != null ) {
+			for ( FieldComparator<?> comparator : comparators ) {
+				comparator.setNextReader( reader, docBase );
+			}
+		}
+		delegate.setNextReader( reader, docBase );
+	}
+
+	@Override
+	public boolean acceptsDocsOutOfOrder() {
+		return delegate.acceptsDocsOutOfOrder();
+	}
+
+	/**
+	 * @return the number of collected documents ranked before the cursor, or being the cursor document
+	 */
+	public int getSkippedHits() {
+		return skippedHits;
+	}
+
+	private boolean isAfterCursor(int doc) throws IOException {
+		if ( comparators == null ) {
+			float score = scorer.score();
+			return score < after.score || ( score == after.score && docBase + doc > after.doc );
+		}
+		for ( int i = 0; i < comparators.length; i++ ) {
+			comparators[i].copy( 0, doc );
+			int comparison = reverseMul[i] * comparators[i].compareValues( comparators[i].value( 0 ), afterValues[i] );
+			if ( comparison != 0 ) {
+				return comparison > 0;
+			}
+		}
+		return docBase + doc > after.doc;
+	}
+}
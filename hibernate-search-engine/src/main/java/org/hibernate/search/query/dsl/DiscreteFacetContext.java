@@ -27,6 +27,13 @@ package org.hibernate.search.query.dsl;
  * @author Hardy Ferentschik
  */
 public interface DiscreteFacetContext extends FacetParameterContext {
+	/**
+	 * Declares that documents can have several values for the faceted field, such as a collection of tags:
+	 * each document is then counted once for each of its values.
+	 *
+	 * @return a {@code DiscreteFacetContext} to continue building the facet request
+	 */
+	DiscreteFacetContext multiValued();
 }
 
 
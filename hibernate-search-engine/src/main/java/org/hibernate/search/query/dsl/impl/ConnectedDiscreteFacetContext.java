@@ -39,6 +39,11 @@ public class ConnectedDiscreteFacetContext implements DiscreteFacetContext {
 		this.context = context;
 	}
 
+	public DiscreteFacetContext multiValued() {
+		context.setMultiValued( true );
+		return this;
+	}
+
 	public FacetParameterContext orderedBy(FacetSortOrder sort) {
 		context.setSort( sort );
 		return new ConnectedFacetParameterContext( context );
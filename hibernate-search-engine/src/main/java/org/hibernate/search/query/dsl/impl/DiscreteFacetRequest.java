@@ -34,8 +34,18 @@ import org.hibernate.search.query.facet.Facet;
  * @author Hardy Ferentschik
  */
 public class DiscreteFacetRequest extends FacetingRequestImpl {
-	DiscreteFacetRequest(String name, String fieldName) {
+	private final boolean multiValued;
+
+	DiscreteFacetRequest(String name, String fieldName, boolean multiValued) {
 		super( name, fieldName );
+		this.multiValued = multiValued;
+	}
+
+	/**
+	 * @return whether documents can have several values for the faceted field
+	 */
+	public boolean isMultiValued() {
+		return multiValued;
 	}
 
 	@Override
@@ -62,6 +62,7 @@ class FacetBuildingContext<T> {
 	private FacetSortOrder sort = FacetSortOrder.COUNT_DESC;
 	private boolean includeZeroCount = true;
 	private boolean isRangeQuery = false;
+	private boolean multiValued = false;
 	private List<FacetRange<T>> rangeList = newArrayList();
 	private T rangeStart;
 	private boolean includeRangeStart = true;
@@ -96,6 +97,10 @@ class FacetBuildingContext<T> {
 		isRangeQuery = rangeQuery;
 	}
 
+	void setMultiValued(boolean multiValued) {
+		this.multiValued = multiValued;
+	}
+
 	public void setRangeStart(T rangeStart) {
 		this.rangeStart = rangeStart;
 	}
@@ -163,7 +168,7 @@ class FacetBuildingContext<T> {
 						"RANGE_DEFINITION_ODER is not a valid sort order for a discrete faceting request."
 				);
 			}
-			request = new DiscreteFacetRequest( name, fieldName );
+			request = new DiscreteFacetRequest( name, fieldName, multiValued );
 		}
 		request.setSort( sort );
 		request.setIncludeZeroCounts( includeZeroCount );
@@ -195,6 +200,7 @@ class FacetBuildingContext<T> {
 		sb.append( ", sort=" ).append( sort );
 		sb.append( ", includeZeroCount=" ).append( includeZeroCount );
 		sb.append( ", isRangeQuery=" ).append( isRangeQuery );
+		sb.append( ", multiValued=" ).append( multiValued );
 		sb.append( ", rangeList=" ).append( rangeList );
 		sb.append( ", rangeStart=" ).append( rangeStart );
 		sb.append( ", includeRangeStart=" ).append( includeRangeStart );
@@ -0,0 +1,342 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.query.engine.impl;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldSelector;
+import org.apache.lucene.document.FieldSelectorResult;
+import org.apache.lucene.document.MapFieldSelector;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.bridge.TwoWayStringBridge;
+import org.hibernate.search.engine.impl.DocumentBuilderHelper;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.query.collector.impl.FieldCacheCollectorFactory;
+import org.hibernate.search.query.engine.spi.EntityInfo;
+import org.hibernate.search.query.engine.spi.EntityInfoBatchHandler;
+import org.hibernate.search.query.fieldcache.impl.FieldLoadingStrategy;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Collects the hits of a query in index order, without sorting them, and hands them to an
+ * {@link EntityInfoBatchHandler} in batches of {@code EntityInfo}s: whatever the number of hits,
+ * only the current batch is held in memory.
+ * <p/>
+ * When enabled for the targeted entities, identifiers and classes are read from the FieldCache of
+ * each segment while collecting; the stored fields needed are loaded for each batch.
+ *
+ * @see org.hibernate.search.query.engine.spi.HSQuery#streamEntityInfos(int, EntityInfoBatchHandler)
+ */
+public class EntityInfoStreamer extends Collector {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final SearchFactoryImplementor searchFactoryImplementor;
+	private final IndexSearcher searcher;
+	private final Query query;
+	private final String[] projection;
+	private final EntityInfoBatchHandler handler;
+	private final TimeoutManagerImpl timeoutManager;
+	private final Map<String, Class<?>> targetedClasses;
+	private final Class<?> singleClassIfPossible; //null when not possible
+	private final FieldLoadingStrategy classLoadingStrategy; //null when not used
+	private final FieldLoadingStrategy idLoadingStrategy; //null when not used
+	private final TwoWayStringBridge idBridge;
+	private final boolean needScore;
+	private boolean needId;
+	private boolean allowFieldSelection;
+	private FieldSelector fieldSelector;
+
+	private final int[] docIds;
+	private final Object[] ids;
+	private final String[] classNames;
+	private final float[] scores;
+	private int batchSize;
+	private int docBase;
+	private Scorer scorer;
+	private int streamedCount;
+
+	public EntityInfoStreamer(SearchFactoryImplementor searchFactoryImplementor,
+							  IndexSearcher searcher,
+							  Query query,
+							  String[] projection,
+							  Set<String> idFieldNames,
+							  boolean allowFieldSelection,
+							  Set<Class<?>> classesAndSubclasses,
+							  boolean useFieldCacheOnTypes,
+							  FieldCacheCollectorFactory idFieldCollectorFactory,
+							  TimeoutManagerImpl timeoutManager,
+							  int batchSize,
+							  EntityInfoBatchHandler handler) {
+		this.searchFactoryImplementor = searchFactoryImplementor;
+		this.searcher = searcher;
+		this.query = query;
+		this.projection = projection == null ? null : projection.clone();
+		this.allowFieldSelection = allowFieldSelection;
+		this.timeoutManager = timeoutManager;
+		this.handler = handler;
+		this.targetedClasses = new HashMap<String, Class<?>>( classesAndSubclasses.size() );
+		for ( Class<?> clazz : classesAndSubclasses ) {
+			targetedClasses.put( clazz.getName(), clazz );
+		}
+		this.singleClassIfPossible = classesAndSubclasses.size() == 1 ? classesAndSubclasses.iterator().next() : null;
+		if ( singleClassIfPossible == null && useFieldCacheOnTypes ) {
+			this.classLoadingStrategy = FieldCacheCollectorFactory.CLASS_TYPE_FIELD_CACHE_COLLECTOR_FACTORY.createLoadingStrategy();
+			this.classNames = new String[batchSize];
+		}
+		else {
+			this.classLoadingStrategy = null;
+			this.classNames = null;
+		}
+		if ( idFieldCollectorFactory != null ) {
+			this.idLoadingStrategy = idFieldCollectorFactory.createLoadingStrategy();
+			this.idBridge = idFieldCollectorFactory.getTwoWayStringBridge();
+			this.ids = new Object[batchSize];
+		}
+		else {
+			this.idLoadingStrategy = null;
+			this.idBridge = null;
+			this.ids = null;
+		}
+		this.needScore = projection != null && Arrays.asList( projection ).contains( ProjectionConstants.SCORE );
+		this.scores = needScore ? new float[batchSize] : null;
+		this.docIds = new int[batchSize];
+		initFieldSelection( idFieldNames );
+	}
+
+	private void initFieldSelection(Set<String> idFieldNames) {
+		Map<String, FieldSelectorResult> fields = new HashMap<String, FieldSelectorResult>();
+		if ( projection == null ) {
+			needId = true;
+		}
+		else {
+			for ( String projectionName : projection ) {
+				if ( ProjectionConstants.THIS.equals( projectionName ) || ProjectionConstants.ID.equals( projectionName ) ) {
+					needId = true;
+				}
+				else if ( ProjectionConstants.DOCUMENT.equals( projectionName ) ) {
+					allowFieldSelection = false;
+					needId = true;
+				}
+				else if ( projectionName != null
+						&& !ProjectionConstants.SCORE.equals( projectionName )
+						&& !ProjectionConstants.DOCUMENT_ID.equals( projectionName )
+						&& !ProjectionConstants.EXPLANATION.equals( projectionName )
+						&& !ProjectionConstants.OBJECT_CLASS.equals( projectionName ) ) {
+					fields.put( projectionName, FieldSelectorResult.LOAD );
+				}
+			}
+		}
+		if ( singleClassIfPossible == null && classLoadingStrategy == null ) {
+			fields.put( ProjectionConstants.OBJECT_CLASS, FieldSelectorResult.LOAD );
+		}
+		if ( needId && idLoadingStrategy == null ) {
+			for ( String idFieldName : idFieldNames ) {
+				fields.put( idFieldName, FieldSelectorResult.LOAD );
+			}
+		}
+		if ( fields.size() == 1 ) {
+			String key = fields.keySet().iterator().next();
+			fields.put( key, FieldSelectorResult.LOAD_AND_BREAK );
+		}
+		if ( fields.size() != 0 ) {
+			this.fieldSelector = new MapFieldSelector( fields );
+		}
+	}
+
+	@Override
+	public void setScorer(Scorer scorer) {
+		this.scorer = scorer;
+	}
+
+	@Override
+	public void collect(int doc) throws IOException {
+		docIds[batchSize] = docBase + doc;
+		if ( classLoadingStrategy != null ) {
+			classNames[batchSize] = (String) classLoadingStrategy.collect( doc );
+		}
+		if ( idLoadingStrategy != null && needId ) {
+			ids[batchSize] = idLoadingStrategy.collect( doc );
+		}
+		if ( needScore ) {
+			scores[batchSize] = scorer.score();
+		}
+		batchSize++;
+		if ( batchSize == docIds.length ) {
+			flush();
+		}
+	}
+
+	@Override
+	public void setNextReader(IndexReader reader, int docBase) throws IOException {
+		this.docBase = docBase;
+		if ( classLoadingStrategy != null ) {
+			classLoadingStrategy.loadNewCacheValues( reader );
+		}
+		if ( idLoadingStrategy != null && needId ) {
+			idLoadingStrategy.loadNewCacheValues( reader );
+		}
+	}
+
+	@Override
+	public boolean acceptsDocsOutOfOrder() {
+		// keep the index order
+		return false;
+	}
+
+	/**
+	 * Hands the collected hits not handled yet to the handler.
+	 *
+	 * @throws IOException in case the stored fields of the hits can't be loaded
+	 */
+	public void flush() throws IOException {
+		if ( batchSize == 0 ) {
+			return;
+		}
+		List<EntityInfo> entityInfos = new ArrayList<EntityInfo>( batchSize );
+		for ( int i = 0; i < batchSize; i++ ) {
+			entityInfos.add( extract( i ) );
+		}
+		batchSize = 0;
+		if ( ids != null ) {
+			Arrays.fill( ids, null );
+		}
+		streamedCount += entityInfos.size();
+		handler.handle( entityInfos );
+		timeoutManager.isTimedOut();
+	}
+
+	/**
+	 * @return the number of hits handed to the handler so far
+	 */
+	public int getStreamedCount() {
+		return streamedCount;
+	}
+
+	private EntityInfo extract(int index) throws IOException {
+		final int docId = docIds[index];
+		final Document document = loadDocument( docId );
+		final Class<?> clazz = extractClass( index, docId, document );
+		final String idName = DocumentBuilderHelper.getDocumentIdName( searchFactoryImplementor, clazz );
+		final Serializable id = extractId( index, document, clazz );
+		Object[] projected = null;
+		if ( projection != null && projection.length > 0 ) {
+			projected = DocumentBuilderHelper.getDocumentFields( searchFactoryImplementor, clazz, document, projection );
+		}
+		EntityInfo entityInfo = new EntityInfoImpl( clazz, idName, id, projected );
+		Object[] eip = entityInfo.getProjection();
+		if ( eip != null ) {
+			for ( int x = 0; x < projection.length; x++ ) {
+				if ( ProjectionConstants.SCORE.equals( projection[x] ) ) {
+					eip[x] = scores[index];
+				}
+				else if ( ProjectionConstants.ID.equals( projection[x] ) ) {
+					eip[x] = id;
+				}
+				else if ( ProjectionConstants.DOCUMENT.equals( projection[x] ) ) {
+					eip[x] = document;
+				}
+				else if ( ProjectionConstants.DOCUMENT_ID.equals( projection[x] ) ) {
+					eip[x] = docId;
+				}
+				else if ( ProjectionConstants.EXPLANATION.equals( projection[x] ) ) {
+					eip[x] = searcher.explain( query, docId );
+				}
+				else if ( ProjectionConstants.OBJECT_CLASS.equals( projection[x] ) ) {
+					eip[x] = clazz;
+				}
+				else if ( ProjectionConstants.THIS.equals( projection[x] ) ) {
+					entityInfo.getIndexesOfThis().add( x );
+				}
+			}
+		}
+		return entityInfo;
+	}
+
+	private Document loadDocument(int docId) throws IOException {
+		if ( !allowFieldSelection ) {
+			return searcher.doc( docId );
+		}
+		else if ( fieldSelector == null ) {
+			//we need no fields
+			return null;
+		}
+		else {
+			return searcher.doc( docId, fieldSelector );
+		}
+	}
+
+	private Class<?> extractClass(int index, int docId, Document document) throws IOException {
+		if ( singleClassIfPossible != null ) {
+			return singleClassIfPossible;
+		}
+		String className = classNames == null ? null : classNames[index];
+		if ( className == null && classNames == null ) {
+			className = document.get( ProjectionConstants.OBJECT_CLASS );
+		}
+		else if ( className == null ) {
+			log.forceToUseDocumentExtraction();
+			className = searcher.doc( docId, new MapFieldSelector( ProjectionConstants.OBJECT_CLASS ) )
+					.get( ProjectionConstants.OBJECT_CLASS );
+		}
+		Class<?> clazz = targetedClasses.get( className );
+		if ( clazz != null ) {
+			return clazz;
+		}
+		else {
+			return DocumentBuilderHelper.getDocumentClass( className );
+		}
+	}
+
+	private Serializable extractId(int index, Document document, Class<?> clazz) {
+		if ( !needId ) {
+			return null;
+		}
+		else if ( ids == null ) {
+			return DocumentBuilderHelper.getDocumentId( searchFactoryImplementor, clazz, document );
+		}
+		else if ( ids[index] == null ) {
+			log.unexpectedValueMissingFromFieldCache();
+			return null;
+		}
+		else if ( idBridge != null ) {
+			return (Serializable) idBridge.stringToObject( (String) ids[index] );
+		}
+		else {
+			return (Serializable) ids[index];
+		}
+	}
+}
@@ -24,28 +24,36 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Similarity;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TimeLimitingCollector;
 
 import org.hibernate.annotations.common.AssertionFailure;
 import org.hibernate.search.FullTextFilter;
 import org.hibernate.search.ProjectionConstants;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.annotations.FieldCacheType;
+import org.hibernate.search.bridge.builtin.NumericFieldBridge;
+import org.hibernate.search.bridge.util.impl.NumericFieldUtils;
 import org.hibernate.search.engine.spi.DocumentBuilderIndexedEntity;
 import org.hibernate.search.engine.spi.EntityIndexBinder;
 import org.hibernate.search.engine.impl.FilterDef;
@@ -54,17 +62,22 @@ import org.hibernate.search.filter.StandardFilterKey;
 import org.hibernate.search.filter.impl.ChainedFilter;
 import org.hibernate.search.filter.FilterKey;
 import org.hibernate.search.filter.FullTextFilterImplementor;
+import org.hibernate.search.filter.IdFilter;
 import org.hibernate.search.filter.ShardSensitiveOnlyFilter;
 import org.hibernate.search.filter.impl.CachingWrapperFilter;
 import org.hibernate.search.filter.impl.FullTextFilterImpl;
+import org.hibernate.search.filter.impl.TermSetFilter;
 import org.hibernate.search.indexes.spi.IndexManager;
 import org.hibernate.search.query.collector.impl.FieldCacheCollectorFactory;
 import org.hibernate.search.query.engine.spi.DocumentExtractor;
 import org.hibernate.search.query.engine.spi.EntityInfo;
+import org.hibernate.search.query.engine.spi.EntityInfoBatchHandler;
 import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
 import org.hibernate.search.query.engine.spi.TimeoutExceptionFactory;
 import org.hibernate.search.query.engine.spi.TimeoutManager;
 import org.hibernate.search.reader.impl.MultiReaderFactory;
+import org.hibernate.search.store.IdRoutingShardingStrategy;
 import org.hibernate.search.store.IndexShardingStrategy;
 import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
@@ -106,6 +119,8 @@ public class HSQueryImpl implements HSQuery, Serializable {
 	private String[] projectedFields;
 	private int firstResult;
 	private Integer maxResults;
+	private ResultsCursor resultsAfter;
+	private transient ResultsCursor resultsCursor;
 	private transient Set<Class<?>> classesAndSubclasses;
 	//optimization: if we can avoid the filter clause (we can most of the time) do it as it has a significant perf impact
 	private boolean needClassFilterClause;
@@ -114,6 +129,16 @@ public class HSQueryImpl implements HSQuery, Serializable {
 	private transient FacetManagerImpl facetManager;
 	private transient TimeoutExceptionFactory timeoutExceptionFactory;
 
+	/**
+	 * The identifier terms of the targeted entities, for each enabled {@link IdFilter}.
+	 */
+	private transient Map<String, Set<Term>> idFilterTerms;
+
+	/**
+	 * The number of shards not searched as they can't contain any of the identifiers the query is restricted to.
+	 */
+	private transient int prunedShards;
+
 	/**
 	 * The number of results for this query. This field gets populated once {@link #queryResultSize}, {@link #queryEntityInfos}
 	 * or {@link #queryDocumentExtractor} is called.
@@ -182,6 +207,15 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		return this;
 	}
 
+	public HSQuery resultsAfter(ResultsCursor cursor) {
+		this.resultsAfter = cursor;
+		return this;
+	}
+
+	public ResultsCursor getResultsCursor() {
+		return resultsCursor;
+	}
+
 	public HSQuery maxResults(Integer maxResults) {
 		if ( maxResults != null && maxResults < 0 ) {
 			throw new IllegalArgumentException( "'max' pagination parameter less than 0" );
@@ -234,6 +268,7 @@ public class HSQueryImpl implements HSQuery, Serializable {
 	}
 
 	public List<EntityInfo> queryEntityInfos() {
+		resultsCursor = null;
 		IndexSearcherWithPayload searcher = buildSearcher();
 		if ( searcher == null ) {
 			return Collections.emptyList();
@@ -241,7 +276,7 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		try {
 			QueryHits queryHits = getQueryHits( searcher, calculateTopDocsRetrievalSize() );
 			int first = getFirstResultIndex();
-			int max = max( first, queryHits.getTotalHits() );
+			int max = max( first, queryHits.getHitsAfterCursor() );
 
 			int size = max - first + 1 < 0 ? 0 : max - first + 1;
 			List<EntityInfo> infos = new ArrayList<EntityInfo>( size );
@@ -253,6 +288,7 @@ public class HSQueryImpl implements HSQuery, Serializable {
 					getTimeoutManager().isTimedOut();
 				}
 			}
+			resultsCursor = max >= first ? new ResultsCursor( queryHits.scoreDoc( max ) ) : null;
 			return infos;
 		}
 		catch ( IOException e ) {
@@ -263,6 +299,69 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		}
 	}
 
+	public int streamEntityInfos(int batchSize, EntityInfoBatchHandler handler) {
+		if ( batchSize < 1 ) {
+			throw new IllegalArgumentException( "batchSize must be strictly positive" );
+		}
+		getTimeoutManager().start();
+		IndexSearcherWithPayload searcher = buildSearcher( searchFactoryImplementor, false );
+		if ( searcher == null ) {
+			return 0;
+		}
+		try {
+			org.apache.lucene.search.Query filteredQuery = filterQueryByClasses( luceneQuery );
+			buildFilters();
+			boolean stats = searchFactoryImplementor.getStatistics().isStatisticsEnabled();
+			long startTime = 0;
+			if ( stats ) {
+				startTime = System.nanoTime();
+			}
+			EntityInfoStreamer streamer = new EntityInfoStreamer(
+					searchFactoryImplementor,
+					searcher.getSearcher(),
+					luceneQuery,
+					projectedFields,
+					idFieldNames,
+					allowFieldSelectionInProjection,
+					classesAndSubclasses,
+					useFieldCacheOnTypes(),
+					getAppropriateIdFieldCollectorFactory(),
+					getTimeoutManagerImpl(),
+					batchSize,
+					handler
+			);
+			Collector collector = streamer;
+			if ( timeoutManager.getType() == TimeoutManager.Type.LIMIT ) {
+				Long timeoutLeft = timeoutManager.getTimeoutLeftInMilliseconds();
+				if ( timeoutLeft != null ) {
+					collector = new TimeLimitingCollector( streamer, timeoutManager.getLuceneTimeoutCounter(), timeoutLeft );
+				}
+			}
+			try {
+				searcher.getSearcher().search( filteredQuery, filter, collector );
+			}
+			catch ( TimeLimitingCollector.TimeExceededException e ) {
+				//stop streaming, the hits collected so far are still handed to the handler
+				timeoutManager.forceTimedOut();
+			}
+			streamer.flush();
+			if ( stats ) {
+				searchFactoryImplementor.getStatisticsImplementor()
+						.searchExecuted( filteredQuery.toString(), System.nanoTime() - startTime );
+				if ( prunedShards > 0 ) {
+					searchFactoryImplementor.getStatisticsImplementor().shardsPruned( prunedShards );
+				}
+			}
+			return streamer.getStreamedCount();
+		}
+		catch ( IOException e ) {
+			throw new SearchException( "Unable to query Lucene index", e );
+		}
+		finally {
+			closeSearcher( searcher );
+		}
+	}
+
 	private DocumentExtractor buildDocumentExtractor(IndexSearcherWithPayload searcher, QueryHits queryHits, int first, int max) {
 		return new DocumentExtractorImpl(
 				queryHits,
@@ -294,7 +393,7 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		try {
 			QueryHits queryHits = getQueryHits( openSearcher, calculateTopDocsRetrievalSize() );
 			int first = getFirstResultIndex();
-			int max = max( first, queryHits.getTotalHits() );
+			int max = max( first, queryHits.getHitsAfterCursor() );
 			return buildDocumentExtractor( openSearcher, queryHits, first, max );
 		}
 		catch ( IOException e ) {
@@ -416,11 +515,13 @@ public class HSQueryImpl implements HSQuery, Serializable {
 					filteredQuery,
 					filter,
 					sort,
+					null,
 					getTimeoutManagerImpl(),
 					facetManager.getFacetRequests(),
 					useFieldCacheOnTypes(),
 					getAppropriateIdFieldCollectorFactory(),
-					this.timeoutExceptionFactory
+					this.timeoutExceptionFactory,
+					resultsAfter == null ? null : resultsAfter.getScoreDoc()
 			);
 		}
 		else if ( 0 == n) {
@@ -448,7 +549,8 @@ public class HSQueryImpl implements HSQuery, Serializable {
 					facetManager.getFacetRequests(),
 					useFieldCacheOnTypes(),
 					getAppropriateIdFieldCollectorFactory(),
-					this.timeoutExceptionFactory
+					this.timeoutExceptionFactory,
+					resultsAfter == null ? null : resultsAfter.getScoreDoc()
 			);
 		}
 		resultSize = queryHits.getTotalHits();
@@ -456,6 +558,9 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		if ( stats ) {
 			searchFactoryImplementor.getStatisticsImplementor()
 					.searchExecuted( filteredQuery.toString(), System.nanoTime() - startTime );
+			if ( prunedShards > 0 ) {
+				searchFactoryImplementor.getStatisticsImplementor().shardsPruned( prunedShards );
+			}
 		}
 		facetManager.setFacetResults( queryHits.getFacets() );
 		return queryHits;
@@ -506,6 +611,8 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		Map<Class<?>, EntityIndexBinder> builders = searchFactoryImplementor.getIndexBindingForEntity();
 		List<IndexManager> targetedIndexes = new ArrayList<IndexManager>();
 		Set<String> idFieldNames = new HashSet<String>();
+		Map<String, Set<Term>> idFilterTerms = newHashMap();
+		int prunedShards = 0;
 
 		Similarity searcherSimilarity = null;
 		//TODO check if caching this work for the last n list of indexedTargetedEntities makes a perf boost
@@ -527,7 +634,7 @@ public class HSQueryImpl implements HSQuery, Serializable {
 				}
 				useFieldCacheOnClassTypes = useFieldCacheOnClassTypes || builder.getFieldCacheOption()
 						.contains( FieldCacheType.CLASS );
-				populateIndexManagers( targetedIndexes, indexBinder.getSelectionStrategy() );
+				prunedShards += populateIndexManagers( targetedIndexes, indexBinder, idFilterTerms );
 			}
 			classesAndSubclasses = null;
 		}
@@ -556,11 +663,13 @@ public class HSQueryImpl implements HSQuery, Serializable {
 				searcherSimilarity = checkSimilarity( searcherSimilarity, builder );
 				useFieldCacheOnClassTypes = useFieldCacheOnClassTypes || builder.getFieldCacheOption()
 						.contains( FieldCacheType.CLASS );
-				populateIndexManagers( targetedIndexes, indexBinder.getSelectionStrategy() );
+				prunedShards += populateIndexManagers( targetedIndexes, indexBinder, idFilterTerms );
 			}
 			this.classesAndSubclasses = involvedClasses;
 		}
 		this.idFieldNames = idFieldNames;
+		this.idFilterTerms = idFilterTerms;
+		this.prunedShards = prunedShards;
 
 		//compute optimization needClassFilterClause
 		//if at least one DP contains one class that is not part of the targeted classesAndSubclasses we can't optimize
@@ -595,14 +704,15 @@ public class HSQueryImpl implements HSQuery, Serializable {
 				MultiReaderFactory.openReader( indexManagers )
 		);
 		is.setSimilarity( searcherSimilarity );
+		final ExecutorService shardSearchExecutor = searchFactoryImplementor.getShardSearchExecutor();
 
 		//handle the sort and projection
 		final String[] projection = this.projectedFields;
 		if ( Boolean.TRUE.equals( forceScoring ) ) {
-			return new IndexSearcherWithPayload( is, true, true );
+			return new IndexSearcherWithPayload( is, true, true, shardSearchExecutor );
 		}
 		else if ( Boolean.FALSE.equals( forceScoring ) ) {
-			return new IndexSearcherWithPayload( is, false, false );
+			return new IndexSearcherWithPayload( is, false, false, shardSearchExecutor );
 		}
 		else if ( this.sort != null && projection != null ) {
 			boolean activate = false;
@@ -613,11 +723,11 @@ public class HSQueryImpl implements HSQuery, Serializable {
 				}
 			}
 			if ( activate ) {
-				return new IndexSearcherWithPayload( is, true, false );
+				return new IndexSearcherWithPayload( is, true, false, shardSearchExecutor );
 			}
 		}
 		//default
-		return new IndexSearcherWithPayload( is, false, false );
+		return new IndexSearcherWithPayload( is, false, false, shardSearchExecutor );
 	}
 
 	private Similarity checkSimilarity(Similarity similarity, DocumentBuilderIndexedEntity builder) {
@@ -634,8 +744,15 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		return similarity;
 	}
 
-	private void populateIndexManagers(List<IndexManager> indexManagersTarget, final IndexShardingStrategy indexShardingStrategy) {
-		final IndexManager[] indexManagersForQuery;
+	/**
+	 * Adds the IndexManagers to search for the given entity, skipping the shards which can't contain any of
+	 * the identifiers the query is restricted to.
+	 *
+	 * @return the number of skipped shards
+	 */
+	private int populateIndexManagers(List<IndexManager> indexManagersTarget, EntityIndexBinder indexBinder, Map<String, Set<Term>> idFilterTerms) {
+		final IndexShardingStrategy indexShardingStrategy = indexBinder.getSelectionStrategy();
+		IndexManager[] indexManagersForQuery;
 		if ( filterDefinitions != null && !filterDefinitions.isEmpty() ) {
 			indexManagersForQuery = indexShardingStrategy.getIndexManagersForQuery(
 					filterDefinitions.values().toArray( new FullTextFilterImplementor[filterDefinitions.size()] )
@@ -646,11 +763,166 @@ public class HSQueryImpl implements HSQuery, Serializable {
 			indexManagersForQuery = indexShardingStrategy.getIndexManagersForQuery( EMPTY_FULL_TEXT_FILTER_IMPLEMENTOR );
 		}
 
+		int prunedShards = 0;
+		final DocumentBuilderIndexedEntity<?> builder = indexBinder.getDocumentBuilder();
+		final Set<String> targetedIds = getTargetedIds( builder, idFilterTerms );
+		if ( targetedIds != null && indexShardingStrategy instanceof IdRoutingShardingStrategy ) {
+			//the shards where the entities would be deleted are the only ones which can contain them
+			Set<IndexManager> indexManagersForIds = new HashSet<IndexManager>();
+			for ( String id : targetedIds ) {
+				indexManagersForIds.addAll(
+						Arrays.asList( indexShardingStrategy.getIndexManagersForDeletion( builder.getBeanClass(), null, id ) )
+				);
+			}
+			List<IndexManager> indexManagersForTargetedIds = new ArrayList<IndexManager>( indexManagersForIds.size() );
+			for ( IndexManager indexManager : indexManagersForQuery ) {
+				if ( indexManagersForIds.contains( indexManager ) ) {
+					indexManagersForTargetedIds.add( indexManager );
+				}
+				else {
+					prunedShards++;
+				}
+			}
+			if ( indexManagersForTargetedIds.isEmpty() && indexManagersForQuery.length > 0 ) {
+				//no identifiers: keep searching one shard, the query doesn't match anything anyway
+				indexManagersForTargetedIds.add( indexManagersForQuery[0] );
+				prunedShards--;
+			}
+			indexManagersForQuery = indexManagersForTargetedIds.toArray( new IndexManager[indexManagersForTargetedIds.size()] );
+		}
+
 		for ( IndexManager indexManager : indexManagersForQuery ) {
 			if ( !indexManagersTarget.contains( indexManager ) ) {
 				indexManagersTarget.add( indexManager );
 			}
 		}
+		return prunedShards;
+	}
+
+	/**
+	 * Collects the identifiers of the given entity which the query results are restricted to, either by
+	 * an enabled {@link IdFilter} or by required term queries on the identifier field.
+	 * The identifier terms of the filters are added to {@code idFilterTerms}, using the numeric encoding
+	 * for identifiers indexed as numeric fields.
+	 *
+	 * @return the identifiers in their string form, or null if the query is not restricted to some identifiers
+	 */
+	private Set<String> getTargetedIds(DocumentBuilderIndexedEntity<?> builder, Map<String, Set<Term>> idFilterTerms) {
+		if ( builder.getIdKeywordName() == null ) {
+			return null;
+		}
+		final boolean idIsNumeric = builder.getIdBridge() instanceof NumericFieldBridge;
+		Set<String> targetedIds = extractTargetedIds( luceneQuery, builder, idIsNumeric );
+		for ( FullTextFilterImpl fullTextFilter : filterDefinitions.values() ) {
+			FilterDef def = searchFactoryImplementor.getFilterDefinition( fullTextFilter.getName() );
+			if ( !isIdFilter( def ) ) {
+				continue;
+			}
+			Set<Term> terms = idFilterTerms.get( fullTextFilter.getName() );
+			if ( terms == null ) {
+				terms = new HashSet<Term>();
+				idFilterTerms.put( fullTextFilter.getName(), terms );
+			}
+			Set<String> filterIds = new HashSet<String>();
+			for ( Object id : getFilterIds( fullTextFilter ) ) {
+				Term term = builder.getTerm( (Serializable) id );
+				if ( idIsNumeric ) {
+					terms.add( NumericFieldUtils.createExactMatchTerm( builder.getIdKeywordName(), id ) );
+				}
+				else {
+					terms.add( term );
+				}
+				filterIds.add( term.text() );
+			}
+			if ( targetedIds == null ) {
+				targetedIds = filterIds;
+			}
+			else {
+				targetedIds.retainAll( filterIds );
+			}
+		}
+		return targetedIds;
+	}
+
+	private Collection<?> getFilterIds(FullTextFilterImpl fullTextFilter) {
+		Object ids = fullTextFilter.getParameter( IdFilter.IDS );
+		if ( ids == null ) {
+			throw new SearchException(
+					"Parameter " + IdFilter.IDS + " of filter " + fullTextFilter.getName() + " is not set"
+			);
+		}
+		else if ( ids instanceof Collection ) {
+			return (Collection<?>) ids;
+		}
+		else if ( ids instanceof Object[] ) {
+			return Arrays.asList( (Object[]) ids );
+		}
+		else {
+			return Collections.singleton( ids );
+		}
+	}
+
+	/**
+	 * @return the identifiers matched by the query when it can only match documents having one of them
+	 *         in the identifier field, or null if it can match other documents
+	 */
+	private static Set<String> extractTargetedIds(Query query, DocumentBuilderIndexedEntity<?> builder, boolean idIsNumeric) {
+		final String idFieldName = builder.getIdKeywordName();
+		if ( query instanceof TermQuery && !idIsNumeric ) {
+			Term term = ( (TermQuery) query ).getTerm();
+			if ( idFieldName.equals( term.field() ) ) {
+				Set<String> ids = new HashSet<String>();
+				ids.add( term.text() );
+				return ids;
+			}
+		}
+		else if ( query instanceof NumericRangeQuery && idIsNumeric ) {
+			//numeric identifiers are matched by exact ranges
+			NumericRangeQuery<?> range = (NumericRangeQuery<?>) query;
+			if ( idFieldName.equals( range.getField() ) && range.getMin() != null && range.getMin().equals( range.getMax() )
+					&& range.includesMin() && range.includesMax() ) {
+				Set<String> ids = new HashSet<String>();
+				ids.add( builder.objectToString( idFieldName, range.getMin() ) );
+				return ids;
+			}
+		}
+		else if ( query instanceof BooleanQuery ) {
+			Set<String> requiredIds = null;
+			Set<String> optionalIds = new HashSet<String>();
+			boolean hasRequiredClauses = false;
+			boolean optionalClausesRestricted = true;
+			for ( BooleanClause clause : ( (BooleanQuery) query ).getClauses() ) {
+				if ( clause.isProhibited() ) {
+					continue;
+				}
+				Set<String> ids = extractTargetedIds( clause.getQuery(), builder, idIsNumeric );
+				if ( clause.isRequired() ) {
+					hasRequiredClauses = true;
+					if ( ids != null ) {
+						if ( requiredIds == null ) {
+							requiredIds = ids;
+						}
+						else {
+							requiredIds.retainAll( ids );
+						}
+					}
+				}
+				else if ( ids == null ) {
+					optionalClausesRestricted = false;
+				}
+				else {
+					optionalIds.addAll( ids );
+				}
+			}
+			if ( requiredIds != null ) {
+				return requiredIds;
+			}
+			//without required clauses, documents have to match one of the optional ones
+			if ( !hasRequiredClauses && optionalClausesRestricted && !optionalIds.isEmpty() ) {
+				return optionalIds;
+			}
+		}
+		return null;
 	}
 
 	private void buildFilters() {
@@ -700,6 +972,10 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		if ( isPreQueryFilterOnly( def ) ) {
 			return null;
 		}
+		if ( isIdFilter( def ) ) {
+			Set<Term> terms = idFilterTerms.get( fullTextFilter.getName() );
+			return new TermSetFilter( terms == null ? Collections.<Term>emptySet() : terms );
+		}
 
 		Object instance = createFilterInstance( fullTextFilter, def );
 		FilterKey key = createFilterKey( def, instance );
@@ -724,6 +1000,10 @@ public class HSQueryImpl implements HSQuery, Serializable {
 		return def.getImpl().equals( ShardSensitiveOnlyFilter.class );
 	}
 
+	private boolean isIdFilter(FilterDef def) {
+		return def.getImpl().equals( IdFilter.class );
+	}
+
 	private Filter createFilter(FilterDef def, Object instance) {
 		Filter filter;
 		if ( def.getFactoryMethod() != null ) {
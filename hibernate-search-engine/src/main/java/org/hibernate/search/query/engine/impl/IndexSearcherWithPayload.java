@@ -20,10 +20,14 @@
  */
 package org.hibernate.search.query.engine.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.ReaderUtil;
 
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
 import org.hibernate.search.reader.impl.MultiReaderFactory;
@@ -42,11 +46,22 @@ public class IndexSearcherWithPayload {
 	private final IndexSearcher searcher;
 	private boolean fieldSortDoTrackScores;
 	private boolean fieldSortDoMaxScore;
+	private final ExecutorService shardSearchExecutor;
+	private IndexSearcher[] shardSearchers;
 
 	public IndexSearcherWithPayload(IndexSearcher searcher, boolean fieldSortDoTrackScores, boolean fieldSortDoMaxScore) {
+		this( searcher, fieldSortDoTrackScores, fieldSortDoMaxScore, null );
+	}
+
+	/**
+	 * @param shardSearchExecutor when not null, the indexes wrapped by the searcher are searched in parallel using it
+	 */
+	public IndexSearcherWithPayload(IndexSearcher searcher, boolean fieldSortDoTrackScores, boolean fieldSortDoMaxScore,
+			ExecutorService shardSearchExecutor) {
 		this.searcher = searcher;
 		this.fieldSortDoTrackScores = fieldSortDoTrackScores;
 		this.fieldSortDoMaxScore = fieldSortDoMaxScore;
+		this.shardSearchExecutor = shardSearchExecutor;
 		searcher.setDefaultFieldSortScoring( fieldSortDoTrackScores, fieldSortDoMaxScore );
 	}
 
@@ -62,6 +77,48 @@ public class IndexSearcherWithPayload {
 		return fieldSortDoMaxScore;
 	}
 
+	public ExecutorService getShardSearchExecutor() {
+		return shardSearchExecutor;
+	}
+
+	/**
+	 * Returns a searcher per index wrapped by the main searcher, to be searched in parallel.
+	 * Each of them passes to the Collectors the document ids of the main searcher, so the
+	 * results of all of them can be merged as they are.
+	 *
+	 * @return the searchers of each index, or null if the indexes are to be searched sequentially
+	 */
+	public IndexSearcher[] getShardSearchers() {
+		if ( shardSearchExecutor == null ) {
+			return null;
+		}
+		if ( shardSearchers == null ) {
+			IndexReader[] shardReaders = searcher.getIndexReader().getSequentialSubReaders();
+			if ( shardReaders == null || shardReaders.length < 2 ) {
+				return null;
+			}
+			IndexSearcher[] searchers = new IndexSearcher[shardReaders.length];
+			int shardDocStart = 0;
+			for ( int i = 0; i < shardReaders.length; i++ ) {
+				List<IndexReader> segments = new ArrayList<IndexReader>();
+				ReaderUtil.gatherSubReaders( segments, shardReaders[i] );
+				int[] docStarts = new int[segments.size()];
+				int docStart = shardDocStart;
+				for ( int j = 0; j < docStarts.length; j++ ) {
+					docStarts[j] = docStart;
+					docStart += segments.get( j ).maxDoc();
+				}
+				searchers[i] = new IndexSearcher(
+						searcher.getIndexReader(), segments.toArray( new IndexReader[segments.size()] ), docStarts
+				);
+				searchers[i].setSimilarity( searcher.getSimilarity() );
+				shardDocStart += shardReaders[i].maxDoc();
+			}
+			shardSearchers = searchers;
+		}
+		return shardSearchers;
+	}
+
 	/**
 	 * @param query toString() is invoked to display the query in the warning message
 	 * @param searchFactoryImplementor
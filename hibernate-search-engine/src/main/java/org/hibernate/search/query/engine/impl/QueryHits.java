@@ -29,12 +29,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.FieldSelector;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TimeLimitingCollector;
@@ -50,6 +55,7 @@ import org.hibernate.search.SearchException;
 import org.hibernate.search.query.collector.impl.FacetCollector;
 import org.hibernate.search.query.collector.impl.FieldCacheCollector;
 import org.hibernate.search.query.collector.impl.FieldCacheCollectorFactory;
+import org.hibernate.search.query.collector.impl.SearchAfterCollector;
 import org.hibernate.search.query.dsl.impl.FacetingRequestImpl;
 import org.hibernate.search.query.engine.spi.TimeoutExceptionFactory;
 import org.hibernate.search.query.engine.spi.TimeoutManager;
@@ -74,7 +80,10 @@ public class QueryHits {
 	private final TimeoutManagerImpl timeoutManager;
 
 	private int totalHits;
+	private int hitsAfterCursor;
 	private TopDocs topDocs;
+	// created by updateTopDocs, and reused when collecting more hits
+	private Weight weight;
 	private Map<String, List<Facet>> facetMap;
 	private List<FacetCollector> facetCollectors;
 
@@ -93,6 +102,11 @@ public class QueryHits {
 
 	private final TimeoutExceptionFactory timeoutExceptionFactory;
 
+	/**
+	 * If not null, only the hits ranked after it are collected
+	 */
+	private final ScoreDoc after;
+
 	public QueryHits(IndexSearcherWithPayload searcher,
 					 org.apache.lucene.search.Query preparedQuery,
 					 Filter filter,
@@ -105,7 +119,7 @@ public class QueryHits {
 			throws IOException {
 		this(
 				searcher, preparedQuery, filter, sort, DEFAULT_TOP_DOC_RETRIEVAL_SIZE, timeoutManager, facetRequests,
-				enableFieldCacheOnTypes, idFieldCollector, timeoutExceptionFactory
+				enableFieldCacheOnTypes, idFieldCollector, timeoutExceptionFactory, null
 		);
 	}
 
@@ -120,6 +134,28 @@ public class QueryHits {
 					 FieldCacheCollectorFactory idFieldCollector,
 					 TimeoutExceptionFactory timeoutExceptionFactory)
 			throws IOException {
+		this(
+				searcher, preparedQuery, filter, sort, n, timeoutManager, facetRequests,
+				enableFieldCacheOnTypes, idFieldCollector, timeoutExceptionFactory, null
+		);
+	}
+
+	/**
+	 * @param n the number of {@code TopDoc}s to retrieve, or {@code null} to retrieve a default number of them
+	 * @param after if not null, only the hits ranked after it are retrieved, by score or by the given sort
+	 */
+	public QueryHits(IndexSearcherWithPayload searcher,
+					 org.apache.lucene.search.Query preparedQuery,
+					 Filter filter,
+					 Sort sort,
+					 Integer n,
+					 TimeoutManagerImpl timeoutManager,
+					 Map<String, FacetingRequestImpl> facetRequests,
+					 boolean enableFieldCacheOnTypes,
+					 FieldCacheCollectorFactory idFieldCollector,
+					 TimeoutExceptionFactory timeoutExceptionFactory,
+					 ScoreDoc after)
+			throws IOException {
 		this.timeoutManager = timeoutManager;
 		this.preparedQuery = preparedQuery;
 		this.searcher = searcher;
@@ -129,7 +165,8 @@ public class QueryHits {
 		this.enableFieldCacheOnClassName = enableFieldCacheOnTypes;
 		this.idFieldCollectorFactory = idFieldCollector;
 		this.timeoutExceptionFactory = timeoutExceptionFactory;
-		updateTopDocs( n );
+		this.after = after;
+		updateTopDocs( n == null ? DEFAULT_TOP_DOC_RETRIEVAL_SIZE : n );
 	}
 
 	public Document doc(int index) throws IOException {
@@ -141,13 +178,12 @@ public class QueryHits {
 	}
 
 	public ScoreDoc scoreDoc(int index) throws IOException {
-		if ( index >= totalHits ) {
+		if ( index >= hitsAfterCursor ) {
 			throw new SearchException( "Not a valid ScoreDoc index: " + index );
 		}
 
-		// TODO - Is there a better way to get more TopDocs? Get more or less?
 		if ( index >= topDocs.scoreDocs.length ) {
-			updateTopDocs( 2 * index );
+			collectNextTopDocs( index );
 		}
 		//if the refresh timed out, raise an exception
 		if ( timeoutManager.isTimedOut() && index >= topDocs.scoreDocs.length ) {
@@ -173,10 +209,21 @@ public class QueryHits {
 		return explanation;
 	}
 
+	/**
+	 * @return the number of hits of the query, including the ones ranked before the cursor
+	 */
 	public int getTotalHits() {
 		return totalHits;
 	}
 
+	/**
+	 * @return the number of hits ranked after the cursor, which are the ones accessible by index;
+	 *         the total number of hits when the query has no cursor
+	 */
+	public int getHitsAfterCursor() {
+		return hitsAfterCursor;
+	}
+
 	public TopDocs getTopDocs() {
 		return topDocs;
 	}
@@ -197,15 +244,27 @@ public class QueryHits {
 	private void updateTopDocs(int n) throws IOException {
 		int totalMaxDocs = searcher.getSearcher().maxDoc();
 		final int maxDocs = Math.min( n, totalMaxDocs );
-		final Weight weight = preparedQuery.weight( searcher.getSearcher() );
+		weight = preparedQuery.weight( searcher.getSearcher() );
+
+		final IndexSearcher[] shardSearchers = searcher.getShardSearchers();
+		if ( shardSearchers != null ) {
+			updateTopDocsSearchingShardsInParallel( shardSearchers, weight, totalMaxDocs, maxDocs );
+			timeoutManager.isTimedOut();
+			return;
+		}
 
 		final TopDocsCollector<?> topDocCollector;
 		final TotalHitCountCollector hitCountCollector;
+		SearchAfterCollector searchAfterCollector = null;
 		Collector collector = null;
 		if ( maxDocs != 0 ) {
 			topDocCollector = createTopDocCollector( maxDocs, weight );
 			hitCountCollector = null;
 			collector = topDocCollector;
+			if ( after != null ) {
+				searchAfterCollector = new SearchAfterCollector( collector, after, sort );
+				collector = searchAfterCollector;
+			}
 			collector = optionallyEnableFieldCacheOnTypes( collector, totalMaxDocs, maxDocs );
 			collector = optionallyEnableFieldCacheOnIds( collector, totalMaxDocs, maxDocs );
 			collector = optionallyEnableFacetingCollectors( collector );
@@ -232,7 +291,8 @@ public class QueryHits {
 		// update top docs and totalHits
 		if ( maxDocs != 0 ) {
 			this.topDocs = topDocCollector.topDocs();
-			this.totalHits = topDocs.totalHits;
+			this.hitsAfterCursor = topDocs.totalHits;
+			this.totalHits = searchAfterCollector == null ? hitsAfterCursor : hitsAfterCursor + searchAfterCollector.getSkippedHits();
 			// if we were collecting facet data we have to update our instance state
 			if ( facetCollectors != null && !facetCollectors.isEmpty() ) {
 				facetMap = new HashMap<String, List<Facet>>();
@@ -244,10 +304,224 @@ public class QueryHits {
 		else {
 			this.topDocs = null;
 			this.totalHits = hitCountCollector.getTotalHits();
+			this.hitsAfterCursor = totalHits;
 		}
 		timeoutManager.isTimedOut();
 	}
 
+	/**
+	 * Collects the hits following the ones collected so far, at least up to the given index.
+	 * The hits collected so far are skipped, so the queue only holds the new ones; as the number
+	 * of collected hits at least doubles each time, the query is run again a few times only.
+	 *
+	 * @param index the index of the hit needed
+	 *
+	 * @throws IOException in case a search exception occurs
+	 */
+	private void collectNextTopDocs(int index) throws IOException {
+		final ScoreDoc[] collectedScoreDocs = topDocs.scoreDocs;
+		final int n = Math.min(
+				Math.max( index + 1 - collectedScoreDocs.length, collectedScoreDocs.length ),
+				searcher.getSearcher().maxDoc()
+		);
+		final TopDocsCollector<?> topDocCollector = createTopDocCollector( n, weight );
+		Collector collector = topDocCollector;
+		if ( collectedScoreDocs.length > 0 ) {
+			collector = new SearchAfterCollector( collector, collectedScoreDocs[collectedScoreDocs.length - 1], sort );
+		}
+		collector = decorateWithTimeOutCollector( collector );
+
+		if ( !isImmediateTimeout() ) {
+			try {
+				searcher.getSearcher().search( weight, filter, collector );
+			}
+			catch ( TimeLimitingCollector.TimeExceededException e ) {
+				timeoutManager.forceTimedOut();
+			}
+		}
+
+		final ScoreDoc[] nextScoreDocs = topDocCollector.topDocs().scoreDocs;
+		final ScoreDoc[] scoreDocs = new ScoreDoc[collectedScoreDocs.length + nextScoreDocs.length];
+		System.arraycopy( collectedScoreDocs, 0, scoreDocs, 0, collectedScoreDocs.length );
+		System.arraycopy( nextScoreDocs, 0, scoreDocs, collectedScoreDocs.length, nextScoreDocs.length );
+		this.topDocs = new TopDocs( topDocs.totalHits, scoreDocs, topDocs.getMaxScore() );
+		timeoutManager.isTimedOut();
+	}
+
+	/**
+	 * Searches each shard with its own chain of Collectors: the current thread searches the
+	 * first shard, the search executor the other ones. The results of all shards are then merged.
+	 * The Collectors of all shards share the values collected from the FieldCaches.
+	 */
+	private void updateTopDocsSearchingShardsInParallel(IndexSearcher[] shardSearchers, Weight weight,
+			int totalMaxDocs, int maxDocs) throws IOException {
+		final int shards = shardSearchers.length;
+		final TopDocsCollector<?>[] topDocCollectors = new TopDocsCollector<?>[shards];
+		final SearchAfterCollector[] searchAfterCollectors = new SearchAfterCollector[shards];
+		final TotalHitCountCollector[] hitCountCollectors = new TotalHitCountCollector[shards];
+		final List<List<FacetCollector>> shardFacetCollectors = new ArrayList<List<FacetCollector>>( shards );
+		final ShardSearch[] shardSearches = new ShardSearch[shards];
+		final Object[] classTypes = maxDocs != 0 && enableFieldCacheOnClassName ? new Object[totalMaxDocs] : null;
+		final Object[] ids = maxDocs != 0 && idFieldCollectorFactory != null ? new Object[totalMaxDocs] : null;
+		for ( int i = 0; i < shards; i++ ) {
+			Collector collector;
+			if ( maxDocs != 0 ) {
+				topDocCollectors[i] = createTopDocCollector( maxDocs, weight );
+				collector = topDocCollectors[i];
+				if ( after != null ) {
+					searchAfterCollectors[i] = new SearchAfterCollector( collector, after, sort );
+					collector = searchAfterCollectors[i];
+				}
+				if ( classTypes != null ) {
+					// any of them returns the values collected by all shards
+					classTypeCollector = FieldCacheCollectorFactory.CLASS_TYPE_FIELD_CACHE_COLLECTOR_FACTORY
+							.createFieldCollector( collector, classTypes );
+					collector = classTypeCollector;
+				}
+				if ( ids != null ) {
+					idFieldCollector = idFieldCollectorFactory.createFieldCollector( collector, ids );
+					collector = idFieldCollector;
+				}
+				collector = optionallyEnableFacetingCollectors( collector );
+				shardFacetCollectors.add( facetCollectors );
+			}
+			else {
+				hitCountCollectors[i] = new TotalHitCountCollector();
+				collector = hitCountCollectors[i];
+			}
+			collector = decorateWithTimeOutCollector( collector );
+			if ( collector instanceof TimeLimitingCollector ) {
+				// the time spent waiting for a search thread counts as well
+				( (TimeLimitingCollector) collector ).setBaseline();
+			}
+			shardSearches[i] = new ShardSearch( shardSearchers[i], weight, collector );
+		}
+
+		if ( !isImmediateTimeout() ) {
+			searchShards( shardSearches );
+		}
+
+		if ( maxDocs != 0 ) {
+			TopDocs[] shardTopDocs = new TopDocs[shards];
+			for ( int i = 0; i < shards; i++ ) {
+				shardTopDocs[i] = topDocCollectors[i].topDocs();
+			}
+			// document ids are the ones of the main searcher already
+			this.topDocs = TopDocs.merge( sort, maxDocs, shardTopDocs );
+			this.hitsAfterCursor = topDocs.totalHits;
+			this.totalHits = hitsAfterCursor;
+			if ( after != null ) {
+				for ( SearchAfterCollector searchAfterCollector : searchAfterCollectors ) {
+					totalHits += searchAfterCollector.getSkippedHits();
+				}
+			}
+			facetCollectors = shardFacetCollectors.get( 0 );
+			if ( facetCollectors != null && !facetCollectors.isEmpty() ) {
+				facetMap = new HashMap<String, List<Facet>>();
+				for ( int f = 0; f < facetCollectors.size(); f++ ) {
+					FacetCollector facetCollector = facetCollectors.get( f );
+					for ( int i = 1; i < shards; i++ ) {
+						facetCollector.mergeCounts( shardFacetCollectors.get( i ).get( f ) );
+					}
+					facetMap.put( facetCollector.getFacetName(), facetCollector.getFacetList() );
+				}
+			}
+		}
+		else {
+			this.topDocs = null;
+			int total = 0;
+			for ( TotalHitCountCollector hitCountCollector : hitCountCollectors ) {
+				total += hitCountCollector.getTotalHits();
+			}
+			this.totalHits = total;
+			this.hitsAfterCursor = total;
+		}
+	}
+
+	/**
+	 * Runs the searches, waiting for all of them to be done even if some fail
+	 * or this thread is interrupted, as they use the IndexReaders of the query.
+	 */
+	private void searchShards(ShardSearch[] shardSearches) throws IOException {
+		final ExecutorService executor = searcher.getShardSearchExecutor();
+		final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>( shardSearches.length - 1 );
+		for ( int i = 1; i < shardSearches.length; i++ ) {
+			futures.add( executor.submit( shardSearches[i] ) );
+		}
+		Throwable failure = null;
+		boolean timedOut = false;
+		try {
+			timedOut = shardSearches[0].call();
+		}
+		catch ( Throwable e ) {
+			failure = e;
+		}
+		boolean interrupted = false;
+		for ( Future<Boolean> future : futures ) {
+			while ( true ) {
+				try {
+					timedOut = future.get() || timedOut;
+					break;
+				}
+				catch ( InterruptedException e ) {
+					interrupted = true;
+				}
+				catch ( ExecutionException e ) {
+					if ( failure == null ) {
+						failure = e.getCause();
+					}
+					break;
+				}
+			}
+		}
+		if ( interrupted ) {
+			Thread.currentThread().interrupt();
+		}
+		if ( timedOut ) {
+			//we have reached the time limit and stopped before the end
+			timeoutManager.forceTimedOut();
+		}
+		if ( failure instanceof IOException ) {
+			throw (IOException) failure;
+		}
+		else if ( failure instanceof RuntimeException ) {
+			throw (RuntimeException) failure;
+		}
+		else if ( failure instanceof Error ) {
+			throw (Error) failure;
+		}
+		else if ( failure != null ) {
+			throw new SearchException( "Unable to search the indexes of query " + preparedQuery, failure );
+		}
+	}
+
+	/**
+	 * Searches a shard, returning true if the time limit was reached before the end.
+	 */
+	private final class ShardSearch implements Callable<Boolean> {
+
+		private final IndexSearcher shardSearcher;
+		private final Weight weight;
+		private final Collector collector;
+
+		ShardSearch(IndexSearcher shardSearcher, Weight weight, Collector collector) {
+			this.shardSearcher = shardSearcher;
+			this.weight = weight;
+			this.collector = collector;
+		}
+
+		@Override
+		public Boolean call() throws IOException {
+			try {
+				shardSearcher.search( weight, filter, collector );
+				return false;
+			}
+			catch ( TimeLimitingCollector.TimeExceededException e ) {
+				return true;
+			}
+		}
+	}
+
 	private Collector optionallyEnableFacetingCollectors(Collector collector) {
 		if ( facetRequests == null || facetRequests.isEmpty() ) {
 			return collector;
@@ -0,0 +1,70 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.query.engine.impl;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.spi.ServiceProvider;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Provides the executor searching in parallel the shards targeted by the queries of a SearchFactory.
+ * The service is {@code null} when shards are searched sequentially.
+ *
+ * @see Environment#QUERY_SHARDS_THREADS
+ */
+public class ShardSearchExecutorProvider implements ServiceProvider<ExecutorService> {
+
+	private static final Log log = LoggerFactory.make();
+
+	private ExecutorService executor;
+
+	@Override
+	public synchronized void start(Properties properties) {
+		if ( executor != null ) {
+			return;
+		}
+		int threads = ConfigurationParseHelper.getIntValue( properties, Environment.QUERY_SHARDS_THREADS, 0 );
+		if ( threads > 0 ) {
+			log.debugf( "Shards targeted by a query are searched in parallel by %d threads", threads );
+			executor = Executors.newFixedThreadPool( threads, "Shard search" );
+		}
+	}
+
+	@Override
+	public synchronized ExecutorService getService() {
+		return executor;
+	}
+
+	@Override
+	public synchronized void stop() {
+		if ( executor != null ) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+}
@@ -150,6 +150,23 @@ public interface HSQuery extends ProjectionConstants {
 	 */
 	HSQuery maxResults(Integer maxResults);
 
+	/**
+	 * Restricts the results to the ones ranked after the given cursor, obtained from {@link #getResultsCursor()}
+	 * after a previous execution of the same query. The first result and maximum number of results apply to
+	 * them, while the result size remains the one of the whole query.
+	 *
+	 * @param cursor the position after which results are returned, or {@code null} to return all results
+	 *
+	 * @return {@code this} to allow method chaining
+	 */
+	HSQuery resultsAfter(ResultsCursor cursor);
+
+	/**
+	 * @return the position after the last result returned by the last call to {@link #queryEntityInfos()},
+	 *         or {@code null} if it returned no result
+	 */
+	ResultsCursor getResultsCursor();
+
 	/**
 	 * @return the targeted entity types
 	 */
@@ -189,6 +206,19 @@ public interface HSQuery extends ProjectionConstants {
 	 */
 	List<EntityInfo> queryEntityInfos();
 
+	/**
+	 * Execute the Lucene query and hand all the matching {@code EntityInfo}s to the given handler, in batches of
+	 * at most {@code batchSize} elements, so that the whole result never needs to be held in memory: this is meant
+	 * for exports of large results. The hits are processed in index order without collecting the top documents,
+	 * so sorting, pagination, results cursors and faceting are ignored.
+	 *
+	 * @param batchSize the maximum number of {@code EntityInfo}s handed to the handler at once
+	 * @param handler the handler processing each batch of {@code EntityInfo}s
+	 *
+	 * @return the number of {@code EntityInfo}s handed to the handler
+	 */
+	int streamEntityInfos(int batchSize, EntityInfoBatchHandler handler);
+
 	/**
 	 * Execute the Lucene query and return a traversable object over the results.
 	 * Results are lazily fetched.
@@ -0,0 +1,60 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.query.engine.spi;
+
+import java.io.Serializable;
+
+import org.apache.lucene.search.ScoreDoc;
+
+/**
+ * Opaque position in the results of a query, right after the last result of a page.
+ * A query restricted to the results after a cursor collects only the next page, instead of
+ * collecting and skipping all the results of the previous pages.
+ * <p/>
+ * A cursor is only meaningful for a query with the same Lucene query, filters and sort as the one
+ * which created it. If the index was changed in between, results having the very same rank as the
+ * cursor might be skipped or returned twice.
+ *
+ * @see HSQuery#resultsAfter(ResultsCursor)
+ * @see HSQuery#getResultsCursor()
+ */
+public final class ResultsCursor implements Serializable {
+
+	private static final long serialVersionUID = 5187652387446394761L;
+
+	private final ScoreDoc scoreDoc;
+
+	public ResultsCursor(ScoreDoc scoreDoc) {
+		this.scoreDoc = scoreDoc;
+	}
+
+	/**
+	 * @return the last result of the page, a {@code FieldDoc} holding its sort values if the query is sorted
+	 */
+	public ScoreDoc getScoreDoc() {
+		return scoreDoc;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultsCursor[" + scoreDoc + "]";
+	}
+}
@@ -68,6 +68,14 @@ public enum FieldCacheLoadingType {
 	public abstract FieldLoadingStrategy createLoadingStrategy(String fieldName);
 
 	public static FieldLoadingStrategy getLoadingStrategy(String fieldName, Class<?> type) {
-		return fieldCacheTypes.get( type ).createLoadingStrategy( fieldName );
+		return getLoadingType( type ).createLoadingStrategy( fieldName );
+	}
+
+	/**
+	 * @param type the type of the field values
+	 * @return the FieldCache loading type for the given field type, or null if the FieldCache can't load it
+	 */
+	public static FieldCacheLoadingType getLoadingType(Class<?> type) {
+		return fieldCacheTypes.get( type );
 	}
 }
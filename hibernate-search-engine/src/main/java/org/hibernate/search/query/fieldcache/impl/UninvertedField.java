@@ -0,0 +1,210 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.query.fieldcache.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+
+import static org.hibernate.search.util.impl.CollectionHelper.newHashMap;
+
+/**
+ * The values of a field of a segment, uninverted so that all the terms of each document can be found:
+ * unlike the Lucene FieldCache, which keeps one term per document, it supports fields having several values
+ * per document. The terms are numbered by ordinal in their natural order; the ordinals of each document
+ * are stored consecutively in a packed array, and another packed array points to the first ordinal of
+ * each document.
+ * <p/>
+ * Like the FieldCache, instances are shared by all the readers using the same segment, and are discarded
+ * when the segment is not used anymore.
+ */
+public final class UninvertedField {
+
+	private static final Map<Object, Map<String, UninvertedField>> cache = new WeakHashMap<Object, Map<String, UninvertedField>>();
+
+	private final String[] terms;
+	private final PackedInts.Reader offsets;
+	private final PackedInts.Reader ordinals;
+
+	private UninvertedField(String[] terms, PackedInts.Reader offsets, PackedInts.Reader ordinals) {
+		this.terms = terms;
+		this.offsets = offsets;
+		this.ordinals = ordinals;
+	}
+
+	/**
+	 * @param reader a segment reader
+	 * @param fieldName the name of the field
+	 *
+	 * @return the uninverted values of the field in this segment, loaded the first time they are needed
+	 *
+	 * @throws IOException in case an error occurs reading the index
+	 */
+	public static UninvertedField getUninvertedField(IndexReader reader, String fieldName) throws IOException {
+		final Object key = reader.getCoreCacheKey();
+		synchronized ( cache ) {
+			Map<String, UninvertedField> fields = cache.get( key );
+			if ( fields != null && fields.containsKey( fieldName ) ) {
+				return fields.get( fieldName );
+			}
+		}
+		// concurrent queries might uninvert the same field at the same time: the last one is kept
+		UninvertedField uninvertedField = uninvert( reader, fieldName );
+		synchronized ( cache ) {
+			Map<String, UninvertedField> fields = cache.get( key );
+			if ( fields == null ) {
+				fields = newHashMap();
+				cache.put( key, fields );
+			}
+			fields.put( fieldName, uninvertedField );
+		}
+		return uninvertedField;
+	}
+
+	/**
+	 * @return the memory used by the uninverted fields of all the segments still in use, in bytes
+	 */
+	public static long getCachedRamBytesUsed() {
+		long ramBytesUsed = 0;
+		synchronized ( cache ) {
+			for ( Map<String, UninvertedField> fields : cache.values() ) {
+				for ( UninvertedField field : fields.values() ) {
+					ramBytesUsed += field.ramBytesUsed();
+				}
+			}
+		}
+		return ramBytesUsed;
+	}
+
+	private static UninvertedField uninvert(IndexReader reader, String fieldName) throws IOException {
+		final int maxDoc = reader.maxDoc();
+		final List<String> terms = new ArrayList<String>();
+		// first pass: count the terms of each document
+		final int[] positions = new int[maxDoc + 1];
+		TermDocs termDocs = reader.termDocs();
+		try {
+			TermEnum termEnum = reader.terms( new Term( fieldName, "" ) );
+			try {
+				while ( isOfField( termEnum.term(), fieldName ) ) {
+					terms.add( termEnum.term().text() );
+					termDocs.seek( termEnum );
+					while ( termDocs.next() ) {
+						positions[termDocs.doc() + 1]++;
+					}
+					if ( !termEnum.next() ) {
+						break;
+					}
+				}
+			}
+			finally {
+				termEnum.close();
+			}
+			for ( int doc = 0; doc < maxDoc; doc++ ) {
+				positions[doc + 1] += positions[doc];
+			}
+			final int ordinalCount = positions[maxDoc];
+			final PackedInts.Mutable offsets = PackedInts.getMutable( maxDoc + 1, PackedInts.bitsRequired( ordinalCount ) );
+			for ( int doc = 0; doc <= maxDoc; doc++ ) {
+				offsets.set( doc, positions[doc] );
+			}
+			// second pass: store the ordinals of each document, which are sorted as the terms are enumerated in order
+			final PackedInts.Mutable ordinals = PackedInts.getMutable(
+					ordinalCount, PackedInts.bitsRequired( Math.max( terms.size() - 1, 0 ) )
+			);
+			termEnum = reader.terms( new Term( fieldName, "" ) );
+			try {
+				for ( int ordinal = 0; ordinal < terms.size(); ordinal++ ) {
+					termDocs.seek( termEnum );
+					while ( termDocs.next() ) {
+						ordinals.set( positions[termDocs.doc()]++, ordinal );
+					}
+					termEnum.next();
+				}
+			}
+			finally {
+				termEnum.close();
+			}
+			return new UninvertedField( terms.toArray( new String[terms.size()] ), offsets, ordinals );
+		}
+		finally {
+			termDocs.close();
+		}
+	}
+
+	private static boolean isOfField(Term term, String fieldName) {
+		return term != null && fieldName.equals( term.field() );
+	}
+
+	/**
+	 * @return the number of distinct terms of the field in the segment
+	 */
+	public int getTermCount() {
+		return terms.length;
+	}
+
+	/**
+	 * @param ordinal the ordinal of a term
+	 *
+	 * @return the term
+	 */
+	public String getTerm(int ordinal) {
+		return terms[ordinal];
+	}
+
+	/**
+	 * Increments the count of each term of the document.
+	 *
+	 * @param doc the doc id relative to the segment
+	 * @param counts the counts, indexed by term ordinal
+	 */
+	public void countTerms(int doc, int[] counts) {
+		final int end = (int) offsets.get( doc + 1 );
+		for ( int i = (int) offsets.get( doc ); i < end; i++ ) {
+			counts[(int) ordinals.get( i )]++;
+		}
+	}
+
+	/**
+	 * @return an estimate of the memory used by this instance, in bytes
+	 */
+	public long ramBytesUsed() {
+		long ramBytesUsed = packedSize( offsets ) + packedSize( ordinals )
+				+ RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) terms.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+		for ( String term : terms ) {
+			ramBytesUsed += RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+					+ (long) term.length() * RamUsageEstimator.NUM_BYTES_CHAR;
+		}
+		return ramBytesUsed;
+	}
+
+	private static long packedSize(PackedInts.Reader packed) {
+		return RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + ( (long) packed.size() * packed.getBitsPerValue() + 7 ) / 8;
+	}
+}
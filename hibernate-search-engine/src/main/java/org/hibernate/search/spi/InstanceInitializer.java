@@ -68,4 +68,12 @@ public interface InstanceInitializer {
 	 */
 	public Object[] initializeArray(Object[] value);
 
+	/**
+	 * Initializes several proxies and lazy collections at once where the integration supports it,
+	 * rather than one at a time: to be used before navigating the same associations of many entities.
+	 *
+	 * @param values the proxies, collections and maps to initialize; any other value is ignored
+	 */
+	public void initializeBatch(Collection<?> values);
+
 }
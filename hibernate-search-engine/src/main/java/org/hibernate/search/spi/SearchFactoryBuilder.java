@@ -79,6 +79,7 @@ import org.hibernate.search.engine.ServiceManager;
 import org.hibernate.search.exception.ErrorHandler;
 import org.hibernate.search.exception.impl.LogErrorHandler;
 import org.hibernate.search.filter.FilterCachingStrategy;
+import org.hibernate.search.filter.IdFilter;
 import org.hibernate.search.filter.ShardSensitiveOnlyFilter;
 import org.hibernate.search.impl.ConfigContext;
 import org.hibernate.search.impl.ImmutableSearchFactory;
@@ -236,7 +237,9 @@ public class SearchFactoryBuilder {
 		}
 		fillSimilarityMapping();
 
-		QueueingProcessor queueingProcessor = new BatchedQueueingProcessor( documentBuildersIndexedEntities, cfg.getProperties() );
+		QueueingProcessor queueingProcessor = new BatchedQueueingProcessor(
+				documentBuildersIndexedEntities, factoryState.getAllIndexesManager(), cfg.getProperties(), factoryState.getErrorHandler()
+		);
 		//build worker and back end components
 		factoryState.setWorker( WorkerFactory.createWorker( cfg, buildContext, queueingProcessor) );
 		factoryState.setFilterCachingStrategy( buildFilterCachingStrategy( cfg.getProperties() ) );
@@ -470,7 +473,8 @@ public class SearchFactoryBuilder {
 	private void bindFullTextFilterDef(FullTextFilterDef defAnn) {
 		FilterDef filterDef = new FilterDef( defAnn );
 		final Map<String, FilterDef> filterDefinition = factoryState.getFilterDefinitions();
-		if ( filterDef.getImpl().equals( ShardSensitiveOnlyFilter.class ) ) {
+		if ( filterDef.getImpl().equals( ShardSensitiveOnlyFilter.class )
+				|| filterDef.getImpl().equals( IdFilter.class ) ) {
 			//this is a placeholder don't process regularly
 			filterDefinition.put( defAnn.name(), filterDef );
 			return;
@@ -127,6 +127,109 @@ public interface Statistics {
 	 *         the map value is the document count.
 	 */
 	Map<String, Integer> indexedEntitiesCount();
-}
 
+	/**
+	 * Returns the memory the IndexWriters of all indexes are allowed to use to buffer changes.
+	 *
+	 * @return the indexing RAM budget in bytes, or 0 if no budget is configured
+	 *
+	 * @see org.hibernate.search.Environment#INDEXING_RAM_BUDGET
+	 */
+	long getIndexingRamBudget();
+
+	/**
+	 * Returns the memory currently used by the IndexWriters sharing the indexing RAM budget.
+	 *
+	 * @return the memory used in bytes, or 0 if no budget is configured
+	 */
+	long getIndexingRamUsed();
+
+	/**
+	 * Returns the number of times an IndexWriter was flushed because the indexing RAM budget was exceeded.
+	 *
+	 * @return the number of flushes, or 0 if no budget is configured
+	 */
+	long getIndexingRamBudgetFlushCount();
+
+	/**
+	 * Returns the number of IndexReaders warmed before being made available to queries.
+	 *
+	 * @return the number of warmed IndexReaders
+	 *
+	 * @see org.hibernate.search.indexes.spi.IndexReaderWarmer
+	 */
+	long getReaderWarmupCount();
+
+	/**
+	 * Get the total time in nanoseconds spent warming IndexReaders.
+	 */
+	long getReaderWarmupTotalTime();
+
+	/**
+	 * Get the time in nanoseconds of the slowest IndexReader warm-up.
+	 */
+	long getReaderWarmupMaxTime();
+
+	/**
+	 * Returns the number of shards which queries restricted to some entity identifiers didn't search,
+	 * as they could not contain any of these entities.
+	 *
+	 * @return the number of shards pruned from queries
+	 *
+	 * @see org.hibernate.search.filter.IdFilter
+	 */
+	long getSearchQueryPrunedShardsCount();
 
+	/**
+	 * Returns the memory used to count the facets of multi-valued fields: the values of these fields are
+	 * uninverted segment by segment and, like the Lucene FieldCache, shared within the JVM.
+	 *
+	 * @return an estimate of the memory used by the uninverted fields of the segments in use, in bytes
+	 *
+	 * @see org.hibernate.search.query.dsl.DiscreteFacetContext#multiValued()
+	 */
+	long getUninvertedFieldsRamUsed();
+
+	/**
+	 * Returns the number of operations applied to the near-real-time indexes and not committed yet, for the
+	 * indexes committed periodically: these changes would be lost in case of crash.
+	 *
+	 * @return the number of uncommitted operations of all periodically committed near-real-time indexes
+	 *
+	 * @see org.hibernate.search.indexes.impl.NRTIndexManager#getUncommittedOperations()
+	 */
+	long getNRTUncommittedOperations();
+
+	/**
+	 * Returns how far behind the applied changes the periodic commits of the near-real-time indexes are.
+	 *
+	 * @return the largest number of changesets applied to a near-real-time index after its last committed generation
+	 *
+	 * @see org.hibernate.search.indexes.impl.NRTIndexManager#getLastCommittedGeneration()
+	 */
+	long getNRTCommitLag();
+
+	/**
+	 * Get the time in milliseconds of the slowest among the last periodic commits of the near-real-time indexes.
+	 */
+	long getNRTLastCommitMaxTime();
+
+	/**
+	 * Returns the number of works enqueued in the async backends which coalesce works across transactions.
+	 *
+	 * @return the number of works enqueued while coalescing is enabled
+	 *
+	 * @see org.hibernate.search.Environment#COALESCING_WINDOW
+	 */
+	long getCoalescingEnqueuedWorksCount();
+
+	/**
+	 * Returns the number of works never applied to the indexes, as they were superseded by later works
+	 * about the same entity within the coalescing window.
+	 *
+	 * @return the number of works eliminated by coalescing
+	 *
+	 * @see org.hibernate.search.Environment#COALESCING_WINDOW
+	 */
+	long getCoalescingEliminatedWorksCount();
+}
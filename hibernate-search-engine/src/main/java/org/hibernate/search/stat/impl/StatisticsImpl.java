@@ -24,8 +24,10 @@
 package org.hibernate.search.stat.impl;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -46,7 +48,16 @@ import org.hibernate.annotations.common.util.ReflectHelper;
 import org.hibernate.search.ProjectionConstants;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.Version;
+import org.hibernate.search.backend.impl.lucene.IndexingMemoryController;
+import org.hibernate.search.backend.impl.lucene.IndexingMemoryControllerProvider;
+import org.hibernate.search.backend.impl.lucene.LuceneBackendQueueProcessor;
+import org.hibernate.search.backend.spi.BackendQueueProcessor;
+import org.hibernate.search.engine.ServiceManager;
 import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.impl.NRTIndexManager;
+import org.hibernate.search.indexes.spi.IndexManager;
+import org.hibernate.search.query.fieldcache.impl.UninvertedField;
 import org.hibernate.search.stat.Statistics;
 import org.hibernate.search.stat.spi.StatisticsImplementor;
 import org.hibernate.search.util.logging.impl.Log;
@@ -70,19 +81,27 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	private AtomicLong objectLoadTotalTime = new AtomicLong();
 	private AtomicLong objectLoadMaxTime = new AtomicLong();
 
+	private AtomicLong readerWarmupCount = new AtomicLong();
+	private AtomicLong readerWarmupTotalTime = new AtomicLong();
+	private AtomicLong readerWarmupMaxTime = new AtomicLong();
+
+	private AtomicLong prunedShardsCount = new AtomicLong();
+
 	private volatile boolean isStatisticsEnabled;
 
 	private final Lock readLock;
 	private final Lock writeLock;
 
 	private final SearchFactoryImplementor searchFactoryImplementor;
+	private final ServiceManager serviceManager;
 
-	public StatisticsImpl(SearchFactoryImplementor searchFactoryImplementor) {
+	public StatisticsImpl(SearchFactoryImplementor searchFactoryImplementor, ServiceManager serviceManager) {
 		ReadWriteLock lock = new ReentrantReadWriteLock();
 		readLock = lock.readLock();
 		writeLock = lock.writeLock();
 
 		this.searchFactoryImplementor = searchFactoryImplementor;
+		this.serviceManager = serviceManager;
 	}
 
 	public void clear() {
@@ -94,6 +113,12 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		objectLoadedCount.set( 0 );
 		objectLoadMaxTime.set( 0 );
 		objectLoadTotalTime.set( 0 );
+
+		readerWarmupCount.set( 0 );
+		readerWarmupMaxTime.set( 0 );
+		readerWarmupTotalTime.set( 0 );
+
+		prunedShardsCount.set( 0 );
 	}
 
 	public long getSearchQueryExecutionCount() {
@@ -188,6 +213,107 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		}
 	}
 
+	public long getReaderWarmupCount() {
+		return readerWarmupCount.get();
+	}
+
+	public long getReaderWarmupTotalTime() {
+		return readerWarmupTotalTime.get();
+	}
+
+	public long getReaderWarmupMaxTime() {
+		return readerWarmupMaxTime.get();
+	}
+
+	public void readerWarmed(long time) {
+		for ( long old = readerWarmupMaxTime.get();
+			  ( time > old ) && ( !readerWarmupMaxTime.compareAndSet( old, time ) );
+			  old = readerWarmupMaxTime.get() ) {
+			;
+		}
+		readerWarmupCount.getAndIncrement();
+		readerWarmupTotalTime.addAndGet( time );
+	}
+
+	public long getSearchQueryPrunedShardsCount() {
+		return prunedShardsCount.get();
+	}
+
+	public long getUninvertedFieldsRamUsed() {
+		return UninvertedField.getCachedRamBytesUsed();
+	}
+
+	public long getNRTUncommittedOperations() {
+		long operations = 0;
+		for ( NRTIndexManager indexManager : getPeriodicallyCommittedNRTIndexManagers() ) {
+			operations += indexManager.getUncommittedOperations();
+		}
+		return operations;
+	}
+
+	public long getNRTCommitLag() {
+		long lag = 0;
+		for ( NRTIndexManager indexManager : getPeriodicallyCommittedNRTIndexManagers() ) {
+			lag = Math.max( lag, indexManager.getCurrentGeneration() - indexManager.getLastCommittedGeneration() );
+		}
+		return lag;
+	}
+
+	public long getNRTLastCommitMaxTime() {
+		long time = 0;
+		for ( NRTIndexManager indexManager : getPeriodicallyCommittedNRTIndexManagers() ) {
+			time = Math.max( time, indexManager.getLastCommitDurationMillis() );
+		}
+		return time;
+	}
+
+	public long getCoalescingEnqueuedWorksCount() {
+		long works = 0;
+		for ( LuceneBackendQueueProcessor backend : getLuceneBackends() ) {
+			works += backend.getCoalescingEnqueuedWorksCount();
+		}
+		return works;
+	}
+
+	public long getCoalescingEliminatedWorksCount() {
+		long works = 0;
+		for ( LuceneBackendQueueProcessor backend : getLuceneBackends() ) {
+			works += backend.getCoalescingEliminatedWorksCount();
+		}
+		return works;
+	}
+
+	private List<LuceneBackendQueueProcessor> getLuceneBackends() {
+		List<LuceneBackendQueueProcessor> backends = new ArrayList<LuceneBackendQueueProcessor>();
+		for ( IndexManager indexManager : searchFactoryImplementor.getAllIndexesManager().getIndexManagers() ) {
+			if ( indexManager instanceof DirectoryBasedIndexManager ) {
+				BackendQueueProcessor backend = ( (DirectoryBasedIndexManager) indexManager ).getBackendQueueProcessor();
+				if ( backend instanceof LuceneBackendQueueProcessor ) {
+					backends.add( (LuceneBackendQueueProcessor) backend );
+				}
+			}
+		}
+		return backends;
+	}
+
+	private List<NRTIndexManager> getPeriodicallyCommittedNRTIndexManagers() {
+		List<NRTIndexManager> nrtIndexManagers = new ArrayList<NRTIndexManager>();
+		for ( IndexManager indexManager : searchFactoryImplementor.getAllIndexesManager().getIndexManagers() ) {
+			if ( indexManager instanceof NRTIndexManager ) {
+				NRTIndexManager nrtIndexManager = (NRTIndexManager) indexManager;
+				// periodic commits are disabled when the last committed generation is -1
+				if ( nrtIndexManager.getLastCommittedGeneration() >= 0 ) {
+					nrtIndexManagers.add( nrtIndexManager );
+				}
+			}
+		}
+		return nrtIndexManagers;
+	}
+
+	public void shardsPruned(int numberOfShards) {
+		prunedShardsCount.addAndGet( numberOfShards );
+	}
+
 	public boolean isStatisticsEnabled() {
 		return isStatisticsEnabled;
 	}
@@ -239,6 +365,36 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		return countPerEntity;
 	}
 
+	public long getIndexingRamBudget() {
+		IndexingMemoryController controller = serviceManager.requestService( IndexingMemoryControllerProvider.class );
+		try {
+			return controller == null ? 0 : controller.getBudgetInBytes();
+		}
+		finally {
+			serviceManager.releaseService( IndexingMemoryControllerProvider.class );
+		}
+	}
+
+	public long getIndexingRamUsed() {
+		IndexingMemoryController controller = serviceManager.requestService( IndexingMemoryControllerProvider.class );
+		try {
+			return controller == null ? 0 : controller.getRamUsedInBytes();
+		}
+		finally {
+			serviceManager.releaseService( IndexingMemoryControllerProvider.class );
+		}
+	}
+
+	public long getIndexingRamBudgetFlushCount() {
+		IndexingMemoryController controller = serviceManager.requestService( IndexingMemoryControllerProvider.class );
+		try {
+			return controller == null ? 0 : controller.getFlushCount();
+		}
+		finally {
+			serviceManager.releaseService( IndexingMemoryControllerProvider.class );
+		}
+	}
+
 	private Class<?> getEntityClass(String entity) {
 		Class<?> clazz;
 		try {
@@ -46,4 +46,19 @@ public interface StatisticsImplementor {
 	 * @param time time in nanoseconds to execute the search
 	 */	
 	void searchExecuted(String searchString, long time);
+
+	/**
+	 * Callback for an IndexReader warmed before being made available to queries.
+	 *
+	 * @param time time in nanoseconds to warm the IndexReader
+	 */
+	void readerWarmed(long time);
+
+	/**
+	 * Callback for a query not searching some shards of the targeted entities, as
+	 * they could not contain any of the entities the query is restricted to.
+	 *
+	 * @param numberOfShards number of shards which were not searched
+	 */
+	void shardsPruned(int numberOfShards);
 }
@@ -0,0 +1,36 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.store;
+
+/**
+ * Marks the IndexShardingStrategy implementations which select the IndexManager of an entity from
+ * the string form of its identifier alone, so that the shards containing some identifiers are
+ * known without looking at the entities.
+ * <p/>
+ * Queries restricted to some entity identifiers, by an {@link org.hibernate.search.filter.IdFilter} or by
+ * required term queries on the identifier field, only search the IndexManagers returned by
+ * {@link #getIndexManagersForDeletion(Class, java.io.Serializable, String)} for these identifiers:
+ * the {@code id} parameter is null when invoked to select the shards of a query.
+ * Strategies not implementing this interface always search the IndexManagers returned by
+ * {@link #getIndexManagersForQuery(org.hibernate.search.filter.FullTextFilterImplementor[])}.
+ */
+public interface IdRoutingShardingStrategy extends IndexShardingStrategy {
+}
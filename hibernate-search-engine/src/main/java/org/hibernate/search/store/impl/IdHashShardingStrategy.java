@@ -30,14 +30,14 @@ import org.apache.lucene.document.Document;
 
 import org.hibernate.search.filter.FullTextFilterImplementor;
 import org.hibernate.search.indexes.spi.IndexManager;
-import org.hibernate.search.store.IndexShardingStrategy;
+import org.hibernate.search.store.IdRoutingShardingStrategy;
 
 /**
  * This implementation use idInString as the hashKey.
  * 
  * @author Emmanuel Bernard
  */
-public class IdHashShardingStrategy implements IndexShardingStrategy {
+public class IdHashShardingStrategy implements IdRoutingShardingStrategy {
 	
 	private IndexManager[] providers;
 	public void initialize(Properties properties, IndexManager[] providers) {
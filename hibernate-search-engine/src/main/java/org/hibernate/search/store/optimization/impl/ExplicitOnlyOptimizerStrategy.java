@@ -72,6 +72,33 @@ public class ExplicitOnlyOptimizerStrategy implements OptimizerStrategy {
 		}
 	}
 
+	/**
+	 * Merges away the deleted documents of the index, unless it is already being optimized.
+	 *
+	 * @param writer the index writer
+	 *
+	 * @return {@code true} if the deleted documents were merged away, {@code false} otherwise
+	 */
+	protected boolean performDeletesExpunge(IndexWriter writer) {
+		boolean acquired = optimizerIsBusy.compareAndSet( false, true );
+		if ( acquired ) {
+			try {
+				writer.forceMergeDeletes( true );
+			}
+			catch (IOException e) {
+				throw new SearchException( "Unable to expunge deletes from directoryProvider: " + indexName, e );
+			}
+			finally {
+				optimizerIsBusy.set( false );
+			}
+			return true;
+		}
+		else {
+			log.optimizationSkippedStillBusy( indexName );
+			return false;
+		}
+	}
+
 	@Override
 	public void addOperationWithinTransactionCount(long operations) {
 	}
@@ -23,10 +23,14 @@
  */
 package org.hibernate.search.store.optimization.impl;
 
+import java.io.IOException;
 import java.util.Properties;
 
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentInfos;
 
+import org.hibernate.search.SearchException;
 import org.hibernate.search.store.Workspace;
 import org.hibernate.search.store.optimization.OptimizerStrategy;
 import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
@@ -35,7 +39,12 @@ import org.hibernate.search.util.logging.impl.Log;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
 /**
- * Optimization strategy triggered after a certain amount of operations
+ * Optimization strategy triggered after a certain amount of operations, or when the
+ * index has too many segments or deleted documents.
+ * <p/>
+ * The health of the index is read from its last commit, at most once per second.
+ * When only the ratio of deleted documents is too high the deleted documents are
+ * merged away, instead of optimizing the whole index.
  *
  * @author Emmanuel Bernard
  */
@@ -43,8 +52,13 @@ public class IncrementalOptimizerStrategy extends ExplicitOnlyOptimizerStrategy
 	
 	private static final Log log = LoggerFactory.make();
 
+	private static final long HEALTH_CHECK_INTERVAL_MILLIS = 1000;
+
 	private int operationMax = -1;
 	private int transactionMax = -1;
+	private int segmentMax = -1;
+	private int deletedDocsPercentageMax = -1;
+	private volatile long nextHealthCheck = 0;
 	private volatile long operations = 0;
 	private volatile long transactions = 0;
 	private volatile long optimizationsPerformed = 0;
@@ -76,6 +90,10 @@ public class IncrementalOptimizerStrategy extends ExplicitOnlyOptimizerStrategy
 		}
 	}
 
+	private boolean checksHealth() {
+		return segmentMax != -1 || deletedDocsPercentageMax != -1;
+	}
+
 	@Override
 	public void optimize(Workspace workspace) {
 		if ( needOptimization() ) {
@@ -84,6 +102,39 @@ public class IncrementalOptimizerStrategy extends ExplicitOnlyOptimizerStrategy
 			IndexWriter writer = workspace.getIndexWriter();
 			performOptimization( writer );
 		}
+		else if ( checksHealth() && System.currentTimeMillis() >= nextHealthCheck ) {
+			nextHealthCheck = System.currentTimeMillis() + HEALTH_CHECK_INTERVAL_MILLIS;
+			IndexWriter writer = workspace.getIndexWriter();
+			if ( writer != null ) {
+				optimizeIfUnhealthy( writer );
+			}
+		}
+	}
+
+	private void optimizeIfUnhealthy(IndexWriter writer) {
+		SegmentInfos segmentInfos = new SegmentInfos();
+		int documents = 0;
+		int deletedDocuments = 0;
+		try {
+			segmentInfos.read( writer.getDirectory() );
+			for ( SegmentInfo segmentInfo : segmentInfos ) {
+				documents += segmentInfo.docCount;
+				deletedDocuments += segmentInfo.getDelCount();
+			}
+		}
+		catch (IOException e) {
+			throw new SearchException( "Unable to read the segments of directoryProvider: " + indexName, e );
+		}
+		if ( segmentMax != -1 && segmentInfos.size() > segmentMax ) {
+			log.debugv( "Optimize {0} as it has {1} segments", indexName, segmentInfos.size() );
+			performOptimization( writer );
+		}
+		else if ( deletedDocsPercentageMax != -1 && documents > 0
+				&& deletedDocuments * 100L > deletedDocsPercentageMax * (long) documents ) {
+			log.debugv( "Expunge deletes from {0} as {1} of its {2} documents are deleted",
+						indexName, deletedDocuments, documents );
+			performDeletesExpunge( writer );
+		}
 	}
 
 	@Override
@@ -91,6 +142,8 @@ public class IncrementalOptimizerStrategy extends ExplicitOnlyOptimizerStrategy
 		super.initialize( indexManager, indexProperties );
 		operationMax = ConfigurationParseHelper.getIntValue( indexProperties, "optimizer.operation_limit.max", -1 );
 		transactionMax = ConfigurationParseHelper.getIntValue( indexProperties, "optimizer.transaction_limit.max", -1 );
+		segmentMax = ConfigurationParseHelper.getIntValue( indexProperties, "optimizer.segment_limit.max", -1 );
+		deletedDocsPercentageMax = ConfigurationParseHelper.getIntValue( indexProperties, "optimizer.deleted_docs_percentage.max", -1 );
 	}
 
 	public long getOptimizationsPerformed() {
@@ -518,4 +518,44 @@ public interface Log extends BasicLogger {
 	@LogMessage(level = Level.WARN)
 	@Message(id = 120, value = "There are multiple properties indexed against the same field name '%1$s', but with different indexing settings. The behaviour is undefined.")
 	void inconsistentFieldConfiguration(String fieldName);
+
+	@Message(id = 121, value = "Unable to build the Lucene Documents of a committed transaction: the indexes were not updated")
+	String documentBuildingFailed();
+
+	@LogMessage(level = Level.WARN)
+	@Message(id = 122, value = "Index %1$s is not used exclusively: automatic optimizations can't run in background and are applied synchronously")
+	void backgroundOptimizationRequiresExclusiveIndexUse(String indexName);
+
+	@Message(id = 123, value = "Background optimization of index %1$s failed")
+	String backgroundOptimizationFailed(String indexName);
+
+	@Message(id = 124, value = "Invalid value for %1$s on index %2$s: '%3$s'. Expected a daily time window as HH:mm-HH:mm")
+	SearchException invalidOptimizationWindow(String property, String indexName, String value);
+
+	@Message(id = 125, value = "Refreshing the near-real-time IndexReader of index %1$s failed")
+	String nrtReaderRefreshFailed(String indexName);
+
+	@Message(id = 126, value = "Periodic commit of the near-real-time index %1$s failed")
+	String nrtCommitFailed(String indexName);
+
+	@LogMessage(level = Level.WARN)
+	@Message(id = 127, value = "%1$s is ignored: the integration doesn't provide an EntityReindexer to reindex asynchronously the entities beyond the limit")
+	void containedInFanOutRequiresReindexer(String property);
+
+	@Message(id = 128, value = "Asynchronous reindexing of entities of type %1$s reached by @ContainedIn failed")
+	String containedInReindexingFailed(String entityType);
+
+	@LogMessage(level = Level.WARN)
+	@Message(id = 129, value = "Refreshing the IndexReader of index %1$s failed")
+	void readerRefreshFailed(String indexName, @Cause Exception e);
+
+	@LogMessage(level = Level.WARN)
+	@Message(id = 130, value = "Warming an IndexReader of index %1$s failed")
+	void readerWarmingFailed(String indexName, @Cause Exception e);
+
+	@Message(id = 131, value = "Interrupted while applying a stream operation to index %1$s: the operation might not have been applied")
+	SearchException interruptedWhileApplyingStreamWork(@Cause InterruptedException e, String indexName);
+
+	@Message(id = 132, value = "Unable to read the generation last committed to the near-real-time index %1$s")
+	SearchException unableToReadCommittedGeneration(@Cause IOException e, String indexName);
 }
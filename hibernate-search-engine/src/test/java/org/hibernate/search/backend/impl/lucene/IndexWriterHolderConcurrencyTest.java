@@ -0,0 +1,329 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.search.exception.impl.LogErrorHandler;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.spi.BuildContext;
+import org.hibernate.search.store.DirectoryProvider;
+import org.hibernate.search.store.impl.DirectoryProviderHelper;
+import org.hibernate.search.test.util.RamIndexManager;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that slow commits of an IndexWriterHolder don't block the threads getting the
+ * IndexWriter, and stress tests it applying changes while other threads commit and open
+ * NRT IndexReaders.
+ *
+ * @see IndexWriterHolderThroughputTestDontRun
+ */
+public class IndexWriterHolderConcurrencyTest {
+
+	private static final int WRITER_THREADS = 4;
+	private static final long RUN_MILLIS = 2000;
+
+	@Test
+	public void getIndexWriterDoesntWaitForCommits() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty( "directory_provider", BlockingSyncDirectoryProvider.class.getName() );
+		RamIndexManager indexManager = RamIndexManager.makeRamDirectory( properties );
+		final IndexWriterHolder holder = new IndexWriterHolder( new LogErrorHandler(), indexManager );
+		final CountDownLatch syncing = new CountDownLatch( 1 );
+		final CountDownLatch resume = new CountDownLatch( 1 );
+		try {
+			addDocument( holder.getIndexWriter(), 1 );
+			BlockingSyncDirectoryProvider.syncing = syncing;
+			BlockingSyncDirectoryProvider.resume = resume;
+			Thread committer = new Thread() {
+				@Override
+				public void run() {
+					holder.commitIndexWriter();
+				}
+			};
+			committer.start();
+			assertTrue( "commit not started", syncing.await( 10, TimeUnit.SECONDS ) );
+
+			// the commit holds the commit lock until resumed
+			final CountDownLatch writerObtained = new CountDownLatch( 1 );
+			Thread writer = new Thread() {
+				@Override
+				public void run() {
+					holder.getIndexWriter();
+					writerObtained.countDown();
+				}
+			};
+			writer.start();
+			boolean obtainedDuringCommit = writerObtained.await( 10, TimeUnit.SECONDS );
+			boolean commitStillRunning = committer.isAlive();
+			resume.countDown();
+			committer.join();
+			writer.join();
+			assertTrue( "getIndexWriter waited for the commit", obtainedDuringCommit && commitStillRunning );
+
+			IndexReader reader = holder.openDirectoryIndexReader();
+			try {
+				assertEquals( 1, reader.numDocs() );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			BlockingSyncDirectoryProvider.resume = null;
+			resume.countDown();
+			holder.closeIndexWriter();
+			indexManager.destroy();
+		}
+	}
+
+	@Test
+	public void concurrentCommitsAndNRTReadersKeepAllDocuments() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty( "directory_provider", SlowSyncDirectoryProvider.class.getName() );
+		RamIndexManager indexManager = RamIndexManager.makeRamDirectory( properties );
+		final IndexWriterHolder holder = new IndexWriterHolder( new LogErrorHandler(), indexManager );
+		final AtomicBoolean running = new AtomicBoolean( true );
+		final AtomicInteger documents = new AtomicInteger();
+		final AtomicInteger commits = new AtomicInteger();
+		final AtomicInteger nrtReaders = new AtomicInteger();
+		final List<Throwable> failures = Collections.synchronizedList( new ArrayList<Throwable>() );
+		try {
+			holder.getIndexWriter();
+			List<Thread> writers = new ArrayList<Thread>();
+			for ( int i = 0; i < WRITER_THREADS; i++ ) {
+				writers.add( new Worker( running, failures ) {
+					@Override
+					void work() throws Exception {
+						addDocument( holder.getIndexWriter(), documents.incrementAndGet() );
+					}
+				} );
+			}
+			Thread committer = new Worker( running, failures ) {
+				@Override
+				void work() {
+					holder.commitIndexWriter();
+					commits.incrementAndGet();
+				}
+			};
+			Thread nrtOpener = new Worker( running, failures ) {
+				@Override
+				void work() throws Exception {
+					IndexReader reader = holder.openNRTIndexReader( true );
+					if ( reader != null ) {
+						reader.close();
+						nrtReaders.incrementAndGet();
+					}
+				}
+			};
+			for ( Thread writer : writers ) {
+				writer.start();
+			}
+			committer.start();
+			nrtOpener.start();
+			Thread.sleep( RUN_MILLIS );
+			running.set( false );
+			for ( Thread writer : writers ) {
+				writer.join();
+			}
+			committer.join();
+			nrtOpener.join();
+			assertTrue( "Failures: " + failures, failures.isEmpty() );
+			assertTrue( "No commit performed", commits.get() > 0 );
+			assertTrue( "No NRT IndexReader opened", nrtReaders.get() > 0 );
+
+			holder.commitIndexWriter();
+			IndexReader reader = holder.openDirectoryIndexReader();
+			try {
+				assertEquals( documents.get(), reader.numDocs() );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			holder.closeIndexWriter();
+			indexManager.destroy();
+		}
+	}
+
+	private static void addDocument(IndexWriter writer, int id) throws IOException {
+		Document document = new Document();
+		document.add( new Field( "id", String.valueOf( id ), Field.Store.YES, Field.Index.NOT_ANALYZED ) );
+		writer.addDocument( document );
+	}
+
+	abstract static class Worker extends Thread {
+
+		private final AtomicBoolean running;
+		private final List<Throwable> failures;
+
+		Worker(AtomicBoolean running, List<Throwable> failures) {
+			this.running = running;
+			this.failures = failures;
+		}
+
+		abstract void work() throws Exception;
+
+		@Override
+		public void run() {
+			try {
+				while ( running.get() ) {
+					work();
+				}
+			}
+			catch ( Throwable t ) {
+				failures.add( t );
+				running.set( false );
+			}
+		}
+
+	}
+
+	/**
+	 * A RAMDirectory slow to sync segment files, making commits slow. The segments_N file
+	 * is synced while the IndexWriter holds its own monitor, so it isn't delayed.
+	 */
+	public static class SlowSyncDirectoryProvider implements DirectoryProvider<RAMDirectory> {
+
+		static final long SYNC_DELAY_MILLIS = 200;
+
+		private final RAMDirectory directory = new SlowSyncDirectory();
+
+		private static boolean isSegmentsFile(Collection<String> names) {
+			return names.size() == 1 && names.iterator().next().startsWith( "segments" );
+		}
+
+		@Override
+		public void initialize(String directoryProviderName, Properties properties, BuildContext context) {
+		}
+
+		@Override
+		public void start(DirectoryBasedIndexManager indexManager) {
+			DirectoryProviderHelper.initializeIndexIfNeeded( directory );
+		}
+
+		@Override
+		public void stop() {
+			directory.close();
+		}
+
+		@Override
+		public RAMDirectory getDirectory() {
+			return directory;
+		}
+
+	}
+
+	/**
+	 * A RAMDirectory blocking the sync of segment files, once the latches are set, until resumed:
+	 * a commit holds the commit lock meanwhile.
+	 */
+	public static class BlockingSyncDirectoryProvider implements DirectoryProvider<RAMDirectory> {
+
+		static volatile CountDownLatch syncing;
+		static volatile CountDownLatch resume;
+
+		private final RAMDirectory directory = new BlockingSyncDirectory();
+
+		@Override
+		public void initialize(String directoryProviderName, Properties properties, BuildContext context) {
+		}
+
+		@Override
+		public void start(DirectoryBasedIndexManager indexManager) {
+			DirectoryProviderHelper.initializeIndexIfNeeded( directory );
+		}
+
+		@Override
+		public void stop() {
+			directory.close();
+		}
+
+		@Override
+		public RAMDirectory getDirectory() {
+			return directory;
+		}
+
+	}
+
+	static class SlowSyncDirectory extends RAMDirectory {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void sync(Collection<String> names) throws IOException {
+			if ( ! SlowSyncDirectoryProvider.isSegmentsFile( names ) ) {
+				try {
+					Thread.sleep( SlowSyncDirectoryProvider.SYNC_DELAY_MILLIS );
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			super.sync( names );
+		}
+
+	}
+
+	/**
+	 * Blocks syncing segment files while {@link BlockingSyncDirectoryProvider#resume} is set.
+	 */
+	static class BlockingSyncDirectory extends RAMDirectory {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void sync(Collection<String> names) throws IOException {
+			CountDownLatch resumeLatch = BlockingSyncDirectoryProvider.resume;
+			if ( resumeLatch != null && ! SlowSyncDirectoryProvider.isSegmentsFile( names ) ) {
+				BlockingSyncDirectoryProvider.syncing.countDown();
+				try {
+					resumeLatch.await();
+				}
+				catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			super.sync( names );
+		}
+
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl.lucene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.hibernate.search.backend.impl.lucene.IndexWriterHolderConcurrencyTest.SlowSyncDirectoryProvider;
+import org.hibernate.search.backend.impl.lucene.IndexWriterHolderConcurrencyTest.Worker;
+import org.hibernate.search.exception.impl.LogErrorHandler;
+import org.hibernate.search.test.util.RamIndexManager;
+import org.junit.Test;
+
+/**
+ * Measures how long threads getting the IndexWriter are blocked, and the indexing throughput,
+ * while other threads perform slow commits and open NRT IndexReaders.
+ * Not a unit test: run it manually to get the figures.
+ */
+public class IndexWriterHolderThroughputTestDontRun {
+
+	private static final int WRITER_THREADS = 4;
+	private static final long RUN_MILLIS = 10000;
+
+	public static void main(String[] args) throws Exception {
+		new IndexWriterHolderThroughputTestDontRun().measureWritesDuringCommits();
+	}
+
+	@Test
+	public void measureWritesDuringCommits() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty( "directory_provider", SlowSyncDirectoryProvider.class.getName() );
+		RamIndexManager indexManager = RamIndexManager.makeRamDirectory( properties );
+		final IndexWriterHolder holder = new IndexWriterHolder( new LogErrorHandler(), indexManager );
+		final AtomicBoolean running = new AtomicBoolean( true );
+		final AtomicInteger documents = new AtomicInteger();
+		final AtomicInteger commits = new AtomicInteger();
+		final AtomicInteger nrtReaders = new AtomicInteger();
+		final AtomicLong maxGetWriterNanos = new AtomicLong();
+		final List<Throwable> failures = Collections.synchronizedList( new ArrayList<Throwable>() );
+		try {
+			holder.getIndexWriter();
+			List<Thread> threads = new ArrayList<Thread>();
+			for ( int i = 0; i < WRITER_THREADS; i++ ) {
+				threads.add( new Worker( running, failures ) {
+					@Override
+					void work() throws Exception {
+						long start = System.nanoTime();
+						IndexWriter writer = holder.getIndexWriter();
+						long elapsed = System.nanoTime() - start;
+						long max;
+						do {
+							max = maxGetWriterNanos.get();
+						}
+						while ( elapsed > max && ! maxGetWriterNanos.compareAndSet( max, elapsed ) );
+						Document document = new Document();
+						document.add( new Field( "id", String.valueOf( documents.incrementAndGet() ), Field.Store.YES, Field.Index.NOT_ANALYZED ) );
+						writer.addDocument( document );
+					}
+				} );
+			}
+			threads.add( new Worker( running, failures ) {
+				@Override
+				void work() {
+					holder.commitIndexWriter();
+					commits.incrementAndGet();
+				}
+			} );
+			threads.add( new Worker( running, failures ) {
+				@Override
+				void work() throws Exception {
+					IndexReader reader = holder.openNRTIndexReader( true );
+					if ( reader != null ) {
+						reader.close();
+						nrtReaders.incrementAndGet();
+					}
+				}
+			} );
+			long start = System.nanoTime();
+			for ( Thread thread : threads ) {
+				thread.start();
+			}
+			Thread.sleep( RUN_MILLIS );
+			running.set( false );
+			for ( Thread thread : threads ) {
+				thread.join();
+			}
+			long elapsedMillis = ( System.nanoTime() - start ) / 1000000;
+			if ( ! failures.isEmpty() ) {
+				throw new IllegalStateException( "Failures: " + failures );
+			}
+			System.out.println( "Wrote " + documents.get() * 1000L / Math.max( elapsedMillis, 1 ) + " documents/sec during "
+					+ commits.get() + " commits and " + nrtReaders.get() + " NRT IndexReader opens" );
+			System.out.println( "getIndexWriter blocked for at most " + maxGetWriterNanos.get() / 1000000 + " ms, the commits sync for "
+					+ SlowSyncDirectoryProvider.SYNC_DELAY_MILLIS + " ms" );
+		}
+		finally {
+			holder.closeIndexWriter();
+			indexManager.destroy();
+		}
+	}
+
+}
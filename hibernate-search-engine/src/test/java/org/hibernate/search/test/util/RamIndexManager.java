@@ -41,9 +41,17 @@ public class RamIndexManager extends DirectoryBasedIndexManager {
 	private static final LogErrorHandler logErrorHandler = new LogErrorHandler();
 
 	public static RamIndexManager makeRamDirectory() {
+		return makeRamDirectory( new Properties() );
+	}
+
+	/**
+	 * @param properties the index configuration; uses a RAMDirectory unless another directory_provider is set
+	 */
+	public static RamIndexManager makeRamDirectory(Properties properties) {
 		RamIndexManager ramIndexManager = new RamIndexManager();
-		Properties properties = new Properties();
-		properties.setProperty( "directory_provider", "ram" );
+		if ( properties.getProperty( "directory_provider" ) == null ) {
+			properties.setProperty( "directory_provider", "ram" );
+		}
 		ramIndexManager.initialize( "testIndex", properties, new EmptyWorkerBuildContext() );
 		return ramIndexManager;
 	}
@@ -34,6 +34,7 @@ import org.hibernate.Query;
 import org.hibernate.search.query.DatabaseRetrievalMethod;
 import org.hibernate.search.query.ObjectLookupMethod;
 import org.hibernate.search.query.engine.spi.FacetManager;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
 import org.hibernate.transform.ResultTransformer;
 
 /**
@@ -130,6 +131,25 @@ public interface FullTextQuery extends Query, ProjectionConstants {
 	 */
 	FacetManager getFacetManager();
 
+	/**
+	 * Only return the results ranked after the given cursor, obtained from {@link #getResultsCursor()} after
+	 * listing a page of results of the same query. Each page is then collected on its own, instead of
+	 * collecting and skipping the results of all previous pages. The first result and maximum number
+	 * of results apply to the results after the cursor.
+	 *
+	 * @param cursor the position after which results are returned, or {@code null} to return all results
+	 *
+	 * @return {@code this} to allow method chaining
+	 */
+	FullTextQuery setResultsAfter(ResultsCursor cursor);
+
+	/**
+	 * @return the position after the last result of the last list of results, to pass to
+	 *         {@link #setResultsAfter(ResultsCursor)} to get the next page, or {@code null} if there
+	 *         were no results
+	 */
+	ResultsCursor getResultsCursor();
+
 	/**
 	 * Return the Lucene {@link org.apache.lucene.search.Explanation}
 	 * object describing the score computation for the matching object/document
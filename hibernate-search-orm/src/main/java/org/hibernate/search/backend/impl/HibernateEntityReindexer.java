@@ -0,0 +1,153 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.backend.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.backend.spi.EntityReindexer;
+import org.hibernate.search.batchindexing.impl.Executors;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.util.logging.impl.Log;
+import org.hibernate.search.util.logging.impl.LoggerFactory;
+
+/**
+ * Reindexes entities from a background thread, loading them by id in batches: each batch
+ * is loaded and reindexed by a different Session and transaction.
+ * The entities are reindexed by {@link FullTextSession#index(Object)}, so the {@code @ContainedIn}
+ * propagation from them isn't limited by {@link org.hibernate.search.Environment#CONTAINED_IN_MAX_FAN_OUT}.
+ *
+ * @see org.hibernate.search.Environment#CONTAINED_IN_BATCH_SIZE
+ */
+public class HibernateEntityReindexer implements EntityReindexer {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final int batchSize;
+
+	/**
+	 * Single threaded, and not bounded as the committing threads must not wait for it.
+	 */
+	private final ExecutorService executor = Executors.newFixedThreadPool( 1, "ContainedIn reindexer", Integer.MAX_VALUE );
+
+	public HibernateEntityReindexer(SessionFactoryImplementor sessionFactory, int batchSize) {
+		this.sessionFactory = sessionFactory;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void reindexLater(final Class<?> entityType, Collection<?> entities) {
+		// the ids are extracted right away: the entities are attached to a Session we can't use later
+		ClassMetadata metadata = sessionFactory.getClassMetadata( entityType );
+		final String idName = metadata.getIdentifierPropertyName();
+		List<Serializable> ids = new ArrayList<Serializable>( batchSize );
+		for ( Object entity : entities ) {
+			ids.add( getIdentifier( metadata, entity ) );
+			if ( ids.size() == batchSize ) {
+				submit( entityType, idName, ids );
+				ids = new ArrayList<Serializable>( batchSize );
+			}
+		}
+		if ( !ids.isEmpty() ) {
+			submit( entityType, idName, ids );
+		}
+	}
+
+	private static Serializable getIdentifier(ClassMetadata metadata, Object entity) {
+		if ( entity instanceof HibernateProxy ) {
+			// doesn't initialize the proxy
+			return ( (HibernateProxy) entity ).getHibernateLazyInitializer().getIdentifier();
+		}
+		else {
+			return metadata.getIdentifier( entity, null );
+		}
+	}
+
+	private void submit(final Class<?> entityType, final String idName, final List<Serializable> ids) {
+		executor.execute(
+				new Runnable() {
+					public void run() {
+						reindex( entityType, idName, ids );
+					}
+				}
+		);
+	}
+
+	private void reindex(Class<?> entityType, String idName, List<Serializable> ids) {
+		log.tracef( "Reindexing %d entities of type %s", ids.size(), entityType );
+		Session session = sessionFactory.openSession();
+		try {
+			session.setCacheMode( CacheMode.IGNORE );
+			FullTextSession fullTextSession = Search.getFullTextSession( session );
+			Transaction transaction = session.beginTransaction();
+			try {
+				List<?> list = session.createCriteria( entityType )
+						.add( Restrictions.in( idName, ids ) )
+						.list();
+				for ( Object entity : list ) {
+					fullTextSession.index( entity );
+				}
+				transaction.commit();
+			}
+			catch ( RuntimeException e ) {
+				transaction.rollback();
+				throw e;
+			}
+		}
+		catch ( RuntimeException e ) {
+			SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) Search.getFullTextSession( session )
+					.getSearchFactory();
+			searchFactory.getErrorHandler().handleException( log.containedInReindexingFailed( entityType.getName() ), e );
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Waits for the scheduled reindexing to be done.
+	 */
+	public void stop() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.interruptedWhileWaitingForIndexActivity();
+		}
+	}
+
+}
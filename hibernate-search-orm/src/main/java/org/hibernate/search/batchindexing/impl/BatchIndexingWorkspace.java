@@ -27,6 +27,7 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.hibernate.CacheMode;
 import org.hibernate.SessionFactory;
@@ -165,6 +166,9 @@ public class BatchIndexingWorkspace implements Runnable {
 			try {
 				producerEndSignal.await(); //await for all work being sent to the backend
 				log.debugf( "All work for type %s has been produced", indexedType.getName() );
+				//loaders signal the end of their production before reporting their own failures:
+				execIdentifiersLoader.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
+				execFirstLoader.awaitTermination( Long.MAX_VALUE, TimeUnit.SECONDS );
 			}
 			catch ( InterruptedException e ) {
 				//restore interruption signal:
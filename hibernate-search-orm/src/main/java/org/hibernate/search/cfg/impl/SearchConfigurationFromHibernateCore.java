@@ -45,11 +45,17 @@ import org.hibernate.search.spi.ServiceProvider;
  */
 public class SearchConfigurationFromHibernateCore implements SearchConfiguration {
 	private final org.hibernate.cfg.Configuration cfg;
+	private final Map<Class<? extends ServiceProvider<?>>, Object> providedServices;
 	private ReflectionManager reflectionManager;
 
 	public SearchConfigurationFromHibernateCore(org.hibernate.cfg.Configuration cfg) {
+		this( cfg, Collections.<Class<? extends ServiceProvider<?>>, Object>emptyMap() );
+	}
+
+	public SearchConfigurationFromHibernateCore(org.hibernate.cfg.Configuration cfg, Map<Class<? extends ServiceProvider<?>>, Object> providedServices) {
 		if ( cfg == null ) throw new NullPointerException( "Configuration is null" );
 		this.cfg = cfg;
+		this.providedServices = providedServices;
 	}
 
 	public Iterator<Class<?>> getClassMappings() {
@@ -90,7 +96,7 @@ public class SearchConfigurationFromHibernateCore implements SearchConfiguration
 	}
 
 	public Map<Class<? extends ServiceProvider<?>>, Object> getProvidedServices() {
-		return Collections.emptyMap();
+		return providedServices;
 	}
 
 	private static class ClassIterator implements Iterator<Class<?>> {
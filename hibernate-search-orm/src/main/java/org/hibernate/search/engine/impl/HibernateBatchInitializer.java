@@ -0,0 +1,151 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.engine.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.collection.internal.AbstractPersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+/**
+ * Initializes the proxies and lazy collections attached to a Session with a query for each
+ * entity type or collection role, instead of a query for each of them.
+ * Values which can't be loaded this way are left to be initialized one at a time.
+ */
+final class HibernateBatchInitializer {
+
+	/**
+	 * Identifiers of the uninitialized proxies, by Session then by entity name
+	 */
+	private final Map<SessionImplementor, Map<String, List<Serializable>>> proxies =
+			new IdentityHashMap<SessionImplementor, Map<String, List<Serializable>>>();
+
+	/**
+	 * Keys of the uninitialized collections, by Session then by collection role
+	 */
+	private final Map<SessionImplementor, Map<String, List<Serializable>>> collections =
+			new IdentityHashMap<SessionImplementor, Map<String, List<Serializable>>>();
+
+	HibernateBatchInitializer(Collection<?> values) {
+		for ( Object value : values ) {
+			if ( value instanceof HibernateProxy ) {
+				LazyInitializer lazyInitializer = ( (HibernateProxy) value ).getHibernateLazyInitializer();
+				if ( lazyInitializer.isUninitialized() ) {
+					add( proxies, lazyInitializer.getSession(), lazyInitializer.getEntityName(), lazyInitializer.getIdentifier() );
+				}
+			}
+			else if ( value instanceof AbstractPersistentCollection ) {
+				AbstractPersistentCollection collection = (AbstractPersistentCollection) value;
+				// the collections of deleted entities are dereferenced on flush
+				if ( !collection.wasInitialized() && collection.getRole() != null ) {
+					add( collections, collection.getSession(), collection.getRole(), collection.getKey() );
+				}
+			}
+		}
+	}
+
+	private static void add(Map<SessionImplementor, Map<String, List<Serializable>>> bySession,
+			SessionImplementor session, String name, Serializable id) {
+		if ( session == null || !session.isOpen() || !( session instanceof Session ) ) {
+			// initializing it later will fail as usual
+			return;
+		}
+		Map<String, List<Serializable>> byName = bySession.get( session );
+		if ( byName == null ) {
+			byName = new HashMap<String, List<Serializable>>();
+			bySession.put( session, byName );
+		}
+		List<Serializable> ids = byName.get( name );
+		if ( ids == null ) {
+			ids = new ArrayList<Serializable>();
+			byName.put( name, ids );
+		}
+		ids.add( id );
+	}
+
+	void initialize() {
+		for ( Map.Entry<SessionImplementor, Map<String, List<Serializable>>> entry : proxies.entrySet() ) {
+			for ( Map.Entry<String, List<Serializable>> entityIds : entry.getValue().entrySet() ) {
+				loadEntities( entry.getKey(), entityIds.getKey(), entityIds.getValue() );
+			}
+		}
+		for ( Map.Entry<SessionImplementor, Map<String, List<Serializable>>> entry : collections.entrySet() ) {
+			for ( Map.Entry<String, List<Serializable>> collectionKeys : entry.getValue().entrySet() ) {
+				loadCollections( entry.getKey(), collectionKeys.getKey(), collectionKeys.getValue() );
+			}
+		}
+	}
+
+	private static void loadEntities(SessionImplementor session, String entityName, List<Serializable> ids) {
+		if ( ids.size() < 2 ) {
+			return;
+		}
+		EntityPersister persister = session.getFactory().getEntityPersister( entityName );
+		String idName = persister.getIdentifierPropertyName();
+		if ( idName == null || persister.getIdentifierType().isComponentType() ) {
+			return;
+		}
+		// the proxies get their implementation from the persistence context
+		list( session, "select e from " + entityName + " e where e." + idName + " in (:ids)", ids );
+	}
+
+	private static void loadCollections(SessionImplementor session, String role, List<Serializable> keys) {
+		if ( keys.size() < 2 ) {
+			return;
+		}
+		SessionFactoryImplementor factory = session.getFactory();
+		CollectionPersister persister = factory.getCollectionPersister( role );
+		if ( persister.getCollectionType().getLHSPropertyName() != null ) {
+			// the key is not the identifier of the owner
+			return;
+		}
+		EntityPersister owner = persister.getOwnerEntityPersister();
+		String ownerName = owner.getEntityName();
+		String idName = owner.getIdentifierPropertyName();
+		if ( idName == null || owner.getIdentifierType().isComponentType() || !role.startsWith( ownerName + "." ) ) {
+			return;
+		}
+		String property = role.substring( ownerName.length() + 1 );
+		// fetching initializes the collections already in the persistence context
+		list( session, "select o from " + ownerName + " o left join fetch o." + property + " where o." + idName + " in (:ids)", keys );
+	}
+
+	private static void list(SessionImplementor session, String hql, List<Serializable> ids) {
+		( (Session) session ).createQuery( hql )
+				.setParameterList( "ids", ids )
+				.setFlushMode( FlushMode.MANUAL )
+				.list();
+	}
+
+}
@@ -65,6 +65,10 @@ public class HibernateStatelessInitializer implements InstanceInitializer {
 		return value;
 	}
 
+	public void initializeBatch(Collection<?> values) {
+		new HibernateBatchInitializer( values ).initialize();
+	}
+
 	@Override
 	public <T> Class<T> getClassFromWork(Work<T> work) {
 		return HibernateHelper.getClassFromWork( work );
@@ -28,6 +28,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.Map;
 import javax.transaction.Status;
 import javax.transaction.Synchronization;
@@ -48,6 +49,7 @@ import org.hibernate.annotations.common.util.StringHelper;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.collection.spi.PersistentCollection;
 import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.event.spi.AbstractCollectionEvent;
 import org.hibernate.event.spi.AbstractEvent;
 import org.hibernate.event.spi.EventSource;
@@ -69,8 +71,12 @@ import org.hibernate.search.Environment;
 import org.hibernate.search.SearchException;
 import org.hibernate.search.Version;
 import org.hibernate.search.backend.impl.EventSourceTransactionContext;
+import org.hibernate.search.backend.impl.HibernateEntityReindexer;
+import org.hibernate.search.backend.spi.EntityReindexerProvider;
 import org.hibernate.search.cfg.impl.SearchConfigurationFromHibernateCore;
 import org.hibernate.search.spi.SearchFactoryBuilder;
+import org.hibernate.search.spi.ServiceProvider;
+import org.hibernate.search.util.configuration.impl.ConfigurationParseHelper;
 import org.hibernate.search.util.impl.WeakIdentityHashMap;
 import org.hibernate.search.util.logging.impl.LoggerFactory;
 
@@ -100,6 +106,9 @@ public class FullTextIndexEventListener implements PostDeleteEventListener,
 	protected boolean skipDirtyChecks = true;
 	protected SearchFactoryImplementor searchFactoryImplementor;
 
+	// reindexes the entities reached by @ContainedIn beyond the configured fan-out
+	private transient HibernateEntityReindexer entityReindexer;
+
 	static {
 		Version.touch();
 	}
@@ -121,13 +130,31 @@ public class FullTextIndexEventListener implements PostDeleteEventListener,
 	 * Initialize method called by Hibernate Core when the SessionFactory starts
 	 */
 	public void initialize(Configuration cfg) {
+		initialize( cfg, null );
+	}
+
+	/**
+	 * @param cfg the Hibernate configuration
+	 * @param sessionFactory the SessionFactory being built, used to reindex asynchronously the entities
+	 * reached by {@code @ContainedIn} beyond the configured limit; can be null
+	 */
+	public void initialize(Configuration cfg, SessionFactoryImplementor sessionFactory) {
 		if ( installation != SINGLE_INSTANCE ) {
 			throw new SearchException( "Only Installation.SINGLE_INSTANCE is supported" );
 		}
 
 		if ( searchFactoryImplementor == null ) {
+			Map<Class<? extends ServiceProvider<?>>, Object> providedServices = Collections.emptyMap();
+			if ( sessionFactory != null
+					&& ConfigurationParseHelper.getIntValue( cfg.getProperties(), Environment.CONTAINED_IN_MAX_FAN_OUT, 0 ) > 0 ) {
+				int batchSize = ConfigurationParseHelper.getIntValue( cfg.getProperties(), Environment.CONTAINED_IN_BATCH_SIZE, 100 );
+				entityReindexer = new HibernateEntityReindexer( sessionFactory, batchSize );
+				providedServices = Collections.<Class<? extends ServiceProvider<?>>, Object>singletonMap(
+						EntityReindexerProvider.class, entityReindexer
+				);
+			}
 			searchFactoryImplementor = new SearchFactoryBuilder()
-					.configuration( new SearchConfigurationFromHibernateCore( cfg ) )
+					.configuration( new SearchConfigurationFromHibernateCore( cfg, providedServices ) )
 					.buildSearchFactory();
 		}
 
@@ -235,6 +262,9 @@ public class FullTextIndexEventListener implements PostDeleteEventListener,
 	}
 
 	public void cleanup() {
+		if ( entityReindexer != null ) {
+			entityReindexer.stop();
+		}
 		searchFactoryImplementor.close();
 	}
 
@@ -79,7 +79,7 @@ public class HibernateSearchIntegrator implements Integrator {
 		listenerRegistry.getEventListenerGroup( EventType.POST_COLLECTION_UPDATE ).appendListener( listener );
 		listenerRegistry.getEventListenerGroup( EventType.FLUSH ).appendListener( listener );
 
-		listener.initialize( configuration );
+		listener.initialize( configuration, sessionFactory );
 	}
 
 	@Override
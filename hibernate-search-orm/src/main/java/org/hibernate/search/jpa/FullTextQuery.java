@@ -36,6 +36,7 @@ import org.hibernate.search.ProjectionConstants;
 import org.hibernate.search.query.DatabaseRetrievalMethod;
 import org.hibernate.search.query.ObjectLookupMethod;
 import org.hibernate.search.query.engine.spi.FacetManager;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
 import org.hibernate.transform.ResultTransformer;
 
 /**
@@ -116,6 +117,25 @@ public interface FullTextQuery extends Query, ProjectionConstants {
 	 */
 	FacetManager getFacetManager();
 
+	/**
+	 * Only return the results ranked after the given cursor, obtained from {@link #getResultsCursor()} after
+	 * getting a page of results of the same query. Each page is then collected on its own, instead of
+	 * collecting and skipping the results of all previous pages. The first result and maximum number
+	 * of results apply to the results after the cursor.
+	 *
+	 * @param cursor the position after which results are returned, or {@code null} to return all results
+	 *
+	 * @return {@code this} to allow method chaining
+	 */
+	FullTextQuery setResultsAfter(ResultsCursor cursor);
+
+	/**
+	 * @return the position after the last result of the last result list, to pass to
+	 *         {@link #setResultsAfter(ResultsCursor)} to get the next page, or {@code null} if there
+	 *         were no results
+	 */
+	ResultsCursor getResultsCursor();
+
 	/**
 	 * defines a result transformer used during projection
 	 */
@@ -72,6 +72,7 @@ import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.query.DatabaseRetrievalMethod;
 import org.hibernate.search.query.ObjectLookupMethod;
 import org.hibernate.search.query.engine.spi.FacetManager;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
 import org.hibernate.transform.ResultTransformer;
 
 /**
@@ -168,6 +169,15 @@ public class FullTextQueryImpl implements FullTextQuery {
 		return query.getFacetManager();
 	}
 
+	public FullTextQuery setResultsAfter(ResultsCursor cursor) {
+		query.setResultsAfter( cursor );
+		return this;
+	}
+
+	public ResultsCursor getResultsCursor() {
+		return query.getResultsCursor();
+	}
+
 	//TODO mutualize this code with the EM this will fix the rollback issues
 	@SuppressWarnings( { "ThrowableInstanceNeverThrown" })
 	private void throwPersistenceException(Exception e) {
@@ -54,6 +54,7 @@ import org.hibernate.search.query.ObjectLookupMethod;
 import org.hibernate.search.query.engine.spi.DocumentExtractor;
 import org.hibernate.search.query.engine.spi.EntityInfo;
 import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
 import org.hibernate.search.query.engine.spi.TimeoutExceptionFactory;
 import org.hibernate.search.query.engine.spi.TimeoutManager;
 import org.hibernate.search.query.engine.spi.FacetManager;
@@ -310,6 +311,15 @@ public class FullTextQueryImpl extends AbstractQueryImpl implements FullTextQuer
 		return hSearchQuery.getFacetManager();
 	}
 
+	public FullTextQuery setResultsAfter(ResultsCursor cursor) {
+		hSearchQuery.resultsAfter( cursor );
+		return this;
+	}
+
+	public ResultsCursor getResultsCursor() {
+		return hSearchQuery.getResultsCursor();
+	}
+
 	@Override
 	public FullTextQuery setTimeout(int timeout) {
 		return setTimeout( timeout, TimeUnit.SECONDS );
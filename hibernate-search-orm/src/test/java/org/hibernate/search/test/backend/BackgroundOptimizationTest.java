@@ -0,0 +1,222 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.util.Calendar;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.SearchFactory;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.store.optimization.impl.IncrementalOptimizerStrategy;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies automatic optimizations triggered by the health of the index,
+ * and run in background within the configured time window.
+ */
+public class BackgroundOptimizationTest {
+
+	@Test
+	public void tooManySegmentsTriggerBackgroundOptimization() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.optimizer.background", "true" )
+			.setProperty( "hibernate.search.default.optimizer.segment_limit.max", "2" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			IncrementalOptimizerStrategy strategy = getOptimizerStrategy( builder );
+			// each transaction commits a new segment
+			for ( int i = 0; i < 4; i++ ) {
+				storeClocks( builder, i * 10, 1 );
+			}
+			int nextId = 100;
+			long timeout = System.currentTimeMillis() + 10000;
+			while ( strategy.getOptimizationsPerformed() == 0 ) {
+				assertTrue( "Index not optimized", System.currentTimeMillis() < timeout );
+				// the health of the index is checked at most once per second
+				Thread.sleep( 500 );
+				storeClocks( builder, nextId++, 1 );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void noOptimizationOutOfWindow() throws Exception {
+		Calendar now = Calendar.getInstance();
+		int closedHour = ( now.get( Calendar.HOUR_OF_DAY ) + 2 ) % 24;
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.optimizer.window", closedHour + ":00-" + closedHour + ":30" )
+			.setProperty( "hibernate.search.default.optimizer.operation_limit.max", "1" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			IncrementalOptimizerStrategy strategy = getOptimizerStrategy( builder );
+			for ( int i = 0; i < 3; i++ ) {
+				storeClocks( builder, i, 1 );
+			}
+			Thread.sleep( 500 );
+			assertEquals( 0, strategy.getOptimizationsPerformed() );
+			// explicit optimizations are not restricted to the window
+			builder.getSearchFactory().optimize( Clock.class );
+			assertEquals( 1, strategy.getOptimizationsPerformed() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void optimizationRunsWhenWindowOpens() throws Exception {
+		// move the clock of the optimizer to a few seconds before the window opens
+		long windowOpening = System.currentTimeMillis() + 4000;
+		TimeZone defaultTimeZone = TimeZone.getDefault();
+		TimeZone.setDefault( timeZoneAt( windowOpening, 10 ) );
+		try {
+			FullTextSessionBuilder builder = new FullTextSessionBuilder()
+				.setProperty( "hibernate.search.default.optimizer.window", "10:00-10:30" )
+				.setProperty( "hibernate.search.default.optimizer.operation_limit.max", "1" )
+				.addAnnotatedClass( Clock.class )
+				.build();
+			try {
+				IncrementalOptimizerStrategy strategy = getOptimizerStrategy( builder );
+				// each transaction commits a new segment
+				for ( int i = 0; i < 3; i++ ) {
+					storeClocks( builder, i, 1 );
+				}
+				if ( System.currentTimeMillis() < windowOpening ) {
+					assertEquals( 0, strategy.getOptimizationsPerformed() );
+				}
+
+				long timeout = windowOpening + 10000;
+				while ( countCommittedSegments( builder ) > 1 ) {
+					assertTrue( "Optimized index not committed", System.currentTimeMillis() < timeout );
+					Thread.sleep( 50 );
+				}
+				assertEquals( 1, strategy.getOptimizationsPerformed() );
+			}
+			finally {
+				builder.close();
+			}
+		}
+		finally {
+			TimeZone.setDefault( defaultTimeZone );
+		}
+	}
+
+	@Test
+	public void deletedDocumentsAreExpunged() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.optimizer.deleted_docs_percentage.max", "10" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			IncrementalOptimizerStrategy strategy = getOptimizerStrategy( builder );
+			storeClocks( builder, 0, 10 );
+			FullTextSession session = builder.openFullTextSession();
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 0; i < 5; i++ ) {
+				session.delete( session.load( Clock.class, i ) );
+			}
+			transaction.commit();
+			session.close();
+			assertEquals( 5, countDeletedDocuments( builder.getSearchFactory() ) );
+
+			// the health of the index is checked at most once per second
+			Thread.sleep( 1100 );
+			storeClocks( builder, 10, 1 );
+			assertEquals( 0, countDeletedDocuments( builder.getSearchFactory() ) );
+			assertEquals( "Not a full optimization", 0, strategy.getOptimizationsPerformed() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static void storeClocks(FullTextSessionBuilder builder, int firstId, int count) {
+		FullTextSession session = builder.openFullTextSession();
+		Transaction transaction = session.beginTransaction();
+		for ( int i = firstId; i < firstId + count; i++ ) {
+			session.persist( new Clock( i, "brand" ) );
+		}
+		transaction.commit();
+		session.close();
+	}
+
+	/**
+	 * @return a time zone in which the given instant is at the given hour of the day
+	 */
+	private static TimeZone timeZoneAt(long instant, int hour) {
+		long millisPerDay = TimeUnit.DAYS.toMillis( 1 );
+		long offset = ( TimeUnit.HOURS.toMillis( hour ) - instant % millisPerDay + millisPerDay ) % millisPerDay;
+		if ( offset >= millisPerDay / 2 ) {
+			offset -= millisPerDay;
+		}
+		return new SimpleTimeZone( (int) offset, "BackgroundOptimizationTest" );
+	}
+
+	/**
+	 * @return the number of segments seen by an IndexReader opened from the Directory
+	 */
+	private static int countCommittedSegments(FullTextSessionBuilder builder) throws Exception {
+		SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+		DirectoryBasedIndexManager indexManager = (DirectoryBasedIndexManager) searchFactory
+				.getIndexBindingForEntity( Clock.class ).getIndexManagers()[0];
+		IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+		try {
+			return reader.getSequentialSubReaders().length;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private static int countDeletedDocuments(SearchFactory searchFactory) {
+		IndexReader reader = searchFactory.getIndexReaderAccessor().open( Clock.class );
+		try {
+			return reader.maxDoc() - reader.numDocs();
+		}
+		finally {
+			searchFactory.getIndexReaderAccessor().close( reader );
+		}
+	}
+
+	private static IncrementalOptimizerStrategy getOptimizerStrategy(FullTextSessionBuilder builder) {
+		SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+		DirectoryBasedIndexManager indexManager = (DirectoryBasedIndexManager) searchFactory
+				.getIndexBindingForEntity( Clock.class ).getIndexManagers()[0];
+		return (IncrementalOptimizerStrategy) indexManager.getOptimizerStrategy();
+	}
+
+}
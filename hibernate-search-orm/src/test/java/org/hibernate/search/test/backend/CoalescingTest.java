@@ -0,0 +1,202 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.search.Environment;
+import org.hibernate.search.backend.DeleteLuceneWork;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.PurgeAllLuceneWork;
+import org.hibernate.search.backend.impl.lucene.LuceneBackendQueueProcessor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.stat.Statistics;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.hibernate.search.util.impl.FileHelper;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that an async backend with coalescing enabled skips works superseded
+ * by later changesets about the same entity, without crossing a purgeAll.
+ * The window is long enough for the works to be enqueued only when
+ * coalescing.max_works is reached by the last changeset, or when the backend is closed.
+ */
+public class CoalescingTest {
+
+	private static final int ENTITIES = 50;
+
+	@Test
+	public void supersededWorksAreEliminated() throws Exception {
+		FullTextSessionBuilder builder = createBuilder( 3 * ENTITIES * 2 );
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			for ( String round : new String[] { "first", "second", "third" } ) {
+				for ( int i = 0; i < ENTITIES; i++ ) {
+					indexManager.performOperations( update( i, round ), null );
+				}
+			}
+			waitForDocuments( indexManager, "third" );
+
+			LuceneBackendQueueProcessor backend = (LuceneBackendQueueProcessor) indexManager.getBackendQueueProcessor();
+			assertEquals( 3 * ENTITIES * 2, backend.getCoalescingEnqueuedWorksCount() );
+			assertEquals( 2 * ENTITIES * 2, backend.getCoalescingEliminatedWorksCount() );
+			Statistics statistics = builder.getSearchFactory().getStatistics();
+			assertEquals( 3 * ENTITIES * 2, statistics.getCoalescingEnqueuedWorksCount() );
+			assertEquals( 2 * ENTITIES * 2, statistics.getCoalescingEliminatedWorksCount() );
+			IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+			try {
+				assertEquals( ENTITIES, reader.numDocs() );
+				// docFreq counts deleted documents too: superseded documents were never written
+				assertEquals( 0, reader.docFreq( new Term( "brand", "first" ) ) );
+				assertEquals( 0, reader.docFreq( new Term( "brand", "second" ) ) );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void worksAreNotCoalescedAcrossPurgeAll() throws Exception {
+		FullTextSessionBuilder builder = createBuilder( 3 * ENTITIES * 2 + 1 );
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				indexManager.performOperations( update( i, "first" ), null );
+			}
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				indexManager.performOperations( update( i, "second" ), null );
+			}
+			List<LuceneWork> purge = new ArrayList<LuceneWork>();
+			purge.add( new PurgeAllLuceneWork( Clock.class ) );
+			indexManager.performOperations( purge, null );
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				indexManager.performOperations( update( i, "third" ), null );
+			}
+			waitForDocuments( indexManager, "third" );
+
+			LuceneBackendQueueProcessor backend = (LuceneBackendQueueProcessor) indexManager.getBackendQueueProcessor();
+			assertEquals( ENTITIES * 2, backend.getCoalescingEliminatedWorksCount() );
+			IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+			try {
+				assertEquals( ENTITIES, reader.numDocs() );
+				assertEquals( 0, reader.docFreq( new Term( "brand", "first" ) ) );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void pendingWorksAreAppliedOnClose() throws Exception {
+		File indexBase = new File( FullTextSessionBuilder.indexRootDirectory, "CoalescingTest" );
+		try {
+			FullTextSessionBuilder builder = configureBuilder( 2 * ENTITIES * 2 )
+				.setProperty( "hibernate.search.default.directory_provider", "filesystem" )
+				.setProperty( "hibernate.search.default.indexBase", indexBase.getAbsolutePath() )
+				.build();
+			String indexName;
+			try {
+				DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+				indexName = indexManager.getIndexName();
+				for ( int i = 0; i < ENTITIES; i++ ) {
+					indexManager.performOperations( update( i, "first" ), null );
+				}
+			}
+			finally {
+				// neither max_works nor the window were reached
+				builder.close();
+			}
+			FSDirectory directory = FSDirectory.open( new File( indexBase, indexName ) );
+			try {
+				IndexReader reader = IndexReader.open( directory );
+				try {
+					assertEquals( ENTITIES, reader.numDocs() );
+					assertEquals( ENTITIES, reader.docFreq( new Term( "brand", "first" ) ) );
+				}
+				finally {
+					reader.close();
+				}
+			}
+			finally {
+				directory.close();
+			}
+		}
+		finally {
+			FileHelper.delete( indexBase );
+		}
+	}
+
+	private static FullTextSessionBuilder createBuilder(int maxWorks) {
+		return configureBuilder( maxWorks ).build();
+	}
+
+	private static FullTextSessionBuilder configureBuilder(int maxWorks) {
+		return new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			.setProperty( "hibernate.search.default." + Environment.COALESCING_WINDOW, "600000" )
+			.setProperty( "hibernate.search.default." + Environment.COALESCING_MAX_WORKS, String.valueOf( maxWorks ) )
+			.addAnnotatedClass( Clock.class );
+	}
+
+	private static void waitForDocuments(DirectoryBasedIndexManager indexManager, String brand) throws Exception {
+		long timeout = System.currentTimeMillis() + 10000;
+		while ( true ) {
+			IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+			try {
+				if ( reader.docFreq( new Term( "brand", brand ) ) == ENTITIES ) {
+					return;
+				}
+			}
+			finally {
+				reader.close();
+			}
+			assertTrue( "Changesets not applied in time", System.currentTimeMillis() < timeout );
+			Thread.sleep( 10 );
+		}
+	}
+
+	private static List<LuceneWork> update(int id, String brand) {
+		List<LuceneWork> changeset = new ArrayList<LuceneWork>( 2 );
+		changeset.add( new DeleteLuceneWork( id, String.valueOf( id ), Clock.class ) );
+		changeset.add( createAddWork( id, brand ) );
+		return changeset;
+	}
+
+}
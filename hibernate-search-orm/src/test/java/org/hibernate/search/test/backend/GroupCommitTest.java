@@ -0,0 +1,209 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.spi.BuildContext;
+import org.hibernate.search.store.DirectoryProvider;
+import org.hibernate.search.store.impl.DirectoryProviderHelper;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that with <code>group_commit.max_delay</code> enabled concurrent transactions
+ * share commits, while sync backends still see their changes committed when returning,
+ * even when a group commit fails.
+ */
+public class GroupCommitTest {
+
+	private static final int THREADS = 10;
+
+	@Test
+	public void concurrentTransactionsShareCommits() throws Exception {
+		final FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.group_commit.max_delay", "300" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			Directory directory = getDirectory( builder );
+			long initialGeneration = SegmentInfos.getCurrentSegmentGeneration( directory );
+			final CountDownLatch startSignal = new CountDownLatch( 1 );
+			ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+			Future<?>[] results = new Future[THREADS];
+			for ( int i = 0; i < THREADS; i++ ) {
+				final int id = i;
+				results[i] = executor.submit( new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						startSignal.await();
+						storeClock( builder, id );
+						// the commit must be done as soon as the transaction returns:
+						assertEquals( 1, countClocks( builder, brandName( id ) ) );
+						return null;
+					}
+				} );
+			}
+			startSignal.countDown();
+			for ( Future<?> result : results ) {
+				result.get();
+			}
+			executor.shutdown();
+			executor.awaitTermination( 10, TimeUnit.SECONDS );
+			long commits = SegmentInfos.getCurrentSegmentGeneration( directory ) - initialGeneration;
+			assertTrue( "Expected less commits than transactions, got " + commits, commits < THREADS );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void failedGroupCommitIsRetried() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.directory_provider", FailingSyncDirectoryProvider.class.getName() )
+			.setProperty( "hibernate.search.default.group_commit.max_delay", "50" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			FailingSyncDirectory.failNextSync = true;
+			storeClock( builder, 0 );
+			assertTrue( "The commit didn't fail", ! FailingSyncDirectory.failNextSync );
+			// the transaction returned only once its changes were committed
+			IndexReader reader = IndexReader.open( getDirectory( builder ) );
+			try {
+				assertEquals( 1, reader.numDocs() );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			FailingSyncDirectory.failNextSync = false;
+			builder.close();
+		}
+	}
+
+	private static void storeClock(FullTextSessionBuilder builder, int id) {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			session.persist( new Clock( id, brandName( id ) ) );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private static int countClocks(FullTextSessionBuilder builder, String brand) {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			List<?> list = session.createFullTextQuery( new TermQuery( new Term( "brand", brand ) ), Clock.class ).list();
+			transaction.commit();
+			return list.size();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * The default analyzer in tests only keeps letters
+	 */
+	private static String brandName(int id) {
+		return "brand" + (char) ( 'a' + id );
+	}
+
+	private static Directory getDirectory(FullTextSessionBuilder builder) throws IOException {
+		SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+		DirectoryBasedIndexManager indexManager = (DirectoryBasedIndexManager) searchFactory
+				.getAllIndexesManager().getIndexManager( Clock.class.getName() );
+		return indexManager.getDirectoryProvider().getDirectory();
+	}
+
+	public static class FailingSyncDirectoryProvider implements DirectoryProvider<RAMDirectory> {
+
+		private final RAMDirectory directory = new FailingSyncDirectory();
+
+		@Override
+		public void initialize(String directoryProviderName, Properties properties, BuildContext context) {
+		}
+
+		@Override
+		public void start(DirectoryBasedIndexManager indexManager) {
+			DirectoryProviderHelper.initializeIndexIfNeeded( directory );
+		}
+
+		@Override
+		public void stop() {
+			directory.close();
+		}
+
+		@Override
+		public RAMDirectory getDirectory() {
+			return directory;
+		}
+
+	}
+
+	static class FailingSyncDirectory extends RAMDirectory {
+
+		private static final long serialVersionUID = 1L;
+
+		static volatile boolean failNextSync = false;
+
+		@Override
+		public void sync(Collection<String> names) throws IOException {
+			if ( failNextSync ) {
+				failNextSync = false;
+				throw new IOException( "Simulated failure while syncing " + names );
+			}
+			super.sync( names );
+		}
+
+	}
+
+}
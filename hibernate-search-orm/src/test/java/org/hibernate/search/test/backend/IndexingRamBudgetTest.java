@@ -0,0 +1,126 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.spi.IndexManager;
+import org.hibernate.search.stat.Statistics;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that IndexWriters are flushed when the memory they use exceeds
+ * the indexing RAM budget, and that the budget is exposed by the statistics.
+ */
+public class IndexingRamBudgetTest {
+
+	private static final int SHARDS = 4;
+	private static final int DOCUMENTS_PER_SHARD = 200;
+
+	@Test
+	public void writersAreFlushedWhenBudgetIsExceeded() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( Environment.INDEXING_RAM_BUDGET, "1" )
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", String.valueOf( SHARDS ) )
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			// keep the changes buffered in the IndexWriters instead of committing them
+			.setProperty( "hibernate.search.default." + Environment.GROUP_COMMIT_MAX_DELAY, "5000" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			Statistics statistics = builder.getSearchFactory().getStatistics();
+			assertEquals( 1024 * 1024, statistics.getIndexingRamBudget() );
+			assertEquals( 0, statistics.getIndexingRamBudgetFlushCount() );
+
+			// each shard alone stays within the budget, all together they don't
+			SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+			for ( int shard = 0; shard < SHARDS; shard++ ) {
+				List<LuceneWork> works = new ArrayList<LuceneWork>( DOCUMENTS_PER_SHARD );
+				for ( int i = 0; i < DOCUMENTS_PER_SHARD; i++ ) {
+					int id = shard * DOCUMENTS_PER_SHARD + i;
+					works.add( createAddWork( id, createText( id ) ) );
+				}
+				IndexManager indexManager = searchFactory.getAllIndexesManager()
+						.getIndexManager( Clock.class.getName() + "." + shard );
+				indexManager.performOperations( works, null );
+			}
+
+			long timeout = System.currentTimeMillis() + 10000;
+			while ( statistics.getIndexingRamBudgetFlushCount() == 0
+					|| statistics.getIndexingRamUsed() > statistics.getIndexingRamBudget() ) {
+				assertTrue( "IndexWriters not flushed", System.currentTimeMillis() < timeout );
+				Thread.sleep( 50 );
+			}
+			// each flush releases a whole buffer: a few flushes are enough, not one per document
+			long flushCount = statistics.getIndexingRamBudgetFlushCount();
+			assertTrue( "Too many flushes: " + flushCount, flushCount < DOCUMENTS_PER_SHARD / 10 );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void noBudgetByDefault() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			Statistics statistics = builder.getSearchFactory().getStatistics();
+			getIndexManager( builder ).performOperations( Collections.singletonList( createAddWork( 1 ) ), null );
+			assertEquals( 0, statistics.getIndexingRamBudget() );
+			assertEquals( 0, statistics.getIndexingRamUsed() );
+			assertEquals( 0, statistics.getIndexingRamBudgetFlushCount() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	/**
+	 * @return a text of words unique to the document, as the default analyzer drops digits
+	 */
+	private static String createText(int id) {
+		StringBuilder text = new StringBuilder();
+		for ( int word = 0; word < 50; word++ ) {
+			int value = id * 50 + word;
+			for ( int i = 0; i < 6; i++ ) {
+				text.append( (char) ( 'a' + value % 26 ) );
+				value /= 26;
+			}
+			text.append( ' ' );
+		}
+		return text.toString();
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.search.backend.impl.lucene.overrides.ConcurrentMergeScheduler;
+import org.hibernate.search.backend.impl.lucene.overrides.MergeThrottle;
+import org.hibernate.search.backend.impl.lucene.overrides.ThrottledDirectory;
+import org.hibernate.search.exception.impl.LogErrorHandler;
+import org.hibernate.search.test.TestConstants;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the merges of an IndexWriter are slowed down by the MergeThrottle.
+ */
+public class MergeThrottleTest {
+
+	private static final int SEGMENTS = 10;
+	private static final int DOCUMENTS_PER_SEGMENT = 200;
+
+	@Test
+	public void mergeWritesAreRateLimited() throws Exception {
+		RAMDirectory directory = createIndex();
+		MergeThrottle throttle = new MergeThrottle( 1, 0 );
+		IndexWriter writer = createThrottledWriter( directory, throttle );
+		long start = System.nanoTime();
+		writer.optimize();
+		long elapsedMillis = ( System.nanoTime() - start ) / 1000000;
+		writer.close();
+		// at 1 MB/s, merging into segments of this size can't take less than:
+		long expectedMillis = directory.sizeInBytes() * 1000 / ( 1024 * 1024 );
+		assertTrue( "Merge took " + elapsedMillis + " ms, expected at least " + expectedMillis,
+				elapsedMillis >= expectedMillis * 8 / 10 );
+	}
+
+	@Test
+	public void mergesPauseWhileQueueIsLong() throws Exception {
+		RAMDirectory directory = createIndex();
+		BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+		queue.add( new Object() );
+		MergeThrottle throttle = new MergeThrottle( 0, 1 );
+		throttle.monitorQueues( Collections.singletonList( queue ) );
+		final IndexWriter writer = createThrottledWriter( directory, throttle );
+		Thread optimizer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					writer.optimize();
+				}
+				catch ( Exception e ) {
+					throw new RuntimeException( e );
+				}
+			}
+		};
+		optimizer.start();
+		optimizer.join( 1000 );
+		assertTrue( "Merge not paused", optimizer.isAlive() );
+		queue.clear();
+		optimizer.join( 10000 );
+		assertFalse( "Merge not resumed", optimizer.isAlive() );
+		writer.close();
+	}
+
+	private static IndexWriter createThrottledWriter(Directory directory, MergeThrottle throttle) throws Exception {
+		IndexWriterConfig config = createConfig();
+		config.setMergeScheduler( new ConcurrentMergeScheduler( new LogErrorHandler(), "test", throttle ) );
+		return new IndexWriter( new ThrottledDirectory( directory, throttle ), config );
+	}
+
+	/**
+	 * @return an index made of many segments, about one MB in total
+	 */
+	private static RAMDirectory createIndex() throws Exception {
+		RAMDirectory directory = new RAMDirectory();
+		IndexWriter writer = new IndexWriter( directory, createConfig() );
+		for ( int segment = 0; segment < SEGMENTS; segment++ ) {
+			for ( int i = 0; i < DOCUMENTS_PER_SEGMENT; i++ ) {
+				Document document = new Document();
+				document.add( new Field( "text", createText( segment * DOCUMENTS_PER_SEGMENT + i ), Field.Store.YES, Field.Index.ANALYZED ) );
+				writer.addDocument( document );
+			}
+			writer.commit();
+		}
+		writer.close();
+		return directory;
+	}
+
+	private static IndexWriterConfig createConfig() {
+		LogByteSizeMergePolicy mergePolicy = new LogByteSizeMergePolicy();
+		mergePolicy.setMergeFactor( SEGMENTS * 2 );
+		mergePolicy.setUseCompoundFile( false );
+		return new IndexWriterConfig( TestConstants.getTargetLuceneVersion(), new SimpleAnalyzer( TestConstants.getTargetLuceneVersion() ) )
+				.setMergePolicy( mergePolicy );
+	}
+
+	private static String createText(int id) {
+		StringBuilder text = new StringBuilder();
+		for ( int word = 0; word < 80; word++ ) {
+			int value = id * 80 + word;
+			for ( int i = 0; i < 6; i++ ) {
+				text.append( (char) ( 'a' + value % 26 ) );
+				value /= 26;
+			}
+			text.append( ' ' );
+		}
+		return text.toString();
+	}
+
+}
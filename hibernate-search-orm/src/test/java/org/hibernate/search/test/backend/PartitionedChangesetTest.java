@@ -0,0 +1,86 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.hibernate.search.Environment;
+import org.hibernate.search.backend.DeleteLuceneWork;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.PurgeAllLuceneWork;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies that when a changeset is split across multiple IndexWriter worker threads
+ * the operations targeting the same entity, and operations acting as barriers
+ * like purgeAll, are still applied in order.
+ */
+public class PartitionedChangesetTest {
+
+	private static final int ENTITIES = 100;
+
+	@Test
+	public void orderIsKeptPerEntity() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default." + Environment.WORKER_THREADPOOL_SIZE, "4" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			List<LuceneWork> changeset = new ArrayList<LuceneWork>();
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				changeset.add( createAddWork( i, "purged" ) );
+			}
+			changeset.add( new PurgeAllLuceneWork( Clock.class ) );
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				changeset.add( createAddWork( i, "first" ) );
+				changeset.add( new DeleteLuceneWork( i, String.valueOf( i ), Clock.class ) );
+			}
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				changeset.add( createAddWork( i, "second" ) );
+			}
+			indexManager.performOperations( changeset, null );
+
+			IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+			try {
+				assertEquals( ENTITIES, reader.numDocs() );
+				assertEquals( ENTITIES, reader.docFreq( new Term( "brand", "second" ) ) );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+}
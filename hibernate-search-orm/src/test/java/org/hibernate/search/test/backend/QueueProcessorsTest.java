@@ -0,0 +1,233 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.hibernate.search.Environment;
+import org.hibernate.search.SearchException;
+import org.hibernate.search.backend.DeleteLuceneWork;
+import org.hibernate.search.backend.IndexingMonitor;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.PurgeAllLuceneWork;
+import org.hibernate.search.backend.impl.WorkVisitor;
+import org.hibernate.search.backend.impl.lucene.works.LuceneWorkDelegate;
+import org.hibernate.search.backend.impl.lucene.works.LuceneWorkVisitor;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.errorhandling.MockErrorHandler;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that changesets enqueued to several queue processors are applied in order
+ * for each entity, that a purgeAll is applied after all previous changesets and
+ * before all following ones, and that a failure in a queue processor doesn't affect
+ * the changesets applied by the others.
+ */
+public class QueueProcessorsTest {
+
+	private static final int ENTITIES = 50;
+	private static final String[] ROUNDS = { "first", "second", "third" };
+	private static final String FAILING_QUEUE_PROCESSOR_THREAD =
+			"Hibernate Search: Index updates queue processor for index " + Clock.class.getName() + "-1";
+
+	@Test
+	public void orderIsKeptPerEntityAcrossChangesets() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default." + Environment.QUEUE_PROCESSORS, "4" )
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			for ( String round : ROUNDS ) {
+				for ( int i = 0; i < ENTITIES; i++ ) {
+					indexManager.performOperations( update( i, round ), null );
+				}
+			}
+			List<LuceneWork> purge = new ArrayList<LuceneWork>();
+			purge.add( new PurgeAllLuceneWork( Clock.class ) );
+			indexManager.performOperations( purge, null );
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				indexManager.performOperations( update( i, "last" ), null );
+			}
+
+			long timeout = System.currentTimeMillis() + 10000;
+			while ( true ) {
+				IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+				try {
+					if ( reader.docFreq( new Term( "brand", "last" ) ) == ENTITIES ) {
+						assertEquals( ENTITIES, reader.numDocs() );
+						break;
+					}
+				}
+				finally {
+					reader.close();
+				}
+				assertTrue( "Changesets not applied in time", System.currentTimeMillis() < timeout );
+				Thread.sleep( 10 );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void failureWaitsForOtherQueueProcessors() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default." + Environment.QUEUE_PROCESSORS, "2" )
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			.setProperty( Environment.ERROR_HANDLER, MockErrorHandler.class.getName() )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			MockErrorHandler errorHandler = (MockErrorHandler)
+					( (SearchFactoryImplementor) builder.getSearchFactory() ).getErrorHandler();
+			// id 2 goes to the first queue processor, id 1 to the second one
+			BlockingAddWork blockingWork = new BlockingAddWork( 2 );
+			indexManager.performOperations( Collections.<LuceneWork>singletonList( blockingWork ), null );
+			assertTrue( blockingWork.started.await( 10, TimeUnit.SECONDS ) );
+
+			indexManager.performOperations( Collections.<LuceneWork>singletonList( new FailingWork( 1 ) ), null );
+			long timeout = System.currentTimeMillis() + 10000;
+			while ( errorHandler.getLastException() == null || ! isParked( FAILING_QUEUE_PROCESSOR_THREAD ) ) {
+				assertTrue( "Failure not handled in time", System.currentTimeMillis() < timeout );
+				Thread.sleep( 10 );
+			}
+			// the failing queue processor recovers only once the first one is done with the IndexWriter
+			blockingWork.resume.countDown();
+
+			while ( true ) {
+				IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+				try {
+					if ( reader.docFreq( new Term( "id", "2" ) ) == 1 ) {
+						break;
+					}
+				}
+				finally {
+					reader.close();
+				}
+				assertTrue( "Changeset not applied in time", System.currentTimeMillis() < timeout );
+				Thread.sleep( 10 );
+			}
+			assertEquals( "failed work", errorHandler.getLastException().getMessage() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static boolean isParked(String threadName) {
+		for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+			if ( thread.getName().equals( threadName ) ) {
+				return thread.getState() == Thread.State.WAITING;
+			}
+		}
+		return false;
+	}
+
+	private static List<LuceneWork> update(int id, String brand) {
+		List<LuceneWork> changeset = new ArrayList<LuceneWork>( 2 );
+		changeset.add( new DeleteLuceneWork( id, String.valueOf( id ), Clock.class ) );
+		changeset.add( createAddWork( id, brand ) );
+		return changeset;
+	}
+
+	/**
+	 * Adds a document once resumed, having already got the IndexWriter.
+	 */
+	private static class BlockingAddWork extends DeleteLuceneWork {
+
+		private final CountDownLatch started = new CountDownLatch( 1 );
+		private final CountDownLatch resume = new CountDownLatch( 1 );
+		private final Document document;
+
+		BlockingAddWork(int id) {
+			super( id, String.valueOf( id ), Clock.class );
+			this.document = createAddWork( id ).getDocument();
+		}
+
+		@Override
+		public <T> T getWorkDelegate(WorkVisitor<T> visitor) {
+			if ( visitor instanceof LuceneWorkVisitor ) {
+				return (T) new LuceneWorkDelegate() {
+
+					public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
+						started.countDown();
+						try {
+							resume.await();
+							writer.addDocument( document );
+						}
+						catch ( InterruptedException e ) {
+							Thread.currentThread().interrupt();
+							throw new SearchException( e );
+						}
+						catch ( IOException e ) {
+							throw new SearchException( e );
+						}
+					}
+				};
+			}
+			return super.getWorkDelegate( visitor );
+		}
+
+	}
+
+	private static class FailingWork extends DeleteLuceneWork {
+
+		FailingWork(int id) {
+			super( id, String.valueOf( id ), Clock.class );
+		}
+
+		@Override
+		public <T> T getWorkDelegate(WorkVisitor<T> visitor) {
+			if ( visitor instanceof LuceneWorkVisitor ) {
+				return (T) new LuceneWorkDelegate() {
+
+					public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
+						throw new SearchException( "failed work" );
+					}
+				};
+			}
+			return super.getWorkDelegate( visitor );
+		}
+
+	}
+
+}
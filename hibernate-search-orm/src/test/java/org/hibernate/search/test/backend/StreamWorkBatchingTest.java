@@ -0,0 +1,183 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.SearchException;
+import org.hibernate.search.backend.AddLuceneWork;
+import org.hibernate.search.backend.DeleteLuceneWork;
+import org.hibernate.search.backend.IndexingMonitor;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.backend.impl.WorkVisitor;
+import org.hibernate.search.backend.impl.lucene.works.LuceneWorkDelegate;
+import org.hibernate.search.backend.impl.lucene.works.LuceneWorkVisitor;
+import org.hibernate.search.backend.spi.BackendQueueProcessor;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies that stream operations pushed concurrently to the Lucene backend are all
+ * applied, even if they are batched together before reaching the IndexWriter.
+ */
+public class StreamWorkBatchingTest {
+
+	private static final int PRODUCERS = 4;
+	private static final int WORKS_PER_PRODUCER = 500;
+
+	@Test
+	public void allStreamedWorksAreApplied() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.max_queue_length", "64" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			final BackendQueueProcessor backend = indexManager.getBackendQueueProcessor();
+			ExecutorService executor = Executors.newFixedThreadPool( PRODUCERS );
+			Future<?>[] results = new Future[PRODUCERS];
+			for ( int p = 0; p < PRODUCERS; p++ ) {
+				final int firstId = p * WORKS_PER_PRODUCER;
+				results[p] = executor.submit( new Callable<Void>() {
+					@Override
+					public Void call() {
+						for ( int i = firstId; i < firstId + WORKS_PER_PRODUCER; i++ ) {
+							backend.applyStreamWork( createAddWork( i ), null );
+						}
+						return null;
+					}
+				} );
+			}
+			for ( Future<?> result : results ) {
+				result.get();
+			}
+			executor.shutdown();
+			// sync backend: all works are committed when applyStreamWork returns
+			IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+			try {
+				assertEquals( PRODUCERS * WORKS_PER_PRODUCER, reader.numDocs() );
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void interruptedProducerGetsAnException() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			.setProperty( "hibernate.search.default.max_queue_length", "1" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		BlockingWork blockingWork = new BlockingWork( 1 );
+		try {
+			BackendQueueProcessor backend = getIndexManager( builder ).getBackendQueueProcessor();
+			// keeps the queue processor busy, so that the buffered stream work is not drained
+			backend.applyWork( Collections.<LuceneWork>singletonList( blockingWork ), null );
+			blockingWork.started.await();
+			backend.applyStreamWork( createAddWork( 2 ), null );
+			Thread.currentThread().interrupt();
+			try {
+				backend.applyStreamWork( createAddWork( 3 ), null );
+				fail( "the work can't be buffered, the interrupted producer should get an exception" );
+			}
+			catch ( SearchException e ) {
+				assertTrue( "interrupt flag not restored", Thread.interrupted() );
+			}
+		}
+		finally {
+			Thread.interrupted();
+			blockingWork.resume.countDown();
+			builder.close();
+		}
+	}
+
+	public static LuceneWork createAddWork(int id) {
+		return createAddWork( id, "Seiko" );
+	}
+
+	public static LuceneWork createAddWork(int id, String brand) {
+		String idString = String.valueOf( id );
+		Document document = new Document();
+		document.add( new Field( ProjectionConstants.OBJECT_CLASS, Clock.class.getName(), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS ) );
+		document.add( new Field( "id", idString, Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS ) );
+		document.add( new Field( "brand", brand, Field.Store.YES, Field.Index.ANALYZED ) );
+		return new AddLuceneWork( id, idString, Clock.class, document );
+	}
+
+	public static DirectoryBasedIndexManager getIndexManager(FullTextSessionBuilder builder) {
+		SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+		return (DirectoryBasedIndexManager) searchFactory.getAllIndexesManager().getIndexManager( Clock.class.getName() );
+	}
+
+	private static class BlockingWork extends DeleteLuceneWork {
+
+		private final CountDownLatch started = new CountDownLatch( 1 );
+		private final CountDownLatch resume = new CountDownLatch( 1 );
+
+		BlockingWork(int id) {
+			super( id, String.valueOf( id ), Clock.class );
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getWorkDelegate(WorkVisitor<T> visitor) {
+			if ( visitor instanceof LuceneWorkVisitor ) {
+				return (T) new LuceneWorkDelegate() {
+
+					public void performWork(LuceneWork work, IndexWriter writer, IndexingMonitor monitor) {
+						started.countDown();
+						try {
+							resume.await();
+						}
+						catch ( InterruptedException e ) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				};
+			}
+			return super.getWorkDelegate( visitor );
+		}
+
+	}
+
+}
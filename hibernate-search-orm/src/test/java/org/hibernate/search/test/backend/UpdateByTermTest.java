@@ -0,0 +1,150 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.backend;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Updates and deletes on indexes containing a single type are applied by id Term:
+ * verifies the right documents are replaced or removed both for numerically encoded
+ * ids and for string encoded ids.
+ */
+public class UpdateByTermTest {
+
+	private static final int ENTITIES = 20;
+
+	@Test
+	public void numericIdUpdatesAndDeletes() throws IOException {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Ticket.class )
+			.build();
+		try {
+			FullTextSession session = builder.openFullTextSession();
+			Transaction tx = session.beginTransaction();
+			for ( long i = 0; i < ENTITIES; i++ ) {
+				session.persist( new Ticket( i, "open" ) );
+			}
+			tx.commit();
+			session.clear();
+
+			tx = session.beginTransaction();
+			for ( long i = 0; i < ENTITIES / 2; i++ ) {
+				Ticket ticket = (Ticket) session.load( Ticket.class, i );
+				ticket.setStatus( "closed" );
+			}
+			tx.commit();
+			session.clear();
+
+			tx = session.beginTransaction();
+			for ( long i = 0; i < ENTITIES / 4; i++ ) {
+				session.delete( session.load( Ticket.class, i ) );
+			}
+			tx.commit();
+			session.close();
+
+			assertIndexContent( builder, Ticket.class, "status", ENTITIES * 3 / 4, ENTITIES / 2, ENTITIES / 4 );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void stringIdUpdatesAndDeletes() throws IOException {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			FullTextSession session = builder.openFullTextSession();
+			Transaction tx = session.beginTransaction();
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				session.persist( new Clock( i, "open" ) );
+			}
+			tx.commit();
+			session.clear();
+
+			tx = session.beginTransaction();
+			for ( int i = 0; i < ENTITIES / 2; i++ ) {
+				Clock clock = (Clock) session.load( Clock.class, i );
+				clock.setBrand( "closed" );
+			}
+			tx.commit();
+			session.clear();
+
+			tx = session.beginTransaction();
+			for ( int i = 0; i < ENTITIES / 4; i++ ) {
+				session.delete( session.load( Clock.class, i ) );
+			}
+			tx.commit();
+			session.close();
+
+			assertIndexContent( builder, Clock.class, "brand", ENTITIES * 3 / 4, ENTITIES / 2, ENTITIES / 4 );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static void assertIndexContent(FullTextSessionBuilder builder, Class<?> type, String field,
+			int expectedDocs, int expectedOpen, int expectedClosed) throws IOException {
+		SearchFactoryIntegrator searchFactory = (SearchFactoryIntegrator) builder.getSearchFactory();
+		DirectoryBasedIndexManager indexManager = (DirectoryBasedIndexManager) searchFactory
+				.getIndexBindingForEntity( type ).getIndexManagers()[0];
+		IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory() );
+		try {
+			assertEquals( expectedDocs, reader.numDocs() );
+			assertEquals( expectedOpen, countDocs( reader, new Term( field, "open" ) ) );
+			assertEquals( expectedClosed, countDocs( reader, new Term( field, "closed" ) ) );
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private static int countDocs(IndexReader reader, Term term) throws IOException {
+		// unlike docFreq, skips deleted documents
+		TermDocs termDocs = reader.termDocs( term );
+		try {
+			int count = 0;
+			while ( termDocs.next() ) {
+				count++;
+			}
+			return count;
+		}
+		finally {
+			termDocs.close();
+		}
+	}
+
+}
@@ -26,7 +26,12 @@ package org.hibernate.search.test.configuration;
 import java.io.IOException;
 import java.util.Properties;
 
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
+
 import org.hibernate.search.backend.spi.LuceneIndexingParameters;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
 import org.hibernate.search.test.Document;
 import org.hibernate.search.test.SerializationTestHelper;
 import org.hibernate.search.test.query.Author;
@@ -38,6 +43,10 @@ import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting
 import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.RAM_BUFFER_SIZE;
 import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.USE_COMPOUND_FILE;
 import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.MERGE_MAX_OPTIMIZE_SIZE;
+import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.MERGE_POLICY;
+import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.MERGE_SEGMENTS_PER_TIER;
+import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.MERGE_MAX_MB_PER_SEC;
+import static org.hibernate.search.backend.configuration.impl.IndexWriterSetting.TIERED_MERGE_POLICY;
 
 /**
  * @author Sanne Grinovero
@@ -65,6 +74,10 @@ public class LuceneIndexingParametersTest extends ConfigurationReadTestCase {
 		cfg.setProperty( "hibernate.search.Documents.indexwriter.max_buffered_docs", "7" );
 		cfg.setProperty( "hibernate.search.Documents.indexwriter.max_merge_docs", "9" );
 		cfg.setProperty( "hibernate.search.Documents.indexwriter.max_field_length", "9" );
+		cfg.setProperty( "hibernate.search.Documents.indexwriter.merge_policy", "tiered" );
+		cfg.setProperty( "hibernate.search.Documents.indexwriter.merge_segments_per_tier", "5" );
+		cfg.setProperty( "hibernate.search.Documents.indexwriter.merge_max_size", "300" );
+		cfg.setProperty( "hibernate.search.Documents.indexwriter.merge_max_mb_per_sec", "20" );
 	}
 	
 	public void testDefaultIndexProviderParameters() {
@@ -88,6 +101,34 @@ public class LuceneIndexingParametersTest extends ConfigurationReadTestCase {
 		assertValueIsDefault( Document.class, RAM_BUFFER_SIZE );
 	}
 	
+	public void testTieredMergePolicy() {
+		assertValueIsSet( Document.class, MERGE_POLICY, TIERED_MERGE_POLICY );
+		assertValueIsSet( Document.class, MERGE_SEGMENTS_PER_TIER, 5 );
+		assertValueIsSet( Document.class, MERGE_MAX_MB_PER_SEC, 20 );
+		MergePolicy mergePolicy = getIndexingParameters( Document.class ).getIndexParameters().getNewConfiguredMergePolicy();
+		assertTrue( mergePolicy instanceof TieredMergePolicy );
+		TieredMergePolicy tieredMergePolicy = (TieredMergePolicy) mergePolicy;
+		// merge_factor applies to both, but merge_segments_per_tier overrides it
+		assertEquals( 6, tieredMergePolicy.getMaxMergeAtOnce() );
+		assertEquals( 5d, tieredMergePolicy.getSegmentsPerTier() );
+		assertEquals( 300d, tieredMergePolicy.getMaxMergedSegmentMB() );
+		// still available to existing callers
+		assertEquals( 6, getIndexingParameters( Document.class ).getIndexParameters().getNewMergePolicy().getMergeFactor() );
+	}
+
+	public void testLogByteSizeMergePolicyByDefault() {
+		assertValueIsDefault( Book.class, MERGE_POLICY );
+		MergePolicy mergePolicy = getIndexingParameters( Book.class ).getIndexParameters().getNewConfiguredMergePolicy();
+		assertTrue( mergePolicy instanceof LogByteSizeMergePolicy );
+		assertEquals( 13, ( (LogByteSizeMergePolicy) mergePolicy ).getMergeFactor() );
+	}
+
+	private LuceneIndexingParameters getIndexingParameters(Class<?> entity) {
+		DirectoryBasedIndexManager indexManager = (DirectoryBasedIndexManager) getSearchFactory()
+				.getIndexBindingForEntity( entity ).getIndexManagers()[0];
+		return indexManager.getIndexingParameters();
+	}
+
 	public void testSerializability() throws IOException, ClassNotFoundException {
 		LuceneIndexingParameters param = new LuceneIndexingParameters( new Properties() );
 		LuceneIndexingParameters paramCopy = (LuceneIndexingParameters)
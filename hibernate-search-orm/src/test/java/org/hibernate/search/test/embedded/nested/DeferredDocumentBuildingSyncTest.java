@@ -0,0 +1,96 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.embedded.nested;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.hibernate.HibernateException;
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.bridge.BridgeException;
+import org.hibernate.search.test.SearchTestCase;
+
+/**
+ * With Documents built by a pool of document builder threads, verifies that indexes
+ * configured as sync are up to date when the commit returns, and that entities using
+ * custom bridges are still built by the committing thread.
+ */
+public class DeferredDocumentBuildingSyncTest extends SearchTestCase {
+
+	public void testSyncIndexUpdatedBeforeCommitReturns() throws Exception {
+		Product product = new Product();
+		Attribute attribute = new Attribute( product );
+		product.setAttribute( attribute );
+		attribute.setValue( new AttributeValue( attribute, "foo" ) );
+
+		FullTextSession s = Search.getFullTextSession( openSession() );
+		Transaction tx = s.beginTransaction();
+		s.persist( product );
+		tx.commit();
+		s.close();
+
+		s = Search.getFullTextSession( openSession() );
+		try {
+			TermQuery query = new TermQuery( new Term( "attributes.values.value", "foo" ) );
+			assertEquals( 1, s.createFullTextQuery( query, Product.class ).getResultSize() );
+		}
+		finally {
+			s.close();
+		}
+	}
+
+	public void testCustomBridgeFailureRaisedToCommittingThread() throws Exception {
+		FullTextSession s = Search.getFullTextSession( openSession() );
+		Transaction tx = s.beginTransaction();
+		try {
+			s.persist( new Label( Label.UNSUPPORTED ) );
+			s.flush();
+			s.flushToIndexes();
+			fail( "The failure of the custom bridge should be raised" );
+		}
+		catch (BridgeException e) {
+			// expected
+		}
+		catch (HibernateException e) {
+			assertTrue( "Unexpected exception: " + e, e.getCause() instanceof BridgeException );
+		}
+		finally {
+			tx.rollback();
+			s.close();
+		}
+	}
+
+	@Override
+	protected void configure(org.hibernate.cfg.Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.DOCUMENT_BUILDING_THREADS, "2" );
+		cfg.setProperty( "hibernate.search.default." + Environment.WORKER_EXECUTION, "async" );
+		cfg.setProperty( "hibernate.search." + Product.class.getName() + "." + Environment.WORKER_EXECUTION, "sync" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class[] { Product.class, Attribute.class, AttributeValue.class, Label.class };
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.embedded.nested;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.test.SearchTestCase;
+
+/**
+ * With Documents built by a pool of document builder threads and an async backend,
+ * verifies that the lazy state needed to build the Documents is loaded before the
+ * commit returns and the Session is closed.
+ */
+public class DeferredDocumentBuildingTest extends SearchTestCase {
+
+	public void testLazyStateLoadedBeforeSessionIsClosed() throws Exception {
+		Product product = new Product();
+		Attribute attribute = new Attribute( product );
+		product.setAttribute( attribute );
+		attribute.setValue( new AttributeValue( attribute, "foo" ) );
+
+		Query query = new TermQuery( new Term( "attributes.values.value", "foo" ) );
+		Session s = openSession();
+		Transaction tx = s.beginTransaction();
+		s.persist( product );
+		tx.commit();
+		s.close();
+		waitForProducts( query, 1 );
+
+		s = openSession();
+		FullTextSession session = Search.getFullTextSession( s );
+		tx = s.beginTransaction();
+		session.purgeAll( Product.class );
+		tx.commit();
+		s.close();
+		waitForProducts( query, 0 );
+
+		// reindex the product without touching the lazy attribute values, then close the Session
+		s = openSession();
+		session = Search.getFullTextSession( s );
+		tx = s.beginTransaction();
+		session.index( s.get( Product.class, product.getId() ) );
+		tx.commit();
+		s.close();
+		waitForProducts( query, 1 );
+	}
+
+	private void waitForProducts(Query query, int expected) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10000;
+		while ( countProducts( query ) != expected ) {
+			assertTrue( "Works not applied in time", System.currentTimeMillis() < timeout );
+			Thread.sleep( 10 );
+		}
+	}
+
+	private int countProducts(Query query) {
+		Session s = openSession();
+		try {
+			return Search.getFullTextSession( s ).createFullTextQuery( query, Product.class ).getResultSize();
+		}
+		finally {
+			s.close();
+		}
+	}
+
+	@Override
+	protected void configure(org.hibernate.cfg.Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.DOCUMENT_BUILDING_THREADS, "2" );
+		cfg.setProperty( "hibernate.search.default." + Environment.WORKER_EXECUTION, "async" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class[] { Product.class, Attribute.class, AttributeValue.class };
+	}
+
+}
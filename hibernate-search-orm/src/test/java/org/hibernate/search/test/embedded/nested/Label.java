@@ -0,0 +1,72 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.embedded.nested;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.FieldBridge;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.bridge.StringBridge;
+
+/**
+ * Indexed through a custom bridge, refusing the {@link #UNSUPPORTED} text.
+ */
+@Entity
+@Indexed
+public class Label {
+
+	public static final String UNSUPPORTED = "unsupported";
+
+	@Id
+	@GeneratedValue
+	private long id;
+
+	@Field
+	@FieldBridge(impl = CheckingBridge.class)
+	private String text;
+
+	private Label() {
+	}
+
+	public Label(String text) {
+		this.text = text;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public static class CheckingBridge implements StringBridge {
+		public String objectToString(Object object) {
+			if ( UNSUPPORTED.equals( object ) ) {
+				throw new IllegalArgumentException( "Unsupported label text" );
+			}
+			return (String) object;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.embedded.nested.containedIn;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.test.SearchTestCase;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Verifies that the entities reached at the same step of the {@code @ContainedIn} processing
+ * are loaded in batches rather than one by one.
+ */
+public class ContainedInBatchLoadingTest extends SearchTestCase {
+
+	private static final int HELP_ITEMS = 12;
+
+	public void testReachedEntitiesAreLoadedInBatches() throws Exception {
+		Session s = openSession();
+		Transaction tx = s.beginTransaction();
+		Tag tag = new Tag();
+		tag.setName( "animal" );
+		s.persist( tag );
+		for ( int i = 0; i < HELP_ITEMS; i++ ) {
+			HelpItem helpItem = new HelpItem();
+			helpItem.setTitle( "The quick brown fox jumps over the lazy dog." );
+			HelpItemTag helpItemTag = new HelpItemTag();
+			helpItemTag.setHelpItem( helpItem );
+			helpItemTag.setTag( tag );
+			helpItem.getTags().add( helpItemTag );
+			tag.getHelpItems().add( helpItemTag );
+			s.persist( helpItem );
+			s.persist( helpItemTag );
+		}
+		tx.commit();
+		s.clear();
+
+		Statistics statistics = s.getSessionFactory().getStatistics();
+		statistics.clear();
+		statistics.setStatisticsEnabled( true );
+		try {
+			tx = s.beginTransaction();
+			tag = (Tag) s.get( Tag.class, tag.getId() );
+			tag.setName( "automobile" );
+			tx.commit();
+			s.clear();
+
+			// the HelpItem proxies of the HelpItemTags are initialized by a query
+			assertEquals( 0, statistics.getEntityStatistics( HelpItem.class.getName() ).getFetchCount() );
+			assertEquals( HELP_ITEMS, statistics.getEntityStatistics( HelpItem.class.getName() ).getLoadCount() );
+		}
+		finally {
+			statistics.setStatisticsEnabled( false );
+		}
+
+		assertEquals( HELP_ITEMS, countHelpItems( s, "automobile" ) );
+		assertEquals( 0, countHelpItems( s, "animal" ) );
+		s.close();
+	}
+
+	public void testContainedInCollectionsAreLoadedInBatches() throws Exception {
+		Session s = openSession();
+		Transaction tx = s.beginTransaction();
+		Long[] tagIds = new Long[3];
+		for ( int i = 0; i < tagIds.length; i++ ) {
+			Tag tag = new Tag();
+			tag.setName( "animal" );
+			s.persist( tag );
+			for ( int j = 0; j < 2; j++ ) {
+				HelpItem helpItem = new HelpItem();
+				helpItem.setTitle( "The quick brown fox jumps over the lazy dog." );
+				HelpItemTag helpItemTag = new HelpItemTag();
+				helpItemTag.setHelpItem( helpItem );
+				helpItemTag.setTag( tag );
+				helpItem.getTags().add( helpItemTag );
+				tag.getHelpItems().add( helpItemTag );
+				s.persist( helpItem );
+				s.persist( helpItemTag );
+			}
+			tagIds[i] = tag.getId();
+		}
+		tx.commit();
+		s.clear();
+
+		Statistics statistics = s.getSessionFactory().getStatistics();
+		statistics.clear();
+		statistics.setStatisticsEnabled( true );
+		try {
+			tx = s.beginTransaction();
+			for ( Long tagId : tagIds ) {
+				Tag tag = (Tag) s.get( Tag.class, tagId );
+				tag.setName( "automobile" );
+			}
+			tx.commit();
+			s.clear();
+
+			// the helpItems of the Tags are initialized by a query
+			assertEquals( 0, statistics.getCollectionStatistics( Tag.class.getName() + ".helpItems" ).getFetchCount() );
+		}
+		finally {
+			statistics.setStatisticsEnabled( false );
+		}
+
+		assertEquals( 2 * tagIds.length, countHelpItems( s, "automobile" ) );
+		assertEquals( 0, countHelpItems( s, "animal" ) );
+		s.close();
+	}
+
+	private int countHelpItems(Session s, String tagName) {
+		FullTextSession fullTextSession = Search.getFullTextSession( s );
+		Transaction tx = fullTextSession.beginTransaction();
+		int resultSize = fullTextSession
+				.createFullTextQuery( new TermQuery( new Term( "tags.tag.name", tagName ) ), HelpItem.class )
+				.getResultSize();
+		tx.commit();
+		return resultSize;
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.CONTAINED_IN_BATCH_SIZE, "5" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				HelpItem.class,
+				HelpItemTag.class,
+				Tag.class
+		};
+	}
+
+}
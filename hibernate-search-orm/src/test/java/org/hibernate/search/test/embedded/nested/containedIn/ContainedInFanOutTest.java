@@ -0,0 +1,108 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.embedded.nested.containedIn;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.test.SearchTestCase;
+
+/**
+ * Verifies that the entities reached by {@code @ContainedIn} beyond the configured fan-out
+ * are reindexed asynchronously.
+ */
+public class ContainedInFanOutTest extends SearchTestCase {
+
+	private static final int MAX_FAN_OUT = 5;
+	private static final int HELP_ITEMS = 23;
+
+	public void testEntitiesBeyondFanOutAreReindexed() throws Exception {
+		Session s = openSession();
+		Transaction tx = s.beginTransaction();
+		Tag tag = new Tag();
+		tag.setName( "animal" );
+		s.persist( tag );
+		for ( int i = 0; i < HELP_ITEMS; i++ ) {
+			HelpItem helpItem = new HelpItem();
+			helpItem.setTitle( "The quick brown fox jumps over the lazy dog." );
+			HelpItemTag helpItemTag = new HelpItemTag();
+			helpItemTag.setHelpItem( helpItem );
+			helpItemTag.setTag( tag );
+			helpItem.getTags().add( helpItemTag );
+			tag.getHelpItems().add( helpItemTag );
+			s.persist( helpItem );
+			s.persist( helpItemTag );
+		}
+		tx.commit();
+		s.clear();
+
+		assertEquals( HELP_ITEMS, countHelpItems( s, "animal" ) );
+
+		tx = s.beginTransaction();
+		tag = (Tag) s.get( Tag.class, tag.getId() );
+		tag.setName( "automobile" );
+		tx.commit();
+		s.clear();
+
+		// the updates inline are done by now, the others are in progress
+		assertTrue( countHelpItems( s, "automobile" ) >= MAX_FAN_OUT );
+		long timeout = System.currentTimeMillis() + 10000;
+		while ( countHelpItems( s, "automobile" ) < HELP_ITEMS ) {
+			assertTrue( "HelpItems not reindexed", System.currentTimeMillis() < timeout );
+			Thread.sleep( 50 );
+		}
+		assertEquals( 0, countHelpItems( s, "animal" ) );
+		s.close();
+	}
+
+	private int countHelpItems(Session s, String tagName) {
+		FullTextSession fullTextSession = Search.getFullTextSession( s );
+		Transaction tx = fullTextSession.beginTransaction();
+		int resultSize = fullTextSession
+				.createFullTextQuery( new TermQuery( new Term( "tags.tag.name", tagName ) ), HelpItem.class )
+				.getResultSize();
+		tx.commit();
+		return resultSize;
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.CONTAINED_IN_MAX_FAN_OUT, String.valueOf( MAX_FAN_OUT ) );
+		cfg.setProperty( Environment.CONTAINED_IN_BATCH_SIZE, "4" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				HelpItem.class,
+				HelpItemTag.class,
+				Tag.class
+		};
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.TestConstants;
+import org.junit.Test;
+
+/**
+ * Compares on a large index the cost of replacing documents the way updates are applied
+ * to indexes shared by several types (delete by a query on class and id, then add) with
+ * the way they are applied to single type indexes (updateDocument by id Term).
+ * Not a unit test: run it manually to get updates/sec figures.
+ */
+public class DeleteByTermTestDontRun {
+
+	private static final int INDEX_SIZE = 500000;
+	private static final int UPDATES = 50000;
+	private static final int UPDATES_PER_COMMIT = 100;
+
+	public static void main(String[] args) throws Exception {
+		new DeleteByTermTestDontRun().compareUpdates();
+	}
+
+	@Test
+	public void compareUpdates() throws Exception {
+		measure( false ); //JVM warmup
+		measure( true ); //JVM warmup
+		System.out.println( "Delete by query and add: " + measure( false ) + " updates/sec" );
+		System.out.println( "Update by term: " + measure( true ) + " updates/sec" );
+	}
+
+	private long measure(boolean byTerm) throws Exception {
+		RAMDirectory directory = new RAMDirectory();
+		IndexWriter writer = new IndexWriter(
+				directory,
+				new IndexWriterConfig( TestConstants.getTargetLuceneVersion(), new SimpleAnalyzer( TestConstants.getTargetLuceneVersion() ) )
+		);
+		try {
+			for ( int i = 0; i < INDEX_SIZE; i++ ) {
+				writer.addDocument( createDocument( i ) );
+			}
+			writer.commit();
+			long start = System.nanoTime();
+			for ( int u = 0; u < UPDATES; u++ ) {
+				int id = ( u * 7919 ) % INDEX_SIZE;
+				Term idTerm = new Term( "id", String.valueOf( id ) );
+				if ( byTerm ) {
+					writer.updateDocument( idTerm, createDocument( id ) );
+				}
+				else {
+					BooleanQuery deletionQuery = new BooleanQuery();
+					deletionQuery.add( new TermQuery( idTerm ), BooleanClause.Occur.MUST );
+					deletionQuery.add(
+							new TermQuery( new Term( ProjectionConstants.OBJECT_CLASS, Clock.class.getName() ) ),
+							BooleanClause.Occur.MUST
+					);
+					writer.deleteDocuments( deletionQuery );
+					writer.addDocument( createDocument( id ) );
+				}
+				if ( u % UPDATES_PER_COMMIT == 0 ) {
+					writer.commit();
+				}
+			}
+			writer.commit();
+			long elapsed = System.nanoTime() - start;
+			return ( UPDATES * TimeUnit.SECONDS.toNanos( 1 ) ) / elapsed;
+		}
+		finally {
+			writer.close();
+			directory.close();
+		}
+	}
+
+	private static Document createDocument(int id) {
+		Document document = new Document();
+		document.add( new Field( ProjectionConstants.OBJECT_CLASS, Clock.class.getName(), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS ) );
+		document.add( new Field( "id", String.valueOf( id ), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS ) );
+		document.add( new Field( "brand", "brand" + ( id % 100 ), Field.Store.NO, Field.Index.ANALYZED ) );
+		return document;
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.perf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.annotations.common.reflection.XMember;
+import org.hibernate.search.engine.spi.AbstractDocumentBuilder.PropertiesMetadata;
+import org.hibernate.search.engine.spi.DocumentBuilderIndexedEntity;
+import org.hibernate.search.impl.SimpleInitializer;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.hibernate.search.test.embedded.Address;
+import org.hibernate.search.test.embedded.Country;
+import org.hibernate.search.test.embedded.Owner;
+import org.hibernate.search.test.embedded.Person;
+import org.hibernate.search.test.embedded.State;
+import org.hibernate.search.test.embedded.StateCandidate;
+import org.hibernate.search.test.embedded.Tower;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.hibernate.search.util.impl.ReflectionHelper;
+import org.junit.Test;
+
+/**
+ * Measures the cost of reading the indexed properties of an entity graph through
+ * {@link XMember}, compared to the Document building throughput for the same graph.
+ * Not a unit test: run it manually to get reads/sec and documents/sec figures.
+ */
+public class DocumentBuildingTestDontRun {
+
+	private static final int WARMUP_ITERATIONS = 200000;
+	private static final int ITERATIONS = 2000000;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		new DocumentBuildingTestDontRun().measureDocumentBuilding();
+	}
+
+	@Test
+	public void measureDocumentBuilding() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+				.addAnnotatedClass( Tower.class )
+				.addAnnotatedClass( Address.class )
+				.addAnnotatedClass( Country.class )
+				.addAnnotatedClass( State.class )
+				.addAnnotatedClass( StateCandidate.class )
+				.build();
+		try {
+			SearchFactoryIntegrator searchFactory = (SearchFactoryIntegrator) builder.getSearchFactory();
+			@SuppressWarnings("unchecked")
+			DocumentBuilderIndexedEntity<Tower> documentBuilder = (DocumentBuilderIndexedEntity<Tower>) searchFactory
+					.getIndexBindingForEntity( Tower.class )
+					.getDocumentBuilder();
+			Tower tower = createTower();
+
+			readProperties( documentBuilder.getMetadata(), tower, WARMUP_ITERATIONS );
+			buildDocuments( documentBuilder, tower, WARMUP_ITERATIONS );
+			for ( int round = 0; round < ROUNDS; round++ ) {
+				System.out.println( "XMember reads: " + readProperties( documentBuilder.getMetadata(), tower, ITERATIONS ) + " graphs/sec" );
+				System.out.println( "Document building: " + buildDocuments( documentBuilder, tower, ITERATIONS ) + " documents/sec" );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static long readProperties(PropertiesMetadata metadata, Object instance, int iterations) {
+		int nonNullValues = 0;
+		long start = System.nanoTime();
+		for ( int i = 0; i < iterations; i++ ) {
+			nonNullValues += readAll( metadata, instance );
+		}
+		long elapsed = System.nanoTime() - start;
+		if ( nonNullValues == 0 ) {
+			throw new IllegalStateException( "No value read" );
+		}
+		return ( iterations * TimeUnit.SECONDS.toNanos( 1 ) ) / elapsed;
+	}
+
+	private static int readAll(PropertiesMetadata metadata, Object instance) {
+		int nonNullValues = read( metadata.fieldGetters, instance );
+		List<XMember> embeddedGetters = metadata.embeddedGetters;
+		for ( int i = 0; i < embeddedGetters.size(); i++ ) {
+			Object value = ReflectionHelper.getMemberValue( instance, embeddedGetters.get( i ) );
+			if ( value != null && metadata.embeddedContainers.get( i ) == PropertiesMetadata.Container.OBJECT ) {
+				nonNullValues += readAll( metadata.embeddedPropertiesMetadata.get( i ), value );
+			}
+		}
+		return nonNullValues;
+	}
+
+	private static int read(List<XMember> getters, Object instance) {
+		int nonNullValues = 0;
+		for ( int i = 0; i < getters.size(); i++ ) {
+			Object value = ReflectionHelper.getMemberValue( instance, getters.get( i ) );
+			if ( value != null ) {
+				nonNullValues++;
+			}
+		}
+		return nonNullValues;
+	}
+
+	private static long buildDocuments(DocumentBuilderIndexedEntity<Tower> documentBuilder, Tower tower, int iterations) {
+		SimpleInitializer initializer = new SimpleInitializer();
+		long start = System.nanoTime();
+		for ( int i = 0; i < iterations; i++ ) {
+			documentBuilder.getDocument( tower, tower.getId(), new HashMap<String, String>(), initializer );
+		}
+		long elapsed = System.nanoTime() - start;
+		return ( iterations * TimeUnit.SECONDS.toNanos( 1 ) ) / elapsed;
+	}
+
+	private static Tower createTower() {
+		Tower tower = new Tower();
+		tower.setId( 1l );
+		tower.setName( "JBoss tower" );
+		Address address = new Address();
+		address.setId( 2l );
+		address.setStreet( "Tower place" );
+		address.getTowers().add( tower );
+		tower.setAddress( address );
+		Person owner = new Owner();
+		owner.setName( "Atlanta Renting corp" );
+		owner.setAddress( address );
+		address.setOwnedBy( owner );
+		Country country = new Country();
+		country.setId( 3 );
+		country.setName( "France" );
+		address.setCountry( country );
+		return tower;
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.perf;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.RAMDirectory;
+import org.hibernate.search.query.collector.impl.FacetCollector;
+import org.hibernate.search.query.dsl.impl.FacetingRequestImpl;
+import org.hibernate.search.test.TestConstants;
+import org.hibernate.search.test.query.facet.Car;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+/**
+ * Compares on a large index the cost of counting discrete facets with the {@link FacetCollector},
+ * which counts term ordinals, to the way they used to be counted: loading the value of each hit
+ * from the FieldCache and incrementing its count in a {@code HashMap}.
+ * Not a unit test: run it manually to get hits/sec figures.
+ */
+public class FacetCountingTestDontRun {
+
+	private static final int INDEX_SIZE = 2000000;
+	private static final int DOCUMENTS_PER_COMMIT = 200000;
+	private static final int DISTINCT_VALUES = 500;
+	private static final int WARMUP_QUERIES = 5;
+	private static final int QUERIES = 20;
+
+	public static void main(String[] args) throws Exception {
+		new FacetCountingTestDontRun().compareFacetCounting();
+	}
+
+	@Test
+	public void compareFacetCounting() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+				.addAnnotatedClass( Car.class )
+				.build();
+		RAMDirectory directory = new RAMDirectory();
+		try {
+			FacetingRequestImpl request = (FacetingRequestImpl) builder.getSearchFactory()
+					.buildQueryBuilder().forEntity( Car.class ).get()
+					.facet()
+					.name( "colors" )
+					.onField( "color" )
+					.discrete()
+					.createFacetingRequest();
+			fillIndex( directory );
+			IndexReader reader = IndexReader.open( directory );
+			IndexSearcher searcher = new IndexSearcher( reader );
+			try {
+				System.out.println( "Segments: " + reader.getSequentialSubReaders().length );
+				for ( int i = 0; i < WARMUP_QUERIES; i++ ) {
+					countWithMap( searcher );
+					countWithOrdinals( searcher, request );
+				}
+				long start = System.nanoTime();
+				for ( int i = 0; i < QUERIES; i++ ) {
+					countWithMap( searcher );
+				}
+				System.out.println( "HashMap of values: " + hitsPerSecond( start ) + " hits/sec" );
+				start = System.nanoTime();
+				for ( int i = 0; i < QUERIES; i++ ) {
+					countWithOrdinals( searcher, request );
+				}
+				System.out.println( "Term ordinals: " + hitsPerSecond( start ) + " hits/sec" );
+				start = System.nanoTime();
+				for ( int i = 0; i < QUERIES; i++ ) {
+					searcher.search( new MatchAllDocsQuery(), new TotalHitCountCollector() );
+				}
+				System.out.println( "No faceting: " + hitsPerSecond( start ) + " hits/sec" );
+			}
+			finally {
+				searcher.close();
+				reader.close();
+			}
+		}
+		finally {
+			directory.close();
+			builder.close();
+		}
+	}
+
+	private static long hitsPerSecond(long start) {
+		long elapsed = System.nanoTime() - start;
+		return ( (long) QUERIES * INDEX_SIZE * TimeUnit.SECONDS.toNanos( 1 ) ) / elapsed;
+	}
+
+	private static void countWithOrdinals(IndexSearcher searcher, FacetingRequestImpl request) throws IOException {
+		FacetCollector collector = new FacetCollector( new TotalHitCountCollector(), request );
+		searcher.search( new MatchAllDocsQuery(), collector );
+		if ( collector.getFacetList().size() != DISTINCT_VALUES ) {
+			throw new AssertionError( "Wrong number of facets: " + collector.getFacetList().size() );
+		}
+	}
+
+	private static void countWithMap(IndexSearcher searcher) throws IOException {
+		ValueCountingCollector collector = new ValueCountingCollector( "color" );
+		searcher.search( new MatchAllDocsQuery(), collector );
+		if ( collector.counts.size() != DISTINCT_VALUES ) {
+			throw new AssertionError( "Wrong number of facets: " + collector.counts.size() );
+		}
+	}
+
+	private static void fillIndex(RAMDirectory directory) throws IOException {
+		IndexWriter writer = new IndexWriter(
+				directory,
+				new IndexWriterConfig( TestConstants.getTargetLuceneVersion(), new SimpleAnalyzer( TestConstants.getTargetLuceneVersion() ) )
+		);
+		try {
+			for ( int i = 0; i < INDEX_SIZE; i++ ) {
+				Document document = new Document();
+				document.add( new Field( "color", "color" + ( i * 31 ) % DISTINCT_VALUES, Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS ) );
+				writer.addDocument( document );
+				if ( i % DOCUMENTS_PER_COMMIT == DOCUMENTS_PER_COMMIT - 1 ) {
+					writer.commit();
+				}
+			}
+			writer.commit();
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Counts values the way the FacetCollector used to.
+	 */
+	private static class ValueCountingCollector extends Collector {
+
+		private final String fieldName;
+		private final Map<String, Integer> counts = new HashMap<String, Integer>();
+		private String[] values;
+
+		ValueCountingCollector(String fieldName) {
+			this.fieldName = fieldName;
+		}
+
+		@Override
+		public void setScorer(Scorer scorer) {
+		}
+
+		@Override
+		public void collect(int doc) {
+			String value = values[doc];
+			if ( value != null ) {
+				if ( !counts.containsKey( value ) ) {
+					counts.put( value, 1 );
+				}
+				else {
+					counts.put( value, counts.get( value ) + 1 );
+				}
+			}
+		}
+
+		@Override
+		public void setNextReader(IndexReader reader, int docBase) throws IOException {
+			values = FieldCache.DEFAULT.getStrings( reader, fieldName );
+		}
+
+		@Override
+		public boolean acceptsDocsOutOfOrder() {
+			return true;
+		}
+	}
+
+}
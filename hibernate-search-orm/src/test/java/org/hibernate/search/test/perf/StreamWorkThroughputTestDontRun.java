@@ -0,0 +1,121 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.perf;
+
+import java.util.Collections;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.backend.IndexingMonitor;
+import org.hibernate.search.backend.impl.lucene.LuceneBackendQueueProcessor;
+import org.hibernate.search.backend.impl.lucene.LuceneBackendResources;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+
+/**
+ * Compares the throughput of stream operations processed one by one, each by its own
+ * queue task as they used to be, with the batched stream operations.
+ * Not a unit test: run it manually to get docs/sec figures.
+ */
+public class StreamWorkThroughputTestDontRun {
+
+	private static final int PRODUCERS = 4;
+	private static final int DOCS_PER_PRODUCER = 50000;
+
+	public static void main(String[] args) throws Exception {
+		new StreamWorkThroughputTestDontRun().compareThroughput();
+	}
+
+	@Test
+	public void compareThroughput() throws Exception {
+		measure( false ); //JVM warmup
+		measure( true ); //JVM warmup
+		System.out.println( "One queue task per stream operation: " + measure( false ) + " docs/sec" );
+		System.out.println( "Stream operations: " + measure( true ) + " docs/sec" );
+	}
+
+	private long measure(final boolean streaming) throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.worker.execution", "async" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			final LuceneBackendQueueProcessor backend = (LuceneBackendQueueProcessor) getIndexManager( builder ).getBackendQueueProcessor();
+			final LuceneBackendResources resources = backend.getIndexResources();
+			final Constructor<?> queueTaskConstructor = getQueueTaskConstructor();
+			ExecutorService executor = Executors.newFixedThreadPool( PRODUCERS );
+			Future<?>[] results = new Future[PRODUCERS];
+			long start = System.nanoTime();
+			for ( int p = 0; p < PRODUCERS; p++ ) {
+				final int firstId = p * DOCS_PER_PRODUCER;
+				results[p] = executor.submit( new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for ( int i = firstId; i < firstId + DOCS_PER_PRODUCER; i++ ) {
+							if ( streaming ) {
+								backend.applyStreamWork( createAddWork( i ), null );
+							}
+							else {
+								Runnable queueTask = (Runnable) queueTaskConstructor.newInstance(
+										Collections.singletonList( createAddWork( i ) ), resources, null, true
+								);
+								resources.getQueueingExecutor().execute( queueTask );
+							}
+						}
+						return null;
+					}
+				} );
+			}
+			for ( Future<?> result : results ) {
+				result.get();
+			}
+			executor.shutdown();
+			// closing the backend waits for the queue to be flushed
+			backend.close();
+			long elapsed = System.nanoTime() - start;
+			return ( PRODUCERS * DOCS_PER_PRODUCER * TimeUnit.SECONDS.toNanos( 1 ) ) / elapsed;
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	/**
+	 * LuceneBackendQueueProcessor used to create a streaming queue task, which doesn't commit,
+	 * for each stream operation; the task is not visible outside of the backend package.
+	 */
+	private static Constructor<?> getQueueTaskConstructor() throws Exception {
+		Constructor<?> constructor = Class.forName( "org.hibernate.search.backend.impl.lucene.LuceneBackendQueueTask" )
+				.getDeclaredConstructor( List.class, LuceneBackendResources.class, IndexingMonitor.class, boolean.class );
+		constructor.setAccessible( true );
+		return constructor;
+	}
+
+}
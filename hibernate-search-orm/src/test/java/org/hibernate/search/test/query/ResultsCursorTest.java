@@ -0,0 +1,169 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.engine.spi.ResultsCursor;
+import org.hibernate.search.test.query.facet.Car;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that paging through the results of a query with cursors returns
+ * the same results as listing them all at once.
+ */
+public class ResultsCursorTest {
+
+	// ranked differently by a Collator and by String.compareTo
+	private static final String[] colors = { "red", "black", "White", "blue", "\u00e9cru" };
+	private static final String[] makes = { "Honda", "Toyota", "BMW", "Mercedes" };
+	private static final int[] ccs = { 3398, 2407, 2831 };
+	private static final int CARS = 250;
+
+	@Test
+	public void pagingWithCursors() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			assertPagesMatchAllResults( builder );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void pagingWithCursorsOnShardsSearchedInParallel() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", "3" )
+			.setProperty( Environment.QUERY_SHARDS_THREADS, "2" )
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			assertPagesMatchAllResults( builder );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static void assertPagesMatchAllResults(FullTextSessionBuilder builder) {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 0; i < CARS; i++ ) {
+				session.persist( new Car( makes[i / 4 % makes.length], colors[i % colors.length], ccs[i % ccs.length] ) );
+			}
+			transaction.commit();
+			session.clear();
+
+			transaction = session.beginTransaction();
+			QueryBuilder queryBuilder = session.getSearchFactory().buildQueryBuilder().forEntity( Car.class ).get();
+			// many ties, broken by document id
+			Sort sort = new Sort(
+					new SortField( "color", SortField.STRING ),
+					new SortField( "cubicCapacity", SortField.STRING, true )
+			);
+			assertPagesMatchAllResults( session, new MatchAllDocsQuery(), sort );
+			Sort localeSort = new Sort(
+					new SortField( "color", Locale.ENGLISH ),
+					new SortField( "cubicCapacity", SortField.STRING, true )
+			);
+			assertPagesMatchAllResults( session, new MatchAllDocsQuery(), localeSort );
+			Query makesQuery = queryBuilder.bool()
+					.should( queryBuilder.keyword().onField( "make" ).matching( "honda" ).createQuery() )
+					.should( queryBuilder.keyword().onField( "make" ).matching( "bmw" ).createQuery() )
+					.should( queryBuilder.keyword().onField( "color" ).matching( "red" ).createQuery() )
+					.createQuery();
+			assertPagesMatchAllResults( session, makesQuery, null );
+			assertPagesMatchAllResults( session, makesQuery, new Sort( SortField.FIELD_SCORE, SortField.FIELD_DOC ) );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private static void assertPagesMatchAllResults(FullTextSession session, Query query, Sort sort) {
+		FullTextQuery allResultsQuery = createQuery( session, query, sort );
+		// results beyond the first ones collected by default are collected later
+		List<Object> allResults = ids( allResultsQuery.list() );
+		assertTrue( allResults.size() > 100 );
+		assertEquals( allResults, ids( createQuery( session, query, sort ).setMaxResults( allResults.size() ).list() ) );
+
+		List<Object> pagedResults = new ArrayList<Object>();
+		FullTextQuery pageQuery = createQuery( session, query, sort ).setMaxResults( 7 );
+		ResultsCursor cursor = null;
+		do {
+			List<Object> page = ids( pageQuery.setResultsAfter( cursor ).list() );
+			assertEquals( allResults.size(), pageQuery.getResultSize() );
+			pagedResults.addAll( page );
+			cursor = pageQuery.getResultsCursor();
+			assertEquals( page.isEmpty(), cursor == null );
+		}
+		while ( cursor != null );
+		assertEquals( allResults, pagedResults );
+
+		pageQuery.setResultsAfter( null ).setMaxResults( 10 ).list();
+		List<Object> nextPage = ids(
+				pageQuery.setResultsAfter( pageQuery.getResultsCursor() ).setFirstResult( 5 ).setMaxResults( 10 ).list()
+		);
+		assertEquals( allResults.subList( 15, 25 ), nextPage );
+		assertTrue( pageQuery.setResultsAfter( null ).setFirstResult( allResults.size() ).list().isEmpty() );
+		assertNull( pageQuery.getResultsCursor() );
+	}
+
+	private static FullTextQuery createQuery(FullTextSession session, Query query, Sort sort) {
+		FullTextQuery fullTextQuery = session.createFullTextQuery( query, Car.class ).setProjection( ProjectionConstants.ID );
+		if ( sort != null ) {
+			fullTextQuery.setSort( sort );
+		}
+		return fullTextQuery;
+	}
+
+	private static List<Object> ids(List<?> results) {
+		List<Object> ids = new ArrayList<Object>( results.size() );
+		for ( Object result : results ) {
+			ids.add( ( (Object[]) result )[0] );
+		}
+		return ids;
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.query;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.engine.spi.EntityInfo;
+import org.hibernate.search.query.engine.spi.EntityInfoBatchHandler;
+import org.hibernate.search.query.engine.spi.HSQuery;
+import org.hibernate.search.test.engine.Country;
+import org.hibernate.search.test.engine.Location;
+import org.hibernate.search.test.engine.PinPoint;
+import org.hibernate.search.test.query.facet.Car;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that streaming the results of a query hands every hit
+ * exactly once, in batches no larger than requested.
+ */
+public class StreamingEntityInfosTest {
+
+	private static final String[] colors = { "red", "black", "white", "blue" };
+	private static final String[] makes = { "Honda", "Toyota", "BMW", "Mercedes" };
+	private static final int CARS = 250;
+	private static final int LOCATIONS = 120;
+	private static final int BATCH_SIZE = 32;
+
+	@Test
+	public void streamingStoredDocuments() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			// force multiple segments to also verify the docId transformations
+			.setProperty( "hibernate.search.default.indexwriter.transaction.max_merge_docs", "10" )
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			Set<Integer> ids = new HashSet<Integer>();
+			Set<Integer> bmwIds = new HashSet<Integer>();
+			FullTextSession session = builder.openFullTextSession();
+			try {
+				Transaction transaction = session.beginTransaction();
+				for ( int i = 0; i < CARS; i++ ) {
+					Car car = new Car( makes[i % makes.length], colors[i / 4 % colors.length], 2000 + i );
+					session.persist( car );
+					ids.add( car.getId() );
+					if ( "BMW".equals( car.getMake() ) ) {
+						bmwIds.add( car.getId() );
+					}
+				}
+				transaction.commit();
+			}
+			finally {
+				session.close();
+			}
+
+			SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+			BatchCollector allCars = new BatchCollector();
+			HSQuery query = createQuery( searchFactory, new MatchAllDocsQuery(), Car.class );
+			assertEquals( CARS, query.streamEntityInfos( BATCH_SIZE, allCars ) );
+			assertEquals( ids, allCars.ids() );
+			allCars.assertBatchSizes( CARS );
+
+			QueryBuilder queryBuilder = searchFactory.buildQueryBuilder().forEntity( Car.class ).get();
+			Query bmwQuery = queryBuilder.keyword().onField( "make" ).matching( "bmw" ).createQuery();
+			BatchCollector bmwCars = new BatchCollector();
+			query = createQuery( searchFactory, bmwQuery, Car.class )
+					.projection( ProjectionConstants.ID, "make", ProjectionConstants.SCORE, ProjectionConstants.THIS );
+			assertEquals( bmwIds.size(), query.streamEntityInfos( BATCH_SIZE, bmwCars ) );
+			assertEquals( bmwIds, bmwCars.ids() );
+			bmwCars.assertBatchSizes( bmwIds.size() );
+			for ( EntityInfo entityInfo : bmwCars.entityInfos ) {
+				assertEquals( Car.class, entityInfo.getClazz() );
+				assertEquals( entityInfo.getId(), entityInfo.getProjection()[0] );
+				assertEquals( "BMW", entityInfo.getProjection()[1] );
+				assertTrue( ( (Float) entityInfo.getProjection()[2] ) > 0f );
+				assertEquals( 1, entityInfo.getIndexesOfThis().size() );
+				assertEquals( Integer.valueOf( 3 ), entityInfo.getIndexesOfThis().get( 0 ) );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void streamingIdsFromFieldCache() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.indexwriter.transaction.max_merge_docs", "10" )
+			.addAnnotatedClass( Location.class )
+			.addAnnotatedClass( PinPoint.class )
+			.build();
+		try {
+			FullTextSession session = builder.openFullTextSession();
+			try {
+				Transaction transaction = session.beginTransaction();
+				Country italy = new Country( "Italy", 39d );
+				for ( int i = 0; i < LOCATIONS; i++ ) {
+					session.persist( new Location( i, Long.valueOf( i ), 7 * i, Double.valueOf( 9 * i ), Integer.valueOf( 100 - i ),
+							String.valueOf( i ) + "42", null, italy, BigDecimal.ONE ) );
+				}
+				transaction.commit();
+			}
+			finally {
+				session.close();
+			}
+
+			SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+			BatchCollector locations = new BatchCollector();
+			HSQuery query = createQuery( searchFactory, new MatchAllDocsQuery(), Location.class )
+					.projection( ProjectionConstants.ID, "latitude" );
+			assertEquals( LOCATIONS, query.streamEntityInfos( BATCH_SIZE, locations ) );
+			locations.assertBatchSizes( LOCATIONS );
+			Set<Integer> expectedIds = new HashSet<Integer>();
+			for ( int i = 0; i < LOCATIONS; i++ ) {
+				expectedIds.add( i );
+			}
+			assertEquals( expectedIds, locations.ids() );
+			for ( EntityInfo entityInfo : locations.entityInfos ) {
+				assertEquals( Location.class, entityInfo.getClazz() );
+				assertEquals( 7d * (Integer) entityInfo.getId(), entityInfo.getProjection()[1] );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void batchSizeMustBePositive() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			SearchFactoryImplementor searchFactory = (SearchFactoryImplementor) builder.getSearchFactory();
+			createQuery( searchFactory, new MatchAllDocsQuery(), Car.class ).streamEntityInfos( 0, new BatchCollector() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static HSQuery createQuery(SearchFactoryImplementor searchFactory, Query query, Class<?> entityType) {
+		List<Class<?>> targetedEntities = new ArrayList<Class<?>>();
+		targetedEntities.add( entityType );
+		return searchFactory.createHSQuery().luceneQuery( query ).targetedEntities( targetedEntities );
+	}
+
+	private static class BatchCollector implements EntityInfoBatchHandler {
+
+		private final List<Integer> batchSizes = new ArrayList<Integer>();
+		private final List<EntityInfo> entityInfos = new ArrayList<EntityInfo>();
+
+		@Override
+		public void handle(List<EntityInfo> batch) {
+			batchSizes.add( batch.size() );
+			entityInfos.addAll( batch );
+		}
+
+		/**
+		 * @return the distinct ids of the streamed entities, verifying none was streamed twice
+		 */
+		Set<Integer> ids() {
+			Set<Integer> ids = new HashSet<Integer>();
+			for ( EntityInfo entityInfo : entityInfos ) {
+				Serializable id = entityInfo.getId();
+				assertTrue( "Streamed twice: " + id, ids.add( (Integer) id ) );
+			}
+			return ids;
+		}
+
+		/**
+		 * Verifies all batches but the last one are full.
+		 */
+		void assertBatchSizes(int total) {
+			assertEquals( ( total + BATCH_SIZE - 1 ) / BATCH_SIZE, batchSizes.size() );
+			for ( int i = 0; i < batchSizes.size() - 1; i++ ) {
+				assertEquals( Integer.valueOf( BATCH_SIZE ), batchSizes.get( i ) );
+			}
+		}
+	}
+
+}
@@ -95,14 +95,38 @@ public class DynamicBoostingTest extends SearchTestCase {
 		assertTrue( "lib1score should be greater than lib2score", lib1Score > lib2Score );
 	}
 
+	public void testSubclassOfDefaultBoostStrategy() throws Exception {
+		Session session = openSession();
+		session.beginTransaction();
+
+		ExtendedDefaultBoostedLibrary lib1 = new ExtendedDefaultBoostedLibrary();
+		lib1.setName( "foobar" );
+		session.persist( lib1 );
+
+		ExtendedDefaultBoostedLibrary lib2 = new ExtendedDefaultBoostedLibrary();
+		lib2.setName( "two" );
+		session.persist( lib2 );
+
+		session.getTransaction().commit();
+		session.close();
+
+		float lib1Score = getScore( new TermQuery( new Term( "name", "foobar" ) ), ExtendedDefaultBoostedLibrary.class );
+		float lib2Score = getScore( new TermQuery( new Term( "name", "two" ) ), ExtendedDefaultBoostedLibrary.class );
+		assertTrue( "lib1score should be greater than lib2score", lib1Score > lib2Score );
+	}
+
 	private float getScore(Query query) {
+		return getScore( query, DynamicBoostedDescriptionLibrary.class );
+	}
+
+	private float getScore(Query query, Class<?> entityType) {
 		Session session = openSession();
 		Object[] queryResult;
 		float score;
 		try {
 			FullTextSession fullTextSession = Search.getFullTextSession( session );
 			List resultList = fullTextSession
-					.createFullTextQuery( query, DynamicBoostedDescriptionLibrary.class )
+					.createFullTextQuery( query, entityType )
 					.setProjection( ProjectionConstants.SCORE, ProjectionConstants.EXPLANATION )
 					.setMaxResults( 1 )
 					.list();
@@ -125,7 +149,8 @@ public class DynamicBoostingTest extends SearchTestCase {
 
 	protected Class<?>[] getAnnotatedClasses() {
 		return new Class[] {
-				DynamicBoostedDescriptionLibrary.class
+				DynamicBoostedDescriptionLibrary.class,
+				ExtendedDefaultBoostedLibrary.class
 		};
 	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.query.facet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.search.Query;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.facet.Facet;
+import org.hibernate.search.query.facet.FacetSortOrder;
+import org.hibernate.search.query.facet.FacetingRequest;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that discrete facets counted per segment are merged by value,
+ * across segments and across shards.
+ */
+public class DiscreteFacetCountingTest {
+
+	private static final String[] colors = { "red", "black", "white", "blue", "green", "yellow" };
+	private static final String[] makes = { "Honda", "Toyota", "BMW", "Mercedes" };
+	private static final int CARS = 300;
+	private static final int CARS_PER_TRANSACTION = 40;
+
+	@Test
+	public void countsAreMergedAcrossSegments() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			assertFacetCounts( builder );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void countsAreMergedAcrossShardsSearchedInParallel() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", "3" )
+			.setProperty( Environment.QUERY_SHARDS_THREADS, "2" )
+			.addAnnotatedClass( Car.class )
+			.build();
+		try {
+			assertFacetCounts( builder );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static void assertFacetCounts(FullTextSessionBuilder builder) {
+		Map<String, Integer> expectedCounts = new HashMap<String, Integer>();
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			// each transaction creates a new segment
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 0; i < CARS; i++ ) {
+				String make = makes[i % makes.length];
+				// colors get rarer and rarer: each segment doesn't contain all of them
+				String color = colors[Integer.numberOfTrailingZeros( i + 1 ) % colors.length];
+				session.persist( new Car( make, color, 2000 ) );
+				if ( "Honda".equals( make ) || "BMW".equals( make ) ) {
+					Integer count = expectedCounts.get( color );
+					expectedCounts.put( color, count == null ? 1 : count + 1 );
+				}
+				if ( i % CARS_PER_TRANSACTION == CARS_PER_TRANSACTION - 1 ) {
+					transaction.commit();
+					transaction = session.beginTransaction();
+				}
+			}
+			transaction.commit();
+			session.clear();
+
+			transaction = session.beginTransaction();
+			QueryBuilder queryBuilder = session.getSearchFactory().buildQueryBuilder().forEntity( Car.class ).get();
+			Query query = queryBuilder.bool()
+					.should( queryBuilder.keyword().onField( "make" ).matching( "honda" ).createQuery() )
+					.should( queryBuilder.keyword().onField( "make" ).matching( "bmw" ).createQuery() )
+					.createQuery();
+			FacetingRequest request = queryBuilder.facet()
+					.name( "colors" )
+					.onField( "color" )
+					.discrete()
+					.orderedBy( FacetSortOrder.COUNT_DESC )
+					.includeZeroCounts( false )
+					.createFacetingRequest();
+			FullTextQuery fullTextQuery = session.createFullTextQuery( query, Car.class );
+			fullTextQuery.getFacetManager().enableFaceting( request );
+			List<Facet> facets = fullTextQuery.getFacetManager().getFacets( "colors" );
+
+			assertEquals( expectedCounts.size(), facets.size() );
+			int previousCount = Integer.MAX_VALUE;
+			for ( Facet facet : facets ) {
+				assertEquals( facet.getValue(), expectedCounts.get( facet.getValue() ), Integer.valueOf( facet.getCount() ) );
+				assertTrue( "Facets not ordered by count", facet.getCount() <= previousCount );
+				previousCount = facet.getCount();
+			}
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.query.facet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.search.Query;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.engine.spi.FacetManager;
+import org.hibernate.search.query.facet.Facet;
+import org.hibernate.search.query.facet.FacetingRequest;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that the facets of fields having several values per document count
+ * each document once for each of its values.
+ */
+public class MultiValuedFacetingTest {
+
+	private static final String[] tags = { "sale", "new", "eco", "premium", "gift", "outdoor", "kids" };
+	private static final int PRODUCTS = 200;
+	private static final int PRODUCTS_PER_TRANSACTION = 30;
+
+	@Test
+	public void countingMultiValuedFacets() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.reader.warmer", "field_cache" )
+			.setProperty( "hibernate.search.default.reader.warmer.multi_valued_facet_fields", "tags" )
+			.addAnnotatedClass( Product.class )
+			.build();
+		try {
+			assertFacetCounts( builder );
+			assertTrue( builder.getSearchFactory().getStatistics().getUninvertedFieldsRamUsed() > 0 );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void countingMultiValuedFacetsOnShardsSearchedInParallel() throws Exception {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", "3" )
+			.setProperty( Environment.QUERY_SHARDS_THREADS, "2" )
+			.addAnnotatedClass( Product.class )
+			.build();
+		try {
+			assertFacetCounts( builder );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static void assertFacetCounts(FullTextSessionBuilder builder) {
+		Map<String, Integer> expectedCounts = new HashMap<String, Integer>();
+		int expectedNewMatches = 0;
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			// each transaction creates a new segment
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 0; i < PRODUCTS; i++ ) {
+				Set<String> productTags = new HashSet<String>();
+				for ( int t = 0; t < tags.length; t++ ) {
+					if ( i % ( t + 2 ) == 0 ) {
+						productTags.add( tags[t] );
+					}
+				}
+				String name = i % 2 == 0 ? "even" : "odd";
+				session.persist( new Product( name, productTags ) );
+				if ( "even".equals( name ) ) {
+					for ( String tag : productTags ) {
+						Integer count = expectedCounts.get( tag );
+						expectedCounts.put( tag, count == null ? 1 : count + 1 );
+					}
+					if ( productTags.contains( "new" ) ) {
+						expectedNewMatches++;
+					}
+				}
+				if ( i % PRODUCTS_PER_TRANSACTION == PRODUCTS_PER_TRANSACTION - 1 ) {
+					transaction.commit();
+					transaction = session.beginTransaction();
+				}
+			}
+			transaction.commit();
+			session.clear();
+
+			transaction = session.beginTransaction();
+			QueryBuilder queryBuilder = session.getSearchFactory().buildQueryBuilder().forEntity( Product.class ).get();
+			Query query = queryBuilder.keyword().onField( "name" ).matching( "even" ).createQuery();
+			FacetingRequest request = queryBuilder.facet()
+					.name( "tags" )
+					.onField( "tags" )
+					.discrete()
+					.multiValued()
+					.includeZeroCounts( false )
+					.createFacetingRequest();
+			FullTextQuery fullTextQuery = session.createFullTextQuery( query, Product.class );
+			FacetManager facetManager = fullTextQuery.getFacetManager();
+			facetManager.enableFaceting( request );
+			List<Facet> facets = facetManager.getFacets( "tags" );
+
+			assertEquals( expectedCounts.size(), facets.size() );
+			Facet newFacet = null;
+			for ( Facet facet : facets ) {
+				assertEquals( facet.getValue(), expectedCounts.get( facet.getValue() ), Integer.valueOf( facet.getCount() ) );
+				if ( "new".equals( facet.getValue() ) ) {
+					newFacet = facet;
+				}
+			}
+
+			facetManager.getFacetGroup( "tags" ).selectFacets( newFacet );
+			assertEquals( expectedNewMatches, fullTextQuery.getResultSize() );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+}
@@ -247,6 +247,45 @@ public class RangeFacetingTest extends AbstractFacetTest {
 	}
 
 
+	public void testOverlappingRanges() {
+		FacetingRequest rangeRequest = queryBuilder( Cd.class ).facet()
+				.name( priceRange )
+				.onField( indexFieldName )
+				.range()
+				.below( 1500 )
+				.from( 999 ).to( 1600 )
+				.from( 1500 ).excludeLimit().to( 2000 )
+				.from( 1500 ).to( 1500 )
+				.above( 1800 )
+				.orderedBy( FacetSortOrder.RANGE_DEFINITION_ODER )
+				.createFacetingRequest();
+		FullTextQuery query = createMatchAllQuery( Cd.class );
+		FacetManager facetManager = query.getFacetManager();
+		facetManager.enableFaceting( rangeRequest );
+
+		List<Facet> facets = facetManager.getFacets( priceRange );
+		assertFacetCounts( facets, new int[] { 5, 5, 4, 3, 3 } );
+	}
+
+	public void testOverlappingRangesForDouble() {
+		FacetingRequest rangeRequest = queryBuilder( Fruit.class ).facet()
+				.name( priceRange )
+				.onField( indexFieldName )
+				.range()
+				.from( 0.99 ).to( 1.60 )
+				.from( 1.50 ).excludeLimit().to( 2.00 )
+				.from( 0.00 ).to( 3.00 )
+				.above( 1.70 )
+				.orderedBy( FacetSortOrder.RANGE_DEFINITION_ODER )
+				.createFacetingRequest();
+		FullTextQuery query = createMatchAllQuery( Fruit.class );
+		FacetManager facetManager = query.getFacetManager();
+		facetManager.enableFaceting( rangeRequest );
+
+		List<Facet> facets = facetManager.getFacets( priceRange );
+		assertFacetCounts( facets, new int[] { 5, 4, 10, 4 } );
+	}
+
 	public void testStringRangeFaceting() {
 		final String facetingName = "albumNameFaceting";
 		final String fieldName = "name_un_analyzed";
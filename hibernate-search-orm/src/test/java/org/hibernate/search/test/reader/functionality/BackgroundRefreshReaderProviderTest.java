@@ -0,0 +1,112 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.reader.functionality;
+
+import java.util.Collections;
+
+import org.apache.lucene.analysis.SimpleAnalyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.spi.ReaderProvider;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that the shared IndexReaders refreshed in background see the changes
+ * committed by the backend right away, and the other ones within the maximum staleness.
+ */
+public class BackgroundRefreshReaderProviderTest {
+
+	@Test
+	public void changesCommittedByTheBackendAreVisible() throws Exception {
+		FullTextSessionBuilder builder = createBuilder( "60000" );
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			ReaderProvider readerProvider = indexManager.getReaderProvider();
+			IndexReader reader = readerProvider.openIndexReader();
+			IndexReader sameReader = readerProvider.openIndexReader();
+			// no changes: the current IndexReader is shared
+			assertSame( reader, sameReader );
+			assertEquals( 0, reader.numDocs() );
+			readerProvider.closeIndexReader( sameReader );
+			readerProvider.closeIndexReader( reader );
+
+			indexManager.performOperations( Collections.singletonList( createAddWork( 1 ) ), null );
+			reader = readerProvider.openIndexReader();
+			assertEquals( 1, reader.numDocs() );
+			readerProvider.closeIndexReader( reader );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void otherChangesAreVisibleWithinMaxStaleness() throws Exception {
+		FullTextSessionBuilder builder = createBuilder( "100" );
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			ReaderProvider readerProvider = indexManager.getReaderProvider();
+			IndexWriter writer = new IndexWriter(
+					indexManager.getDirectoryProvider().getDirectory(),
+					new IndexWriterConfig( Environment.DEFAULT_LUCENE_MATCH_VERSION, new SimpleAnalyzer( Environment.DEFAULT_LUCENE_MATCH_VERSION ) )
+			);
+			writer.addDocument( createAddWork( 1 ).getDocument() );
+			writer.close();
+
+			long timeout = System.currentTimeMillis() + 10000;
+			while ( true ) {
+				IndexReader reader = readerProvider.openIndexReader();
+				int numDocs = reader.numDocs();
+				readerProvider.closeIndexReader( reader );
+				if ( numDocs == 1 ) {
+					break;
+				}
+				assertTrue( "IndexReader not refreshed", System.currentTimeMillis() < timeout );
+				Thread.sleep( 20 );
+			}
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static FullTextSessionBuilder createBuilder(String maxStaleness) {
+		return new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.reader.max_staleness", maxStaleness )
+			// lets the second test write to the index
+			.setProperty( "hibernate.search.default." + Environment.EXCLUSIVE_INDEX_USE, "false" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+	}
+
+}
@@ -47,6 +47,7 @@ import org.apache.lucene.store.RAMDirectory;
 
 import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
 import org.hibernate.search.indexes.impl.SharingBufferReaderProvider;
+import org.hibernate.search.indexes.spi.IndexCommitListener;
 import org.hibernate.search.spi.BuildContext;
 import org.hibernate.search.store.DirectoryProvider;
 import org.hibernate.search.store.impl.RAMDirectoryProvider;
@@ -66,6 +67,7 @@ public class ExtendedSharingBufferReaderProvider extends SharingBufferReaderProv
 	private final RAMDirectoryProvider[] directories = new RAMDirectoryProvider[ NUM_DIRECTORY_PROVIDERS ];
 	private final AtomicInteger currentDirectoryIndex = new AtomicInteger();
 	private volatile RAMDirectoryProvider currentDirectory;
+	private final MockDirectoryBasedIndexManager indexManager = new MockDirectoryBasedIndexManager();
 	
 	public ExtendedSharingBufferReaderProvider() {
 		for ( int i = 0; i < NUM_DIRECTORY_PROVIDERS; i++ ) {
@@ -134,7 +136,25 @@ public class ExtendedSharingBufferReaderProvider extends SharingBufferReaderProv
 
 	@Override
 	public void initialize(DirectoryBasedIndexManager indexManager, Properties props) {
-		super.initialize( new MockDirectoryBasedIndexManager(), null );
+		super.initialize( this.indexManager, props );
+	}
+
+	/**
+	 * Notifies the registered IndexCommitListeners, as the Lucene backend does after a commit
+	 */
+	public void indexCommitted() {
+		for ( IndexCommitListener listener : indexManager.getIndexCommitListeners() ) {
+			listener.indexCommitted();
+		}
+	}
+
+	/**
+	 * Waits for the registered IndexCommitListeners to process the notified commits
+	 */
+	public void waitForCommitsProcessed() {
+		for ( IndexCommitListener listener : indexManager.getIndexCommitListeners() ) {
+			listener.waitForCommitsProcessed();
+		}
 	}
 
 	public boolean areAllOldReferencesGone() {
@@ -0,0 +1,208 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.reader.functionality;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.FieldCache;
+
+import org.hibernate.search.Environment;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.indexes.impl.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.spi.IndexReaderWarmer;
+import org.hibernate.search.indexes.spi.ReaderProvider;
+import org.hibernate.search.stat.Statistics;
+import org.hibernate.search.test.Clock;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.createAddWork;
+import static org.hibernate.search.test.backend.StreamWorkBatchingTest.getIndexManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that reopened IndexReaders are warmed before being used by queries, without
+ * blocking them, and that the time spent is reported by the statistics.
+ */
+public class ReaderWarmerTest {
+
+	@Before
+	public void resetCaches() {
+		FieldCache.DEFAULT.purgeAllCaches();
+		CountingWarmer.warmedReaders.set( 0 );
+	}
+
+	@Test
+	public void sharedReadersAreWarmed() throws Exception {
+		FullTextSessionBuilder builder = createBuilder().build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			ReaderProvider readerProvider = indexManager.getReaderProvider();
+			indexManager.performOperations( Collections.singletonList( createAddWork( 1 ) ), null );
+			IndexReader reader = readerProvider.openIndexReader();
+			readerProvider.closeIndexReader( reader );
+
+			assertEquals( 1, CountingWarmer.warmedReaders.get() );
+			assertFieldsCached( ProjectionConstants.OBJECT_CLASS, "brand" );
+			assertWarmupStatistics( builder.getSearchFactory().getStatistics(), 1 );
+
+			// not reopened, not warmed again
+			reader = readerProvider.openIndexReader();
+			readerProvider.closeIndexReader( reader );
+			assertEquals( 1, CountingWarmer.warmedReaders.get() );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	@Test
+	public void queriesUseCurrentReaderWhileWarming() throws Exception {
+		BlockingWarmer.warming = new CountDownLatch( 1 );
+		BlockingWarmer.resume = new CountDownLatch( 1 );
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default." + Environment.READER_WARMER, BlockingWarmer.class.getName() )
+			.setProperty( "hibernate.search.default." + Environment.WORKER_EXECUTION, "async" )
+			.addAnnotatedClass( Clock.class )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			ReaderProvider readerProvider = indexManager.getReaderProvider();
+			indexManager.performOperations( Collections.singletonList( createAddWork( 1 ) ), null );
+			assertTrue( "reopened reader not warmed", BlockingWarmer.warming.await( 10, TimeUnit.SECONDS ) );
+
+			// the warmer is blocked: queries get the previous reader, without waiting
+			IndexReader reader = readerProvider.openIndexReader();
+			assertEquals( 0, reader.numDocs() );
+			readerProvider.closeIndexReader( reader );
+
+			BlockingWarmer.resume.countDown();
+			long deadline = System.currentTimeMillis() + 10000;
+			int numDocs = 0;
+			while ( numDocs == 0 && System.currentTimeMillis() < deadline ) {
+				Thread.sleep( 10 );
+				reader = readerProvider.openIndexReader();
+				numDocs = reader.numDocs();
+				readerProvider.closeIndexReader( reader );
+			}
+			assertEquals( 1, numDocs );
+		}
+		finally {
+			BlockingWarmer.resume.countDown();
+			builder.close();
+		}
+	}
+
+	@Test
+	public void nearRealTimeReadersAreWarmed() throws Exception {
+		FullTextSessionBuilder builder = createBuilder()
+			.setProperty( "hibernate.search.default." + Environment.INDEX_MANAGER_IMPL_NAME, "near-real-time" )
+			.build();
+		try {
+			DirectoryBasedIndexManager indexManager = getIndexManager( builder );
+			indexManager.performOperations( Collections.singletonList( createAddWork( 1 ) ), null );
+			ReaderProvider readerProvider = indexManager.getReaderProvider();
+			IndexReader reader = readerProvider.openIndexReader();
+			assertEquals( 1, reader.numDocs() );
+			readerProvider.closeIndexReader( reader );
+
+			assertEquals( 1, CountingWarmer.warmedReaders.get() );
+			assertFieldsCached( ProjectionConstants.OBJECT_CLASS, "brand" );
+			assertWarmupStatistics( builder.getSearchFactory().getStatistics(), 1 );
+		}
+		finally {
+			builder.close();
+		}
+	}
+
+	private static FullTextSessionBuilder createBuilder() {
+		return new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default." + Environment.READER_WARMER, "field_cache, " + CountingWarmer.class.getName() )
+			.setProperty( "hibernate.search.default.reader.warmer.sort_fields", "brand" )
+			.setProperty( Environment.GENERATE_STATS, "true" )
+			.addAnnotatedClass( Clock.class );
+	}
+
+	private static void assertFieldsCached(String... fieldNames) {
+		Set<String> cachedFields = new HashSet<String>();
+		for ( FieldCache.CacheEntry entry : FieldCache.DEFAULT.getCacheEntries() ) {
+			cachedFields.add( entry.getFieldName() );
+		}
+		for ( String fieldName : fieldNames ) {
+			assertTrue( "Field not warmed: " + fieldName, cachedFields.contains( fieldName ) );
+		}
+	}
+
+	private static void assertWarmupStatistics(Statistics statistics, int expectedCount) {
+		assertEquals( expectedCount, statistics.getReaderWarmupCount() );
+		assertTrue( statistics.getReaderWarmupTotalTime() > 0 );
+		assertTrue( statistics.getReaderWarmupMaxTime() <= statistics.getReaderWarmupTotalTime() );
+	}
+
+	public static class CountingWarmer implements IndexReaderWarmer {
+
+		static final AtomicInteger warmedReaders = new AtomicInteger();
+
+		@Override
+		public void initialize(DirectoryBasedIndexManager indexManager, Properties properties) {
+			assertEquals( "brand", properties.getProperty( "warmer.sort_fields" ) );
+		}
+
+		@Override
+		public void warm(IndexReader reader) throws IOException {
+			warmedReaders.incrementAndGet();
+		}
+
+	}
+
+	public static class BlockingWarmer implements IndexReaderWarmer {
+
+		static volatile CountDownLatch warming;
+		static volatile CountDownLatch resume;
+
+		@Override
+		public void initialize(DirectoryBasedIndexManager indexManager, Properties properties) {
+		}
+
+		@Override
+		public void warm(IndexReader reader) throws IOException {
+			warming.countDown();
+			try {
+				resume.await();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+}
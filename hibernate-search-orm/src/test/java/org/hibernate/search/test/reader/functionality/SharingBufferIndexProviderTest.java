@@ -26,6 +26,7 @@ package org.hibernate.search.test.reader.functionality;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -56,6 +57,19 @@ public class SharingBufferIndexProviderTest {
 	@Test
 	public void testStressingMock() throws InterruptedException {
 		readerProvider.initialize(null, null);
+		stress();
+	}
+
+	@Test
+	public void testStressingMockWithBackgroundRefresh() throws InterruptedException {
+		Properties props = new Properties();
+		// long enough for all refreshes to be triggered by the ChangeTasks
+		props.setProperty( "max_staleness", "600000" );
+		readerProvider.initialize( null, props );
+		stress();
+	}
+
+	private void stress() throws InterruptedException {
 		ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool( 50 ); //much chaos
 		for ( int i = 0; i < SEARCHES_NUM; i++ ) {
 			executor.execute( makeTask( i ) );
@@ -63,6 +77,7 @@ public class SharingBufferIndexProviderTest {
 		executor.shutdown();
 		startSignal.countDown();
 		executor.awaitTermination( 500, TimeUnit.SECONDS );
+		readerProvider.waitForCommitsProcessed();
 		assertTrue( "memory leak: holding a reference to some unused IndexReader", readerProvider.areAllOldReferencesGone() );
 		for ( MockIndexReader reader : readerProvider.getCreatedIndexReaders() ) {
 			if ( readerProvider.isReaderCurrent( reader ) ) {
@@ -109,6 +124,7 @@ public class SharingBufferIndexProviderTest {
 			super.run();
 			Thread.yield();
 			readerProvider.currentDPWasWritten();
+			readerProvider.indexCommitted();
 			countDoneIndexmods.incrementAndGet();
 		}
 	}
@@ -0,0 +1,85 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.reader.nrtreaders;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.NRTIndexManager;
+import org.hibernate.search.test.Document;
+import org.hibernate.search.test.SearchTestCase;
+import org.hibernate.search.util.impl.ContextHelper;
+
+/**
+ * Verifies that with a maximum staleness the NRT IndexReaders are not refreshed after
+ * each transaction, and that queries can wait for their own changes to be visible.
+ */
+public class BoundedStalenessNRTTest extends SearchTestCase {
+
+	public void testWaitForGeneration() throws Exception {
+		SearchFactoryImplementor searchFactory = ContextHelper.getSearchFactoryBySFI( (SessionFactoryImplementor) sessions );
+		NRTIndexManager indexManager = (NRTIndexManager) searchFactory.getAllIndexesManager().getIndexManager( "Documents" );
+		assertEquals( 0, getDocumentNbrFromReaderProvider( indexManager ) );
+		long initialGeneration = indexManager.getCurrentGeneration();
+
+		Session s = getSessions().openSession();
+		s.getTransaction().begin();
+		s.persist( new Document( "Hibernate in Action", "Object/relational mapping with Hibernate", "blah blah blah" ) );
+		s.getTransaction().commit();
+		s.close();
+
+		long generation = indexManager.getCurrentGeneration();
+		assertTrue( generation > initialGeneration );
+		// the staleness is way longer than this test
+		assertEquals( 0, getDocumentNbrFromReaderProvider( indexManager ) );
+
+		assertTrue( indexManager.waitForGeneration( generation, 10, TimeUnit.SECONDS ) );
+		assertEquals( 1, getDocumentNbrFromReaderProvider( indexManager ) );
+		assertFalse( indexManager.waitForGeneration( generation + 1, 10, TimeUnit.MILLISECONDS ) );
+	}
+
+	private int getDocumentNbrFromReaderProvider(NRTIndexManager indexManager) {
+		IndexReader reader = indexManager.getReaderProvider().openIndexReader();
+		try {
+			return reader.numDocs();
+		}
+		finally {
+			indexManager.getReaderProvider().closeIndexReader( reader );
+		}
+	}
+
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class[] {
+				Document.class
+		};
+	}
+
+	protected void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( "hibernate.search.default.indexmanager", "near-real-time" );
+		cfg.setProperty( "hibernate.search.default.nrt.max_staleness", "600000" );
+	}
+
+}
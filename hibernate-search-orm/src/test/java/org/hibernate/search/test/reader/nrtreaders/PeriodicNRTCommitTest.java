@@ -0,0 +1,154 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.reader.nrtreaders;
+
+import java.io.File;
+
+import org.apache.lucene.index.IndexReader;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.indexes.impl.NRTIndexManager;
+import org.hibernate.search.stat.Statistics;
+import org.hibernate.search.test.Document;
+import org.hibernate.search.test.SearchTestCase;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.hibernate.search.util.impl.ContextHelper;
+import org.hibernate.search.util.impl.FileHelper;
+
+/**
+ * Verifies that the NRTIndexManager commits the changes in background once
+ * enough operations are waiting for a commit, and that the committed generation
+ * is restored when the index is opened again.
+ */
+public class PeriodicNRTCommitTest extends SearchTestCase {
+
+	public void testCommitAfterMaxOperations() throws Exception {
+		SearchFactoryImplementor searchFactory = ContextHelper.getSearchFactoryBySFI( (SessionFactoryImplementor) sessions );
+		NRTIndexManager indexManager = (NRTIndexManager) searchFactory.getAllIndexesManager().getIndexManager( "Documents" );
+		Statistics statistics = searchFactory.getStatistics();
+		assertEquals( 0, indexManager.getUncommittedOperations() );
+
+		persistDocument( getSessions().openSession(), "Hibernate in Action" );
+		assertEquals( 1, indexManager.getUncommittedOperations() );
+		assertEquals( 0, indexManager.getLastCommittedGeneration() );
+		assertEquals( 0, getDocumentNbrFromDirectory( indexManager ) );
+		assertEquals( 1, statistics.getNRTUncommittedOperations() );
+		assertEquals( 1, statistics.getNRTCommitLag() );
+
+		persistDocument( getSessions().openSession(), "Lucene in Action" );
+		long generation = indexManager.getCurrentGeneration();
+		long timeout = System.currentTimeMillis() + 10000;
+		while ( indexManager.getLastCommittedGeneration() < generation ) {
+			assertTrue( "Changes not committed", System.currentTimeMillis() < timeout );
+			Thread.sleep( 20 );
+		}
+		assertEquals( 0, indexManager.getUncommittedOperations() );
+		assertTrue( indexManager.getLastCommitDurationMillis() >= 0 );
+		assertEquals( 2, getDocumentNbrFromDirectory( indexManager ) );
+		assertEquals( 0, statistics.getNRTUncommittedOperations() );
+		assertEquals( 0, statistics.getNRTCommitLag() );
+		assertEquals( indexManager.getLastCommitDurationMillis(), statistics.getNRTLastCommitMaxTime() );
+	}
+
+	public void testCommittedGenerationIsRestored() throws Exception {
+		File indexBase = new File( FullTextSessionBuilder.indexRootDirectory, "PeriodicNRTCommitTest" );
+		try {
+			FullTextSessionBuilder builder = createFileSystemBuilder( indexBase );
+			for ( String title : new String[] { "Hibernate in Action", "Lucene in Action", "Seam in Action" } ) {
+				persistDocument( builder.openFullTextSession(), title );
+			}
+			NRTIndexManager indexManager = getIndexManager( builder );
+			assertEquals( 3, indexManager.getCurrentGeneration() );
+			// the last change is committed when closing
+			builder.close();
+
+			builder = createFileSystemBuilder( indexBase );
+			try {
+				indexManager = getIndexManager( builder );
+				assertEquals( 3, indexManager.getCurrentGeneration() );
+				assertEquals( 3, indexManager.getLastCommittedGeneration() );
+				assertEquals( 0, builder.getSearchFactory().getStatistics().getNRTCommitLag() );
+				persistDocument( builder.openFullTextSession(), "JBoss in Action" );
+				assertEquals( 4, indexManager.getCurrentGeneration() );
+				assertEquals( 4, getDocumentNbrFromDirectory( indexManager ) + indexManager.getUncommittedOperations() );
+			}
+			finally {
+				builder.close();
+			}
+		}
+		finally {
+			FileHelper.delete( indexBase );
+		}
+	}
+
+	private FullTextSessionBuilder createFileSystemBuilder(File indexBase) {
+		return new FullTextSessionBuilder()
+				.addAnnotatedClass( Document.class )
+				.setProperty( "hibernate.search.default.directory_provider", "filesystem" )
+				.setProperty( "hibernate.search.default.indexBase", indexBase.getAbsolutePath() )
+				.setProperty( "hibernate.search.default.indexmanager", "near-real-time" )
+				.setProperty( "hibernate.search.default.nrt.commit.max_operations", "2" )
+				.build();
+	}
+
+	private NRTIndexManager getIndexManager(FullTextSessionBuilder builder) {
+		Session session = builder.openFullTextSession();
+		try {
+			SearchFactoryImplementor searchFactory = ContextHelper.getSearchFactory( session );
+			return (NRTIndexManager) searchFactory.getAllIndexesManager().getIndexManager( "Documents" );
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private void persistDocument(Session s, String title) {
+		s.getTransaction().begin();
+		s.persist( new Document( title, "Object/relational mapping with Hibernate", "blah blah blah" ) );
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	private int getDocumentNbrFromDirectory(NRTIndexManager indexManager) throws Exception {
+		IndexReader reader = IndexReader.open( indexManager.getDirectoryProvider().getDirectory(), true );
+		try {
+			return reader.numDocs();
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class[] {
+				Document.class
+		};
+	}
+
+	protected void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( "hibernate.search.default.indexmanager", "near-real-time" );
+		cfg.setProperty( "hibernate.search.default.nrt.commit.max_operations", "2" );
+	}
+
+}
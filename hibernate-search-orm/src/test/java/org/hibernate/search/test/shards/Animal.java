@@ -28,13 +28,16 @@ import javax.persistence.Id;
 
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.FullTextFilterDef;
 import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.filter.IdFilter;
 
 /**
  * @author Emmanuel Bernard
  */
 @Entity
 @Indexed(index = "Animal")
+@FullTextFilterDef(name = "ids", impl = IdFilter.class)
 public class Animal {
 	@Id
 	@DocumentId
@@ -0,0 +1,207 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.shards;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.engine.spi.SearchFactoryImplementor;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.engine.spi.FacetManager;
+import org.hibernate.search.query.facet.Facet;
+import org.hibernate.search.query.facet.FacetingRequest;
+import org.hibernate.search.test.query.facet.Car;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that searching the shards of an entity in parallel returns the same
+ * results as searching them sequentially.
+ */
+public class ParallelShardSearchTest {
+
+	private static final String[] colors = { "red", "black", "white", "blue" };
+	private static final String[] makes = { "Honda", "Toyota", "BMW", "Mercedes" };
+	private static final int[] ccs = { 3398, 2407, 2831 };
+	private static final int CARS = 60;
+
+	private static final Set<String> searchingThreads = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+
+	@Test
+	public void parallelSearchMatchesSequentialSearch() throws Exception {
+		List<Object> sequentialResults;
+		FullTextSessionBuilder builder = createBuilder( 0 );
+		try {
+			assertNull( ( (SearchFactoryImplementor) builder.getSearchFactory() ).getShardSearchExecutor() );
+			sequentialResults = runQueries( builder );
+		}
+		finally {
+			builder.close();
+		}
+		assertFalse( searchingThreads.isEmpty() );
+		for ( String thread : searchingThreads ) {
+			assertFalse( thread.contains( "Shard search" ) );
+		}
+
+		searchingThreads.clear();
+		builder = createBuilder( 3 );
+		try {
+			assertNotNull( ( (SearchFactoryImplementor) builder.getSearchFactory() ).getShardSearchExecutor() );
+			assertEquals( sequentialResults, runQueries( builder ) );
+		}
+		finally {
+			builder.close();
+		}
+		boolean searchedByExecutor = false;
+		for ( String thread : searchingThreads ) {
+			searchedByExecutor = searchedByExecutor || thread.contains( "Shard search" );
+		}
+		assertTrue( "Shards not searched by the executor: " + searchingThreads, searchedByExecutor );
+	}
+
+	private static FullTextSessionBuilder createBuilder(int threads) {
+		FullTextSessionBuilder builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", "4" )
+			.setProperty( Environment.QUERY_SHARDS_THREADS, String.valueOf( threads ) )
+			.addAnnotatedClass( Car.class )
+			.build();
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 0; i < CARS; i++ ) {
+				session.persist( new Car( makes[i / 4 % makes.length], colors[i % colors.length], ccs[i % ccs.length] ) );
+			}
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+		return builder;
+	}
+
+	/**
+	 * @return the results of some queries, as comparable values
+	 */
+	private static List<Object> runQueries(FullTextSessionBuilder builder) throws Exception {
+		List<Object> results = new ArrayList<Object>();
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			QueryBuilder queryBuilder = session.getSearchFactory().buildQueryBuilder().forEntity( Car.class ).get();
+
+			// sorted by field
+			FullTextQuery query = session.createFullTextQuery( new MatchAllDocsQuery(), Car.class )
+					.setSort( new Sort( new SortField( "color", SortField.STRING ), new SortField( "cubicCapacity", SortField.STRING, true ) ) )
+					.setProjection( ProjectionConstants.ID )
+					.setFilter( new RecordingFilter() )
+					.setMaxResults( 25 );
+			results.add( projectedIds( query.list() ) );
+			results.add( query.getResultSize() );
+
+			// sorted by score
+			query = session.createFullTextQuery(
+					queryBuilder.keyword().onField( "make" ).matching( "honda toyota" ).createQuery(), Car.class
+			)
+					.setProjection( ProjectionConstants.ID, ProjectionConstants.SCORE )
+					.setFirstResult( 3 )
+					.setMaxResults( 10 );
+			for ( Object[] projection : (List<Object[]>) query.list() ) {
+				results.add( projection[0] + ":" + projection[1] );
+			}
+			results.add( query.getResultSize() );
+
+			// result size only
+			query = session.createFullTextQuery(
+					queryBuilder.keyword().onField( "color" ).matching( "red" ).createQuery(), Car.class
+			);
+			results.add( query.getResultSize() );
+
+			// entities and facets
+			FacetingRequest facetingRequest = queryBuilder.facet()
+					.name( "colors" )
+					.onField( "color" )
+					.discrete()
+					.includeZeroCounts( true )
+					.createFacetingRequest();
+			query = session.createFullTextQuery(
+					queryBuilder.keyword().onField( "make" ).matching( "bmw" ).createQuery(), Car.class
+			);
+			FacetManager facetManager = query.getFacetManager();
+			facetManager.enableFaceting( facetingRequest );
+			results.add( query.list().size() );
+			for ( Facet facet : facetManager.getFacets( "colors" ) ) {
+				results.add( facet.getValue() + ":" + facet.getCount() );
+			}
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+		return results;
+	}
+
+	private static List<Object> projectedIds(List<?> projections) {
+		List<Object> ids = new ArrayList<Object>();
+		for ( Object projection : projections ) {
+			ids.add( ( (Object[]) projection )[0] );
+		}
+		return ids;
+	}
+
+	/**
+	 * Matches all documents, recording the threads searching the index.
+	 */
+	public static class RecordingFilter extends Filter {
+
+		private final Filter delegate = new QueryWrapperFilter( new MatchAllDocsQuery() );
+
+		@Override
+		public DocIdSet getDocIdSet(IndexReader reader) throws IOException {
+			searchingThreads.add( Thread.currentThread().getName() );
+			return delegate.getDocIdSet( reader );
+		}
+
+	}
+
+}
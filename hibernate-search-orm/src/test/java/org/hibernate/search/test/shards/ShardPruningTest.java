@@ -0,0 +1,189 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.search.test.shards;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+
+import org.hibernate.Transaction;
+import org.hibernate.search.Environment;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.ProjectionConstants;
+import org.hibernate.search.filter.IdFilter;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.stat.Statistics;
+import org.hibernate.search.test.util.FullTextSessionBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies that queries restricted to some identifiers only search the shards
+ * of IdHashShardingStrategy which can contain them, for string and numeric identifiers.
+ */
+public class ShardPruningTest {
+
+	private static final String[] names = { "Elephant", "Bear", "Mouse", "Dolphin" };
+
+	private FullTextSessionBuilder builder;
+	private Statistics statistics;
+
+	@Before
+	public void setUp() {
+		builder = new FullTextSessionBuilder()
+			.setProperty( "hibernate.search.default.sharding_strategy.nbr_of_shards", "4" )
+			.setProperty( Environment.GENERATE_STATS, "true" )
+			.addAnnotatedClass( Animal.class )
+			.addAnnotatedClass( Plant.class )
+			.build();
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			for ( int i = 1; i <= 20; i++ ) {
+				Animal animal = new Animal();
+				animal.setId( i );
+				animal.setName( names[i % names.length] );
+				session.persist( animal );
+				Plant plant = new Plant();
+				plant.setId( i );
+				plant.setName( names[i % names.length] );
+				session.persist( plant );
+			}
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+		statistics = builder.getSearchFactory().getStatistics();
+		statistics.clear();
+	}
+
+	@After
+	public void tearDown() {
+		builder.close();
+	}
+
+	@Test
+	public void idFilterSearchesOnlyShardsOfIds() {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			// "3" and "7" hash to the same shard
+			FullTextQuery query = session.createFullTextQuery( new MatchAllDocsQuery(), Animal.class );
+			query.enableFullTextFilter( "ids" ).setParameter( IdFilter.IDS, Arrays.asList( 3, 7 ) );
+			assertEquals( Arrays.asList( 3, 7 ), sortedIds( query ) );
+			assertEquals( 3, statistics.getSearchQueryPrunedShardsCount() );
+
+			// "4" hashes to another shard
+			query = session.createFullTextQuery( new MatchAllDocsQuery(), Animal.class );
+			query.enableFullTextFilter( "ids" ).setParameter( IdFilter.IDS, new Integer[] { 3, 4, 21 } );
+			assertEquals( Arrays.asList( 3, 4 ), sortedIds( query ) );
+			assertEquals( 3 + 2, statistics.getSearchQueryPrunedShardsCount() );
+
+			query = session.createFullTextQuery( new MatchAllDocsQuery(), Animal.class );
+			query.enableFullTextFilter( "ids" ).setParameter( IdFilter.IDS, Collections.emptyList() );
+			assertEquals( 0, query.getResultSize() );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	@Test
+	public void idRestrictedQuerySearchesOnlyShardsOfIds() {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			QueryBuilder queryBuilder = session.getSearchFactory().buildQueryBuilder().forEntity( Animal.class ).get();
+			Query ids = queryBuilder.bool()
+					.should( queryBuilder.keyword().onField( "id" ).ignoreAnalyzer().matching( 5 ).createQuery() )
+					.should( queryBuilder.keyword().onField( "id" ).ignoreAnalyzer().matching( 6 ).createQuery() )
+					.should( queryBuilder.keyword().onField( "id" ).ignoreAnalyzer().matching( 9 ).createQuery() )
+					.createQuery();
+			assertEquals( Arrays.asList( 5, 6, 9 ), sortedIds( session.createFullTextQuery( ids, Animal.class ) ) );
+			assertEquals( 2, statistics.getSearchQueryPrunedShardsCount() );
+
+			Query bears = queryBuilder.bool()
+					.must( ids )
+					.must( queryBuilder.keyword().onField( "name" ).matching( "bear" ).createQuery() )
+					.createQuery();
+			assertEquals( Arrays.asList( 5, 9 ), sortedIds( session.createFullTextQuery( bears, Animal.class ) ) );
+			assertEquals( 2 + 2, statistics.getSearchQueryPrunedShardsCount() );
+
+			// optional clauses not restricted to identifiers can match documents in any shard:
+			// the five mice, 6 among them, and 5 and 9
+			Query idsOrMice = queryBuilder.bool()
+					.should( ids )
+					.should( queryBuilder.keyword().onField( "name" ).matching( "mouse" ).createQuery() )
+					.createQuery();
+			assertEquals( 7, session.createFullTextQuery( idsOrMice, Animal.class ).getResultSize() );
+			assertEquals( 2 + 2, statistics.getSearchQueryPrunedShardsCount() );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	@Test
+	public void numericIdsSearchOnlyShardsOfIds() {
+		FullTextSession session = builder.openFullTextSession();
+		try {
+			Transaction transaction = session.beginTransaction();
+			FullTextQuery query = session.createFullTextQuery( new MatchAllDocsQuery(), Plant.class );
+			query.enableFullTextFilter( "plantIds" ).setParameter( IdFilter.IDS, Arrays.asList( 3, 7 ) );
+			assertEquals( Arrays.asList( 3, 7 ), sortedIds( query ) );
+			assertEquals( 3, statistics.getSearchQueryPrunedShardsCount() );
+
+			BooleanQuery ids = new BooleanQuery();
+			ids.add( NumericRangeQuery.newIntRange( "id", 5, 5, true, true ), BooleanClause.Occur.SHOULD );
+			ids.add( NumericRangeQuery.newIntRange( "id", 9, 9, true, true ), BooleanClause.Occur.SHOULD );
+			assertEquals( Arrays.asList( 5, 9 ), sortedIds( session.createFullTextQuery( ids, Plant.class ) ) );
+			assertEquals( 3 + 3, statistics.getSearchQueryPrunedShardsCount() );
+			transaction.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	private static List<Integer> sortedIds(FullTextQuery query) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for ( Object result : query.setProjection( ProjectionConstants.ID ).list() ) {
+			ids.add( (Integer) ( (Object[]) result )[0] );
+		}
+		Collections.sort( ids );
+		return ids;
+	}
+
+}